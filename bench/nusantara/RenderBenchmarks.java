@@ -0,0 +1,101 @@
+package nusantara;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark satu frame penuh (terbitkan FrameSnapshot + paintComponent) ke BufferedImage
+ * offscreen (headless), tanpa game loop dan tanpa EDT.
+ *
+ * towerHeight &gt; TOWER_TARGET_HEIGHT memakai mode tanpa batas; biaya per frame
+ * seharusnya sama untuk menara 10 maupun 20.000 balok karena culling viewport.
+ * Begitu juga untuk kota 1000x1000: CityView hanya menempelkan tile yang terlihat.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmarks {
+
+    @Param({"1", "20000"})
+    public int towerHeight;
+
+    private NusantaraTower game;
+    private NusantaraTower largeCityGame;
+    private TowerSimulation largeCity;
+    private BufferedImage frame;
+    private Graphics2D g;
+
+    @Setup
+    public void setUp() {
+        TowerSimulation sim = new TowerSimulation(42);
+        if (towerHeight > 1) {
+            sim.setEndlessMode(true);
+            TowerStore tower = sim.getTower();
+            while (tower.size() < towerHeight) {
+                // Daratkan balok tepat di tengah puncak menara
+                TowerSimulation.Block hanging = sim.getHangingBlock();
+                hanging.x = tower.centerX(tower.top()) - hanging.width / 2;
+                hanging.y = TowerStore.y(tower.top()) - hanging.height;
+                sim.checkCollision();
+            }
+        }
+        game = new NusantaraTower(sim);
+        game.setSize(TowerSimulation.PLAYFIELD_WIDTH, TowerSimulation.PLAYFIELD_HEIGHT);
+
+        // Kota 1000x1000 setengah terisi acak
+        largeCity = new TowerSimulation(42, CityGrid.rectangular(1000, 1000));
+        Random random = new Random(7);
+        BlockType[] types = BlockType.values();
+        for (int i = 0; i < 500_000; i++) {
+            largeCity.getCity().place(random.nextInt(1_000_000), types[random.nextInt(types.length)], 1 + random.nextInt(15));
+        }
+        largeCityGame = new NusantaraTower(largeCity);
+        largeCityGame.setSize(TowerSimulation.PLAYFIELD_WIDTH, TowerSimulation.PLAYFIELD_HEIGHT);
+        frame = new BufferedImage(TowerSimulation.PLAYFIELD_WIDTH, TowerSimulation.PLAYFIELD_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g = frame.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintFrame() {
+        game.publishFrame(0.5);
+        game.paintComponent(g);
+        return frame;
+    }
+
+    /** Frame dengan kota 1000x1000 (seluruh kota tampil diperkecil); harus setara paintFrame. */
+    @Benchmark
+    public BufferedImage paintFrameLargeCity() {
+        largeCityGame.publishFrame(0.5);
+        largeCityGame.paintComponent(g);
+        return frame;
+    }
+
+    /** Menempatkan menara di kota 1000x1000 lalu menggambar: hanya sel dan tile yang berubah yang disalin/digambar ulang. */
+    @Benchmark
+    public BufferedImage placeAndPaintLargeCity() {
+        if (largeCity.getNextCityPlot() < 0) largeCity.clearCity();
+        largeCity.placeTowerInCity();
+        largeCityGame.publishFrame(0.5);
+        largeCityGame.paintComponent(g);
+        return frame;
+    }
+
+    /** Hanya bagian thread simulasi: menyalin state ke snapshot dan menukarnya. */
+    @Benchmark
+    public NusantaraTower publishFrame() {
+        game.publishFrame(0.5);
+        return game;
+    }
+}
@@ -0,0 +1,278 @@
+package nusantara;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark jalur panas aturan permainan di TowerSimulation.
+ * Setiap benchmark menjaga state tetap stabil antar pemanggilan agar yang diukur
+ * hanya operasi itu sendiri.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBenchmarks {
+
+    private static final BlockType[] TYPES = BlockType.values();
+
+    private TowerSimulation sim;
+    private TowerSimulation fullCity;
+    private int centerPlot;
+    private TowerSimulation largeCity;
+    private int[] largeCityPlots;
+    private int largeCityCursor;
+    private Leaderboard bigLeaderboard;
+    private long[] leaderboardScores;
+    private int leaderboardCursor;
+    private Replay recordedGame;
+    private CityPlanner planner;
+    private CityGrid plannerCity;
+    private List<BlockType> plannerQueue;
+    private List<String> largeUpgradeLines;
+    private TowerSimulation largeUpgrades;
+    private TowerSimulation broadcastGame;
+    private final SpectatorStream.Encoder spectatorEncoder = new SpectatorStream.Encoder();
+
+    @Setup
+    public void setUp() {
+        sim = new TowerSimulation(42);
+        // Menara setinggi 5 balok agar pendaratan tidak memicu TOWER_COMPLETE
+        TowerStore tower = sim.getTower();
+        for (int i = 1; i < 5; i++) {
+            tower.push(tower.x(tower.top()), tower.width(tower.top()), BlockType.BISNIS);
+        }
+
+        // Kota penuh (5x4) untuk benchmark sinergi
+        fullCity = new TowerSimulation(42);
+        for (int i = 0; i < TowerSimulation.CITY_GRID_WIDTH * TowerSimulation.CITY_GRID_HEIGHT; i++) {
+            fullCity.placeTowerInCity();
+        }
+        centerPlot = fullCity.getCity().index(2, 1);
+
+        // Kota 1000x1000 yang terisi acak; sinergi dievaluasi di petak acak agar akses memori realistis
+        Random random = new Random(7);
+        CityGrid grid = CityGrid.rectangular(1000, 1000);
+        BlockType[] types = BlockType.values();
+        largeCity = new TowerSimulation(42, grid);
+        for (int i = 0; i < grid.cellCount(); i++) {
+            grid.place(i, types[random.nextInt(types.length)], 10);
+        }
+        largeCity.getSynergy().recomputeParallel();
+        largeCityPlots = new int[1 << 16];
+        for (int i = 0; i < largeCityPlots.length; i++) {
+            largeCityPlots[i] = random.nextInt(grid.cellCount());
+        }
+
+        // Papan skor berisi 1 juta skor acak (rentang skor nyata dari BatchRunner)
+        bigLeaderboard = Leaderboard.inMemory(Leaderboard.DEFAULT_TOP_K);
+        for (int i = 0; i < 1_000_000; i++) {
+            bigLeaderboard.submit(random.nextInt(100_000));
+        }
+        leaderboardScores = new long[1 << 16];
+        for (int i = 0; i < leaderboardScores.length; i++) {
+            leaderboardScores[i] = random.nextInt(100_000);
+        }
+
+        // Kota 400x250 (100 ribu petak) terisi 10% untuk CityPlanner; anggaran waktu diabaikan
+        plannerCity = CityGrid.rectangular(400, 250);
+        for (int i = 0; i < plannerCity.cellCount() / 10; i++) {
+            plannerCity.place(random.nextInt(plannerCity.cellCount()), types[random.nextInt(types.length)], 10);
+        }
+        planner = new CityPlanner();
+        plannerQueue = List.of(BlockType.BISNIS, BlockType.TAMAN, BlockType.PERUMAHAN);
+
+        // Graf upgrade 5000 node, tiap node 1-3 prasyarat acak dari node sebelumnya, biaya 0
+        largeUpgradeLines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder prerequisites = new StringBuilder();
+            for (int p = 0, count = i < 8 ? 0 : 1 + random.nextInt(3); p < count; p++) {
+                if (p > 0) prerequisites.append(',');
+                prerequisites.append('u').append(random.nextInt(i));
+            }
+            largeUpgradeLines.add("u" + i + " | Upgrade " + i + " | | 0 | " + prerequisites
+                    + " | craneSpeed +1%, blockWidth +" + (i % 3));
+        }
+        largeUpgrades = new TowerSimulation(42, CityGrid.rectangular(5, 4), SynergyRules.defaults(),
+                UpgradeGraph.parse(largeUpgradeLines));
+
+        // Satu game penuh kebijakan "aimed" yang direkam, untuk mengukur pemutaran ulang
+        TowerSimulation recorded = new TowerSimulation(42);
+        recorded.setReplayRecorder(new ReplayRecorder(null));
+        InputPolicy policy = InputPolicy.aimed(6, 0.3, true);
+        GameRandom policyRandom = new GameRandom(7);
+        while (recorded.getGameState() != GameState.GAME_OVER) {
+            recorded.handleInput(policy.nextCommand(recorded, policyRandom));
+            recorded.tick();
+        }
+        recordedGame = recorded.getLastReplay();
+    }
+
+    /** Dijalankan sekali per balok yang dilepas: tick pendaratan dan tumpang tindih dihitung analitik. */
+    @Benchmark
+    public int predictLanding() {
+        TowerSimulation.Block hanging = sim.getHangingBlock();
+        hanging.y = 100;
+        sim.predictLanding();
+        return sim.getTicksToLanding();
+    }
+
+    /** Balok mendarat tepat di puncak; balok yang baru ditumpuk diangkat lagi setelahnya. */
+    @Benchmark
+    public int checkCollisionLanding() {
+        TowerSimulation.Block hanging = sim.getHangingBlock();
+        TowerStore tower = sim.getTower();
+        int top = tower.top();
+        hanging.x = tower.x(top) + 5;
+        hanging.y = TowerStore.y(top) - hanging.height;
+        sim.predictLanding();
+        sim.checkCollision();
+        tower.pop();
+        return tower.size();
+    }
+
+    @Benchmark
+    public long calculateSynergyBonus() {
+        return fullCity.getSynergy().contributionOf(centerPlot);
+    }
+
+    @Benchmark
+    public long calculateSynergyBonusLargeCity() {
+        int plot = largeCityPlots[largeCityCursor++ & (largeCityPlots.length - 1)];
+        return largeCity.getSynergy().contributionOf(plot);
+    }
+
+    /** Mengganti bangunan di petak acak kota 1000x1000 dan memperbarui total kota secara inkremental. */
+    @Benchmark
+    public long synergyReplaceLargeCity() {
+        int cursor = largeCityCursor++;
+        int plot = largeCityPlots[cursor & (largeCityPlots.length - 1)];
+        BlockType type = TYPES[cursor % TYPES.length];
+        return largeCity.getSynergy().place(plot, type, 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long synergyRecomputeParallelLargeCity() {
+        return largeCity.getSynergy().recomputeParallel();
+    }
+
+    /** Rencana 4 langkah di kota 100 ribu petak (pindai top-K paralel + beam search). */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long cityPlannerLargeCity() {
+        return planner.plan(plannerCity, SynergyRules.defaults(), BlockType.PERUMAHAN, plannerQueue, TimeUnit.SECONDS.toNanos(10)).totalGain();
+    }
+
+    /** Snapshot autosave di thread game untuk kota 1000x1000: copy-on-write, tidak bergantung ukuran kota. */
+    @Benchmark
+    public GameSnapshot snapshotStateLargeCity() {
+        return largeCity.snapshotState();
+    }
+
+    /**
+     * Snapshot lalu satu penempatan di kota 1000x1000, seperti autosave yang disusul balok berikutnya:
+     * penempatan pertama sesudah snapshot hanya menyalin satu halaman kota.
+     */
+    @Benchmark
+    public GameSnapshot placeAfterSnapshotLargeCity() {
+        GameSnapshot snapshot = largeCity.snapshotState();
+        int plot = largeCityPlots[largeCityCursor++ & (largeCityPlots.length - 1)];
+        largeCity.getCity().place(plot, TYPES[plot % TYPES.length], 10);
+        return snapshot;
+    }
+
+    /** Encoding snapshot kota 1000x1000 (dikerjakan thread Autosaver, bukan thread game). */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] encodeSnapshotLargeCity() {
+        return largeCity.snapshotState().encode();
+    }
+
+    /** Delta siaran satu tick game yang sedang dimainkan: dikerjakan sekali per tick, berapa pun penontonnya. */
+    @Benchmark
+    public ByteBuffer encodeSpectatorDelta() {
+        if (broadcastGame == null || broadcastGame.getGameState() == GameState.GAME_OVER) {
+            broadcastGame = new TowerSimulation(42);
+        }
+        if (broadcastGame.getTickCount() % 45 == 0) broadcastGame.handleInput(TowerSimulation.CMD_DROP, 0);
+        broadcastGame.tick();
+        return spectatorEncoder.delta(broadcastGame);
+    }
+
+    /** Bagian keyframe yang dikerjakan thread game: snapshot copy-on-write kota 1000x1000 dan menaranya. */
+    @Benchmark
+    public SpectatorStream.State snapshotSpectatorKeyframeLargeCity() {
+        return SpectatorStream.State.snapshot(largeCity);
+    }
+
+    /** Penyandian keyframe siaran kota 1000x1000 (thread server, untuk penonton baru atau tertinggal). */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ByteBuffer encodeSpectatorKeyframeLargeCity() {
+        return spectatorEncoder.keyframe(SpectatorStream.State.snapshot(largeCity));
+    }
+
+    /** Menempatkan menara di petak berikutnya; kota dikosongkan setiap kali penuh. */
+    @Benchmark
+    public long placeTowerInCity() {
+        if (sim.getNextCityPlot() < 0) {
+            sim.clearCity();
+        }
+        sim.placeTowerInCity();
+        return sim.getCurrentScore();
+    }
+
+    @Benchmark
+    public long addFinalScore() {
+        sim.addFinalScore();
+        return sim.getLastRank();
+    }
+
+    /** Mengirim skor ke papan skor berisi jutaan entri: peringkat O(log n) + top-K. */
+    @Benchmark
+    public long leaderboardSubmitLarge() {
+        long score = leaderboardScores[leaderboardCursor++ & (leaderboardScores.length - 1)];
+        return bigLeaderboard.submit(score);
+    }
+
+    @Benchmark
+    public long leaderboardRankOfLarge() {
+        long score = leaderboardScores[leaderboardCursor++ & (leaderboardScores.length - 1)];
+        return bigLeaderboard.rankOf(score);
+    }
+
+    /** Memainkan ulang satu game penuh secara headless (satu operasi = satu replay). */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long replayPlayback() {
+        return ReplayPlayer.play(recordedGame).getCurrentScore();
+    }
+
+    /** Membeli upgrade teratas di menu graf 5000 node; graf direset setiap kali habis dibeli. */
+    @Benchmark
+    public int purchaseUpgradeLargeGraph() {
+        UpgradeProgress upgrades = largeUpgrades.getUpgrades();
+        if (upgrades.frontierSize() == 0) upgrades.reset();
+        largeUpgrades.purchaseUpgrade(0);
+        return upgrades.stat(UpgradeGraph.Stat.BLOCK_WIDTH);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public UpgradeGraph loadUpgradeGraphLarge() {
+        return UpgradeGraph.parse(largeUpgradeLines);
+    }
+}
@@ -0,0 +1,121 @@
+package nusantara;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+/**
+ * ActiveRenderCanvas.java
+ *
+ * Jalur render aktif: thread game loop sendiri yang menggambar dan menampilkan frame
+ * lewat BufferStrategy, tanpa repaint() dan tanpa menunggu EDT. Setiap frame yang
+ * diterbitkan loop benar-benar tampil di layar saat present() kembali, sehingga waktu
+ * tampil bisa diukur.
+ *
+ * BufferStrategy meminta back buffer terakselerasi (VolatileImage di balik layar) dengan
+ * page flipping jika didukung, atau blit jika tidak. Isi VolatileImage bisa hilang kapan saja
+ * (mode layar berganti, layar terkunci, dsb); loop contentsRestored/contentsLost di
+ * present() menggambar ulang frame sampai benar-benar utuh tampil.
+ *
+ * Expose dari sistem (jendela tertutup lalu tampil lagi, ukuran berubah) tidak digambar di
+ * EDT; paint() hanya memberi tahu loop lewat onExpose, yang lalu menggambar ulang frame utuh
+ * walaupun loop sedang diam.
+ *
+ * Jalur pasif (JPanel.paintComponent) tetap ada sebagai cadangan: -Dnusantara.render=passive.
+ */
+final class ActiveRenderCanvas extends Canvas {
+
+    private static final int BUFFERS = 2;
+
+    private final TowerRenderer renderer;
+    private final Runnable onExpose;
+    private BufferStrategy strategy;
+    private long presentedFrames = 0;
+    private long restoredFrames = 0;
+    private volatile long lastPresentNanos = 0;
+
+    ActiveRenderCanvas(TowerRenderer renderer, Runnable onExpose) {
+        this.renderer = renderer;
+        this.onExpose = onExpose;
+        setBackground(RenderResources.SKY);
+        setFocusable(true);
+    }
+
+    /** Semua gambar berasal dari present(); repaint dari sistem hanya diteruskan ke loop. */
+    @Override
+    public void paint(Graphics g) {
+        onExpose.run();
+    }
+
+    /** Tanpa mengosongkan latar dulu (bawaan Canvas.update), agar tidak berkedip sebelum frame berikutnya. */
+    @Override
+    public void update(Graphics g) {
+        onExpose.run();
+    }
+
+    /**
+     * Menggambar frame ke back buffer dan menampilkannya. Hanya dari thread loop.
+     * Mengembalikan false jika kanvas belum/tidak lagi tampil (frame dilewati).
+     */
+    boolean present(FrameSnapshot frame) {
+        if (!isDisplayable() || getWidth() <= 0 || getHeight() <= 0) {
+            strategy = null;
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            if (strategy == null) strategy = createStrategy();
+            do {
+                boolean restored;
+                do {
+                    Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                    try {
+                        renderer.renderFrame(g, getWidth(), getHeight(), frame);
+                    } finally {
+                        g.dispose();
+                    }
+                    // Back buffer dipulihkan di tengah gambar: isinya tidak lengkap, gambar ulang
+                    restored = strategy.contentsRestored();
+                    if (restored) restoredFrames++;
+                } while (restored);
+                long presentStart = Profiler.start();
+                strategy.show();
+                Profiler.end(Profiler.PRESENT, presentStart);
+            } while (strategy.contentsLost());
+        } catch (IllegalStateException e) {
+            // Kanvas dilepas dari jendela di tengah frame (mis. jendela ditutup)
+            strategy = null;
+            return false;
+        }
+        // Memaksa antrean gambar toolkit (mis. X11) dikirim sekarang, bukan digabung dengan frame berikutnya
+        Toolkit.getDefaultToolkit().sync();
+        presentedFrames++;
+        lastPresentNanos = System.nanoTime() - start;
+        return true;
+    }
+
+    private BufferStrategy createStrategy() {
+        try {
+            BufferCapabilities flipping = new BufferCapabilities(
+                    new ImageCapabilities(true), new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED);
+            createBufferStrategy(BUFFERS, flipping);
+        } catch (AWTException e) {
+            // Page flipping tidak didukung (mis. mode jendela di banyak platform): blit dari back buffer
+            createBufferStrategy(BUFFERS);
+        }
+        return getBufferStrategy();
+    }
+
+    /** true jika BufferStrategy memakai page flipping, bukan blit. */
+    boolean isPageFlipping() {
+        BufferStrategy current = strategy;
+        return current != null && current.getCapabilities().isPageFlipping();
+    }
+
+    long getPresentedFrames() { return presentedFrames; }
+
+    /** Berapa kali back buffer harus digambar ulang karena isinya hilang. */
+    long getRestoredFrames() { return restoredFrames; }
+
+    /** Waktu (nano) dari mulai menggambar sampai frame terakhir dikirim ke layar. */
+    long getLastPresentNanos() { return lastPresentNanos; }
+}
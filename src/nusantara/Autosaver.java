@@ -0,0 +1,78 @@
+package nusantara;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Autosaver.java
+ *
+ * Menulis GameSnapshot ke disk di thread latar. Thread game hanya memanggil submit(), yang
+ * menaruh referensi snapshot dan membangunkan penulis tanpa lock dan tanpa menunggu I/O.
+ * Jika beberapa snapshot datang selama satu penulisan (disk lambat), hanya yang terbaru
+ * yang ditulis; snapshot di tengahnya memang sudah basi.
+ *
+ * Encoding, penulisan lewat FileChannel dan fsync semuanya di thread "Autosave-Writer"
+ * (lihat GameSnapshot.write()), sehingga kota sebesar apa pun tidak pernah menahan game loop.
+ */
+final class Autosaver implements Closeable {
+
+    private final Path file;
+    private final AtomicReference<GameSnapshot> pending = new AtomicReference<>();
+    private final Thread writer;
+    private volatile boolean closed = false;
+    private volatile IOException writeFailure;
+    private volatile long savedTick = -1;
+
+    Autosaver(Path file) {
+        this.file = file;
+        writer = new Thread(this::writeLoop, "Autosave-Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Menjadwalkan snapshot untuk ditulis; menggantikan snapshot yang belum sempat ditulis. */
+    void submit(GameSnapshot snapshot) {
+        pending.set(snapshot);
+        LockSupport.unpark(writer);
+    }
+
+    /** Tick game dari snapshot terakhir yang sudah aman di disk, atau -1 jika belum ada. */
+    long savedTick() { return savedTick; }
+
+    Path file() { return file; }
+
+    private void writeLoop() {
+        while (true) {
+            GameSnapshot snapshot = pending.getAndSet(null);
+            if (snapshot == null) {
+                if (closed) return;
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                snapshot.write(file);
+                savedTick = snapshot.tickCount;
+                writeFailure = null;
+            } catch (IOException e) {
+                writeFailure = e;
+                System.err.println("Autosave gagal: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Menunggu snapshot terakhir selesai ditulis. Melempar kegagalan penulisan terakhir, jika ada. */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writeFailure != null) throw writeFailure;
+    }
+}
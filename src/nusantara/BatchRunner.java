@@ -0,0 +1,204 @@
+package nusantara;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * BatchRunner.java
+ *
+ * Memainkan ribuan game NusantaraTower secara headless dan paralel di semua core,
+ * lalu melaporkan distribusi skor. Dipakai untuk menyeimbangkan harga upgrade dan skor.
+ *
+ * Penggunaan:
+ *   java BatchRunner [jumlahGame] [kebijakan] [seed] [thread]
+ *
+ * kebijakan: aimed (default), aimed-noupgrade, sloppy, random
+ *
+ * Dengan -Dnusantara.replayDir=dir setiap game juga direkam ke dir/game-N.ntr
+ * (bisa diverifikasi ulang dengan ReplayPlayer).
+ */
+public class BatchRunner {
+
+    /** Batas tick per game agar kebijakan yang tidak pernah gagal tetap berhenti (~1 jam waktu game). */
+    static final long MAX_TICKS_PER_GAME = 60L * 60 * 60;
+    /** Di bawah jumlah ini sebuah rentang game dimainkan langsung, tidak dipecah lagi. */
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    private final InputPolicy policy;
+    private final long baseSeed;
+    private Path replayDir;
+
+    public BatchRunner(InputPolicy policy, long baseSeed) {
+        this.policy = policy;
+        this.baseSeed = baseSeed;
+    }
+
+    /** Merekam setiap game sebagai replay di direktori ini (null = tidak merekam). */
+    void setReplayDir(Path replayDir) {
+        this.replayDir = replayDir;
+    }
+
+    /** Memainkan game bernomor [0, games) di pool yang diberikan dan menggabungkan statistiknya. */
+    public ScoreStats run(int games, ForkJoinPool pool) {
+        return pool.invoke(new GameRange(0, games));
+    }
+
+    /** Memainkan satu game sampai GAME_OVER (atau batas tick) dan mencatat hasilnya. */
+    void playOne(int gameIndex, ScoreStats stats) {
+        // Seed tiap game diturunkan dari nomornya agar hasil batch bisa direproduksi per game.
+        // Kebijakan memakai RNG sendiri agar keacakannya tidak menggeser urutan balok.
+        long seed = baseSeed + gameIndex * 0x9E3779B97F4A7C15L;
+        TowerSimulation sim = new TowerSimulation(seed);
+        GameRandom policyRandom = new GameRandom(~seed);
+        if (replayDir != null) {
+            sim.setReplayRecorder(new ReplayRecorder(null));
+        }
+        while (sim.getGameState() != GameState.GAME_OVER && sim.getTickCount() < MAX_TICKS_PER_GAME) {
+            sim.handleInput(policy.nextCommand(sim, policyRandom));
+            sim.tick();
+        }
+        stats.record(sim.getCurrentScore(), sim.getTickCount());
+        if (replayDir != null) saveReplay(sim, gameIndex);
+    }
+
+    private void saveReplay(TowerSimulation sim, int gameIndex) {
+        // Game yang kena batas tick belum GAME_OVER; simpan cuplikannya sampai titik itu
+        Replay replay = sim.snapshotReplay();
+        if (replay == null) replay = sim.getLastReplay();
+        try {
+            replay.write(replayDir.resolve("game-" + gameIndex + Replay.FILE_EXTENSION));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private class GameRange extends RecursiveTask<ScoreStats> {
+        private final int from, to;
+
+        GameRange(int from, int to) { this.from = from; this.to = to; }
+
+        @Override
+        protected ScoreStats compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                ScoreStats stats = new ScoreStats();
+                for (int i = from; i < to; i++) {
+                    playOne(i, stats);
+                }
+                return stats;
+            }
+            int mid = (from + to) >>> 1;
+            GameRange left = new GameRange(from, mid);
+            left.fork();
+            ScoreStats right = new GameRange(mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // =================================================================================
+    // Statistik Skor
+    // =================================================================================
+
+    /**
+     * Ringkasan distribusi skor yang bisa digabung (merge) dari banyak thread.
+     * Persentil dihitung dari histogram dengan lebar bucket tetap, jadi memorinya konstan
+     * berapa pun jumlah game.
+     */
+    static class ScoreStats {
+        static final int BUCKET_WIDTH = 250;
+        static final int BUCKETS = 400; // skor >= BUCKET_WIDTH * BUCKETS masuk bucket terakhir
+
+        final long[] histogram = new long[BUCKETS];
+        long games = 0;
+        long totalScore = 0;
+        long totalTicks = 0;
+        long minScore = Long.MAX_VALUE;
+        long maxScore = Long.MIN_VALUE;
+
+        void record(long score, long ticks) {
+            games++;
+            totalScore += score;
+            totalTicks += ticks;
+            minScore = Math.min(minScore, score);
+            maxScore = Math.max(maxScore, score);
+            int bucket = (int) Math.min(BUCKETS - 1, Math.max(0, score / BUCKET_WIDTH));
+            histogram[bucket]++;
+        }
+
+        ScoreStats merge(ScoreStats other) {
+            games += other.games;
+            totalScore += other.totalScore;
+            totalTicks += other.totalTicks;
+            minScore = Math.min(minScore, other.minScore);
+            maxScore = Math.max(maxScore, other.maxScore);
+            for (int i = 0; i < BUCKETS; i++) histogram[i] += other.histogram[i];
+            return this;
+        }
+
+        double meanScore() { return games == 0 ? 0 : (double) totalScore / games; }
+
+        /** Batas bawah bucket tempat persentil p (0..100) jatuh. */
+        long percentile(double p) {
+            long target = (long) Math.ceil(games * p / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram[i];
+                if (seen >= target && seen > 0) return (long) i * BUCKET_WIDTH;
+            }
+            return maxScore;
+        }
+    }
+
+    // =================================================================================
+    // Metode Main
+    // =================================================================================
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        String policyName = args.length > 1 ? args[1] : "aimed";
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        InputPolicy policy;
+        switch (policyName) {
+            case "aimed": policy = InputPolicy.aimed(6, 0.3, true); break;
+            case "aimed-noupgrade": policy = InputPolicy.aimed(6, 0.3, false); break;
+            case "sloppy": policy = InputPolicy.aimed(30, 0.1, true); break;
+            case "random": policy = InputPolicy.random(0.02); break;
+            default: throw new IllegalArgumentException("Kebijakan tidak dikenal: " + policyName);
+        }
+
+        BatchRunner runner = new BatchRunner(policy, seed);
+        String replayDir = System.getProperty("nusantara.replayDir");
+        if (replayDir != null) {
+            try {
+                runner.setReplayDir(Files.createDirectories(Path.of(replayDir)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        ScoreStats stats = runner.run(games, pool);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.printf("Kebijakan     : %s (seed %d, %d thread)%n", policyName, seed, threads);
+        System.out.printf("Game          : %d dalam %.2f s (%.0f game/jam)%n", stats.games, seconds, stats.games / seconds * 3600);
+        System.out.printf("Tick rata-rata: %.0f (%.1f menit waktu game)%n",
+                (double) stats.totalTicks / stats.games, stats.totalTicks / (double) stats.games / 60 / 60);
+        System.out.printf("Skor          : min %d, rata-rata %.1f, maks %d%n", stats.minScore, stats.meanScore(), stats.maxScore);
+        System.out.printf("Persentil     : p10 %d, p50 %d, p90 %d, p99 %d%n",
+                stats.percentile(10), stats.percentile(50), stats.percentile(90), stats.percentile(99));
+        System.out.println("Distribusi (lebar bucket " + ScoreStats.BUCKET_WIDTH + "):");
+        long peak = 1;
+        for (long c : stats.histogram) peak = Math.max(peak, c);
+        for (int i = 0; i < ScoreStats.BUCKETS; i++) {
+            if (stats.histogram[i] == 0) continue;
+            int bar = (int) (stats.histogram[i] * 50 / peak);
+            System.out.printf("  %6d+ %8d %s%n", (long) i * ScoreStats.BUCKET_WIDTH, stats.histogram[i], "#".repeat(Math.max(1, bar)));
+        }
+    }
+}
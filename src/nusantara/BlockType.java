@@ -0,0 +1,9 @@
+package nusantara;
+
+/**
+ * Jenis balok/bangunan. Sengaja tanpa warna agar simulasi tidak bergantung pada AWT;
+ * pemetaan warna ada di lapisan render (NusantaraTower).
+ */
+public enum BlockType {
+    PERUMAHAN, BISNIS, TAMAN
+}
@@ -0,0 +1,385 @@
+package nusantara;
+
+import java.util.Arrays;
+
+/**
+ * CityGrid.java
+ *
+ * Grid kota berbasis indeks dengan array primitif, pengganti HashMap&lt;Point, FinishedBuilding&gt;
+ * dan HashMap&lt;Point, List&lt;Point&gt;&gt;.
+ *
+ * Setiap sel dialamatkan dengan indeks datar y * width + x:
+ * - jenis sel i  : kode jenis bangunan (EMPTY, NO_PLOT, atau BlockType.ordinal() + 1)
+ * - tinggi sel i : tinggi menara yang dibangun di sel itu
+ * Keduanya disimpan per halaman PAGE_SIZE sel (types[i >> PAGE_BITS][i & PAGE_MASK]).
+ *
+ * Ketetanggaan (graph) disimpan dalam format CSR (compressed sparse row): tetangga sel i
+ * adalah neighbors[neighborOffsets[i] .. neighborOffsets[i + 1]). Sel yang bukan petak
+ * (NO_PLOT) tidak punya tetangga dan tidak menjadi tetangga siapa pun, sehingga peta
+ * tidak harus persegi panjang.
+ *
+ * Memori sekitar 9 byte per sel + 4 byte per sisi graph (maksimal 4 per sel): peta
+ * 1000x1000 sekitar 25 MB, dibanding ratusan MB untuk objek Point/ArrayList di HashMap.
+ *
+ * snapshot() memakai halaman yang sama (copy-on-write per halaman): hanya tabel halaman
+ * yang disalin, dan sebuah halaman (maks. 20 KB) baru disalin saat sel di dalamnya pertama kali
+ * berubah sesudah snapshot. Autosave kota 2000x2000 tidak pernah menyalin seluruh kota di
+ * thread game, berapa pun seringnya snapshot diambil.
+ *
+ * Setiap perubahan sel dicatat di ChangeLog, sehingga pembaca yang mengikuti kota dari
+ * waktu ke waktu (siaran penonton, FrameSnapshot, renderer) cukup mengirim, menyalin atau
+ * menggambar ulang sel yang berubah.
+ */
+final class CityGrid {
+
+    /** Petak kosong yang bisa dibangun. */
+    static final byte EMPTY = 0;
+    /** Sel di luar peta (untuk peta yang tidak persegi panjang). */
+    static final byte NO_PLOT = -1;
+
+    static final int PAGE_BITS = 12;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+
+    private final int width;
+    private final int height;
+    private final int cellCount;
+    private final int plotCount;
+    private final byte[][] types;
+    private final int[][] heights;
+    private final int[] neighborOffsets;
+    private final int[] neighbors;
+
+    private int occupiedCount = 0;
+    // Halaman p milik grid ini (boleh ditulis langsung) jika pageGeneration[p] == generation;
+    // snapshot() menaikkan generation sehingga semua halaman menjadi milik bersama dalam O(1)
+    private final int[] pageGeneration;
+    private int generation = 0;
+    private final ChangeLog changes = new ChangeLog();
+
+    private CityGrid(int width, int height, byte[] types) {
+        this.width = width;
+        this.height = height;
+        this.cellCount = types.length;
+        int pages = (types.length + PAGE_MASK) >>> PAGE_BITS;
+        this.types = new byte[pages][];
+        this.heights = new int[pages][];
+        this.pageGeneration = new int[pages];
+        for (int p = 0; p < pages; p++) {
+            // Halaman terakhir hanya sepanjang sisa sel, jadi kota kecil tetap kecil
+            int from = p << PAGE_BITS;
+            int to = Math.min(from + PAGE_SIZE, types.length);
+            this.types[p] = Arrays.copyOfRange(types, from, to);
+            this.heights[p] = new int[to - from];
+        }
+
+        int plots = 0;
+        int edges = 0;
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == NO_PLOT) continue;
+            plots++;
+            int x = i % width, y = i / width;
+            if (x > 0 && types[i - 1] != NO_PLOT) edges++;
+            if (x < width - 1 && types[i + 1] != NO_PLOT) edges++;
+            if (y > 0 && types[i - width] != NO_PLOT) edges++;
+            if (y < height - 1 && types[i + width] != NO_PLOT) edges++;
+        }
+        this.plotCount = plots;
+
+        // Urutan tetangga sama seperti buildCityGraph() lama: bawah, atas, kanan, kiri
+        this.neighborOffsets = new int[types.length + 1];
+        this.neighbors = new int[edges];
+        int k = 0;
+        for (int i = 0; i < types.length; i++) {
+            neighborOffsets[i] = k;
+            if (types[i] == NO_PLOT) continue;
+            int x = i % width, y = i / width;
+            if (y < height - 1 && types[i + width] != NO_PLOT) neighbors[k++] = i + width;
+            if (y > 0 && types[i - width] != NO_PLOT) neighbors[k++] = i - width;
+            if (x < width - 1 && types[i + 1] != NO_PLOT) neighbors[k++] = i + 1;
+            if (x > 0 && types[i - 1] != NO_PLOT) neighbors[k++] = i - 1;
+        }
+        neighborOffsets[types.length] = k;
+    }
+
+    private CityGrid(CityGrid source) {
+        width = source.width;
+        height = source.height;
+        cellCount = source.cellCount;
+        plotCount = source.plotCount;
+        types = source.types.clone();
+        heights = source.heights.clone();
+        neighborOffsets = source.neighborOffsets;
+        neighbors = source.neighbors;
+        occupiedCount = source.occupiedCount;
+        pageGeneration = new int[types.length];
+        generation = 1; // tidak ada halaman milik sendiri: semuanya dipakai bersama source
+    }
+
+    /** Peta persegi panjang penuh berukuran width x height. */
+    static CityGrid rectangular(int width, int height) {
+        return new CityGrid(width, height, new byte[checkedSize(width, height)]);
+    }
+
+    /**
+     * Peta dari denah teks: setiap baris adalah satu baris grid, karakter '.' adalah petak
+     * dan karakter lain (mis. spasi atau '#') berada di luar peta.
+     */
+    static CityGrid parse(String... rows) {
+        int height = rows.length;
+        int width = 0;
+        for (String row : rows) width = Math.max(width, row.length());
+        byte[] types = new byte[checkedSize(width, height)];
+        Arrays.fill(types, NO_PLOT);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < rows[y].length(); x++) {
+                if (rows[y].charAt(x) == '.') types[y * width + x] = EMPTY;
+            }
+        }
+        return new CityGrid(width, height, types);
+    }
+
+    /** Peta dari isi sel mentah (kode jenis termasuk NO_PLOT, dan tinggi), mis. dari file simpanan. */
+    static CityGrid ofCells(int width, int height, byte[] typeCodes, int[] cellHeights) {
+        if (typeCodes.length != checkedSize(width, height) || cellHeights.length != typeCodes.length) {
+            throw new IllegalArgumentException("Jumlah sel tidak sama dengan " + width + "x" + height);
+        }
+        CityGrid city = new CityGrid(width, height, typeCodes);
+        for (int i = 0; i < typeCodes.length; i++) {
+            if (typeCodes[i] > BLOCK_TYPES.length || typeCodes[i] < NO_PLOT) {
+                throw new IllegalArgumentException("Kode jenis tidak dikenal di sel " + i + ": " + typeCodes[i]);
+            }
+            if (typeCodes[i] > EMPTY) {
+                city.occupiedCount++;
+                city.heights[i >>> PAGE_BITS][i & PAGE_MASK] = cellHeights[i];
+            }
+        }
+        return city;
+    }
+
+    /**
+     * Salinan baca-saja dalam O(jumlah halaman): graph dan halaman sel dipakai bersama, halaman
+     * yang berubah sesudahnya disalin oleh perubahan itu.
+     */
+    CityGrid snapshot() {
+        generation++;
+        return new CityGrid(this);
+    }
+
+    /** true jika ukuran dan letak petak (NO_PLOT) sama persis. */
+    boolean sameShapeAs(CityGrid other) {
+        if (width != other.width || height != other.height) return false;
+        for (int p = 0; p < types.length; p++) {
+            byte[] page = types[p], otherPage = other.types[p];
+            if (page == otherPage) continue;
+            for (int k = 0; k < page.length; k++) {
+                if ((page[k] == NO_PLOT) != (otherPage[k] == NO_PLOT)) return false;
+            }
+        }
+        return true;
+    }
+
+    /** Mengganti isi semua sel dengan isi other; bentuk peta harus sama (lihat sameShapeAs). */
+    void copyFrom(CityGrid other) {
+        if (!sameShapeAs(other)) throw new IllegalArgumentException("Bentuk peta berbeda");
+        for (int p = 0; p < types.length; p++) {
+            types[p] = other.types[p].clone();
+            heights[p] = other.heights[p].clone();
+            pageGeneration[p] = generation;
+        }
+        occupiedCount = other.occupiedCount;
+        changes.reset();
+    }
+
+    /** Halaman p siap ditulis: disalin dulu jika masih dipakai bersama snapshot. */
+    private void ownPage(int p) {
+        if (pageGeneration[p] != generation) {
+            types[p] = types[p].clone();
+            heights[p] = heights[p].clone();
+            pageGeneration[p] = generation;
+        }
+    }
+
+    private static int checkedSize(int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Ukuran kota harus positif: " + width + "x" + height);
+        long size = (long) width * height;
+        if (size > Integer.MAX_VALUE - 1) throw new IllegalArgumentException("Kota terlalu besar: " + width + "x" + height);
+        return (int) size;
+    }
+
+    // =================================================================================
+    // Akses Sel
+    // =================================================================================
+    int width() { return width; }
+    int height() { return height; }
+    int cellCount() { return cellCount; }
+    int plotCount() { return plotCount; }
+    int occupiedCount() { return occupiedCount; }
+
+    int index(int x, int y) { return y * width + x; }
+    int xOf(int index) { return index % width; }
+    int yOf(int index) { return index / width; }
+
+    boolean isPlot(int index) { return typeCode(index) != NO_PLOT; }
+    boolean isOccupied(int index) { return typeCode(index) > EMPTY; }
+
+    /** Kode jenis mentah (EMPTY, NO_PLOT, atau ordinal + 1), untuk loop yang ingin menghindari enum. */
+    byte typeCode(int index) { return types[index >>> PAGE_BITS][index & PAGE_MASK]; }
+
+    /** Jenis bangunan di sel, atau null jika kosong / bukan petak. */
+    BlockType typeAt(int index) {
+        byte code = typeCode(index);
+        return code > EMPTY ? BLOCK_TYPES[code - 1] : null;
+    }
+
+    int heightAt(int index) { return heights[index >>> PAGE_BITS][index & PAGE_MASK]; }
+
+    /** Menyalin kode jenis dan tinggi semua sel ke array milik pemanggil (panjang >= cellCount()). */
+    void copyCells(byte[] typeCodes, int[] cellHeights) {
+        for (int p = 0; p < types.length; p++) {
+            System.arraycopy(types[p], 0, typeCodes, p << PAGE_BITS, types[p].length);
+            System.arraycopy(heights[p], 0, cellHeights, p << PAGE_BITS, heights[p].length);
+        }
+    }
+
+    static byte codeOf(BlockType type) { return (byte) (type.ordinal() + 1); }
+
+    /** Jurnal perubahan kota ini; hanya dibaca dari thread yang mengubah kota. */
+    ChangeLog changes() { return changes; }
+
+    // =================================================================================
+    // Graph Ketetanggaan (CSR)
+    // =================================================================================
+    int neighborStart(int index) { return neighborOffsets[index]; }
+    int neighborEnd(int index) { return neighborOffsets[index + 1]; }
+    int neighborAt(int k) { return neighbors[k]; }
+    int degree(int index) { return neighborOffsets[index + 1] - neighborOffsets[index]; }
+
+    // =================================================================================
+    // Perubahan
+    // =================================================================================
+
+    /** Membangun (atau mengganti) bangunan di petak index. */
+    void place(int index, BlockType type, int towerHeight) {
+        byte code = typeCode(index);
+        if (code == NO_PLOT) throw new IllegalArgumentException("Sel " + index + " berada di luar peta");
+        int p = index >>> PAGE_BITS, k = index & PAGE_MASK;
+        ownPage(p);
+        if (code == EMPTY) occupiedCount++;
+        types[p][k] = codeOf(type);
+        heights[p][k] = towerHeight;
+        changes.record(index);
+    }
+
+    /** Merobohkan bangunan di petak index sehingga kembali kosong. */
+    void demolish(int index) {
+        if (typeCode(index) > EMPTY) {
+            int p = index >>> PAGE_BITS, k = index & PAGE_MASK;
+            ownPage(p);
+            occupiedCount--;
+            types[p][k] = EMPTY;
+            heights[p][k] = 0;
+            changes.record(index);
+        }
+    }
+
+    /** Mengosongkan semua petak; bentuk peta dan graph tetap. Halaman yang sudah kosong tidak disentuh. */
+    void clear() {
+        for (int p = 0; p < types.length; p++) {
+            byte[] page = types[p];
+            boolean occupied = false;
+            for (int k = 0; k < page.length && !occupied; k++) occupied = page[k] > EMPTY;
+            if (!occupied) continue;
+            ownPage(p);
+            page = types[p];
+            for (int k = 0; k < page.length; k++) {
+                if (page[k] != NO_PLOT) page[k] = EMPTY;
+            }
+            Arrays.fill(heights[p], 0);
+        }
+        occupiedCount = 0;
+        changes.reset();
+    }
+
+    /** Petak kosong pertama (urutan baris, melingkar ke awal) mulai dari from, atau -1 jika kota penuh. */
+    int nextEmptyPlot(int from) {
+        if (occupiedCount == plotCount) return -1;
+        from = Math.max(0, Math.min(from, cellCount - 1));
+        int found = find(from, cellCount, true);
+        return found >= 0 ? found : find(0, from, true);
+    }
+
+    /**
+     * Petak terdekat dari index ke arah (dx, dy) pada baris/kolom yang sama, melompati sel
+     * di luar peta; index sendiri jika sudah di tepi. Untuk kursor pemilihan petak.
+     */
+    int step(int index, int dx, int dy) {
+        int x = xOf(index) + dx, y = yOf(index) + dy;
+        while (x >= 0 && x < width && y >= 0 && y < height) {
+            int i = index(x, y);
+            if (typeCode(i) != NO_PLOT) return i;
+            x += dx;
+            y += dy;
+        }
+        return index;
+    }
+
+    /** Petak pertama (urutan baris) dengan indeks >= from, atau -1 jika tidak ada lagi. */
+    int nextPlot(int from) {
+        return find(Math.max(0, from), cellCount, false);
+    }
+
+    /** Sel pertama di [from, to) yang kosong (empty) atau sebuah petak (!empty), per halaman; -1 jika tidak ada. */
+    private int find(int from, int to, boolean empty) {
+        for (int i = from; i < to; ) {
+            byte[] page = types[i >>> PAGE_BITS];
+            int base = i & ~PAGE_MASK;
+            int end = Math.min(page.length, to - base);
+            for (int k = i - base; k < end; k++) {
+                if (empty ? page[k] == EMPTY : page[k] != NO_PLOT) return base + k;
+            }
+            i = base + PAGE_SIZE;
+        }
+        return -1;
+    }
+
+    // =================================================================================
+    // Jurnal Perubahan
+    // =================================================================================
+
+    /**
+     * Cincin berisi indeks sel yang berubah, bernomor urut sejak jurnal dibuat. Pembaca
+     * menyimpan count() terakhir yang sudah ia terapkan; jika covers(nomor itu), sel yang
+     * berubah sesudahnya adalah cellAt(nomor) .. cellAt(count() - 1) (boleh berulang).
+     * Jika tidak (tertinggal lebih dari CAPACITY perubahan, atau ada perubahan massal
+     * seperti clear()), pembaca harus menyalin ulang semuanya.
+     */
+    static final class ChangeLog {
+        static final int CAPACITY = 1024; // pangkat dua
+
+        private final int[] cells = new int[CAPACITY];
+        private long count = 0;
+        private long resetAt = 0;
+
+        void record(int cell) {
+            cells[(int) (count & (CAPACITY - 1))] = cell;
+            count++;
+        }
+
+        /** Perubahan massal: perubahan sebelumnya tidak bisa diulang satu per satu. */
+        void reset() {
+            resetAt = ++count;
+        }
+
+        long count() { return count; }
+
+        /** Nomor perubahan tertua yang masih bisa diulang. */
+        long oldest() { return Math.max(resetAt, count - CAPACITY); }
+
+        boolean covers(long from) { return from >= oldest() && from <= count; }
+
+        int cellAt(long seq) { return cells[(int) (seq & (CAPACITY - 1))]; }
+    }
+}
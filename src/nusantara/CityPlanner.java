@@ -0,0 +1,572 @@
+package nusantara;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * CityPlanner.java
+ *
+ * Penasihat mode pilih petak: menyarankan petak dengan kenaikan sinergi terbesar untuk
+ * menara yang baru selesai, sekaligus memproyeksikan susunan terbaik untuk jenis balok
+ * yang sudah ada di antrean (urutan [menara selesai, antrean...]).
+ *
+ * Dua tahap:
+ * 1. Pindai paralel (ForkJoin) semua petak kosong, satu kali baca tetangga per petak. Untuk
+ *    setiap jenis yang direncanakan disimpan dua daftar TOP_K: kenaikan sinergi terbesar
+ *    terhadap kota saat ini, dan potensi terbesar (kenaikan itu + sinergi maksimal dengan
+ *    langkah lain lewat tetangga yang masih kosong). Petak yang batas atasnya (dari jumlah
+ *    tetangga terisi/kosong dan SynergyRules) tidak bisa masuk daftar dilewati tanpa dihitung,
+ *    jadi kota yang sebagian besar kosong dipindai sangat cepat.
+ * 2. Beam search atas urutan langkah. Kandidat tiap langkah adalah kedua daftar jenis itu
+ *    ditambah petak kosong di sebelah penempatan sebelumnya (hanya di sana nilainya bisa
+ *    berbeda dari hasil pindai), jadi kandidat terbaik untuk langkah berikutnya tidak pernah
+ *    terlewat. Cabang yang batas atasnya tidak bisa melampaui rencana greedy dipangkas.
+ *    Hasilnya rencana yang sangat baik, tetapi bukan jaminan optimal: susunan berkelompok
+ *    di luar kedua daftar dan yang terpotong lebar beam tidak dicoba.
+ *
+ * Kedua tahap berhenti di tenggat (budgetNanos); rencana dari pencarian yang terpotong
+ * ditandai tidak lengkap. Planner tidak mengubah kota dan hasilnya hanya saran: pilihan
+ * pemain masuk ke simulasi sebagai perintah CMD_SELECT_PLOT biasa, jadi replay tetap
+ * deterministik walaupun hasil planner bergantung pada waktu.
+ *
+ * Kota tidak boleh diubah selama plan() berjalan (di game: dipanggil dari thread loop).
+ */
+final class CityPlanner {
+
+    /** Langkah rencana maksimal: menara yang selesai + antrean balok (3 di game). */
+    static final int MAX_STEPS = 4;
+    /** Cukup untuk selalu menyisakan kandidat yang tidak bersebelahan dengan penempatan sebelumnya. */
+    static final int TOP_K = 5 * (MAX_STEPS - 1) + 1;
+    /** Di bawah satu frame 60 Hz, dengan sisa waktu untuk tick dan render. */
+    static final long DEFAULT_BUDGET_NANOS = 4_000_000L;
+
+    private static final int DEFAULT_BEAM_WIDTH = 32;
+    /** Di bawah jumlah sel ini pindaian dijalankan langsung, tidak dipecah lagi. */
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 13;
+    /** Tenggat diperiksa setiap sekian sel di dalam satu potongan pindaian. */
+    private static final int DEADLINE_CHECK_MASK = (1 << 12) - 1;
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+
+    private final ForkJoinPool pool;
+    private final int beamWidth;
+
+    CityPlanner() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BEAM_WIDTH);
+    }
+
+    CityPlanner(ForkJoinPool pool, int beamWidth) {
+        if (beamWidth < 1) throw new IllegalArgumentException("Lebar beam harus positif: " + beamWidth);
+        this.pool = pool;
+        this.beamWidth = beamWidth;
+    }
+
+    // =================================================================================
+    // Hasil
+    // =================================================================================
+
+    /** Rencana yang sudah jadi; tidak berubah setelah dibuat, aman dibagi antar thread. */
+    static final class Plan {
+        private final int[] plots;
+        private final BlockType[] types;
+        private final long[] gains;
+        private final long totalGain;
+        private final boolean complete;
+        private final long scannedPlots;
+        private final long prunedPlots;
+        private final long nanos;
+
+        private Plan(int[] plots, BlockType[] types, long[] gains, boolean complete,
+                     long scannedPlots, long prunedPlots, long nanos) {
+            this.plots = plots;
+            this.types = types;
+            this.gains = gains;
+            long total = 0;
+            for (long gain : gains) total += gain;
+            this.totalGain = total;
+            this.complete = complete;
+            this.scannedPlots = scannedPlots;
+            this.prunedPlots = prunedPlots;
+            this.nanos = nanos;
+        }
+
+        /** Jumlah langkah; bisa kurang dari yang diminta jika petak kosong tidak cukup. */
+        int steps() { return plots.length; }
+        int plotAt(int step) { return plots[step]; }
+        BlockType typeAt(int step) { return types[step]; }
+        /** Kenaikan sinergi langkah itu, termasuk sinergi dengan langkah-langkah sebelumnya. */
+        long gainAt(int step) { return gains[step]; }
+        long totalGain() { return totalGain; }
+
+        /** Petak saran untuk menara yang baru selesai, atau -1 jika kota penuh. */
+        int bestPlot() { return plots.length > 0 ? plots[0] : -1; }
+
+        /** false jika tenggat habis sebelum semua petak dipindai atau beam selesai. */
+        boolean isComplete() { return complete; }
+        long scannedPlots() { return scannedPlots; }
+        /** Petak kosong yang dilewati karena batas atasnya tidak bisa masuk daftar terbaik. */
+        long prunedPlots() { return prunedPlots; }
+        long nanos() { return nanos; }
+    }
+
+    // =================================================================================
+    // Perencanaan
+    // =================================================================================
+
+    /**
+     * Merencanakan penempatan finished lalu jenis-jenis di upcoming (urutan iterasi, maksimal
+     * MAX_STEPS langkah total) di kota saat ini, paling lama sekitar budgetNanos.
+     */
+    Plan plan(CityGrid city, SynergyRules rules, BlockType finished, Collection<BlockType> upcoming, long budgetNanos) {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+
+        int stepCount = Math.min(MAX_STEPS, 1 + upcoming.size());
+        byte[] codes = new byte[stepCount];
+        codes[0] = CityGrid.codeOf(finished);
+        int s = 1;
+        for (BlockType type : upcoming) {
+            if (s == stepCount) break;
+            codes[s++] = CityGrid.codeOf(type);
+        }
+        Pairs pairs = new Pairs(rules, codes);
+
+        Scan scan = pool.invoke(new ScanTask(city, pairs, 0, city.cellCount(), deadline));
+        Search search = new Search(city, pairs, codes, scan, deadline);
+        State best = search.run(beamWidth);
+
+        int steps = best.depth;
+        int[] plots = Arrays.copyOf(best.plots, steps);
+        BlockType[] types = new BlockType[steps];
+        for (int i = 0; i < steps; i++) types[i] = BLOCK_TYPES[codes[i] - 1];
+        return new Plan(plots, types, Arrays.copyOf(best.gains, steps), scan.complete && search.complete,
+                scan.scanned, scan.pruned, System.nanoTime() - start);
+    }
+
+    /** Tabel sinergi dua arah per pasangan kode, disiapkan sekali per plan(). */
+    private static final class Pairs {
+        /** pair[a * CODES + b] = bonus(a, b) + bonus(b, a): kenaikan total kota jika a dan b bertetangga. */
+        final int[] pair = new int[SynergyRules.CODES * SynergyRules.CODES];
+        /** Nilai pair terbesar untuk kode itu dengan jenis apa pun (batas per tetangga terisi). */
+        final int[] maxPair = new int[SynergyRules.CODES];
+        /** Nilai pair terbesar untuk kode itu dengan jenis di rencana (potensi per tetangga kosong). */
+        final int[] reach = new int[SynergyRules.CODES];
+        /** Kode yang direncanakan (tanpa duplikat); hanya kode ini yang dipindai. */
+        final boolean[] wanted = new boolean[SynergyRules.CODES];
+        final int[] wantedCodes;
+        long maxAnyPair = 0;
+
+        Pairs(SynergyRules rules, byte[] codes) {
+            int distinct = 0;
+            for (byte code : codes) {
+                if (!wanted[code]) distinct++;
+                wanted[code] = true;
+            }
+            wantedCodes = new int[distinct];
+            for (int code = 0, n = 0; code < SynergyRules.CODES; code++) {
+                if (wanted[code]) wantedCodes[n++] = code;
+            }
+            for (int a = 0; a < SynergyRules.CODES; a++) {
+                for (int b = 0; b < SynergyRules.CODES; b++) {
+                    int value = rules.bonus((byte) a, (byte) b) + rules.bonus((byte) b, (byte) a);
+                    pair[a * SynergyRules.CODES + b] = value;
+                    maxPair[a] = Math.max(maxPair[a], value);
+                    if (wanted[b] && b > CityGrid.EMPTY) reach[a] = Math.max(reach[a], value);
+                    maxAnyPair = Math.max(maxAnyPair, value);
+                }
+            }
+        }
+
+        int of(int a, int b) { return pair[a * SynergyRules.CODES + b]; }
+
+        /** Semua suku total kota yang berubah jika petak kosong plot diisi kode code. */
+        long baseGain(CityGrid city, int plot, int code) {
+            long gain = 0;
+            for (int k = city.neighborStart(plot), end = city.neighborEnd(plot); k < end; k++) {
+                gain += of(code, city.typeCode(city.neighborAt(k)));
+            }
+            return gain;
+        }
+    }
+
+    // =================================================================================
+    // Tahap 1: Pindai Paralel
+    // =================================================================================
+
+    /** TOP_K petak terbaik untuk satu jenis, urut dari kenaikan terbesar (seri: indeks terkecil). */
+    private static final class TopList {
+        final int[] plots = new int[TOP_K];
+        final long[] gains = new long[TOP_K];
+        int size = 0;
+        /** Nilai yang harus dilampaui petak baru agar masuk daftar; Long.MIN_VALUE selama belum penuh. */
+        long floor = Long.MIN_VALUE;
+
+        void offer(int plot, long gain) {
+            boolean full = size == TOP_K;
+            if (full && !better(gain, plot, gains[TOP_K - 1], plots[TOP_K - 1])) return;
+            int i = full ? TOP_K - 1 : size++;
+            while (i > 0 && better(gain, plot, gains[i - 1], plots[i - 1])) {
+                gains[i] = gains[i - 1];
+                plots[i] = plots[i - 1];
+                i--;
+            }
+            gains[i] = gain;
+            plots[i] = plot;
+            if (size == TOP_K) floor = gains[TOP_K - 1];
+        }
+
+        void merge(TopList other) {
+            for (int i = 0; i < other.size; i++) offer(other.plots[i], other.gains[i]);
+        }
+
+        private static boolean better(long gain, int plot, long otherGain, int otherPlot) {
+            return gain > otherGain || (gain == otherGain && plot < otherPlot);
+        }
+    }
+
+    private static final class Scan {
+        /** Per kode: terbaik menurut kenaikan sekarang, dan menurut potensi (untuk kode yang tidak direncanakan null). */
+        final TopList[] gains = new TopList[SynergyRules.CODES];
+        final TopList[] potentials = new TopList[SynergyRules.CODES];
+        long scanned = 0;
+        long pruned = 0;
+        boolean complete = true;
+
+        Scan(boolean[] wanted) {
+            for (int code = 0; code < gains.length; code++) {
+                if (wanted[code]) {
+                    gains[code] = new TopList();
+                    potentials[code] = new TopList();
+                }
+            }
+        }
+
+        Scan merge(Scan other) {
+            for (int code = 0; code < gains.length; code++) {
+                if (gains[code] == null) continue;
+                gains[code].merge(other.gains[code]);
+                potentials[code].merge(other.potentials[code]);
+            }
+            scanned += other.scanned;
+            pruned += other.pruned;
+            complete &= other.complete;
+            return this;
+        }
+    }
+
+    private static final class ScanTask extends RecursiveTask<Scan> {
+        private final CityGrid city;
+        private final Pairs pairs;
+        private final int from, to;
+        private final long deadline;
+
+        ScanTask(CityGrid city, Pairs pairs, int from, int to, long deadline) {
+            this.city = city; this.pairs = pairs;
+            this.from = from; this.to = to; this.deadline = deadline;
+        }
+
+        @Override
+        protected Scan compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return scan();
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(city, pairs, from, mid, deadline);
+            left.fork();
+            Scan right = new ScanTask(city, pairs, mid, to, deadline).compute();
+            return left.join().merge(right);
+        }
+
+        private Scan scan() {
+            Scan result = new Scan(pairs.wanted);
+            int[] codes = pairs.wantedCodes;
+            TopList[] gainLists = new TopList[codes.length];
+            TopList[] potentialLists = new TopList[codes.length];
+            for (int c = 0; c < codes.length; c++) {
+                gainLists[c] = result.gains[codes[c]];
+                potentialLists[c] = result.potentials[codes[c]];
+            }
+            int[] pair = pairs.pair, maxPair = pairs.maxPair, reach = pairs.reach;
+            long maxPairAll = 0, reachAll = 0;
+            for (int code : codes) {
+                maxPairAll = Math.max(maxPairAll, maxPair[code]);
+                reachAll = Math.max(reachAll, reach[code]);
+            }
+            long pruneFloor = Long.MIN_VALUE; // lantai terendah semua daftar
+            byte[] neighbors = new byte[4];
+            for (int i = from; i < to; i++) {
+                if ((i & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+                    result.complete = false;
+                    break;
+                }
+                if (city.typeCode(i) != CityGrid.EMPTY) continue; // terisi atau di luar peta
+                result.scanned++;
+
+                int start = city.neighborStart(i), end = city.neighborEnd(i);
+                int occupied = 0;
+                for (int k = start; k < end; k++) {
+                    if (city.typeCode(city.neighborAt(k)) > CityGrid.EMPTY) occupied++;
+                }
+                int degree = end - start, empty = degree - occupied;
+                // Batas gabungan semua jenis: sebagian besar petak berhenti di sini tanpa dihitung
+                if (occupied * maxPairAll + empty * reachAll <= pruneFloor) {
+                    result.pruned++;
+                    continue;
+                }
+                for (int k = start; k < end; k++) {
+                    neighbors[k - start] = city.typeCode(city.neighborAt(k));
+                }
+
+                boolean evaluated = false;
+                for (int c = 0; c < codes.length; c++) {
+                    int code = codes[c];
+                    long gainBound = (long) occupied * maxPair[code];
+                    long reachBonus = (long) empty * reach[code];
+                    // Petak yang lebih awal menang saat seri, jadi batas yang sama dengan lantai tidak cukup
+                    boolean wantGain = gainBound > gainLists[c].floor;
+                    boolean wantPotential = gainBound + reachBonus > potentialLists[c].floor;
+                    if (!wantGain && !wantPotential) continue;
+                    long gain = 0;
+                    int row = code * SynergyRules.CODES;
+                    for (int d = 0; d < degree; d++) gain += pair[row + neighbors[d]];
+                    if (wantGain) gainLists[c].offer(i, gain);
+                    if (wantPotential) potentialLists[c].offer(i, gain + reachBonus);
+                    evaluated = true;
+                }
+                if (!evaluated) {
+                    result.pruned++;
+                } else {
+                    pruneFloor = Long.MAX_VALUE;
+                    for (int c = 0; c < codes.length; c++) {
+                        pruneFloor = Math.min(pruneFloor, Math.min(gainLists[c].floor, potentialLists[c].floor));
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    // =================================================================================
+    // Tahap 2: Beam Search
+    // =================================================================================
+
+    /** Penempatan sementara di atas kota (belum benar-benar dibangun). */
+    private static final class State {
+        final int[] plots = new int[MAX_STEPS];
+        final long[] gains = new long[MAX_STEPS];
+        int depth = 0;
+        long total = 0;
+        /** total + perkiraan langkah sisanya; urutan di dalam beam. */
+        long estimate = 0;
+
+        State extend(int plot, long gain) {
+            State next = new State();
+            System.arraycopy(plots, 0, next.plots, 0, depth);
+            System.arraycopy(gains, 0, next.gains, 0, depth);
+            next.plots[depth] = plot;
+            next.gains[depth] = gain;
+            next.depth = depth + 1;
+            next.total = total + gain;
+            return next;
+        }
+
+        int indexOf(int plot) {
+            for (int i = 0; i < depth; i++) {
+                if (plots[i] == plot) return i;
+            }
+            return -1;
+        }
+
+        /** Lebih baik: total lebih besar, lalu urutan petak yang lebih awal (agar hasil stabil). */
+        boolean betterThan(State other) {
+            if (depth != other.depth) return depth > other.depth;
+            if (total != other.total) return total > other.total;
+            return earlierThan(other);
+        }
+
+        /** Lebih menjanjikan untuk dilanjutkan: perkiraan lebih besar, lalu total, lalu urutan petak. */
+        boolean morePromisingThan(State other) {
+            if (estimate != other.estimate) return estimate > other.estimate;
+            if (total != other.total) return total > other.total;
+            return earlierThan(other);
+        }
+
+        private boolean earlierThan(State other) {
+            for (int i = 0; i < depth; i++) {
+                if (plots[i] != other.plots[i]) return plots[i] < other.plots[i];
+            }
+            return false;
+        }
+    }
+
+    private static final class Search {
+        private final CityGrid city;
+        private final Pairs pairs;
+        private final byte[] codes;
+        private final Scan scan;
+        private final long deadline;
+        /** remainingBound[j]: batas atas jumlah kenaikan langkah j sampai akhir. */
+        private final long[] remainingBound;
+        boolean complete = true;
+
+        Search(CityGrid city, Pairs pairs, byte[] codes, Scan scan, long deadline) {
+            this.city = city;
+            this.pairs = pairs;
+            this.codes = codes;
+            this.scan = scan;
+            this.deadline = deadline;
+
+            // Setiap tetangga menyumbang paling banyak satu nilai pair, dari kota maupun dari langkah sebelumnya
+            long pairBound = pairs.maxAnyPair;
+            remainingBound = new long[codes.length + 1];
+            for (int j = codes.length - 1; j >= 0; j--) {
+                TopList list = scan.gains[codes[j]];
+                long bestBase = list.size > 0 ? list.gains[0] : 0;
+                long step = Math.min(bestBase + pairBound * Math.min(4, j), 4 * pairBound);
+                remainingBound[j] = remainingBound[j + 1] + step;
+            }
+        }
+
+        State run(int beamWidth) {
+            State incumbent = greedy();
+            List<State> beam = new ArrayList<>();
+            beam.add(new State());
+            List<State> children = new ArrayList<>();
+            for (int step = 0; step < codes.length && !beam.isEmpty(); step++) {
+                children.clear();
+                for (State state : beam) {
+                    if (System.nanoTime() > deadline) {
+                        complete = false;
+                        return incumbent;
+                    }
+                    expand(state, children, incumbent);
+                }
+                children.sort((a, b) -> a.morePromisingThan(b) ? -1 : b.morePromisingThan(a) ? 1 : 0);
+                beam = new ArrayList<>(children.subList(0, Math.min(beamWidth, children.size())));
+                for (State state : beam) {
+                    if (state.betterThan(incumbent)) incumbent = state;
+                }
+            }
+            return incumbent;
+        }
+
+        /** Rencana greedy (beam selebar 1, tanpa pemangkasan) sebagai batas bawah untuk pemangkasan. */
+        private State greedy() {
+            State state = new State();
+            List<State> children = new ArrayList<>();
+            while (state.depth < codes.length) {
+                children.clear();
+                expand(state, children, null);
+                if (children.isEmpty()) break;
+                State next = children.get(0);
+                for (State child : children) {
+                    if (child.morePromisingThan(next)) next = child;
+                }
+                state = next;
+            }
+            return state;
+        }
+
+        /** Menambahkan semua kandidat langkah berikutnya dari state yang lolos batas atas. */
+        private void expand(State state, List<State> out, State incumbent) {
+            int step = state.depth;
+            byte code = codes[step];
+            int before = out.size();
+
+            // Petak dari hasil pindai yang tidak bersebelahan dengan penempatan sementara
+            TopList gains = scan.gains[code];
+            for (int k = 0; k < gains.size; k++) {
+                int plot = gains.plots[k];
+                if (state.indexOf(plot) >= 0 || touchesPlan(state, plot)) continue;
+                offer(state, plot, gains.gains[k], out, incumbent);
+            }
+            // Petak berpotensi tinggi: tempat kelompok dengan langkah berikutnya bisa dibangun
+            TopList potentials = scan.potentials[code];
+            for (int k = 0; k < potentials.size; k++) {
+                int plot = potentials.plots[k];
+                if (state.indexOf(plot) >= 0 || touchesPlan(state, plot) || alreadyOffered(out, before, plot)) continue;
+                offer(state, plot, pairs.baseGain(city, plot, code), out, incumbent);
+            }
+            // Petak kosong di sebelah penempatan sementara: nilainya dihitung ulang dengan sinergi rencana
+            for (int i = 0; i < state.depth; i++) {
+                int placed = state.plots[i];
+                for (int k = city.neighborStart(placed), end = city.neighborEnd(placed); k < end; k++) {
+                    int plot = city.neighborAt(k);
+                    if (city.typeCode(plot) != CityGrid.EMPTY || state.indexOf(plot) >= 0) continue;
+                    if (alreadyOffered(out, before, plot)) continue;
+                    long gain = pairs.baseGain(city, plot, code) + planGain(state, plot, code);
+                    offer(state, plot, gain, out, incumbent);
+                }
+            }
+        }
+
+        private void offer(State state, int plot, long gain, List<State> out, State incumbent) {
+            long bound = state.total + gain + remainingBound[state.depth + 1];
+            if (incumbent != null && incumbent.depth == codes.length && bound <= incumbent.total) return;
+            State child = state.extend(plot, gain);
+            child.estimate = child.total + lookahead(child);
+            out.add(child);
+        }
+
+        /**
+         * Perkiraan kenaikan langkah-langkah sisa jika masing-masing ditempatkan sendiri di
+         * petak terbaiknya (di luar rencana, atau di sebelahnya dengan sinergi rencana).
+         * Bukan batas atas; hanya membuat beam memilih rencana yang membuka kelompok bernilai.
+         */
+        private long lookahead(State state) {
+            long sum = 0;
+            for (int j = state.depth; j < codes.length; j++) {
+                sum += bestSingle(state, codes[j]);
+            }
+            return sum;
+        }
+
+        private long bestSingle(State state, byte code) {
+            long best = 0;
+            TopList gains = scan.gains[code];
+            for (int k = 0; k < gains.size; k++) {
+                int plot = gains.plots[k];
+                if (state.indexOf(plot) >= 0 || touchesPlan(state, plot)) continue;
+                best = gains.gains[k];
+                break;
+            }
+            for (int i = 0; i < state.depth; i++) {
+                int placed = state.plots[i];
+                for (int k = city.neighborStart(placed), end = city.neighborEnd(placed); k < end; k++) {
+                    int plot = city.neighborAt(k);
+                    if (city.typeCode(plot) != CityGrid.EMPTY || state.indexOf(plot) >= 0) continue;
+                    best = Math.max(best, pairs.baseGain(city, plot, code) + planGain(state, plot, code));
+                }
+            }
+            return best;
+        }
+
+        private static boolean alreadyOffered(List<State> out, int from, int plot) {
+            for (int i = from; i < out.size(); i++) {
+                State child = out.get(i);
+                if (child.plots[child.depth - 1] == plot) return true;
+            }
+            return false;
+        }
+
+        private boolean touchesPlan(State state, int plot) {
+            for (int k = city.neighborStart(plot), end = city.neighborEnd(plot); k < end; k++) {
+                if (state.indexOf(city.neighborAt(k)) >= 0) return true;
+            }
+            return false;
+        }
+
+        /** Sinergi antara petak plot (berkode code) dan penempatan sementara di sebelahnya. */
+        private long planGain(State state, int plot, byte code) {
+            long gain = 0;
+            for (int k = city.neighborStart(plot), end = city.neighborEnd(plot); k < end; k++) {
+                int i = state.indexOf(city.neighborAt(k));
+                if (i >= 0) gain += pairs.of(code, codes[i]);
+            }
+            return gain;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package nusantara;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CityView.java
+ *
+ * Tampilan kota yang bisa digeser dan di-zoom, untuk peta sampai jutaan petak. Biaya per
+ * frame mengikuti ukuran viewport, bukan ukuran kota:
+ *
+ * - Kota dibagi menjadi tile TILE x TILE piksel per tingkat zoom. Tile yang sudah digambar
+ *   disimpan di cache LRU kecil; frame biasa hanya menempelkan tile yang terlihat.
+ * - Perubahan kota dibaca dari jurnal di FrameSnapshot (CityGrid.ChangeLog): hanya tile yang
+ *   memuat sel yang berubah yang digambar ulang. Jika renderer tertinggal terlalu jauh atau
+ *   kota dikosongkan, semua tile dibuang.
+ * - Zoom &gt;= 0 menggambar setiap sel (CELL_SIZES[zoom] piksel). Di bawah nol satu piksel
+ *   mewakili 2^-zoom x 2^-zoom sel: warnanya rata-rata dari piramida LOD yang dihitung sekali
+ *   dan diperbarui O(tingkat) per sel yang berubah, jadi tile yang diperkecil tetap
+ *   digambar dalam O(piksel tile), bukan O(sel yang diwakilinya).
+ *
+ * Geser/zoom diminta dari thread mana pun (EDT) lewat panBy()/zoomBy() dan diterapkan pada
+ * draw() berikutnya. Selain itu hanya boleh dipakai oleh thread render.
+ */
+final class CityView {
+
+    static final int TILE = 128;
+    /** Ukuran sel (piksel) untuk zoom 0 .. MAX_ZOOM. */
+    private static final int[] CELL_SIZES = {1, 2, 3, 4, 6, 8, 12, 16, 24, 32, 40, 50, 64};
+    private static final int MAX_ZOOM = CELL_SIZES.length - 1;
+    /** Zoom awal terbesar: 50 px, ukuran sel kotak kota 5x4 yang lama. */
+    private static final int MAX_FIT_ZOOM = 11;
+    /** Dari ukuran sel ini ke bawah tile diisi per piksel, tanpa bingkai dan inset. */
+    private static final int MAX_PIXEL_CELL = 2;
+    private static final int MIN_CACHE_TILES = 64;
+
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+    private static final int BACKGROUND_RGB = RenderResources.CITY_BACKGROUND.getRGB() & 0xFFFFFF;
+    private static final int EMPTY_RGB = RenderResources.CITY_EMPTY_PLOT.getRGB() & 0xFFFFFF;
+    private static final int[] BLOCK_RGB = new int[BLOCK_TYPES.length];
+    static {
+        for (BlockType type : BLOCK_TYPES) BLOCK_RGB[type.ordinal()] = RenderResources.colorOf(type).getRGB() & 0xFFFFFF;
+    }
+
+    /** Satu tile di cache. valid false berarti isinya harus digambar ulang sebelum dipakai. */
+    private static final class Tile {
+        final BufferedImage image = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+        int zoom, tileX, tileY;
+        boolean valid;
+        long lastUsed;
+    }
+
+    // Cache LRU: dicari linear (puluhan tile), korban = lastUsed terkecil
+    private Tile[] tiles = new Tile[MIN_CACHE_TILES];
+    private int tileCount = 0;
+    private long frameNumber = 0;
+    private final int[] pixels = new int[TILE * TILE];
+    private int tilesRendered = 0;
+
+    // Piramida LOD: levels[l] berisi warna rata-rata blok 2^l x 2^l sel (levels[0] tidak dipakai)
+    private int[][] levels = new int[1][];
+    private int[] levelWidths = new int[1], levelHeights = new int[1];
+
+    // Kota yang tercermin di cache dan piramida
+    private int cityWidth = -1, cityHeight = -1;
+    private long seenChangeCount = -1;
+    private byte[] cityTypes;
+    private int[] cityHeights;
+
+    // Kamera: zoom dan piksel dunia (pada zoom itu) di pojok kiri atas viewport
+    private int zoom;
+    private long originX, originY;
+    private int viewWidth = -1, viewHeight = -1;
+    private int lastCursor = -1;
+
+    // Permintaan dari thread masukan
+    private final AtomicInteger pendingZoom = new AtomicInteger();
+    private final AtomicInteger pendingPanX = new AtomicInteger();
+    private final AtomicInteger pendingPanY = new AtomicInteger();
+
+    // Hasil locate()
+    int locatedX, locatedY, locatedSize;
+
+    /** Zoom masuk (steps &gt; 0) atau keluar (steps &lt; 0) di sekitar tengah viewport. Dari thread mana pun. */
+    void zoomBy(int steps) { pendingZoom.addAndGet(steps); }
+
+    /** Menggeser isi peta sejauh dx, dy piksel layar (arah seret mouse). Dari thread mana pun. */
+    void panBy(int dx, int dy) {
+        pendingPanX.addAndGet(dx);
+        pendingPanY.addAndGet(dy);
+    }
+
+    /** Jumlah tile yang digambar ulang sejak dibuat (untuk overlay/probe). */
+    int tilesRendered() { return tilesRendered; }
+
+    // =================================================================================
+    // Menggambar
+    // =================================================================================
+
+    /** Menggambar kota frame ke viewport (x, y, width, height). */
+    void draw(Graphics2D g, int x, int y, int width, int height, FrameSnapshot frame) {
+        frameNumber++;
+        boolean resized = sync(frame);
+        if (resized || width != viewWidth || height != viewHeight) {
+            viewWidth = width;
+            viewHeight = height;
+            fit();
+        }
+        applyPending();
+        follow(frame.cityCursor);
+        ensureCapacity();
+
+        g.setColor(RenderResources.CITY_BACKGROUND);
+        g.fillRect(x, y, width, height);
+        long worldWidth = worldWidth(zoom), worldHeight = worldHeight(zoom);
+        long right = Math.min(originX + width, worldWidth), bottom = Math.min(originY + height, worldHeight);
+        for (long ty = originY / TILE; ty * TILE < bottom; ty++) {
+            for (long tx = originX / TILE; tx * TILE < right; tx++) {
+                Tile tile = tile((int) tx, (int) ty);
+                // Hanya bagian tile yang masuk viewport, tanpa clip (clip mengalokasikan Shape)
+                int sx1 = (int) Math.max(0, originX - tx * TILE), sy1 = (int) Math.max(0, originY - ty * TILE);
+                int sx2 = (int) Math.min(TILE, right - tx * TILE), sy2 = (int) Math.min(TILE, bottom - ty * TILE);
+                int dx = (int) (tx * TILE - originX) + x, dy = (int) (ty * TILE - originY) + y;
+                g.drawImage(tile.image, dx + sx1, dy + sy1, dx + sx2, dy + sy2, sx1, sy1, sx2, sy2, null);
+            }
+        }
+    }
+
+    /**
+     * Posisi layar sel plot relatif terhadap pojok viewport ke locatedX/locatedY (ukuran
+     * locatedSize, minimal 6 px saat diperkecil). false jika sel tidak seluruhnya terlihat.
+     */
+    boolean locate(int plot) {
+        if (cityWidth <= 0 || plot < 0) return false;
+        long cellX = plot % cityWidth, cellY = plot / cityWidth;
+        long px, py;
+        int size;
+        if (zoom >= 0) {
+            size = CELL_SIZES[zoom];
+            px = cellX * size;
+            py = cellY * size;
+        } else {
+            size = 6;
+            px = (cellX >> -zoom) - 2;
+            py = (cellY >> -zoom) - 2;
+        }
+        px -= originX;
+        py -= originY;
+        if (px < 0 || py < 0 || px + size > viewWidth || py + size > viewHeight) return false;
+        locatedX = (int) px;
+        locatedY = (int) py;
+        locatedSize = size;
+        return true;
+    }
+
+    /** Mengambil tile dari cache, menggambarnya jika belum ada atau sudah tidak berlaku. */
+    private Tile tile(int tileX, int tileY) {
+        Tile victim = null;
+        for (int i = 0; i < tileCount; i++) {
+            Tile tile = tiles[i];
+            if (tile.zoom == zoom && tile.tileX == tileX && tile.tileY == tileY) {
+                if (!tile.valid) render(tile);
+                tile.lastUsed = frameNumber;
+                return tile;
+            }
+            if (victim == null || tile.lastUsed < victim.lastUsed) victim = tile;
+        }
+        if (tileCount < tiles.length) {
+            victim = new Tile();
+            tiles[tileCount++] = victim;
+        }
+        victim.zoom = zoom;
+        victim.tileX = tileX;
+        victim.tileY = tileY;
+        render(victim);
+        victim.lastUsed = frameNumber;
+        return victim;
+    }
+
+    /** Cache minimal dua kali jumlah tile yang bisa terlihat, agar tile frame ini tidak saling mengusir. */
+    private void ensureCapacity() {
+        int visible = (viewWidth / TILE + 2) * (viewHeight / TILE + 2);
+        int capacity = Math.max(MIN_CACHE_TILES, 2 * visible);
+        if (capacity > tiles.length) tiles = Arrays.copyOf(tiles, capacity);
+    }
+
+    private void render(Tile tile) {
+        tilesRendered++;
+        tile.valid = true;
+        if (tile.zoom < 0 || CELL_SIZES[tile.zoom] <= MAX_PIXEL_CELL) {
+            renderPixels(tile);
+        } else {
+            renderCells(tile);
+        }
+    }
+
+    /** Satu warna per piksel: dari sel langsung (1-2 px per sel) atau dari piramida LOD. */
+    private void renderPixels(Tile tile) {
+        long left = (long) tile.tileX * TILE, top = (long) tile.tileY * TILE;
+        int level = Math.max(0, -tile.zoom);
+        int cell = tile.zoom >= 0 ? CELL_SIZES[tile.zoom] : 1;
+        int width = level == 0 ? cityWidth : levelWidths[level];
+        int height = level == 0 ? cityHeight : levelHeights[level];
+        int[] colors = level == 0 ? null : levels[level];
+        for (int py = 0; py < TILE; py++) {
+            long y = (top + py) / cell;
+            for (int px = 0; px < TILE; px++) {
+                long x = (left + px) / cell;
+                int rgb = BACKGROUND_RGB;
+                if (x < width && y < height) {
+                    int index = (int) (y * width + x);
+                    rgb = colors == null ? cellRgb(cityTypes[index]) : colors[index];
+                }
+                pixels[py * TILE + px] = rgb;
+            }
+        }
+        tile.image.getRaster().setDataElements(0, 0, TILE, TILE, pixels);
+    }
+
+    /** Setiap sel digambar seperti kotak kota lama: petak kosong berbingkai, bangunan berwarna dan bertinggi. */
+    private void renderCells(Tile tile) {
+        int cell = CELL_SIZES[tile.zoom];
+        int inset = cell * 5 / 50;
+        int size = Math.max(1, cell - 2 * inset);
+        boolean showHeight = cell >= 30;
+        long left = (long) tile.tileX * TILE, top = (long) tile.tileY * TILE;
+
+        Graphics2D g = tile.image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(RenderResources.CITY_BACKGROUND);
+        g.fillRect(0, 0, TILE, TILE);
+        // Sel yang menyentuh tile, termasuk bingkai 1 px yang menjorok dari sel sebelah kiri/atas
+        long fromX = Math.max(0, (left - 1) / cell), toX = Math.min(cityWidth - 1, (left + TILE) / cell);
+        long fromY = Math.max(0, (top - 1) / cell), toY = Math.min(cityHeight - 1, (top + TILE) / cell);
+        for (long y = fromY; y <= toY; y++) {
+            for (long x = fromX; x <= toX; x++) {
+                int plot = (int) (y * cityWidth + x);
+                int px = (int) (x * cell - left) + inset, py = (int) (y * cell - top) + inset;
+                byte code = cityTypes[plot];
+                if (code > CityGrid.EMPTY) {
+                    g.setColor(RenderResources.colorOf(BLOCK_TYPES[code - 1]));
+                    g.fillRect(px, py, size, size);
+                    if (showHeight) {
+                        g.setColor(Color.WHITE);
+                        g.drawString(Integer.toString(cityHeights[plot]), px + 10, py + 20);
+                    }
+                } else if (code == CityGrid.EMPTY) {
+                    g.setColor(RenderResources.CITY_EMPTY_PLOT);
+                    g.drawRect(px, py, size, size);
+                }
+            }
+        }
+        g.dispose();
+    }
+
+    private static int cellRgb(byte code) {
+        if (code > CityGrid.EMPTY) return BLOCK_RGB[code - 1];
+        return code == CityGrid.EMPTY ? EMPTY_RGB : BACKGROUND_RGB;
+    }
+
+    // =================================================================================
+    // Sinkronisasi dengan Kota
+    // =================================================================================
+
+    /** Menerapkan perubahan kota sejak frame terakhir; true jika ukuran kota berubah. */
+    private boolean sync(FrameSnapshot frame) {
+        cityTypes = frame.cityTypes;
+        cityHeights = frame.cityHeights;
+        boolean resized = frame.cityWidth != cityWidth || frame.cityHeight != cityHeight;
+        if (!resized && frame.cityChangeCount == seenChangeCount) return false;
+        if (resized || seenChangeCount < frame.cityChangesFrom || seenChangeCount > frame.cityChangeCount) {
+            cityWidth = frame.cityWidth;
+            cityHeight = frame.cityHeight;
+            buildLevels();
+            for (int i = 0; i < tileCount; i++) tiles[i].valid = false;
+        } else {
+            for (long seq = seenChangeCount; seq < frame.cityChangeCount; seq++) {
+                int cell = frame.cityChanges[(int) (seq - frame.cityChangesFrom)];
+                updateLevels(cell);
+                invalidate(cell);
+            }
+        }
+        seenChangeCount = frame.cityChangeCount;
+        return resized;
+    }
+
+    /** Membuang tile (di semua tingkat zoom yang ada di cache) yang memuat sel cell. */
+    private void invalidate(int cell) {
+        long cellX = cell % cityWidth, cellY = cell / cityWidth;
+        for (int i = 0; i < tileCount; i++) {
+            Tile tile = tiles[i];
+            if (!tile.valid) continue;
+            if (tile.zoom >= 0) {
+                int size = CELL_SIZES[tile.zoom];
+                // +1: bingkai petak kosong selebar size + 1 piksel
+                if (overlaps(cellX * size, cellX * size + size + 1, tile.tileX)
+                        && overlaps(cellY * size, cellY * size + size + 1, tile.tileY)) {
+                    tile.valid = false;
+                }
+            } else if ((cellX >> -tile.zoom) / TILE == tile.tileX && (cellY >> -tile.zoom) / TILE == tile.tileY) {
+                tile.valid = false;
+            }
+        }
+    }
+
+    private static boolean overlaps(long from, long to, int tileIndex) {
+        long tileFrom = (long) tileIndex * TILE;
+        return from < tileFrom + TILE && to > tileFrom;
+    }
+
+    /** Membangun ulang seluruh piramida LOD dari sel (O(sel), hanya saat kota diganti/dikosongkan). */
+    private void buildLevels() {
+        int count = 1;
+        for (int w = cityWidth, h = cityHeight; w > 1 || h > 1; w = (w + 1) / 2, h = (h + 1) / 2) count++;
+        if (levels.length != count) {
+            levels = new int[count][];
+            levelWidths = new int[count];
+            levelHeights = new int[count];
+        }
+        levelWidths[0] = cityWidth;
+        levelHeights[0] = cityHeight;
+        for (int level = 1; level < count; level++) {
+            int width = (levelWidths[level - 1] + 1) / 2, height = (levelHeights[level - 1] + 1) / 2;
+            levelWidths[level] = width;
+            levelHeights[level] = height;
+            if (levels[level] == null || levels[level].length != width * height) levels[level] = new int[width * height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) levels[level][y * width + x] = average(level, x, y);
+            }
+        }
+    }
+
+    /** Memperbarui satu entri per tingkat di atas sel cell: O(log ukuran kota). */
+    private void updateLevels(int cell) {
+        int x = cell % cityWidth, y = cell / cityWidth;
+        for (int level = 1; level < levels.length; level++) {
+            x >>= 1;
+            y >>= 1;
+            levels[level][y * levelWidths[level] + x] = average(level, x, y);
+        }
+    }
+
+    /** Rata-rata warna (per kanal) dari sampai 4 entri tingkat di bawahnya yang berada di dalam peta. */
+    private int average(int level, int x, int y) {
+        int below = level - 1;
+        int width = levelWidths[below], height = levelHeights[below];
+        int r = 0, gr = 0, b = 0, n = 0;
+        for (int dy = 0; dy < 2; dy++) {
+            int sy = 2 * y + dy;
+            if (sy >= height) break;
+            for (int dx = 0; dx < 2; dx++) {
+                int sx = 2 * x + dx;
+                if (sx >= width) break;
+                int index = sy * width + sx;
+                int rgb = below == 0 ? cellRgb(cityTypes[index]) : levels[below][index];
+                r += rgb >> 16 & 0xFF;
+                gr += rgb >> 8 & 0xFF;
+                b += rgb & 0xFF;
+                n++;
+            }
+        }
+        return (r / n) << 16 | (gr / n) << 8 | b / n;
+    }
+
+    // =================================================================================
+    // Kamera
+    // =================================================================================
+
+    private long worldWidth(int zoom) {
+        return zoom >= 0 ? (long) cityWidth * CELL_SIZES[zoom] : levelWidths[Math.min(-zoom, levelWidths.length - 1)];
+    }
+
+    private long worldHeight(int zoom) {
+        return zoom >= 0 ? (long) cityHeight * CELL_SIZES[zoom] : levelHeights[Math.min(-zoom, levelHeights.length - 1)];
+    }
+
+    /** Zoom keluar terjauh: seluruh kota muat di viewport. */
+    private int minZoom() {
+        int zoom = 0;
+        while (zoom > 1 - levels.length && (worldWidth(zoom) > viewWidth || worldHeight(zoom) > viewHeight)) zoom--;
+        return zoom;
+    }
+
+    /** Zoom terbesar (sampai 50 px per sel) yang memuat seluruh kota, mulai dari pojok kiri atas. */
+    private void fit() {
+        zoom = minZoom();
+        for (int z = MAX_FIT_ZOOM; z > 0; z--) {
+            // Sisa 10 px seperti kotak lama (250 x 200 di dalam 260 x 210)
+            if (worldWidth(z) <= viewWidth - 10 && worldHeight(z) <= viewHeight - 10) {
+                zoom = z;
+                break;
+            }
+        }
+        originX = originY = 0;
+        clamp();
+    }
+
+    private void applyPending() {
+        int steps = pendingZoom.getAndSet(0);
+        int panX = pendingPanX.getAndSet(0), panY = pendingPanY.getAndSet(0);
+        if (steps != 0) {
+            int target = Math.max(minZoom(), Math.min(MAX_ZOOM, zoom + steps));
+            if (target != zoom) {
+                // Titik di tengah viewport tetap di tengah
+                double centerX = (originX + viewWidth / 2.0) / worldWidth(zoom);
+                double centerY = (originY + viewHeight / 2.0) / worldHeight(zoom);
+                zoom = target;
+                originX = (long) (centerX * worldWidth(zoom) - viewWidth / 2.0);
+                originY = (long) (centerY * worldHeight(zoom) - viewHeight / 2.0);
+            }
+        }
+        originX -= panX;
+        originY -= panY;
+        clamp();
+    }
+
+    /** Menggeser seminimal mungkin agar kursor petak yang baru berpindah terlihat. */
+    private void follow(int cursor) {
+        if (cursor == lastCursor) return;
+        lastCursor = cursor;
+        if (cursor < 0 || cursor >= cityWidth * cityHeight) return;
+        long cellX = cursor % cityWidth, cellY = cursor / cityWidth;
+        long size = zoom >= 0 ? CELL_SIZES[zoom] : 1;
+        long px = zoom >= 0 ? cellX * size : cellX >> -zoom;
+        long py = zoom >= 0 ? cellY * size : cellY >> -zoom;
+        originX = scrollTo(originX, px, size, viewWidth);
+        originY = scrollTo(originY, py, size, viewHeight);
+        clamp();
+    }
+
+    private static long scrollTo(long origin, long pos, long size, int visible) {
+        if (pos < origin) return pos;
+        if (pos + size > origin + visible) return pos + size - visible;
+        return origin;
+    }
+
+    /** Kota yang lebih kecil dari viewport menempel di kiri atas; yang lebih besar tidak digeser melewati tepinya. */
+    private void clamp() {
+        originX = Math.max(0, Math.min(originX, worldWidth(zoom) - viewWidth));
+        originY = Math.max(0, Math.min(originY, worldHeight(zoom) - viewHeight));
+    }
+}
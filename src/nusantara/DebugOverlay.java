@@ -0,0 +1,90 @@
+package nusantara;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * DebugOverlay.java
+ *
+ * Panel debug [F3] di pojok kiri bawah: FPS, frame terlewat, p50/p99/max tiap fase
+ * Profiler, alokasi per tick/frame, serta CPU proses dan porsi waktu loop terparkir. Teksnya disusun ulang paling sering 4x per detik
+ * agar overlay sendiri tidak mengotori angka alokasi per frame.
+ *
+ * Hanya dipakai oleh thread render (lewat TowerRenderer).
+ */
+final class DebugOverlay {
+
+    private static final long REFRESH_NANOS = 250_000_000L;
+    private static final int LINE_HEIGHT = 14;
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+
+    private String[] lines = new String[0];
+    private long lastRefresh = 0;
+    private long lastPaintedFrames = 0;
+    private double fps = 0;
+    private long lastCpuNanos = -1;
+    private long lastParkedNanos = 0;
+    private double cpuPercent = -1;
+    private double parkedPercent = 0;
+
+    void draw(Graphics2D g, int height) {
+        long now = System.nanoTime();
+        if (lastRefresh == 0 || now - lastRefresh >= REFRESH_NANOS) {
+            rebuild(now);
+        }
+        int boxHeight = lines.length * LINE_HEIGHT + 10;
+        int y = height - boxHeight - 10;
+        g.setColor(BACKGROUND);
+        g.fillRect(10, y, 420, boxHeight);
+        g.setFont(RenderResources.FONT_DEBUG);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 16, y + 16 + i * LINE_HEIGHT);
+        }
+    }
+
+    private void rebuild(long now) {
+        if (!Profiler.ENABLED) {
+            lines = new String[] { "Profiler nonaktif. Jalankan dengan -Dnusantara.profile=true" };
+            lastRefresh = now;
+            return;
+        }
+        long painted = Profiler.paintedFrames();
+        long cpu = Profiler.processCpuNanos();
+        long parked = Profiler.parkedNanos();
+        if (lastRefresh != 0) {
+            long window = now - lastRefresh;
+            fps = (painted - lastPaintedFrames) * 1e9 / window;
+            cpuPercent = cpu >= 0 && lastCpuNanos >= 0 ? (cpu - lastCpuNanos) * 100.0 / window : -1;
+            parkedPercent = Math.min(100, (parked - lastParkedNanos) * 100.0 / window);
+        }
+        lastPaintedFrames = painted;
+        lastCpuNanos = cpu;
+        lastParkedNanos = parked;
+        lastRefresh = now;
+
+        String[] next = new String[Profiler.PHASE_COUNT + 5];
+        int n = 0;
+        next[n++] = String.format("FPS %.0f   frame terlewat %d   snapshot terlewat %d",
+                fps, Profiler.droppedFrames(), Profiler.skippedFrames());
+        next[n++] = cpuPercent < 0
+                ? String.format("CPU proses n/a   loop parkir %.0f%%", parkedPercent)
+                : String.format("CPU proses %.1f%% (1 inti = 100%%)   loop parkir %.0f%%", cpuPercent, parkedPercent);
+        next[n++] = String.format("%-15s %9s %9s %9s %9s", "fase (us)", "n", "p50", "p99", "max");
+        for (int phase = 0; phase < Profiler.PHASE_COUNT; phase++) {
+            LatencyHistogram h = Profiler.phase(phase);
+            if (h.count() == 0) continue;
+            next[n++] = String.format("%-15s %9d %9.1f %9.1f %9.1f", Profiler.PHASE_NAMES[phase], h.count(),
+                    h.percentile(50) / 1e3, h.percentile(99) / 1e3, h.max() / 1e3);
+        }
+        if (Profiler.isAllocationSupported()) {
+            next[n++] = allocationLine("alokasi tick", Profiler.tickAllocation());
+            next[n++] = allocationLine("alokasi frame", Profiler.frameAllocation());
+        }
+        lines = Arrays.copyOf(next, n);
+    }
+
+    private static String allocationLine(String name, LatencyHistogram h) {
+        return String.format("%-15s %9d %8dB %8dB %8dB", name, h.count(), h.percentile(50), h.percentile(99), h.max());
+    }
+}
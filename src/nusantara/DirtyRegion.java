@@ -0,0 +1,145 @@
+package nusantara;
+
+/**
+ * DirtyRegion.java
+ *
+ * Daerah layar yang berubah antara dua frame berturut-turut yang diterbitkan loop.
+ * update() membandingkan snapshot baru dengan nilai yang disimpan dari snapshot sebelumnya
+ * dan menggabungkan kotak yang perlu digambar ulang: crane dan balok gantung (posisi lama
+ * dan baru), HUD, kotak kota beserta pita teks pilih petak, atau seluruh layar saat yang
+ * berubah adalah menara, kamera, menu, layar akhir, ukuran jendela, dan sejenisnya.
+ *
+ * Render pasif memakai kotaknya untuk repaint(x, y, w, h); render aktif hanya melewati
+ * frame yang kosong (BufferStrategy selalu menampilkan frame utuh). Frame kosong berarti
+ * tidak ada piksel yang berubah, jadi loop boleh berhenti menggambar.
+ *
+ * update() dan pembacaan kotak hanya dari thread loop; markAll() dari thread mana pun.
+ */
+final class DirtyRegion {
+
+    // Anti-aliasing garis dan bingkai bisa melewati kotak pembatas satu piksel
+    private static final int MARGIN = 2;
+
+    private volatile boolean allRequested = true;
+
+    // Hasil update() terakhir: kotak [x0, x1) x [y0, y1), kosong jika x0 >= x1
+    private int x0, y0, x1, y1;
+
+    // Nilai dari snapshot sebelumnya
+    private int viewWidth = -1, viewHeight = -1;
+    private boolean mapExpanded;
+    private GameState gameState;
+    private boolean showingUpgrades;
+    private long score;
+    private int lives;
+    private int queueVersion;
+    private int upgradeVersion;
+    private int highScoreVersion;
+    private long lastRank;
+    private int cameraY, towerFrom, towerCount;
+    private int cityVersion;
+    private long cityChangeCount;
+    private boolean choosePlots;
+    private int cityCursor;
+    private CityPlanner.Plan plan;
+    private boolean craneVisible;
+    private final int[] crane = new int[4];
+    private final int[] nextCrane = new int[4];
+
+    /** Frame berikutnya digambar ulang seluruhnya (mis. zoom peta, jendela tertutup lalu tampil lagi). */
+    void markAll() {
+        allRequested = true;
+    }
+
+    /**
+     * Menghitung daerah yang berubah dari snapshot sebelumnya ke frame, yang akan digambar
+     * pada area width x height. Mengembalikan false jika tidak ada yang berubah.
+     */
+    boolean update(FrameSnapshot frame, int width, int height, boolean cityMapExpanded) {
+        x0 = y0 = Integer.MAX_VALUE;
+        x1 = y1 = Integer.MIN_VALUE;
+
+        boolean all = allRequested;
+        allRequested = false;
+        all |= width != viewWidth || height != viewHeight || cityMapExpanded != mapExpanded
+                || frame.gameState != gameState || frame.showingUpgrades != showingUpgrades
+                || frame.upgradeVersion != upgradeVersion || frame.highScoreVersion != highScoreVersion
+                || frame.lastRank != lastRank || (frame.showingUpgrades && frame.score != score)
+                || frame.cameraY != cameraY || frame.towerFrom != towerFrom || frame.towerCount != towerCount
+                || Profiler.isOverlayVisible();
+
+        boolean cityChanged = frame.cityVersion != cityVersion || frame.cityChangeCount != cityChangeCount
+                || frame.choosePlots != choosePlots || frame.cityCursor != cityCursor || frame.plan != plan;
+        if (cityChanged && cityMapExpanded) all = true;
+
+        boolean visible = frame.gameState != GameState.GAME_OVER;
+        if (visible) TowerRenderer.craneBounds(frame, nextCrane);
+
+        if (all) {
+            include(0, 0, width, height);
+        } else {
+            if (frame.score != score || frame.lives != lives || frame.queueVersion != queueVersion) {
+                include(TowerRenderer.HUD_X, TowerRenderer.HUD_Y,
+                        TowerRenderer.HUD_X + TowerRenderer.HUD_W, TowerRenderer.HUD_Y + TowerRenderer.HUD_H);
+            }
+            if (cityChanged) {
+                include(TowerRenderer.CITY_X, TowerRenderer.CITY_Y,
+                        TowerRenderer.CITY_X + TowerRenderer.CITY_W, TowerRenderer.CITY_Y + TowerRenderer.CITY_H);
+                include(0, TowerRenderer.PLOT_TEXT_Y, width, TowerRenderer.PLOT_TEXT_Y + TowerRenderer.PLOT_TEXT_H);
+            }
+            if (visible != craneVisible || (visible && !sameCrane())) {
+                if (craneVisible) include(crane[0], crane[1], crane[2], crane[3]);
+                if (visible) include(nextCrane[0], nextCrane[1], nextCrane[2], nextCrane[3]);
+            }
+        }
+        remember(frame, width, height, cityMapExpanded, visible);
+
+        x0 = Math.max(0, x0 - MARGIN);
+        y0 = Math.max(0, y0 - MARGIN);
+        x1 = Math.min(width, x1 + MARGIN);
+        y1 = Math.min(height, y1 + MARGIN);
+        return !isEmpty();
+    }
+
+    private boolean sameCrane() {
+        return crane[0] == nextCrane[0] && crane[1] == nextCrane[1] && crane[2] == nextCrane[2] && crane[3] == nextCrane[3];
+    }
+
+    private void include(int fromX, int fromY, int toX, int toY) {
+        x0 = Math.min(x0, fromX);
+        y0 = Math.min(y0, fromY);
+        x1 = Math.max(x1, toX);
+        y1 = Math.max(y1, toY);
+    }
+
+    private void remember(FrameSnapshot frame, int width, int height, boolean cityMapExpanded, boolean visible) {
+        viewWidth = width;
+        viewHeight = height;
+        mapExpanded = cityMapExpanded;
+        gameState = frame.gameState;
+        showingUpgrades = frame.showingUpgrades;
+        score = frame.score;
+        lives = frame.lives;
+        queueVersion = frame.queueVersion;
+        upgradeVersion = frame.upgradeVersion;
+        highScoreVersion = frame.highScoreVersion;
+        lastRank = frame.lastRank;
+        cameraY = frame.cameraY;
+        towerFrom = frame.towerFrom;
+        towerCount = frame.towerCount;
+        cityVersion = frame.cityVersion;
+        cityChangeCount = frame.cityChangeCount;
+        choosePlots = frame.choosePlots;
+        cityCursor = frame.cityCursor;
+        plan = frame.plan;
+        craneVisible = visible;
+        if (visible) System.arraycopy(nextCrane, 0, crane, 0, crane.length);
+    }
+
+    boolean isEmpty() { return x0 >= x1 || y0 >= y1; }
+
+    int x() { return x0; }
+    int y() { return y0; }
+    int width() { return x1 - x0; }
+    int height() { return y1 - y0; }
+}
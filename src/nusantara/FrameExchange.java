@@ -0,0 +1,76 @@
+package nusantara;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * FrameExchange.java
+ *
+ * Triple buffer untuk menyerahkan FrameSnapshot dari thread simulasi ke thread render
+ * tanpa kunci. Ada tiga snapshot: satu milik penulis (back), satu milik pembaca (front),
+ * dan satu di tengah. Penulis mengisi back lalu menukarnya dengan yang di tengah dalam satu
+ * getAndSet; pembaca mengambil yang di tengah (jika lebih baru) dengan cara yang sama.
+ * Keduanya tidak pernah menunggu satu sama lain dan tidak pernah memegang snapshot yang sama.
+ */
+final class FrameExchange {
+
+    /** Snapshot beserta penanda "belum diambil pembaca". */
+    private static final class Slot {
+        final FrameSnapshot frame = new FrameSnapshot();
+        volatile boolean fresh = false;
+    }
+
+    private final AtomicReference<Slot> middle = new AtomicReference<>(new Slot());
+    private Slot back = new Slot();   // hanya thread simulasi
+    private long skippedFrames = 0;   // hanya thread simulasi
+    private Slot front = new Slot();  // hanya thread render
+    private boolean published = false; // hanya thread render: sudah pernah menerima frame
+
+    /**
+     * Menyalin state sim dan menerbitkannya. Hanya dari thread simulasi. Snapshot yang
+     * dikembalikan boleh dibaca (tidak diubah) oleh thread simulasi sampai publish berikutnya.
+     */
+    FrameSnapshot publish(TowerSimulation sim, int viewportHeight, double alpha) {
+        return publish(sim, null, viewportHeight, alpha);
+    }
+
+    /** Seperti publish(sim, viewportHeight, alpha), ditambah saran CityPlanner untuk mode pilih petak. */
+    FrameSnapshot publish(TowerSimulation sim, CityPlanner.Plan plan, int viewportHeight, double alpha) {
+        back.frame.capture(sim, plan, viewportHeight, alpha);
+        return swapBack();
+    }
+
+    /** Menerbitkan state siaran yang diterima penonton. Hanya dari thread yang menjalankan decoder. */
+    FrameSnapshot publish(SpectatorStream.Decoder view, int viewportHeight, double alpha) {
+        back.frame.capture(view, viewportHeight, alpha);
+        return swapBack();
+    }
+
+    private FrameSnapshot swapBack() {
+        FrameSnapshot published = back.frame;
+        back.fresh = true;
+        back = middle.getAndSet(back);
+        // Slot yang kembali masih "fresh": pembaca tidak sempat mengambilnya, frame itu terlewat
+        if (back.fresh) {
+            skippedFrames++;
+            Profiler.countSkippedFrame();
+        }
+        return published;
+    }
+
+    /** Jumlah snapshot yang tertimpa sebelum sempat digambar (mis. repaint() yang digabung Swing). */
+    long getSkippedFrames() { return skippedFrames; }
+
+    /**
+     * Snapshot terbaru untuk digambar, atau null jika belum ada frame yang diterbitkan.
+     * Snapshot yang dikembalikan tetap valid sampai latest() dipanggil lagi. Hanya dari thread render.
+     */
+    FrameSnapshot latest() {
+        if (middle.get().fresh) {
+            // Di antara cek dan tukar, penulis hanya bisa menaruh slot yang lebih baru
+            front.fresh = false;
+            front = middle.getAndSet(front);
+            published = true;
+        }
+        return published ? front.frame : null;
+    }
+}
@@ -0,0 +1,252 @@
+package nusantara;
+
+/**
+ * FrameSnapshot.java
+ *
+ * Salinan state TowerSimulation yang dibutuhkan untuk menggambar satu frame.
+ * Diisi oleh thread simulasi lewat capture(), lalu diserahkan ke thread render lewat
+ * FrameExchange. Setelah diterbitkan, snapshot tidak diubah lagi sampai thread render
+ * mengembalikannya, jadi render tidak pernah melihat state setengah jadi.
+ *
+ * Objek dan array-nya dipakai ulang antar frame. Bagian yang besar atau jarang berubah
+ * (kota, antrean, menu upgrade, skor tertinggi) hanya disalin saat versinya berubah;
+ * dari menara hanya balok di dalam viewport yang disalin. Dari kota hanya sel yang
+ * berubah sejak snapshot ini terakhir diisi (CityGrid.ChangeLog), bukan seluruh peta.
+ */
+final class FrameSnapshot {
+
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+
+    double alpha;
+    GameState gameState;
+    boolean showingUpgrades;
+    long score;
+    int lives;
+
+    // Crane & balok tergantung (posisi tick ini dan tick sebelumnya untuk interpolasi)
+    int craneX, prevCraneX;
+    int hangingX, hangingY, prevHangingX, prevHangingY;
+    int hangingWidth, hangingHeight;
+    BlockType hangingType;
+    int cameraY;
+
+    // Balok menara yang terlihat: indeks towerFrom .. towerFrom + towerCount - 1
+    int towerFrom, towerCount;
+    int[] towerX = new int[64];
+    int[] towerWidth = new int[64];
+    byte[] towerType = new byte[64];
+
+    // Kota (kode CityGrid: NO_PLOT, EMPTY, atau ordinal + 1)
+    int cityVersion = -1;
+    int cityWidth, cityHeight;
+    byte[] cityTypes = new byte[0];
+    int[] cityHeights = new int[0];
+    // Posisi jurnal perubahan kota yang sudah tercermin di cityTypes/cityHeights, dan sel yang
+    // berubah pada perubahan ke-cityChangesFrom .. cityChangeCount - 1 (untuk renderer; jika
+    // renderer tertinggal lebih jauh dari itu, ia menggambar ulang semuanya)
+    long cityChangeCount = -1;
+    long cityChangesFrom;
+    final int[] cityChanges = new int[CityGrid.ChangeLog.CAPACITY];
+
+    // Mode pilih petak: kursor (disalin setiap frame) dan rencana CityPlanner (tidak berubah, cukup dirujuk)
+    boolean choosePlots;
+    int cityCursor;
+    CityPlanner.Plan plan;
+
+    // Antrean balok berikutnya
+    int queueVersion = -1;
+    BlockType[] upcoming = new BlockType[4];
+    int upcomingCount;
+
+    // Menu upgrade, urutan sama dengan tombol [1]..[9]
+    int upgradeVersion = -1;
+    int upgradeCount;
+    String[] upgradeNames = new String[TowerSimulation.MAX_UPGRADE_SLOTS];
+    int[] upgradeCosts = new int[TowerSimulation.MAX_UPGRADE_SLOTS];
+
+    // Papan skor
+    int highScoreVersion = -1;
+    long[] topScores = new long[Leaderboard.DEFAULT_TOP_K];
+    int topCount;
+    long leaderboardSize;
+    long lastRank;
+
+    /**
+     * Menyalin state sim untuk viewport setinggi viewportHeight, beserta rencana planner
+     * (boleh null). Hanya dari thread simulasi.
+     */
+    void capture(TowerSimulation sim, CityPlanner.Plan plan, int viewportHeight, double alpha) {
+        this.alpha = alpha;
+        this.plan = plan;
+        gameState = sim.getGameState();
+        showingUpgrades = sim.isShowingUpgrades();
+        score = sim.getCurrentScore();
+        lives = sim.getPlayerLives();
+
+        craneX = sim.getCraneX();
+        prevCraneX = sim.getPrevCraneX();
+        TowerSimulation.Block hanging = sim.getHangingBlock();
+        hangingX = hanging.x;
+        hangingY = hanging.y;
+        prevHangingX = sim.getPrevHangingX();
+        prevHangingY = sim.getPrevHangingY();
+        hangingWidth = hanging.width;
+        hangingHeight = hanging.height;
+        hangingType = hanging.type;
+        cameraY = sim.getCameraY();
+        choosePlots = sim.isChoosePlotMode();
+        cityCursor = sim.getNextCityPlot();
+
+        captureTower(sim.getTower(), viewportHeight);
+        if (cityVersion != sim.getCityVersion()) captureCity(sim);
+        if (queueVersion != sim.getQueueVersion()) captureQueue(sim);
+        if (upgradeVersion != sim.getUpgradeVersion()) captureUpgrades(sim);
+        if (highScoreVersion != sim.getHighScoreVersion() || lastRank != sim.getLastRank()) captureHighScores(sim);
+    }
+
+    /**
+     * Seperti capture(sim, ...), dari state siaran yang diterima penonton (lihat SpectatorClient).
+     * Hanya dari thread yang menjalankan decoder.
+     */
+    void capture(SpectatorStream.Decoder view, int viewportHeight, double alpha) {
+        this.alpha = alpha;
+        this.plan = null;
+        gameState = view.gameState;
+        showingUpgrades = view.showingUpgrades;
+        score = view.score;
+        lives = view.lives;
+
+        craneX = view.craneX;
+        prevCraneX = view.prevCraneX;
+        hangingX = view.hangingX;
+        hangingY = view.hangingY;
+        prevHangingX = view.prevHangingX;
+        prevHangingY = view.prevHangingY;
+        hangingWidth = view.hangingWidth;
+        hangingHeight = view.hangingHeight;
+        hangingType = view.hangingType;
+        cameraY = view.cameraY;
+        choosePlots = view.choosePlots;
+        cityCursor = view.cityCursor;
+
+        captureTower(view.tower, viewportHeight);
+        if (cityVersion != view.cityVersion) captureCity(view);
+        if (queueVersion != view.queueVersion) {
+            queueVersion = view.queueVersion;
+            upcomingCount = Math.min(view.upcomingCount, upcoming.length);
+            System.arraycopy(view.upcoming, 0, upcoming, 0, upcomingCount);
+        }
+        if (upgradeVersion != view.upgradeVersion) {
+            upgradeVersion = view.upgradeVersion;
+            upgradeCount = view.upgradeCount;
+            System.arraycopy(view.upgradeNames, 0, upgradeNames, 0, upgradeCount);
+            System.arraycopy(view.upgradeCosts, 0, upgradeCosts, 0, upgradeCount);
+        }
+        if (highScoreVersion != view.highScoreVersion) {
+            highScoreVersion = view.highScoreVersion;
+            topCount = view.topCount;
+            System.arraycopy(view.topScores, 0, topScores, 0, topCount);
+            leaderboardSize = view.leaderboardSize;
+            lastRank = view.lastRank;
+        }
+    }
+
+    BlockType towerTypeAt(int i) { return BLOCK_TYPES[towerType[i]]; }
+
+    private void captureTower(TowerStore tower, int viewportHeight) {
+        towerFrom = tower.visibleFrom(cameraY + viewportHeight);
+        int to = tower.visibleTo(cameraY);
+        towerCount = Math.max(0, to - towerFrom);
+        if (towerCount > towerX.length) {
+            int capacity = Math.max(towerCount, towerX.length * 2);
+            towerX = new int[capacity];
+            towerWidth = new int[capacity];
+            towerType = new byte[capacity];
+        }
+        for (int k = 0; k < towerCount; k++) {
+            int i = towerFrom + k;
+            towerX[k] = tower.x(i);
+            towerWidth[k] = tower.width(i);
+            towerType[k] = (byte) tower.type(i).ordinal();
+        }
+    }
+
+    private void captureCity(TowerSimulation sim) {
+        CityGrid city = sim.getCity();
+        CityGrid.ChangeLog log = city.changes();
+        cityVersion = sim.getCityVersion();
+        if (!resizeCity(city.width(), city.height()) && log.covers(cityChangeCount)) {
+            for (long seq = cityChangeCount; seq < log.count(); seq++) {
+                int cell = log.cellAt(seq);
+                cityTypes[cell] = city.typeCode(cell);
+                cityHeights[cell] = city.heightAt(cell);
+            }
+        } else {
+            city.copyCells(cityTypes, cityHeights);
+        }
+        captureCityChanges(log);
+    }
+
+    private void captureCity(SpectatorStream.Decoder view) {
+        CityGrid.ChangeLog log = view.cityChanges;
+        cityVersion = view.cityVersion;
+        if (!resizeCity(view.cityWidth, view.cityHeight) && log.covers(cityChangeCount)) {
+            for (long seq = cityChangeCount; seq < log.count(); seq++) {
+                int cell = log.cellAt(seq);
+                cityTypes[cell] = view.cityTypes[cell];
+                cityHeights[cell] = view.cityHeights[cell];
+            }
+        } else {
+            System.arraycopy(view.cityTypes, 0, cityTypes, 0, cityTypes.length);
+            System.arraycopy(view.cityHeights, 0, cityHeights, 0, cityHeights.length);
+        }
+        captureCityChanges(log);
+    }
+
+    /** true jika ukuran kota berubah (array baru, isinya harus disalin penuh). */
+    private boolean resizeCity(int width, int height) {
+        if (width == cityWidth && height == cityHeight && cityTypes.length == width * height) return false;
+        cityWidth = width;
+        cityHeight = height;
+        cityTypes = new byte[width * height];
+        cityHeights = new int[width * height];
+        return true;
+    }
+
+    private void captureCityChanges(CityGrid.ChangeLog log) {
+        cityChangeCount = log.count();
+        cityChangesFrom = log.oldest();
+        for (long seq = cityChangesFrom; seq < cityChangeCount; seq++) {
+            cityChanges[(int) (seq - cityChangesFrom)] = log.cellAt(seq);
+        }
+    }
+
+    private void captureQueue(TowerSimulation sim) {
+        queueVersion = sim.getQueueVersion();
+        upcomingCount = 0;
+        for (BlockType type : sim.getUpcomingBlocks()) {
+            if (upcomingCount == upcoming.length) break;
+            upcoming[upcomingCount++] = type;
+        }
+    }
+
+    private void captureUpgrades(TowerSimulation sim) {
+        upgradeVersion = sim.getUpgradeVersion();
+        UpgradeProgress upgrades = sim.getUpgrades();
+        UpgradeGraph graph = upgrades.graph();
+        upgradeCount = Math.min(upgrades.frontierSize(), TowerSimulation.MAX_UPGRADE_SLOTS);
+        for (int i = 0; i < upgradeCount; i++) {
+            int upgrade = upgrades.frontierAt(i);
+            upgradeNames[i] = graph.name(upgrade);
+            upgradeCosts[i] = graph.cost(upgrade);
+        }
+    }
+
+    private void captureHighScores(TowerSimulation sim) {
+        Leaderboard leaderboard = sim.getLeaderboard();
+        highScoreVersion = sim.getHighScoreVersion();
+        lastRank = sim.getLastRank();
+        topCount = leaderboard.topScores(topScores, null);
+        leaderboardSize = leaderboard.size();
+    }
+}
@@ -0,0 +1,240 @@
+package nusantara;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GameLoop.java
+ *
+ * Mesin game loop dengan langkah simulasi tetap (fixed timestep).
+ *
+ * Simulasi selalu maju dalam potongan waktu yang sama panjang (tick), terlepas dari
+ * berapa lama proses menggambar atau seberapa meleset Thread.sleep. Waktu nyata yang
+ * berlalu ditampung di sebuah akumulator; setiap frame menjalankan tick sebanyak yang
+ * "terutang" (mengejar ketinggalan setelah macet), lalu menggambar dengan nilai alpha
+ * = sisa akumulator / panjang tick agar posisi bisa diinterpolasi di antara dua tick.
+ *
+ * Saat layar diam (Listener.idleNanos() > 0) loop memarkir thread-nya sendiri: tidak ada
+ * tick maupun frame sampai wake() dipanggil (masukan, perubahan ukuran jendela, dsb) atau
+ * batas waktu parkir habis. Waktu selama parkir tidak dikejar; jam simulasi berhenti bersama
+ * game dan berlanjut dari titik yang sama setelah bangun.
+ *
+ * Konfigurasi lewat system property:
+ * - nusantara.fps       : target frame per detik untuk render (default 60, 0 = tanpa batas).
+ * - nusantara.timeScale : pengali kecepatan waktu simulasi (default 1.0, 4.0 = 4x lebih cepat).
+ */
+public class GameLoop implements Runnable {
+
+    /** Callback yang dipanggil oleh loop. Keduanya dijalankan di thread loop. */
+    public interface Listener {
+        /** Satu langkah simulasi dengan panjang waktu tetap. */
+        void tick();
+
+        /** Menggambar frame; alpha dalam rentang [0, 1) adalah posisi di antara tick terakhir dan berikutnya. */
+        void render(double alpha);
+
+        /**
+         * Dipanggil setelah setiap frame: 0 jika frame berikutnya mungkin berbeda, Long.MAX_VALUE
+         * untuk parkir sampai wake(), atau nilai lain sebagai batas lama parkir (nano).
+         */
+        default long idleNanos() { return 0; }
+    }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // Batas waktu yang boleh dikejar dalam satu frame, mencegah "spiral of death" setelah macet panjang.
+    private static final long MAX_FRAME_NANOS = 250_000_000L;
+    // Sisa waktu tidur terakhir yang diisi dengan yield agar pacing tidak bergantung pada resolusi timer OS.
+    private static final long SPIN_THRESHOLD_NANOS = 200_000L;
+
+    private final Listener listener;
+    private final long tickNanos;
+    private final long frameNanos;
+    private final double timeScale;
+
+    private volatile boolean running = true;
+    private volatile boolean wakeRequested = false;
+    private volatile Thread loopThread;
+    private long tickCount = 0;
+    private long frameCount = 0;
+    private long droppedNanos = 0;
+    private long droppedFrames = 0;
+    private long parkedNanos = 0;
+    private long parks = 0;
+
+    // Jam simulasi: pada waktu clockAnchorNanos, simulasi berada di tick (pecahan) clockAnchorTicks
+    private long clockAnchorNanos;
+    private double clockAnchorTicks;
+
+    public GameLoop(Listener listener, int tickRate, int targetFps, double timeScale) {
+        if (tickRate <= 0) throw new IllegalArgumentException("tickRate harus > 0");
+        if (targetFps < 0) throw new IllegalArgumentException("targetFps tidak boleh negatif");
+        if (timeScale <= 0) throw new IllegalArgumentException("timeScale harus > 0");
+        this.listener = listener;
+        this.tickNanos = NANOS_PER_SECOND / tickRate;
+        this.frameNanos = targetFps == 0 ? 0 : NANOS_PER_SECOND / targetFps;
+        this.timeScale = timeScale;
+    }
+
+    /** Membuat loop dengan FPS dan skala waktu dari system property (lihat dokumentasi kelas). */
+    public static GameLoop fromSystemProperties(Listener listener, int tickRate) {
+        return fromSystemProperties(listener, tickRate, 60);
+    }
+
+    /** Seperti di atas, dengan FPS bawaan sendiri (mis. refresh rate layar) jika nusantara.fps tidak diisi. */
+    public static GameLoop fromSystemProperties(Listener listener, int tickRate, int defaultFps) {
+        int fps = Integer.getInteger("nusantara.fps", defaultFps);
+        double timeScale = Double.parseDouble(System.getProperty("nusantara.timeScale", "1.0"));
+        return new GameLoop(listener, tickRate, fps, timeScale);
+    }
+
+    @Override
+    public void run() {
+        loopThread = Thread.currentThread();
+        long accumulator = 0;
+        long previous = System.nanoTime();
+        long nextFrame = previous;
+
+        while (running) {
+            // Dibersihkan sebelum tick: wake() yang datang setelah titik ini membatalkan parkir di bawah
+            wakeRequested = false;
+            long now = System.nanoTime();
+            long elapsed = now - previous;
+            previous = now;
+            if (elapsed > MAX_FRAME_NANOS) {
+                droppedNanos += elapsed - MAX_FRAME_NANOS;
+                elapsed = MAX_FRAME_NANOS;
+            }
+            accumulator += (long) (elapsed * timeScale);
+            clockAnchorNanos = now;
+            clockAnchorTicks = tickCount + (double) accumulator / tickNanos;
+
+            // Event JFR hanya dibuat saat rekaman menyalakannya (dan tidak selama kelasnya masih
+            // dimuat di latar), jadi tanpa rekaman loop ini tidak mengalokasikan apa pun
+            boolean tickJfr = Profiler.tickEventsEnabled();
+            int ticksThisFrame = 0;
+            while (accumulator >= tickNanos) {
+                Profiler.TickEvent tickEvent = tickJfr ? new Profiler.TickEvent() : null;
+                if (tickJfr) tickEvent.begin();
+                listener.tick();
+                accumulator -= tickNanos;
+                tickCount++;
+                ticksThisFrame++;
+                if (tickJfr && tickEvent.shouldCommit()) {
+                    tickEvent.tick = tickCount;
+                    tickEvent.commit();
+                }
+            }
+
+            boolean frameJfr = Profiler.frameEventsEnabled();
+            Profiler.FrameEvent frameEvent = frameJfr ? new Profiler.FrameEvent() : null;
+            if (frameJfr) frameEvent.begin();
+            double alpha = (double) accumulator / tickNanos;
+            listener.render(alpha);
+            frameCount++;
+            // Baru setelah frame pertama, agar memuat JFR tidak berebut CPU dengan frame itu
+            if (frameCount == 1) Profiler.loadJfrEventsInBackground();
+            if (frameJfr && frameEvent.shouldCommit()) {
+                frameEvent.frame = frameCount;
+                frameEvent.alpha = alpha;
+                frameEvent.ticks = ticksThisFrame;
+                frameEvent.commit();
+            }
+
+            if (frameNanos > 0) {
+                nextFrame += frameNanos;
+                long late = System.nanoTime() - nextFrame;
+                if (late > frameNanos) {
+                    // Terlambat lebih dari satu frame: jangan mencoba "membalas" frame yang hilang.
+                    long missed = late / frameNanos;
+                    droppedFrames += missed;
+                    Profiler.countDroppedFrames(missed);
+                    nextFrame = System.nanoTime();
+                } else {
+                    sleepUntil(nextFrame);
+                }
+            } else {
+                Thread.yield();
+            }
+
+            long idle = listener.idleNanos();
+            if (idle > 0 && running && !wakeRequested) {
+                long parkedAt = System.nanoTime();
+                park(parkedAt, idle);
+                long wokeAt = System.nanoTime();
+                parkedNanos += wokeAt - parkedAt;
+                parks++;
+                Profiler.countParked(wokeAt - parkedAt);
+                // Waktu selama parkir bukan utang simulasi: mulai lagi dari sekarang, dengan satu
+                // tick siap jalan agar masukan yang membangunkan langsung diterapkan dan tampil
+                previous = wokeAt;
+                nextFrame = wokeAt;
+                accumulator = tickNanos;
+            }
+        }
+    }
+
+    /** Parkir sampai wake()/stop() atau batas waktu; unpark palsu diabaikan. */
+    private void park(long start, long limitNanos) {
+        while (running && !wakeRequested) {
+            if (limitNanos == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                long remaining = limitNanos - (System.nanoTime() - start);
+                if (remaining <= 0) return;
+                LockSupport.parkNanos(this, remaining);
+            }
+        }
+    }
+
+    /**
+     * Membangunkan loop yang sedang parkir (atau mencegah parkir berikutnya). Aman dipanggil
+     * dari thread mana pun, mis. EDT setelah menaruh masukan ke antrean.
+     */
+    public void wake() {
+        wakeRequested = true;
+        Thread thread = loopThread;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Posisi jam simulasi (dalam tick, pecahan) pada waktu nanoTime, termasuk waktu yang sudah
+     * terakumulasi tetapi belum disimulasikan. Frame yang digambar pada waktu t menampilkan
+     * state ticksAt(t) - 1, karena render menginterpolasi antara dua tick terakhir.
+     * Hanya dari thread loop (mis. di dalam Listener.tick()).
+     */
+    public double ticksAt(long nanoTime) {
+        return clockAnchorTicks + (double) (nanoTime - clockAnchorNanos) * timeScale / tickNanos;
+    }
+
+    public void stop() {
+        running = false;
+        wake();
+    }
+
+    public long getTickCount() { return tickCount; }
+
+    public long getFrameCount() { return frameCount; }
+
+    /** Total waktu (nano) yang dibuang karena loop macet lebih lama dari MAX_FRAME_NANOS. */
+    public long getDroppedNanos() { return droppedNanos; }
+
+    /** Jumlah frame yang terlewat karena loop terlambat lebih dari satu periode frame. */
+    public long getDroppedFrames() { return droppedFrames; }
+
+    public long getTickNanos() { return tickNanos; }
+
+    /** Total waktu (nano) loop terparkir karena layar diam. */
+    public long getParkedNanos() { return parkedNanos; }
+
+    /** Berapa kali loop masuk parkir. */
+    public long getParks() { return parks; }
+}
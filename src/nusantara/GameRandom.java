@@ -0,0 +1,59 @@
+package nusantara;
+
+/**
+ * GameRandom.java
+ *
+ * Pembangkit bilangan acak deterministik untuk simulasi (SplitMix64).
+ *
+ * Berbeda dengan java.util.Random, seluruh state-nya hanya satu long yang bisa dibaca dan
+ * dipasang ulang (getState/setState). Dengan state yang sama, urutan balok yang keluar selalu
+ * sama di mesin mana pun, sehingga game bisa direkam sebagai seed + masukan (lihat Replay).
+ * Tanpa alokasi dan tanpa sinkronisasi; satu instance hanya untuk satu thread.
+ */
+final class GameRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    GameRandom(long seed) {
+        this.state = seed;
+    }
+
+    /** Seed dari jam sistem, untuk game yang tidak perlu diulang dengan seed tertentu. */
+    static long freshSeed() {
+        return mix(System.nanoTime() ^ System.currentTimeMillis() * GOLDEN_GAMMA);
+    }
+
+    long getState() { return state; }
+
+    void setState(long state) { this.state = state; }
+
+    long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /** Bilangan seragam di [0, bound), tanpa bias (algoritma yang sama dengan Random.nextInt). */
+    int nextInt(int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound harus positif: " + bound);
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0) return (int) ((bound * (long) r) >> 31);
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) {
+            // tolak nilai di ujung rentang yang akan membuat hasil bias
+        }
+        return r;
+    }
+
+    /** Bilangan seragam di [0, 1). */
+    double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
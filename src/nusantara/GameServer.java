@@ -0,0 +1,429 @@
+package nusantara;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * GameServer.java
+ *
+ * Mode server: aturan game dijalankan di server (untuk turnamen dan anti-curang), tanpa
+ * Swing. Setiap koneksi adalah satu sesi dengan TowerSimulation sendiri yang berjalan di
+ * satu virtual thread pada 60 tick/detik; virtual thread kedua hanya membaca INPUT dari
+ * socket ke InputQueue sesi itu. Protokolnya ada di ServerProtocol.
+ *
+ * Karena virtual thread yang tidur atau menunggu socket tidak memegang carrier thread,
+ * puluhan ribu sesi cukup dilayani beberapa carrier (sebanyak core). Setiap sesi
+ * menjadwalkan tick-nya sendiri dengan tenggat absolut seperti GameLoop, sehingga sesi
+ * yang terlambat mengejar tanpa menggeser jadwal. Tick dikerjakan per interval frame,
+ * bukan satu bangun per tick (lihat Session.play()); keterlambatan bangun dicatat.
+ *
+ * Setiap game direkam sebagai replay (seed + perintah) sehingga skor turnamen bisa
+ * diverifikasi ulang dengan ReplayPlayer; dengan -Dnusantara.replayDir=dir replay disimpan
+ * ke dir/sesi-N-M.ntr. Semua sesi berbagi satu Leaderboard.
+ *
+ * Penggunaan:
+ *   java nusantara.GameServer [port]
+ *
+ * Lihat LoadTestClient untuk uji beban lewat loopback.
+ */
+public class GameServer implements Closeable {
+
+    static final int TICKS_PER_SECOND = 60;
+    /** Bawaan: FRAME setiap 6 tick (10 Hz) selain frame segera setelah masukan/perubahan state. */
+    static final int DEFAULT_FRAME_INTERVAL = 6;
+    private static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    // Sesi yang tertinggal lebih dari ini (di luar satu interval frame yang memang dikerjakan
+    // sekaligus) tidak mengejar tick yang hilang, lihat GameLoop.MAX_FRAME_NANOS
+    private static final int MAX_CATCH_UP_TICKS = 15;
+    private static final int INPUT_QUEUE_CAPACITY = 64;
+    private static final int SOCKET_BUFFER = 512;
+    private static final int ACCEPT_BACKLOG = 4096;
+    private static final long STATS_INTERVAL_MILLIS = 5_000;
+
+    private final ServerSocket serverSocket;
+    private final int frameInterval;
+    private final int maxCatchUpTicks;
+    private final Leaderboard leaderboard = Leaderboard.inMemory(Leaderboard.DEFAULT_TOP_K);
+    private final Path replayDir;
+    private volatile boolean running = true;
+
+    private final AtomicInteger nextSessionId = new AtomicInteger();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    // LongAdder: ditambah setiap tick oleh semua sesi, dibaca hanya oleh pelapor
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder skippedTicks = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    /** Keterlambatan thread sesi bangun terhadap jadwalnya: FRAME jatuh tempo atau masukan tiba (nano). */
+    final SharedHistogram wakeLag = new SharedHistogram();
+    /** Kerja sekali bangun: semua tick yang jatuh tempo, masukan, dan FRAME yang dikirim (nano). */
+    final SharedHistogram wakeWork = new SharedHistogram();
+    /** Dari INPUT diterima socket sampai diterapkan ke simulasi (nano). */
+    final SharedHistogram inputLatency = new SharedHistogram();
+
+    /** Membuka server di loopback; port 0 = port bebas mana saja (lihat getPort()). */
+    public GameServer(int port, int frameInterval, Path replayDir) throws IOException {
+        if (frameInterval <= 0) throw new IllegalArgumentException("frameInterval harus > 0");
+        this.frameInterval = frameInterval;
+        this.maxCatchUpTicks = MAX_CATCH_UP_TICKS + frameInterval;
+        this.replayDir = replayDir;
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), ACCEPT_BACKLOG);
+    }
+
+    public int getPort() { return serverSocket.getLocalPort(); }
+
+    /** Menerima koneksi sampai close(); setiap koneksi langsung diserahkan ke virtual thread sesinya. */
+    public void serve() throws IOException {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (!running) return; // ditutup oleh close()
+                throw e;
+            }
+            int id = nextSessionId.incrementAndGet();
+            Thread.ofVirtual().name("Sesi-" + id).start(new Session(id, socket));
+        }
+    }
+
+    /** Berhenti menerima koneksi. Sesi yang sedang berjalan berakhir saat kliennya memutus koneksi. */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+    }
+
+    // =================================================================================
+    // Sesi
+    // =================================================================================
+
+    /** Satu pemain: simulasi, antrean masukan dan koneksinya. Semua field sim hanya disentuh thread sesi. */
+    private final class Session implements Runnable {
+        private final int id;
+        private final Socket socket;
+        private final InputQueue inputs = new InputQueue(INPUT_QUEUE_CAPACITY);
+        private final ServerProtocol.Frame frame = new ServerProtocol.Frame();
+        private volatile boolean connected = true;
+        private volatile Thread thread;
+        private int gamesRecorded = 0;
+
+        Session(int id, Socket socket) {
+            this.id = id;
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            activeSessions.incrementAndGet();
+            thread = Thread.currentThread();
+            TowerSimulation sim = null;
+            try (socket) {
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), SOCKET_BUFFER));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), SOCKET_BUFFER));
+
+                int mode = ServerProtocol.readHello(in);
+                long seed = GameRandom.freshSeed();
+                sim = TowerSimulation.forReplay(seed, (mode & ServerProtocol.MODE_ENDLESS) != 0,
+                        (mode & ServerProtocol.MODE_CHOOSE_PLOTS) != 0);
+                sim.setLeaderboard(leaderboard);
+                sim.setReplayRecorder(new ReplayRecorder(this::saveReplay));
+                ServerProtocol.writeWelcome(out, seed, TICKS_PER_SECOND, frameInterval);
+
+                Thread.ofVirtual().name("Sesi-" + id + "-Masukan").start(() -> readInputs(in));
+                play(sim, out);
+            } catch (EOFException | SocketException e) {
+                // Klien memutus koneksi
+            } catch (IOException e) {
+                System.err.println("Sesi " + id + " dihentikan: " + e.getMessage());
+            } finally {
+                connected = false;
+                activeSessions.decrementAndGet();
+                if (sim != null) {
+                    // Game yang ditinggal di tengah jalan tetap disimpan untuk diperiksa
+                    Replay unfinished = sim.snapshotReplay();
+                    if (unfinished != null && unfinished.getEventCount() > 0) saveReplay(unfinished);
+                }
+            }
+        }
+
+        /**
+         * Thread masukan: socket -> InputQueue. Antrean penuh menahan pembacaan (backpressure ke TCP).
+         * Perintah yang tidak dikenal memutus sesi sebelum sampai ke simulasi atau replay.
+         */
+        private void readInputs(DataInputStream in) {
+            int[] input = new int[2];
+            try {
+                while (connected) {
+                    ServerProtocol.readInput(in, input);
+                    int command = input[0];
+                    int argument = command == TowerSimulation.CMD_DROP ? 0 : input[1]; // offset dihitung di play()
+                    long received = System.nanoTime();
+                    while (!inputs.offer(command, argument, received)) {
+                        if (!connected) return;
+                        LockSupport.parkNanos(TICK_NANOS);
+                    }
+                    LockSupport.unpark(thread);
+                }
+            } catch (EOFException | SocketException e) {
+                // Koneksi ditutup
+            } catch (IOException e) {
+                System.err.println("Sesi " + id + " diputus: " + e.getMessage());
+            } finally {
+                connected = false;
+                closeQuietly();
+                LockSupport.unpark(thread);
+            }
+        }
+
+        /**
+         * Tick ke-k sesi dijadwalkan pada start + k * TICK_NANOS, dan perintah yang diterima
+         * sebelum jadwal itu diterapkan tepat sebelum tick ke-k, sama seperti GameLoop yang
+         * menguras InputQueue di awal setiap tick. Bedanya, thread sesi tidak bangun setiap
+         * tick: ia tidur sampai FRAME berikutnya jatuh tempo atau sampai thread masukan
+         * membangunkannya, lalu menjalankan semua tick yang sudah lewat jadwalnya sekaligus.
+         * Hasilnya identik dengan bangun 60 kali per detik (urutan perintah dan tick sama),
+         * tetapi park/unpark per sesi turun dari 60 menjadi sekitar 10 per detik.
+         */
+        private void play(TowerSimulation sim, DataOutputStream out) throws IOException {
+            long start = System.nanoTime();
+            long ticksRun = 0;
+            long nextFrameTick = frameInterval;
+            int inputCount = 0;
+            int sentInputCount = 0;
+            GameState sentState = sim.getGameState();
+            // Perintah yang sudah diambil dari antrean tetapi jadwal tick-nya belum tiba
+            int heldCommand = TowerSimulation.CMD_NONE;
+            int heldArgument = 0;
+            long heldReceived = 0;
+            long wakeDeadline = start + nextFrameTick * TICK_NANOS;
+
+            while (connected && running) {
+                long now = System.nanoTime();
+                long due = (now - start) / TICK_NANOS;
+                if (due - ticksRun > maxCatchUpTicks) {
+                    long skipped = due - ticksRun - maxCatchUpTicks;
+                    skippedTicks.add(skipped);
+                    start += skipped * TICK_NANOS;
+                    due -= skipped;
+                }
+                if (heldCommand == TowerSimulation.CMD_NONE) {
+                    heldCommand = inputs.poll();
+                    heldArgument = inputs.lastArgument();
+                    heldReceived = inputs.lastTimestamp();
+                }
+                if (heldCommand != TowerSimulation.CMD_NONE && heldReceived < wakeDeadline) {
+                    wakeDeadline = heldReceived; // dibangunkan thread masukan
+                }
+                wakeLag.record(id, now - wakeDeadline);
+
+                long ran = ticksRun;
+                while (ticksRun < due) {
+                    long scheduled = start + (ticksRun + 1) * TICK_NANOS;
+                    while (heldCommand != TowerSimulation.CMD_NONE && heldReceived - scheduled < 0) {
+                        if (heldCommand == TowerSimulation.CMD_DROP) {
+                            heldArgument = dropOffset(heldReceived, scheduled - TICK_NANOS);
+                        }
+                        sim.handleInput(heldCommand, heldArgument);
+                        inputLatency.record(id, System.nanoTime() - heldReceived);
+                        inputCount++;
+                        heldCommand = inputs.poll();
+                        heldArgument = inputs.lastArgument();
+                        heldReceived = inputs.lastTimestamp();
+                    }
+                    sim.tick();
+                    ticksRun++;
+                }
+                ticks.add(ticksRun - ran);
+
+                GameState state = sim.getGameState();
+                if (inputCount != sentInputCount || state != sentState || ticksRun >= nextFrameTick) {
+                    frame.capture(sim, inputCount);
+                    frame.write(out);
+                    out.flush();
+                    framesSent.increment();
+                    sentInputCount = inputCount;
+                    sentState = state;
+                    while (nextFrameTick <= ticksRun) nextFrameTick += frameInterval;
+                }
+                wakeWork.record(id, System.nanoTime() - now);
+
+                // Perintah yang masih ditahan diterapkan di tick berikutnya, jadi bangun saat itu
+                long nextTick = heldCommand != TowerSimulation.CMD_NONE ? ticksRun + 1 : nextFrameTick;
+                wakeDeadline = start + nextTick * TICK_NANOS;
+                long sleep = wakeDeadline - System.nanoTime();
+                if (sleep > 0) LockSupport.parkNanos(this, sleep);
+            }
+        }
+
+        /**
+         * Offset sub-tick CMD_DROP dari waktu terima, seperti NusantaraTower.dropOffsetAt: sim
+         * berada di state yang jadwalnya stateAt, jadi perintah yang diterima sebagian tick
+         * sesudahnya menjatuhkan balok sebagian langkah crane ke depan (mundur jika diterima
+         * sebelum state itu, mis. saat sesi mengejar ketinggalan).
+         */
+        static int dropOffset(long receivedNanos, long stateAt) {
+            double offset = (double) (receivedNanos - stateAt) / TICK_NANOS;
+            offset = Math.max(-1, Math.min(1, offset));
+            return (int) Math.round(offset * TowerSimulation.DROP_OFFSET_SCALE);
+        }
+
+        /** Menutup socket agar play() dan klien tahu sesi berakhir; kegagalan menutup diabaikan. */
+        private void closeQuietly() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Sudah tertutup
+            }
+        }
+
+        private void saveReplay(Replay replay) {
+            if (replayDir == null) return;
+            String name = "sesi-" + id + "-" + (++gamesRecorded) + Replay.FILE_EXTENSION;
+            try {
+                replay.write(replayDir.resolve(name));
+            } catch (IOException e) {
+                System.err.println("Gagal menyimpan replay " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // =================================================================================
+    // Statistik
+    // =================================================================================
+
+    /**
+     * LatencyHistogram yang boleh ditulis banyak sesi: sampel masuk ke salah satu stripe
+     * (dipilih dari id sesi), masing-masing dengan kunci sendiri, jadi sesi jarang berebut
+     * kunci dan memorinya tetap berapa pun jumlah sesi. ReentrantLock, bukan synchronized,
+     * agar virtual thread tidak menahan carrier-nya.
+     */
+    static final class SharedHistogram {
+        private static final int STRIPES = 16;
+
+        private final LatencyHistogram[] stripes = new LatencyHistogram[STRIPES];
+        private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+        SharedHistogram() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new LatencyHistogram();
+                locks[i] = new ReentrantLock();
+            }
+        }
+
+        void record(int writer, long value) {
+            int stripe = writer & (STRIPES - 1);
+            locks[stripe].lock();
+            try {
+                stripes[stripe].record(value);
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+
+        /** Memindahkan semua sampel sejak panggilan sebelumnya ke target (lalu mengosongkan stripe). */
+        void drainTo(LatencyHistogram target) {
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i].lock();
+                try {
+                    target.add(stripes[i]);
+                    stripes[i].reset();
+                } finally {
+                    locks[i].unlock();
+                }
+            }
+        }
+    }
+
+    /** Mencetak ringkasan setiap STATS_INTERVAL_MILLIS di thread latar sampai server ditutup. */
+    private void startStatsReporter() {
+        Thread reporter = new Thread(() -> {
+            LatencyHistogram lag = new LatencyHistogram();
+            LatencyHistogram work = new LatencyHistogram();
+            LatencyHistogram input = new LatencyHistogram();
+            long previousTicks = 0, previousSkipped = 0, previousFrames = 0;
+            long previous = System.nanoTime();
+            while (running) {
+                try {
+                    Thread.sleep(STATS_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long now = System.nanoTime();
+                double seconds = (now - previous) / 1e9;
+                previous = now;
+                long totalTicks = ticks.sum(), totalSkipped = skippedTicks.sum(), totalFrames = framesSent.sum();
+                long intervalTicks = totalTicks - previousTicks;
+                long intervalSkipped = totalSkipped - previousSkipped;
+                long intervalFrames = totalFrames - previousFrames;
+                previousTicks = totalTicks;
+                previousSkipped = totalSkipped;
+                previousFrames = totalFrames;
+                int sessions = activeSessions.get();
+                if (sessions == 0 && intervalTicks == 0) continue;
+
+                lag.reset();
+                work.reset();
+                input.reset();
+                wakeLag.drainTo(lag);
+                wakeWork.drainTo(work);
+                inputLatency.drainTo(input);
+                System.out.printf("Sesi %6d | %8.0f tick/s (%.1f/sesi), %6.0f frame/s, %d tick dibuang"
+                                +  " | lag bangun p50 %s p99 %s maks %s | kerja p99 %s | input->tick p99 %s%n",
+                        sessions, intervalTicks / seconds, sessions == 0 ? 0 : intervalTicks / seconds / sessions,
+                        intervalFrames / seconds, intervalSkipped,
+                        millis(lag.percentile(50)), millis(lag.percentile(99)), millis(lag.max()),
+                        millis(work.percentile(99)), millis(input.percentile(99)));
+            }
+        }, "Server-Stats");
+        reporter.setDaemon(true);
+        reporter.start();
+    }
+
+    static String millis(long nanos) {
+        return String.format("%.2f ms", nanos / 1e6);
+    }
+
+    // =================================================================================
+    // Metode Main
+    // =================================================================================
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : ServerProtocol.DEFAULT_PORT;
+        int frameInterval = Integer.getInteger("nusantara.server.frameInterval", DEFAULT_FRAME_INTERVAL);
+        Path replayDir = null;
+        String configured = System.getProperty("nusantara.replayDir");
+        if (configured != null) replayDir = Files.createDirectories(Path.of(configured));
+
+        GameServer server = new GameServer(port, frameInterval, replayDir);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                // Sudah ditutup
+            }
+        }, "Server-Close"));
+        System.out.printf("GameServer di %s:%d (%d tick/s, frame setiap %d tick)%s%n",
+                InetAddress.getLoopbackAddress().getHostAddress(), server.getPort(), TICKS_PER_SECOND, frameInterval,
+                replayDir != null ? ", replay ke " + replayDir : "");
+        server.startStatsReporter();
+        server.serve();
+    }
+}
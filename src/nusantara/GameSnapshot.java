@@ -0,0 +1,348 @@
+package nusantara;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * GameSnapshot.java
+ *
+ * Seluruh state satu game (menara, antrean, kota, upgrade, skor, nyawa, crane, RNG dan
+ * replay sejauh ini) untuk simpan/muat. Diambil oleh TowerSimulation.snapshotState() di
+ * thread game: nilai skalar disalin, menara dan kota dipakai bersama secara copy-on-write
+ * (lihat TowerStore.snapshot() dan CityGrid.snapshot()), sehingga mengambil snapshot
+ * hanya beberapa mikrodetik berapa pun ukuran kotanya. Encoding dan penulisan ke disk
+ * dilakukan thread lain (lihat Autosaver).
+ *
+ * Format (big-endian, varint LEB128 seperti Replay, angka bertanda memakai zigzag):
+ *   int   MAGIC "NTSV", byte versi format
+ *   byte  flag (bit 0: tanpa batas, bit 1: pilih petak, bit 2: menu upgrade, bit 3: balok jatuh)
+ *   long  seed game, long state GameRandom
+ *   varint tick, skor, peringkat terakhir; byte GameState
+ *   zigzag nyawa, petak berikutnya, crane (x, arah, x sebelumnya), kamera,
+ *          balok tergantung (x, y, lebar, x/y sebelumnya); byte jenisnya
+ *   varint n + n byte jenis antrean
+ *   varint n + n id upgrade (varint panjang + UTF-8), urut waktu beli
+ *   varint n + n balok menara (zigzag x, varint lebar, byte jenis)
+ *   varint lebar/tinggi kota, satu byte kode jenis per sel, varint tinggi per petak terisi
+ *   varint panjang + byte file replay (0 jika game tidak direkam)
+ *   int   CRC32 dari semua byte sebelumnya
+ */
+final class GameSnapshot {
+
+    static final int MAGIC = 0x4E545356; // "NTSV"
+    static final int FORMAT_VERSION = 1;
+    static final String FILE_EXTENSION = ".ntsv";
+
+    private static final int FLAG_ENDLESS = 1;
+    private static final int FLAG_CHOOSE_PLOTS = 2;
+    private static final int FLAG_SHOWING_UPGRADES = 4;
+    private static final int FLAG_BLOCK_FALLING = 8;
+
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+    private static final GameState[] GAME_STATES = GameState.values();
+
+    // Diisi TowerSimulation.snapshotState() atau decode(); tidak diubah setelahnya
+    long gameSeed;
+    long randomState;
+    long tickCount;
+    long score;
+    long lastRank;
+    GameState gameState;
+    boolean endless;
+    boolean choosePlots;
+    boolean showingUpgrades;
+    boolean blockIsFalling;
+    int lives;
+    int nextCityPlot;
+    int craneX, craneDirection, prevCraneX;
+    int cameraY;
+    int hangingX, hangingY, hangingWidth, prevHangingX, prevHangingY;
+    BlockType hangingType;
+    BlockType[] upcoming;
+    String[] purchasedUpgrades;
+    TowerStore tower;
+    CityGrid city;
+    Replay replay; // null jika game tidak direkam
+
+    /** Lokasi bawaan: ~/.nusantaratower/autosave.ntsv, bisa diganti dengan -Dnusantara.save=path. */
+    static Path defaultPath() {
+        String configured = System.getProperty("nusantara.save");
+        if (configured != null) return Path.of(configured);
+        return Path.of(System.getProperty("user.home"), ".nusantaratower", "autosave" + FILE_EXTENSION);
+    }
+
+    // =================================================================================
+    // File
+    // =================================================================================
+
+    /**
+     * Menulis snapshot ke file secara atomik: isi ditulis ke file sementara lewat FileChannel,
+     * di-fsync, lalu dipindah menimpa file lama, dan direktorinya di-fsync agar pemindahan itu
+     * sendiri tidak hilang saat listrik mati. File lama tetap utuh jika proses mati di tengah.
+     */
+    void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.wrap(encode());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (parent != null) forceDirectory(parent);
+    }
+
+    /** fsync direktori; platform yang tidak mengizinkan direktori dibuka (mis. Windows) dilewati. */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Tidak didukung di platform ini; pemindahan tetap atomik, hanya belum tentu tahan listrik mati
+        }
+    }
+
+    static GameSnapshot read(Path file) throws IOException {
+        return decode(Files.readAllBytes(file));
+    }
+
+    // =================================================================================
+    // Encoding
+    // =================================================================================
+
+    byte[] encode() {
+        int cells = city.cellCount();
+        byte[] replayBytes = replay != null ? replay.toByteArray() : new byte[0];
+        Output out = new Output(256 + tower.size() * 12 + cells * 2 + replayBytes.length);
+        out.putInt(MAGIC);
+        out.put(FORMAT_VERSION);
+        out.put((endless ? FLAG_ENDLESS : 0) | (choosePlots ? FLAG_CHOOSE_PLOTS : 0)
+                | (showingUpgrades ? FLAG_SHOWING_UPGRADES : 0) | (blockIsFalling ? FLAG_BLOCK_FALLING : 0));
+        out.putLong(gameSeed);
+        out.putLong(randomState);
+        out.varLong(tickCount);
+        out.varLong(score);
+        out.varLong(lastRank);
+        out.put(gameState.ordinal());
+        out.zigzag(lives);
+        out.zigzag(nextCityPlot);
+        out.zigzag(craneX);
+        out.zigzag(craneDirection);
+        out.zigzag(prevCraneX);
+        out.zigzag(cameraY);
+        out.zigzag(hangingX);
+        out.zigzag(hangingY);
+        out.zigzag(hangingWidth);
+        out.zigzag(prevHangingX);
+        out.zigzag(prevHangingY);
+        out.put(hangingType.ordinal());
+
+        out.varLong(upcoming.length);
+        for (BlockType type : upcoming) out.put(type.ordinal());
+        out.varLong(purchasedUpgrades.length);
+        for (String id : purchasedUpgrades) {
+            byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+            out.varLong(utf8.length);
+            out.put(utf8, utf8.length);
+        }
+
+        out.varLong(tower.size());
+        for (int i = 0; i < tower.size(); i++) {
+            out.zigzag(tower.x(i));
+            out.varLong(tower.width(i));
+            out.put(tower.type(i).ordinal());
+        }
+
+        out.varLong(city.width());
+        out.varLong(city.height());
+        out.ensure(cells);
+        for (int i = 0; i < cells; i++) out.buf[out.pos++] = city.typeCode(i);
+        for (int i = 0; i < cells; i++) {
+            if (city.isOccupied(i)) out.varLong(city.heightAt(i));
+        }
+
+        out.varLong(replayBytes.length);
+        out.put(replayBytes, replayBytes.length);
+
+        CRC32 crc = new CRC32();
+        crc.update(out.buf, 0, out.pos);
+        out.putInt((int) crc.getValue());
+        return Arrays.copyOf(out.buf, out.pos);
+    }
+
+    /** Membaca snapshot dari byte mentah; melempar IOException jika rusak atau versinya tidak dikenal. */
+    static GameSnapshot decode(byte[] data) throws IOException {
+        if (data.length < 9) throw new IOException("Bukan file simpanan NusantaraTower");
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (in.getInt() != MAGIC) throw new IOException("Bukan file simpanan NusantaraTower");
+        int version = in.get();
+        if (version != FORMAT_VERSION) throw new IOException("Versi simpanan tidak didukung: " + version);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(data, data.length - 4, 4).getInt()) {
+            throw new IOException("Simpanan rusak (CRC tidak cocok)");
+        }
+        try {
+            return decode(in.limit(data.length - 4));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Simpanan terpotong", e);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Simpanan tidak valid: " + e.getMessage(), e);
+        }
+    }
+
+    private static GameSnapshot decode(ByteBuffer in) throws IOException {
+        GameSnapshot s = new GameSnapshot();
+        int flags = in.get();
+        s.endless = (flags & FLAG_ENDLESS) != 0;
+        s.choosePlots = (flags & FLAG_CHOOSE_PLOTS) != 0;
+        s.showingUpgrades = (flags & FLAG_SHOWING_UPGRADES) != 0;
+        s.blockIsFalling = (flags & FLAG_BLOCK_FALLING) != 0;
+        s.gameSeed = in.getLong();
+        s.randomState = in.getLong();
+        s.tickCount = varLong(in);
+        s.score = varLong(in);
+        s.lastRank = varLong(in);
+        s.gameState = GAME_STATES[in.get()];
+        s.lives = zigzag(in);
+        s.nextCityPlot = zigzag(in);
+        s.craneX = zigzag(in);
+        s.craneDirection = zigzag(in);
+        s.prevCraneX = zigzag(in);
+        s.cameraY = zigzag(in);
+        s.hangingX = zigzag(in);
+        s.hangingY = zigzag(in);
+        s.hangingWidth = zigzag(in);
+        s.prevHangingX = zigzag(in);
+        s.prevHangingY = zigzag(in);
+        s.hangingType = BLOCK_TYPES[in.get()];
+
+        s.upcoming = new BlockType[count(in)];
+        for (int i = 0; i < s.upcoming.length; i++) s.upcoming[i] = BLOCK_TYPES[in.get()];
+        s.purchasedUpgrades = new String[count(in)];
+        for (int i = 0; i < s.purchasedUpgrades.length; i++) {
+            byte[] utf8 = new byte[count(in)];
+            in.get(utf8);
+            s.purchasedUpgrades[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        int towerSize = count(in);
+        s.tower = new TowerStore(Math.max(16, towerSize));
+        for (int i = 0; i < towerSize; i++) {
+            int x = zigzag(in);
+            int width = varInt(in);
+            s.tower.push(x, width, BLOCK_TYPES[in.get()]);
+        }
+
+        int width = varInt(in), height = varInt(in);
+        if ((long) width * height > in.remaining()) throw new IOException("Ukuran kota tidak valid: " + width + "x" + height);
+        byte[] types = new byte[width * height];
+        in.get(types);
+        int[] heights = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] > CityGrid.EMPTY) heights[i] = varInt(in);
+        }
+        s.city = CityGrid.ofCells(width, height, types, heights);
+
+        int replayLength = count(in);
+        if (replayLength > 0) {
+            byte[] replayBytes = new byte[replayLength];
+            in.get(replayBytes);
+            s.replay = Replay.fromBytes(replayBytes);
+        }
+        if (in.hasRemaining()) throw new IOException("Ada " + in.remaining() + " byte sisa setelah simpanan");
+        return s;
+    }
+
+    // Pembaca varint di bawah dan Output juga dipakai SpectatorStream
+
+    /** Varint jumlah elemen; setiap elemen minimal satu byte, jadi tidak boleh melebihi sisa data. */
+    static int count(ByteBuffer in) throws IOException {
+        long v = varLong(in);
+        if (v > in.remaining()) throw new IOException("Jumlah tidak valid: " + v);
+        return (int) v;
+    }
+
+    /** Varint nilai tidak negatif yang harus muat di int. */
+    static int varInt(ByteBuffer in) throws IOException {
+        long v = varLong(in);
+        if (v > Integer.MAX_VALUE) throw new IOException("Nilai terlalu besar: " + v);
+        return (int) v;
+    }
+
+    static long varLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IllegalArgumentException("Varint terlalu panjang");
+    }
+
+    static int zigzag(ByteBuffer in) {
+        return (int) zigzagLong(in);
+    }
+
+    static long zigzagLong(ByteBuffer in) {
+        long v = varLong(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** Buffer byte yang tumbuh sendiri. */
+    static final class Output {
+        byte[] buf;
+        int pos;
+
+        Output(int capacity) { buf = new byte[capacity]; }
+
+        void ensure(int bytes) {
+            if (pos + bytes > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + bytes));
+        }
+
+        void put(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void put(byte[] bytes, int length) {
+            ensure(length);
+            System.arraycopy(bytes, 0, buf, pos, length);
+            pos += length;
+        }
+
+        void putInt(int v) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) buf[pos++] = (byte) (v >>> shift);
+        }
+
+        void putLong(long v) {
+            putInt((int) (v >>> 32));
+            putInt((int) v);
+        }
+
+        void varLong(long v) {
+            ensure(10);
+            pos = Replay.putVarLong(buf, pos, v);
+        }
+
+        void zigzag(long v) {
+            varLong((v << 1) ^ (v >> 63));
+        }
+    }
+}
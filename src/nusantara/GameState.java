@@ -0,0 +1,8 @@
+package nusantara;
+
+/**
+ * Status permainan yang dipakai bersama oleh simulasi dan tampilan.
+ */
+public enum GameState {
+    PLAYING, TOWER_COMPLETE, TOWER_FAILED, GAME_OVER
+}
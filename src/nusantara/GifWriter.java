@@ -0,0 +1,261 @@
+package nusantara;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * GifWriter.java
+ *
+ * Menulis GIF animasi yang berulang terus, dengan satu palet global untuk semua frame.
+ *
+ * Kompresi dipisah dari penulisan: FrameEncoder mengubah satu kotak gambar menjadi blok
+ * gambar GIF (deskriptor + data LZW) dan tidak bergantung pada frame lain, jadi banyak
+ * frame bisa dikodekan paralel. GifWriter hanya menempelkan blok-blok itu secara berurutan,
+ * masing-masing didahului Graphic Control Extension berisi lama tampilnya. Frame boleh hanya
+ * sebagian layar; sisanya tetap dari frame sebelumnya (disposal "biarkan di tempat").
+ *
+ * Palet tetap (bukan dihitung per frame) agar frame bisa dikodekan tanpa menunggu frame lain;
+ * warna yang tidak ada di palet dipetakan ke warna terdekat lewat tabel RGB 15 bit.
+ */
+final class GifWriter implements Closeable {
+
+    private static final int TRAILER = 0x3B;
+
+    private final OutputStream out;
+
+    /** Menulis header, palet global, dan ekstensi perulangan NETSCAPE2.0. */
+    GifWriter(OutputStream out, int width, int height, Palette palette) throws IOException {
+        this.out = out;
+        out.write(new byte[] {'G', 'I', 'F', '8', '9', 'a'});
+        writeShort(width);
+        writeShort(height);
+        out.write(0xF7); // ada palet global, 8 bit per warna, 256 entri
+        out.write(0);    // warna latar
+        out.write(0);    // rasio piksel
+        out.write(palette.table());
+        out.write(new byte[] {0x21, (byte) 0xFF, 11, 'N', 'E', 'T', 'S', 'C', 'A', 'P', 'E', '2', '.', '0', 3, 1, 0, 0, 0});
+    }
+
+    /** Menulis satu blok dari FrameEncoder yang tampil selama delayCentis (1/100 detik). */
+    void writeFrame(byte[] imageBlock, int delayCentis) throws IOException {
+        out.write(new byte[] {0x21, (byte) 0xF9, 4, 1 << 2}); // disposal: biarkan di tempat
+        writeShort(Math.min(delayCentis, 0xFFFF));
+        out.write(0);
+        out.write(0);
+        out.write(imageBlock);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            out.write(TRAILER);
+        }
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    // =================================================================================
+    // Palet
+    // =================================================================================
+
+    /** Palet 256 warna beserta tabel warna terdekat untuk setiap RGB 15 bit. Tidak berubah setelah dibuat. */
+    static final class Palette {
+        private final byte[] table = new byte[256 * 3];
+        private final byte[] nearest = new byte[1 << 15];
+
+        /**
+         * Warna exact dipakai apa adanya (dan selalu dipetakan ke dirinya sendiri); sisa
+         * entri diisi kubus warna rata 6x6x6 untuk warna campuran anti-aliasing.
+         */
+        Palette(Color... exact) {
+            int[] rgb = new int[256];
+            int count = 0;
+            for (Color color : exact) {
+                int value = color.getRGB() & 0xFFFFFF;
+                if (count < 256 - 216 && indexOf(rgb, count, value) < 0) rgb[count++] = value;
+            }
+            int exactCount = count;
+            for (int r = 0; r < 6; r++) {
+                for (int g = 0; g < 6; g++) {
+                    for (int b = 0; b < 6; b++) {
+                        int value = (r * 51) << 16 | (g * 51) << 8 | b * 51;
+                        if (indexOf(rgb, count, value) < 0) rgb[count++] = value;
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                table[3 * i] = (byte) (rgb[i] >>> 16);
+                table[3 * i + 1] = (byte) (rgb[i] >>> 8);
+                table[3 * i + 2] = (byte) rgb[i];
+            }
+            for (int key = 0; key < nearest.length; key++) {
+                nearest[key] = (byte) closest(rgb, count, (key >>> 10) << 3 | 4, ((key >>> 5) & 31) << 3 | 4, (key & 31) << 3 | 4);
+            }
+            for (int i = 0; i < exactCount; i++) {
+                nearest[key(rgb[i])] = (byte) i;
+            }
+        }
+
+        private static int indexOf(int[] rgb, int count, int value) {
+            for (int i = 0; i < count; i++) {
+                if (rgb[i] == value) return i;
+            }
+            return -1;
+        }
+
+        private static int closest(int[] rgb, int count, int r, int g, int b) {
+            int best = 0;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                int dr = (rgb[i] >>> 16) - r;
+                int dg = ((rgb[i] >>> 8) & 0xFF) - g;
+                int db = (rgb[i] & 0xFF) - b;
+                int distance = 2 * dr * dr + 4 * dg * dg + 3 * db * db;
+                if (distance < bestDistance) {
+                    best = i;
+                    bestDistance = distance;
+                }
+            }
+            return best;
+        }
+
+        private static int key(int rgb) {
+            return (rgb >>> 9) & 0x7C00 | (rgb >>> 6) & 0x3E0 | (rgb >>> 3) & 0x1F;
+        }
+
+        int indexOf(int rgb) { return nearest[key(rgb)] & 0xFF; }
+
+        byte[] table() { return table; }
+    }
+
+    // =================================================================================
+    // Kompresi LZW
+    // =================================================================================
+
+    /** Mengodekan kotak gambar menjadi blok gambar GIF. Satu encoder per thread; buffernya dipakai ulang. */
+    static final class FrameEncoder {
+        private static final int MIN_CODE_SIZE = 8;
+        private static final int CLEAR = 1 << MIN_CODE_SIZE;
+        private static final int END = CLEAR + 1;
+        private static final int MAX_CODE = 1 << 12;
+        private static final int HASH_BITS = 13; // tabel 8192 slot untuk paling banyak 3838 string
+
+        private final Palette palette;
+        private final int[] hashKeys = new int[1 << HASH_BITS];
+        private final short[] hashCodes = new short[1 << HASH_BITS];
+        private byte[] indices = new byte[0];
+        private byte[] data = new byte[1 << 16];
+        private int length;
+        private int bitBuffer, bitCount;
+
+        FrameEncoder(Palette palette) {
+            this.palette = palette;
+        }
+
+        /** Kotak (x, y, width, height) dari image bertipe TYPE_INT_RGB. */
+        byte[] encode(BufferedImage image, int x, int y, int width, int height) {
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int scanline = image.getWidth();
+            int count = width * height;
+            if (indices.length < count) indices = new byte[count];
+            int i = 0;
+            for (int row = y; row < y + height; row++) {
+                for (int p = row * scanline + x, end = p + width; p < end; p++) {
+                    indices[i++] = (byte) palette.indexOf(pixels[p]);
+                }
+            }
+
+            length = 0;
+            bitBuffer = bitCount = 0;
+            writeByte(0x2C);
+            writeShort(x);
+            writeShort(y);
+            writeShort(width);
+            writeShort(height);
+            writeByte(0); // tanpa palet lokal, tidak interlace
+            writeByte(MIN_CODE_SIZE);
+            int blocksStart = length;
+            compress(count);
+            return pack(blocksStart);
+        }
+
+        private void compress(int count) {
+            Arrays.fill(hashKeys, -1);
+            int codeSize = MIN_CODE_SIZE + 1;
+            int nextCode = END + 1;
+            writeCode(CLEAR, codeSize);
+            int prefix = indices[0] & 0xFF;
+            for (int i = 1; i < count; i++) {
+                int pixel = indices[i] & 0xFF;
+                int key = pixel << 12 | prefix;
+                int slot = (key * 0x9E3779B1) >>> (32 - HASH_BITS);
+                while (hashKeys[slot] != -1 && hashKeys[slot] != key) slot = (slot + 1) & (hashKeys.length - 1);
+                if (hashKeys[slot] == key) {
+                    prefix = hashCodes[slot];
+                    continue;
+                }
+                writeCode(prefix, codeSize);
+                if (nextCode < MAX_CODE) {
+                    hashKeys[slot] = key;
+                    hashCodes[slot] = (short) nextCode++;
+                    if (nextCode > 1 << codeSize) codeSize++;
+                } else {
+                    // Kamus penuh: mulai lagi dari awal
+                    writeCode(CLEAR, codeSize);
+                    Arrays.fill(hashKeys, -1);
+                    codeSize = MIN_CODE_SIZE + 1;
+                    nextCode = END + 1;
+                }
+                prefix = pixel;
+            }
+            writeCode(prefix, codeSize);
+            writeCode(END, codeSize);
+            if (bitCount > 0) writeByte(bitBuffer);
+        }
+
+        private void writeCode(int code, int codeSize) {
+            bitBuffer |= code << bitCount;
+            bitCount += codeSize;
+            while (bitCount >= 8) {
+                writeByte(bitBuffer);
+                bitBuffer >>>= 8;
+                bitCount -= 8;
+            }
+        }
+
+        private void writeShort(int value) {
+            writeByte(value);
+            writeByte(value >>> 8);
+        }
+
+        private void writeByte(int value) {
+            if (length == data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[length++] = (byte) value;
+        }
+
+        /** Memecah data LZW menjadi sub-blok GIF (panjang 1 byte, maksimum 255) diakhiri blok kosong. */
+        private byte[] pack(int blocksStart) {
+            int dataLength = length - blocksStart;
+            int blocks = (dataLength + 254) / 255;
+            byte[] out = new byte[blocksStart + dataLength + blocks + 1];
+            System.arraycopy(data, 0, out, 0, blocksStart);
+            int position = blocksStart;
+            for (int from = blocksStart; from < length; from += 255) {
+                int size = Math.min(255, length - from);
+                out[position++] = (byte) size;
+                System.arraycopy(data, from, out, position, size);
+                position += size;
+            }
+            out[position] = 0;
+            return out;
+        }
+    }
+}
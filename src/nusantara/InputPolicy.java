@@ -0,0 +1,66 @@
+package nusantara;
+
+/**
+ * Kebijakan masukan untuk menjalankan TowerSimulation tanpa pemain manusia.
+ *
+ * Dipanggil sekali per tick sebelum sim.tick(); mengembalikan salah satu perintah
+ * TowerSimulation.CMD_* (atau CMD_NONE). Implementasi harus tanpa state bersama agar
+ * satu instance bisa dipakai oleh banyak thread sekaligus; keacakan diambil dari
+ * GameRandom milik game yang sedang berjalan.
+ */
+public interface InputPolicy {
+
+    int nextCommand(TowerSimulation sim, GameRandom random);
+
+    /**
+     * Pemain "rata-rata": menjatuhkan balok saat pusatnya berada dalam maxError piksel
+     * dari pusat puncak menara (dengan peluang dropChance per tick agar waktunya bervariasi),
+     * dan jika buyUpgrades aktif, membeli upgrade termurah yang terjangkau.
+     */
+    static InputPolicy aimed(int maxError, double dropChance, boolean buyUpgrades) {
+        return (sim, random) -> {
+            GameState state = sim.getGameState();
+            if (state == GameState.GAME_OVER) return TowerSimulation.CMD_NONE;
+            if (state != GameState.PLAYING) return TowerSimulation.CMD_CONFIRM;
+
+            int affordable = buyUpgrades ? cheapestAffordableUpgrade(sim) : -1;
+            if (sim.isShowingUpgrades()) {
+                return affordable >= 0 ? TowerSimulation.CMD_BUY_UPGRADE + affordable : TowerSimulation.CMD_TOGGLE_UPGRADES;
+            }
+            if (sim.isBlockFalling()) return TowerSimulation.CMD_NONE;
+            if (affordable >= 0) return TowerSimulation.CMD_TOGGLE_UPGRADES;
+
+            TowerSimulation.Block hanging = sim.getHangingBlock();
+            TowerStore tower = sim.getTower();
+            int centerDiff = Math.abs((hanging.x + hanging.width / 2) - tower.centerX(tower.top()));
+            if (centerDiff <= maxError && random.nextDouble() < dropChance) {
+                return TowerSimulation.CMD_DROP;
+            }
+            return TowerSimulation.CMD_NONE;
+        };
+    }
+
+    /** Menjatuhkan balok pada tick acak, tanpa membidik. Berguna sebagai batas bawah skor. */
+    static InputPolicy random(double dropChance) {
+        return (sim, random) -> {
+            GameState state = sim.getGameState();
+            if (state == GameState.GAME_OVER) return TowerSimulation.CMD_NONE;
+            if (state != GameState.PLAYING) return TowerSimulation.CMD_CONFIRM;
+            if (sim.isShowingUpgrades()) return TowerSimulation.CMD_TOGGLE_UPGRADES;
+            return random.nextDouble() < dropChance ? TowerSimulation.CMD_DROP : TowerSimulation.CMD_NONE;
+        };
+    }
+
+    private static int cheapestAffordableUpgrade(TowerSimulation sim) {
+        UpgradeProgress upgrades = sim.getUpgrades();
+        UpgradeGraph graph = upgrades.graph();
+        int best = -1;
+        for (int i = 0; i < upgrades.frontierSize() && i < TowerSimulation.MAX_UPGRADE_SLOTS; i++) {
+            int cost = graph.cost(upgrades.frontierAt(i));
+            if (cost <= sim.getCurrentScore() && (best < 0 || cost < graph.cost(upgrades.frontierAt(best)))) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,93 @@
+package nusantara;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * InputQueue.java
+ *
+ * Antrean perintah (CMD_*) lock-free dengan banyak produsen dan satu konsumen (MPSC).
+ * Setiap perintah membawa waktu System.nanoTime saat masukan terjadi, dan boleh membawa
+ * satu argumen int (mis. offset jatuh atau petak yang dikirim klien GameServer).
+ * Produsen (EDT, thread jaringan, dsb) memanggil offer(); hanya thread simulasi yang
+ * memanggil poll(), sehingga TowerSimulation tetap hanya disentuh oleh satu thread.
+ *
+ * Ring buffer berukuran tetap dengan nomor urut per slot (gaya Vyukov): produsen merebut
+ * slot dengan satu CAS pada tail, menulis perintah, lalu menerbitkannya dengan menaikkan
+ * nomor urut slot. Tanpa kunci dan tanpa alokasi per perintah.
+ */
+final class InputQueue {
+
+    private final int mask;
+    private final int[] commands;
+    private final int[] arguments;
+    private final long[] timestamps;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head = 0; // hanya dibaca/ditulis oleh konsumen
+    private long lastTimestamp = 0;
+    private int lastArgument = 0;
+
+    /** capacity dibulatkan ke atas menjadi pangkat dua. */
+    InputQueue(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        commands = new int[size];
+        arguments = new int[size];
+        timestamps = new long[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /** Menambahkan perintah dari thread mana pun; false jika antrean penuh (perintah dibuang). */
+    boolean offer(int command, long timestampNanos) {
+        return offer(command, 0, timestampNanos);
+    }
+
+    /** Seperti offer(command, timestampNanos), dengan argumen yang dibaca konsumen lewat lastArgument(). */
+    boolean offer(int command, int argument, long timestampNanos) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    commands[slot] = command;
+                    arguments[slot] = argument;
+                    timestamps[slot] = timestampNanos;
+                    // Rilis: penulisan commands/timestamps terlihat sebelum nomor urut baru
+                    sequences.lazySet(slot, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false; // slot masih berisi perintah yang belum diambil konsumen
+            }
+            // sequence > position: produsen lain sudah mengambil posisi ini, coba lagi
+        }
+    }
+
+    /** True jika belum ada perintah terbit yang menunggu poll(). Hanya untuk thread konsumen. */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    /** Mengambil perintah berikutnya, atau CMD_NONE jika kosong. Hanya untuk thread konsumen. */
+    int poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) return TowerSimulation.CMD_NONE;
+        int command = commands[slot];
+        lastTimestamp = timestamps[slot];
+        lastArgument = arguments[slot];
+        sequences.lazySet(slot, head + mask + 1);
+        head++;
+        return command;
+    }
+
+    /** Waktu masukan (System.nanoTime) dari perintah terakhir yang diambil poll(). Hanya untuk konsumen. */
+    long lastTimestamp() { return lastTimestamp; }
+
+    /** Argumen dari perintah terakhir yang diambil poll() (0 jika ditawarkan tanpa argumen). Hanya untuk konsumen. */
+    int lastArgument() { return lastArgument; }
+}
@@ -0,0 +1,80 @@
+package nusantara;
+
+import java.util.Arrays;
+
+/**
+ * LatencyHistogram.java
+ *
+ * Histogram log-linear untuk durasi (nano) atau jumlah byte: 32 sub-bucket per pangkat dua,
+ * jadi persentil akurat sekitar 3% berapa pun besarnya nilai, dengan memori tetap (~15 KB)
+ * dan record() O(1) tanpa alokasi.
+ *
+ * Satu penulis per histogram. Pembaca lain (mis. overlay) boleh membaca kapan saja; hasilnya
+ * bisa tertinggal satu-dua sampel, cukup untuk tampilan debug.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+
+    void record(long value) {
+        if (value < 0) value = 0;
+        counts[indexOf(value)]++;
+        count++;
+        total += value;
+        if (value > max) max = value;
+    }
+
+    long count() { return count; }
+
+    long max() { return max; }
+
+    double mean() { return count == 0 ? 0 : (double) total / count; }
+
+    /** Nilai (batas atas bucket) tempat persentil p (0..100) jatuh; 0 jika kosong. */
+    long percentile(double p) {
+        long n = count;
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(upperBoundOf(i), max);
+        }
+        return max;
+    }
+
+    /** Menambahkan semua sampel histogram lain ke histogram ini (mis. menggabungkan stripe per thread). */
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        total += other.total;
+        if (other.max > max) max = other.max;
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,267 @@
+package nusantara;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leaderboard.java
+ *
+ * Papan skor tertinggi yang persisten, pengganti LinkedList&lt;GameScore&gt; di memori.
+ *
+ * - File biner append-only: header 8 byte (magic + versi) lalu rekaman 12 byte
+ *   per skor (long skor, int detik epoch tanpa tanda). Jutaan entri hanya belasan MB.
+ * - Saat dibuka, file dibaca lewat memory-map dan indeks dibangun sekaligus.
+ * - Top-K disimpan di memori sebagai array terurut; peringkat skor apa pun dijawab
+ *   ScoreRankIndex dalam O(log n).
+ * - submit() tidak pernah menyentuh disk: rekaman masuk antrean dan ditulis per batch
+ *   (lalu force) oleh thread latar, sehingga game over tidak pernah menahan game loop.
+ *   Jika penulisan gagal, kegagalannya dicatat sekali dan skor berikutnya hanya disimpan
+ *   di memori; close() melempar kegagalan itu.
+ */
+final class Leaderboard implements Closeable {
+
+    static final int DEFAULT_TOP_K = 5;
+
+    private static final int MAGIC = 0x4E544C42; // "NTLB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = 12;
+    private static final int MAX_BATCH = 4096;
+    // Potongan memory-map, kelipatan ukuran rekaman (map tunggal dibatasi 2 GB)
+    private static final long MAP_CHUNK = (1L << 30) / RECORD_BYTES * RECORD_BYTES;
+
+    private final int topK;
+    private final long[] topScores;
+    private final long[] topEpochSeconds;
+    private int topCount = 0;
+    private final ScoreRankIndex index = new ScoreRankIndex();
+    private volatile int version = 0;
+
+    // Penulisan latar; null untuk papan skor yang hanya di memori
+    private final FileChannel channel;
+    private final LinkedBlockingQueue<long[]> pending;
+    private final Thread writer;
+    private volatile boolean closed = false;          // diubah di bawah monitor papan skor
+    private volatile IOException writeFailure;        // idem; sesudahnya tidak ada yang diantrekan lagi
+
+    private Leaderboard(int topK, FileChannel channel) {
+        this.topK = topK;
+        this.topScores = new long[topK];
+        this.topEpochSeconds = new long[topK];
+        this.channel = channel;
+        if (channel != null) {
+            pending = new LinkedBlockingQueue<>();
+            writer = new Thread(this::writeLoop, "Leaderboard-Writer");
+            writer.setDaemon(true);
+        } else {
+            pending = null;
+            writer = null;
+        }
+    }
+
+    /** Papan skor tanpa file (mis. untuk simulasi headless). */
+    static Leaderboard inMemory(int topK) {
+        return new Leaderboard(topK, null);
+    }
+
+    /** Membuka (atau membuat) papan skor persisten di file. */
+    static Leaderboard open(Path file, int topK) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Leaderboard board = new Leaderboard(topK, channel);
+            board.load();
+            board.writer.start();
+            return board;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Lokasi bawaan: ~/.nusantaratower/leaderboard.dat, bisa diganti dengan -Dnusantara.leaderboard=path. */
+    static Path defaultPath() {
+        String configured = System.getProperty("nusantara.leaderboard");
+        if (configured != null) return Path.of(configured);
+        return Path.of(System.getProperty("user.home"), ".nusantaratower", "leaderboard.dat");
+    }
+
+    // =================================================================================
+    // Memuat File
+    // =================================================================================
+    private void load() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+            channel.position(HEADER_BYTES);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IOException("Bukan file leaderboard NusantaraTower");
+        int fileVersion = header.getInt();
+        if (fileVersion != FORMAT_VERSION) throw new IOException("Versi leaderboard tidak didukung: " + fileVersion);
+
+        // Rekaman terakhir yang terpotong (mis. listrik mati saat menulis) dibuang
+        long records = (fileSize - HEADER_BYTES) / RECORD_BYTES;
+        long validEnd = HEADER_BYTES + records * RECORD_BYTES;
+        if (validEnd != fileSize) channel.truncate(validEnd);
+        if (records > Integer.MAX_VALUE - 8) throw new IOException("Leaderboard terlalu besar: " + records + " entri");
+
+        long[] scores = new long[(int) records];
+        int n = 0;
+        for (long offset = HEADER_BYTES; offset < validEnd; offset += MAP_CHUNK) {
+            long length = Math.min(MAP_CHUNK, validEnd - offset);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            while (map.remaining() >= RECORD_BYTES) {
+                long score = map.getLong();
+                long epochSeconds = Integer.toUnsignedLong(map.getInt());
+                scores[n++] = score;
+                offerTop(score, epochSeconds);
+            }
+        }
+        index.rebuild(scores, n);
+        channel.position(validEnd);
+        version++;
+    }
+
+    // =================================================================================
+    // Operasi Papan Skor
+    // =================================================================================
+
+    /**
+     * Mencatat skor akhir dan mengembalikan peringkatnya (1 = terbaik). Hanya pekerjaan
+     * di memori (O(log n) + O(K)); penulisan ke disk terjadi di thread latar.
+     */
+    long submit(long score) {
+        long epochSeconds = System.currentTimeMillis() / 1000;
+        long rank;
+        synchronized (this) {
+            rank = index.countGreater(score) + 1;
+            index.add(score);
+            offerTop(score, epochSeconds);
+            version++;
+            // Di bawah monitor yang sama dengan close(): skor yang lolos pemeriksaan ini pasti
+            // sudah di antrean sebelum writer bisa melihat closed dan berhenti
+            if (pending != null && !closed && writeFailure == null) {
+                pending.offer(new long[] { score, epochSeconds });
+            }
+        }
+        return rank;
+    }
+
+    /** Peringkat yang akan didapat score jika dikirim sekarang (1 = terbaik). */
+    synchronized long rankOf(long score) {
+        return index.countGreater(score) + 1;
+    }
+
+    synchronized long size() {
+        return index.size();
+    }
+
+    /** Naik setiap kali isi papan skor berubah; dipakai render untuk tahu kapan teksnya basi. */
+    int version() { return version; }
+
+    /**
+     * Menyalin top-K (terbaik lebih dulu) ke array milik pemanggil, tanpa alokasi.
+     * epochSeconds boleh null. Mengembalikan jumlah entri yang disalin.
+     */
+    synchronized int topScores(long[] scores, long[] epochSeconds) {
+        int n = Math.min(topCount, scores.length);
+        System.arraycopy(topScores, 0, scores, 0, n);
+        if (epochSeconds != null) System.arraycopy(topEpochSeconds, 0, epochSeconds, 0, Math.min(n, epochSeconds.length));
+        return n;
+    }
+
+    int topK() { return topK; }
+
+    private void offerTop(long score, long epochSeconds) {
+        if (topCount == topK && score <= topScores[topK - 1]) return;
+        // Skor yang sama dengan entri lama ditaruh di bawahnya (yang lebih dulu tetap di atas)
+        int pos = topCount;
+        while (pos > 0 && topScores[pos - 1] < score) pos--;
+        int moved = Math.min(topCount, topK - 1) - pos;
+        if (moved > 0) {
+            System.arraycopy(topScores, pos, topScores, pos + 1, moved);
+            System.arraycopy(topEpochSeconds, pos, topEpochSeconds, pos + 1, moved);
+        }
+        topScores[pos] = score;
+        topEpochSeconds[pos] = epochSeconds;
+        if (topCount < topK) topCount++;
+    }
+
+    // =================================================================================
+    // Penulisan Latar
+    // =================================================================================
+    private void writeLoop() {
+        List<long[]> batch = new ArrayList<>(MAX_BATCH);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_BATCH * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (!closed || !pending.isEmpty()) {
+                long[] first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                pending.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch, buffer);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            synchronized (this) {
+                writeFailure = e;
+                pending.clear();
+            }
+            System.err.println("Leaderboard tidak bisa ditulis, skor berikutnya hanya disimpan di memori: " + e.getMessage());
+        }
+    }
+
+    private void writeBatch(List<long[]> batch, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        for (long[] record : batch) {
+            buffer.putLong(record[0]);
+            buffer.putInt((int) record[1]);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        // Satu fsync per batch, bukan per skor
+        channel.force(false);
+    }
+
+    /** Menunggu semua skor yang sudah dikirim tertulis, lalu menutup file. */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (channel == null || closed) return;
+            closed = true;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (writeFailure != null) throw writeFailure;
+    }
+}
@@ -0,0 +1,177 @@
+package nusantara;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadTestClient.java
+ *
+ * Uji beban GameServer: mensimulasikan banyak pemain lewat loopback, satu virtual thread
+ * per pemain. Setiap pemain membaca FRAME dari server dan memakai state di dalamnya untuk
+ * bermain sederhana: menjatuhkan balok setelah jeda acak, menekan konfirmasi saat menara
+ * selesai/gagal atau game berakhir.
+ *
+ * Yang dilaporkan:
+ * - latensi masukan: dari INPUT dikirim sampai FRAME yang menyatakan input itu sudah
+ *   diterapkan (inputCount) diterima; mencakup jaringan dan tunggu sampai tick berikutnya.
+ * - laju tick per sesi, dari nomor tick di FRAME: di bawah 60 berarti server tertinggal.
+ *
+ * Penggunaan:
+ *   java nusantara.LoadTestClient [pemain] [detik] [port]
+ */
+public class LoadTestClient {
+
+    private static final int SOCKET_BUFFER = 512;
+    /** Jeda acak sebelum menjatuhkan balok berikutnya (tick server). */
+    private static final int MIN_DROP_DELAY_TICKS = 30;
+    private static final int MAX_DROP_DELAY_TICKS = 120;
+    private static final long CONNECT_SPREAD_NANOS = 2_000_000_000L;
+
+    private final InetSocketAddress address;
+    private final long deadline;
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong serverTicks = new AtomicLong();
+    private final AtomicLong playedNanos = new AtomicLong();
+    private final AtomicLong inputsSent = new AtomicLong();
+    private final AtomicLong gamesFinished = new AtomicLong();
+    private final GameServer.SharedHistogram inputLatency = new GameServer.SharedHistogram();
+
+    LoadTestClient(InetSocketAddress address, long deadline) {
+        this.address = address;
+        this.deadline = deadline;
+    }
+
+    /** Satu pemain dari terhubung sampai tenggat uji; kegagalan koneksi hanya dihitung. */
+    private void play(int player, long startDelayNanos) {
+        GameRandom random = new GameRandom(player * 0x9E3779B97F4A7C15L);
+        try {
+            Thread.sleep(startDelayNanos / 1_000_000);
+        } catch (InterruptedException e) {
+            return;
+        }
+        boolean isConnected = false;
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), SOCKET_BUFFER));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), SOCKET_BUFFER));
+            ServerProtocol.writeHello(out, 0);
+            long[] welcome = new long[3];
+            ServerProtocol.readWelcome(in, welcome);
+            connected.incrementAndGet();
+            isConnected = true;
+
+            ServerProtocol.Frame frame = new ServerProtocol.Frame();
+            int sent = 0;
+            long sentAt = 0;
+            long firstTick = -1;
+            long firstFrameAt = 0;
+            long nextDropTick = 0;
+            GameState confirmedState = null;
+            while (System.nanoTime() < deadline) {
+                frame.read(in);
+                frames.incrementAndGet();
+                if (firstTick < 0) {
+                    firstTick = frame.tick;
+                    firstFrameAt = System.nanoTime();
+                }
+                if (frame.inputCount < sent) continue; // masukan terakhir belum diterapkan
+                if (sentAt != 0) {
+                    inputLatency.record(player, System.nanoTime() - sentAt);
+                    sentAt = 0;
+                }
+
+                int command = TowerSimulation.CMD_NONE;
+                if (frame.state == GameState.PLAYING) {
+                    confirmedState = null;
+                    if (!frame.blockFalling && frame.tick >= nextDropTick) {
+                        command = TowerSimulation.CMD_DROP;
+                        nextDropTick = frame.tick + MIN_DROP_DELAY_TICKS
+                                + random.nextInt(MAX_DROP_DELAY_TICKS - MIN_DROP_DELAY_TICKS);
+                    }
+                } else if (frame.state != confirmedState) {
+                    if (frame.state == GameState.GAME_OVER) gamesFinished.incrementAndGet();
+                    command = TowerSimulation.CMD_CONFIRM;
+                    confirmedState = frame.state;
+                }
+                if (command != TowerSimulation.CMD_NONE) {
+                    ServerProtocol.writeInput(out, command, 0);
+                    out.flush();
+                    sent++;
+                    sentAt = System.nanoTime();
+                    inputsSent.incrementAndGet();
+                }
+            }
+            serverTicks.addAndGet(frame.tick - firstTick);
+            playedNanos.addAndGet(System.nanoTime() - firstFrameAt);
+        } catch (IOException e) {
+            if (failed.incrementAndGet() <= 5) System.err.println("Pemain " + player + ": " + e.getMessage());
+        } finally {
+            if (isConnected) connected.decrementAndGet();
+        }
+    }
+
+    // =================================================================================
+    // Metode Main
+    // =================================================================================
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : ServerProtocol.DEFAULT_PORT;
+
+        long start = System.nanoTime();
+        // Koneksi disebar selama CONNECT_SPREAD_NANOS agar tidak membanjiri antrean accept sekaligus
+        long deadline = start + CONNECT_SPREAD_NANOS + seconds * 1_000_000_000L;
+        LoadTestClient client = new LoadTestClient(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), deadline);
+        List<Thread> threads = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            int player = i;
+            long delay = CONNECT_SPREAD_NANOS * i / players;
+            threads.add(Thread.ofVirtual().name("Pemain-" + i).start(() -> client.play(player, delay)));
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram interval = new LatencyHistogram();
+        long previousFrames = 0;
+        long previous = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(5_000);
+            long now = System.nanoTime();
+            long totalFrames = client.frames.get();
+            interval.reset();
+            client.inputLatency.drainTo(interval);
+            latency.add(interval);
+            System.out.printf("Terhubung %6d | %7.0f frame/s | latensi masukan p50 %s p99 %s maks %s%n",
+                    client.connected.get(), (totalFrames - previousFrames) / ((now - previous) / 1e9),
+                    GameServer.millis(interval.percentile(50)), GameServer.millis(interval.percentile(99)),
+                    GameServer.millis(interval.max()));
+            previousFrames = totalFrames;
+            previous = now;
+        }
+        for (Thread thread : threads) thread.join();
+        interval.reset();
+        client.inputLatency.drainTo(interval);
+        latency.add(interval);
+
+        System.out.printf("Pemain        : %d (%d gagal terhubung/terputus)%n", players, client.failed.get());
+        long playedNanos = client.playedNanos.get();
+        System.out.printf("Laju tick     : %.1f tick/s per sesi (target %d)%n",
+                playedNanos == 0 ? 0 : client.serverTicks.get() / (playedNanos / 1e9), GameServer.TICKS_PER_SECOND);
+        System.out.printf("Masukan       : %d dikirim, %d game selesai%n", client.inputsSent.get(), client.gamesFinished.get());
+        System.out.printf("Latensi masuk : p50 %s, p99 %s, p99.9 %s, maks %s%n",
+                GameServer.millis(latency.percentile(50)), GameServer.millis(latency.percentile(99)),
+                GameServer.millis(latency.percentile(99.9)), GameServer.millis(latency.max()));
+    }
+}
@@ -0,0 +1,702 @@
+package nusantara;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NusantaraTower.java
+ *
+ * Sebuah game membangun kota yang terinspirasi dari City Bloxx.
+ * Kelas ini adalah tampilan Swing; seluruh aturan permainan ada di TowerSimulation
+ * sehingga bisa dijalankan tanpa layar (lihat BatchRunner).
+ *
+ * Model thread: TowerSimulation hanya disentuh oleh thread game loop. Tombol dari EDT
+ * masuk ke InputQueue (lock-free) dan diambil di awal tick; setiap frame loop menerbitkan
+ * FrameSnapshot lewat FrameExchange, dan paintComponent di EDT hanya membaca snapshot itu.
+ *
+ * Render aktif (bawaan): loop menggambar dan menampilkan frame sendiri lewat
+ * ActiveRenderCanvas (BufferStrategy). -Dnusantara.render=passive memakai repaint()
+ * JPanel seperti semula; -Dnusantara.vsync=true mengikuti refresh rate layar.
+ * Hanya daerah yang berubah (DirtyRegion) yang di-repaint; saat layar diam (layar akhir,
+ * menu upgrade) loop berhenti tick dan menggambar sampai ada masukan (lihat idleNanos()).
+ *
+ * Versi ini memiliki tombol kembali di menu Upgrade.
+ *
+ * Game ini secara spesifik mendemonstrasikan penggunaan 6 struktur data fundamental:
+ * 1. Stack (struct-of-arrays di TowerStore): Untuk tumpukan balok menara.
+ * 2. Queue: Untuk antrean balok yang akan datang.
+ * 3. Array datar (CityGrid): Untuk merepresentasikan grid kota.
+ * 4. Graph (CSR di CityGrid): Untuk menghitung bonus kedekatan antar bangunan.
+ * 5. Tree: Untuk sistem upgrade.
+ * 6. Treap order-statistic (Leaderboard): Untuk daftar skor tertinggi yang tersimpan di disk.
+ *
+ * Kontrol:
+ * - [SPACE]: Jatuhkan balok.
+ * - [ENTER]: Lanjut setelah gagal/sukses membangun menara, atau mulai ulang.
+ * - [U]: Buka/Tutup menu Upgrade.
+ * - [Panah] / [S]: Pilih petak kota / pakai saran planner (mode pilih petak).
+ * - [F5]: Simpan sekarang (selain autosave berkala).
+ * - [M]: Peta kota besar; [+]/[-] atau roda mouse: zoom; seret mouse: geser peta.
+ * - [F3]: Overlay debug (waktu per fase, alokasi, frame terlewat; aktifkan -Dnusantara.profile=true).
+ *
+ * Mode tanpa batas (menara terus tumbuh, layar bergulir): -Dnusantara.endless=true
+ * Mode pilih petak (menara dibangun di petak pilihan, dengan saran CityPlanner): -Dnusantara.choosePlots=true
+ * Kota sebesar LEBARxTINGGI petak, bukan 5x4: -Dnusantara.city=2000x2000
+ * Setiap game direkam sebagai replay di ~/.nusantaratower/replays (-Dnusantara.replayDir),
+ * dan bisa dimainkan ulang dengan ReplayPlayer.
+ * Game yang sedang berjalan disimpan otomatis ke ~/.nusantaratower/autosave.ntsv
+ * (-Dnusantara.save) dan dilanjutkan saat game dibuka lagi.
+ * Siarkan game ke penonton: -Dnusantara.broadcast=[host:]port (SpectatorServer).
+ * Mode penonton (hanya menggambar siaran, tanpa simulasi): -Dnusantara.spectate=host:port
+ * Waktu sampai frame pertama dan sampai interaktif: -Dnusantara.startup=true (lihat StartupProbe).
+ */
+public class NusantaraTower extends JPanel implements GameLoop.Listener {
+
+    // =================================================================================
+    // Variabel State & Konfigurasi Game
+    // =================================================================================
+    private static final int TICKS_PER_SECOND = 60;
+    private static final int INPUT_QUEUE_CAPACITY = 256;
+    /** Batas umur timestamp KeyEvent yang dipercaya; lihat pressedNanos(). */
+    private static final long MAX_INPUT_AGE_MILLIS = 100;
+    /** [S] Perintah tampilan: diterjemahkan thread loop menjadi CMD_SELECT_PLOT ke petak saran. */
+    private static final int CMD_USE_SUGGESTION = -2;
+    /** [F5] Perintah tampilan: thread loop mengambil snapshot untuk autosave saat itu juga. */
+    private static final int CMD_SAVE_NOW = -3;
+    /** Autosave berkala setiap 10 detik waktu game, selain setiap kali GameState berubah. */
+    private static final long AUTOSAVE_INTERVAL_TICKS = 10 * TICKS_PER_SECOND;
+    /** Batas menunggu thread loop berhenti saat aplikasi ditutup (tick atau present() yang sedang jalan). */
+    private static final long SHUTDOWN_JOIN_MILLIS = 5000;
+    /** Selama overlay [F3] tampil, loop yang diam tetap bangun sesering overlay memperbarui angkanya. */
+    private static final long OVERLAY_IDLE_NANOS = 250_000_000L;
+
+    private final TowerSimulation sim;
+    private final TowerRenderer renderer;
+    private final InputQueue inputQueue = new InputQueue(INPUT_QUEUE_CAPACITY);
+    private final FrameExchange frames = new FrameExchange();
+    private final DirtyRegion damage = new DirtyRegion(); // hanya thread loop, kecuali markAll()
+    private volatile int viewportHeight = TowerSimulation.PLAYFIELD_HEIGHT;
+    private final KeyAdapter keyHandler = new KeyAdapter() {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            handleInput(e);
+        }
+    };
+    // Geser dan zoom peta kota; hanya tampilan, tidak lewat sim
+    private final MouseAdapter mouseHandler = new MouseAdapter() {
+        private int lastX, lastY;
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            lastX = e.getX();
+            lastY = e.getY();
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            renderer.panCity(e.getX() - lastX, e.getY() - lastY);
+            lastX = e.getX();
+            lastY = e.getY();
+            redraw();
+        }
+
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            renderer.zoomCity(-e.getWheelRotation());
+            redraw();
+        }
+    };
+    private final ComponentAdapter resizeHandler = new ComponentAdapter() {
+        @Override
+        public void componentResized(ComponentEvent e) {
+            redraw();
+        }
+
+        @Override
+        public void componentShown(ComponentEvent e) {
+            redraw();
+        }
+    };
+    private ActiveRenderCanvas activeCanvas; // null = render pasif lewat repaint()
+    private Thread gameThread;
+    private volatile GameLoop gameLoop;
+
+    // Saran petak (mode pilih petak); hanya thread loop
+    private final CityPlanner planner = new CityPlanner();
+    private CityPlanner.Plan plan;
+    private int planCityVersion = -1;
+    private int planQueueVersion = -1;
+
+    // Autosave; hanya thread loop (null jika tidak aktif)
+    private Autosaver autosaver;
+    private long autosavedTick;
+    private GameState autosavedState;
+    private boolean saveRequested = false;
+
+    // Siaran: penyiar menyandikan state setiap tick, penonton hanya menerapkan siaran (null jika tidak aktif)
+    private SpectatorServer broadcast;
+    private SpectatorClient spectating;
+
+    // Papan skor persisten yang selesai dibuka di latar, menunggu dipasang thread loop
+    private volatile Leaderboard openedLeaderboard;
+
+    // Yang ditutup shutdown() saat aplikasi keluar (null jika tidak aktif)
+    private volatile Leaderboard persistentLeaderboard;
+    private volatile Path replayDir;
+    private volatile ExecutorService replayWriter;
+
+    // =================================================================================
+    // Konstruktor dan Inisialisasi
+    // =================================================================================
+    public NusantaraTower() {
+        this(newSimulationFromSystemProperties());
+    }
+
+    NusantaraTower(TowerSimulation sim) {
+        setPreferredSize(new Dimension(TowerSimulation.PLAYFIELD_WIDTH, TowerSimulation.PLAYFIELD_HEIGHT));
+        setBackground(RenderResources.SKY);
+        setFocusable(true);
+        addKeyListener(keyHandler);
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+        addMouseWheelListener(mouseHandler);
+        addComponentListener(resizeHandler);
+        this.sim = sim;
+        renderer = new TowerRenderer();
+    }
+
+    private static TowerSimulation newSimulationFromSystemProperties() {
+        String citySize = System.getProperty("nusantara.city");
+        TowerSimulation sim;
+        if (citySize == null) {
+            sim = new TowerSimulation();
+        } else {
+            int x = citySize.indexOf('x');
+            CityGrid city = CityGrid.rectangular(Integer.parseInt(citySize.substring(0, x).trim()),
+                    Integer.parseInt(citySize.substring(x + 1).trim()));
+            sim = new TowerSimulation(GameRandom.freshSeed(), city);
+        }
+        if (Boolean.getBoolean("nusantara.endless")) {
+            sim.setEndlessMode(true);
+        }
+        if (Boolean.getBoolean("nusantara.choosePlots")) {
+            sim.setChoosePlotMode(true);
+        }
+        return sim;
+    }
+
+    /**
+     * Mengganti ke render aktif: kanvas BufferStrategy mengisi panel dan digambar langsung
+     * dari thread loop. Dipanggil sebelum jendela ditampilkan dan sebelum start().
+     */
+    void useActiveRendering() {
+        if (activeCanvas != null) return;
+        activeCanvas = new ActiveRenderCanvas(renderer, this::redraw);
+        activeCanvas.addKeyListener(keyHandler);
+        activeCanvas.addMouseListener(mouseHandler);
+        activeCanvas.addMouseMotionListener(mouseHandler);
+        activeCanvas.addMouseWheelListener(mouseHandler);
+        setLayout(new BorderLayout());
+        add(activeCanvas, BorderLayout.CENTER);
+    }
+
+    /** Memberi fokus keyboard ke komponen yang menerima tombol (kanvas pada mode aktif). */
+    void requestGameFocus() {
+        if (activeCanvas != null) {
+            activeCanvas.requestFocusInWindow();
+        } else {
+            requestFocusInWindow();
+        }
+    }
+
+    /**
+     * Menjalankan game loop di thread tersendiri. Panel tanpa start() hanya bisa digambar (mis.
+     * benchmark). Sekaligus memasang satu shutdown hook untuk semua penutupan (shutdown()).
+     */
+    public void start() {
+        if (gameThread == null) {
+            gameLoop = GameLoop.fromSystemProperties(this, TICKS_PER_SECOND, defaultFps());
+            gameThread = new Thread(gameLoop, "NusantaraTower-Loop");
+            Profiler.bindSimulationThread(gameThread);
+            if (activeCanvas != null) Profiler.bindRenderThread(gameThread);
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "NusantaraTower-Shutdown"));
+            gameThread.start();
+        }
+    }
+
+    /** Dengan -Dnusantara.vsync=true, FPS mengikuti refresh rate layar (jika diketahui). */
+    private int defaultFps() {
+        if (!Boolean.getBoolean("nusantara.vsync") || GraphicsEnvironment.isHeadless()) return 60;
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        GraphicsDevice device = config != null ? config.getDevice()
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+        int refreshRate = device.getDisplayMode().getRefreshRate();
+        return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? 60 : refreshRate;
+    }
+
+    /**
+     * Menghentikan game loop dan menunggu thread-nya selesai. Mengembalikan true jika thread
+     * loop sudah berakhir (atau tidak pernah dijalankan): hanya setelah itu sim aman dibaca
+     * dari thread lain.
+     */
+    boolean stop() {
+        if (gameThread == null) return true;
+        gameLoop.stop();
+        try {
+            gameThread.join(SHUTDOWN_JOIN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !gameThread.isAlive();
+    }
+
+    /**
+     * Shutdown hook tunggal. Hook JVM berjalan bersamaan tanpa urutan, jadi semua penutupan
+     * ada di sini dengan urutan tetap: loop berhenti dulu (tidak ada lagi tick, skor akhir atau
+     * present()), lalu replay yang belum selesai dan autosave terakhir disimpan, baru papan
+     * skor dan siaran ditutup. Jika loop tidak berhenti tepat waktu, sim tidak dibaca sama sekali.
+     */
+    private void shutdown() {
+        boolean stopped = stop();
+        if (!stopped) System.err.println("Game loop tidak berhenti, replay dan autosave terakhir dilewati");
+
+        ExecutorService writer = replayWriter;
+        if (writer != null) {
+            if (stopped) {
+                Replay unfinished = sim.snapshotReplay();
+                if (unfinished != null && unfinished.getEventCount() > 0) saveReplay(replayDir, unfinished);
+            }
+            writer.shutdown();
+            try {
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (autosaver != null) {
+            if (stopped) autosaver.submit(sim.snapshotState());
+            try {
+                autosaver.close();
+            } catch (IOException e) {
+                System.err.println("Gagal menyimpan game: " + e.getMessage());
+            }
+        }
+        Leaderboard leaderboard = persistentLeaderboard;
+        if (leaderboard != null) {
+            try {
+                leaderboard.close();
+            } catch (IOException e) {
+                System.err.println("Gagal menyimpan leaderboard: " + e.getMessage());
+            }
+        }
+        if (broadcast != null) {
+            try {
+                broadcast.close();
+            } catch (IOException e) {
+                // Sudah ditutup
+            }
+        }
+    }
+
+    /**
+     * Memakai papan skor di disk; jika gagal dibuka, permainan tetap jalan dengan papan skor di memori.
+     * File dibuka di thread latar (papan skor besar butuh waktu untuk dimuat) sehingga tidak menunda
+     * frame pertama; thread loop memasangnya di awal tick berikutnya (installOpenedLeaderboard()).
+     */
+    void openPersistentLeaderboard() {
+        Thread opener = new Thread(() -> {
+            try {
+                Leaderboard leaderboard = Leaderboard.open(Leaderboard.defaultPath(), Leaderboard.DEFAULT_TOP_K);
+                persistentLeaderboard = leaderboard;
+                openedLeaderboard = leaderboard;
+                wake();
+                StartupProbe.mark("leaderboard");
+            } catch (IOException e) {
+                System.err.println("Leaderboard tidak bisa dibuka, skor tidak akan disimpan: " + e.getMessage());
+            }
+        }, "Leaderboard-Open");
+        opener.setDaemon(true);
+        opener.start();
+    }
+
+    /** Memasang papan skor yang selesai dibuka; skor yang masuk sebelum itu dipindahkan. Hanya thread loop. */
+    private void installOpenedLeaderboard() {
+        Leaderboard opened = openedLeaderboard;
+        if (opened == null) return;
+        openedLeaderboard = null;
+        Leaderboard interim = sim.getLeaderboard();
+        long[] scores = new long[interim.topK()];
+        int count = interim.topScores(scores, new long[scores.length]);
+        for (int i = 0; i < count; i++) {
+            opened.submit(scores[i]);
+        }
+        sim.setLeaderboard(opened);
+    }
+
+    /**
+     * Merekam setiap game ke direktori replay. Replay yang selesai ditulis oleh thread latar;
+     * saat aplikasi ditutup, game yang belum selesai ikut disimpan oleh shutdown() (berguna
+     * untuk laporan bug).
+     */
+    void startReplayRecording() {
+        Path dir = Replay.defaultDirectory();
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            System.err.println("Direktori replay tidak bisa dibuat, game tidak direkam: " + e.getMessage());
+            return;
+        }
+        ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "Replay-Writer");
+            t.setDaemon(true);
+            return t;
+        });
+        // Dipanggil sebelum start(), jadi sim belum dipakai thread loop
+        sim.setReplayRecorder(new ReplayRecorder(replay -> writer.execute(() -> saveReplay(dir, replay))));
+        replayDir = dir;
+        replayWriter = writer;
+    }
+
+    /**
+     * Melanjutkan game dari autosave (jika ada dan belum GAME_OVER), lalu menyimpan otomatis
+     * selama bermain. Dipanggil sebelum start() dan setelah startReplayRecording(), agar
+     * rekaman replay game yang dimuat ikut dilanjutkan.
+     */
+    void startAutosave() {
+        Path file = GameSnapshot.defaultPath();
+        if (Files.exists(file)) {
+            try {
+                GameSnapshot saved = GameSnapshot.read(file);
+                if (saved.gameState != GameState.GAME_OVER) sim.restore(saved);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Autosave tidak bisa dimuat, memulai game baru: " + e.getMessage());
+            }
+        }
+        autosaver = new Autosaver(file);
+        autosavedTick = sim.getTickCount();
+        autosavedState = sim.getGameState();
+    }
+
+    /** Mengambil snapshot (copy-on-write, beberapa mikrodetik) jika waktunya; penulisan di thread Autosaver. */
+    private void autosaveIfDue() {
+        if (autosaver == null) return;
+        GameState state = sim.getGameState();
+        if (!saveRequested && state == autosavedState && sim.getTickCount() - autosavedTick < AUTOSAVE_INTERVAL_TICKS) return;
+        long start = Profiler.start();
+        autosaver.submit(sim.snapshotState());
+        Profiler.end(Profiler.SNAPSHOT, start);
+        autosavedTick = sim.getTickCount();
+        autosavedState = state;
+        saveRequested = false;
+    }
+
+    /** Menyiarkan game ini ke penonton di address. Dipanggil sebelum start(). */
+    void startBroadcast(InetSocketAddress address) {
+        try {
+            broadcast = new SpectatorServer(address);
+        } catch (IOException e) {
+            System.err.println("Siaran tidak bisa dimulai di " + address + ": " + e.getMessage());
+            return;
+        }
+        // Penonton baru butuh keyframe, yang hanya dibuat di tick: bangunkan loop yang sedang diam
+        broadcast.setWakeup(this::wake);
+    }
+
+    /**
+     * Mode penonton: sim lokal tidak dijalankan, yang digambar adalah siaran dari address.
+     * Dipanggil sebelum start(); melempar IOException jika penyiar tidak bisa dihubungi.
+     */
+    void startSpectating(InetSocketAddress address) throws IOException {
+        spectating = new SpectatorClient(address);
+        spectating.setWakeup(this::wake);
+    }
+
+    /** "host:port" atau "port" (host bawaan loopback). */
+    static InetSocketAddress parseAddress(String spec) {
+        int colon = spec.lastIndexOf(':');
+        if (colon < 0) return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(spec));
+        return new InetSocketAddress(spec.substring(0, colon), Integer.parseInt(spec.substring(colon + 1)));
+    }
+
+    private static void saveReplay(Path dir, Replay replay) {
+        String name = "replay-" + System.currentTimeMillis() + "-" + replay.getFinalScore()
+                + (replay.isFinished() ? "" : "-belum-selesai") + Replay.FILE_EXTENSION;
+        try {
+            replay.write(dir.resolve(name));
+        } catch (IOException e) {
+            System.err.println("Gagal menyimpan replay: " + e.getMessage());
+        }
+    }
+
+    // =================================================================================
+    // Game Loop Utama
+    // =================================================================================
+    // Loop berjalan di GameLoop: tick() dipanggil dengan laju tetap TICKS_PER_SECOND,
+    // render() sesuai target FPS dengan alpha untuk interpolasi.
+    @Override
+    public void tick() {
+        StartupProbe.tickStarted();
+        if (spectating != null) {
+            spectating.update();
+            return;
+        }
+        long start = Profiler.start();
+        long allocated = Profiler.allocatedBytes();
+        installOpenedLeaderboard();
+        // Perintah selalu diterapkan tepat di antara dua tick, sama seperti yang direkam replay
+        for (int command = inputQueue.poll(); command != TowerSimulation.CMD_NONE; command = inputQueue.poll()) {
+            long pressed = inputQueue.lastTimestamp();
+            int argument = 0;
+            if (command == CMD_SAVE_NOW) {
+                saveRequested = true;
+                continue;
+            }
+            if (command == TowerSimulation.CMD_DROP) {
+                argument = dropOffsetAt(pressed);
+            } else if (command == CMD_USE_SUGGESTION) {
+                command = TowerSimulation.CMD_SELECT_PLOT;
+                argument = plan != null ? plan.bestPlot() : -1; // -1 diabaikan sim
+            }
+            sim.handleInput(command, argument);
+            Profiler.end(Profiler.INPUT, pressed);
+            if (!Profiler.inputEventsEnabled()) continue;
+            Profiler.InputEvent event = new Profiler.InputEvent();
+            if (event.shouldCommit()) {
+                event.command = command;
+                event.latency = System.nanoTime() - pressed;
+                event.argument = argument;
+                event.commit();
+            }
+        }
+        sim.tick();
+        if (broadcast != null) broadcast.publish(sim);
+        updatePlan();
+        autosaveIfDue();
+        Profiler.endTickAllocation(allocated);
+        Profiler.end(Profiler.TICK, start);
+    }
+
+    @Override
+    public void render(double alpha) {
+        if (activeCanvas != null) {
+            // Thread loop sekaligus penulis dan pembaca snapshot; frame tampil sebelum render() kembali
+            // BufferStrategy menampilkan frame utuh, jadi yang bisa dihemat hanya frame tanpa perubahan
+            if (publish(activeCanvas.getWidth(), activeCanvas.getHeight(), alpha)) {
+                if (activeCanvas.present(frames.latest())) {
+                    StartupProbe.frameShown();
+                } else {
+                    damage.markAll(); // kanvas belum tampil: frame ini belum pernah sampai ke layar
+                }
+            }
+        } else if (publish(getWidth(), viewportHeight, alpha)) {
+            repaint(damage.x(), damage.y(), damage.width(), damage.height());
+        }
+    }
+
+    /**
+     * Diam jika tick berikutnya tidak akan mengubah gambar: sim tidak berjalan dan sudah tidak
+     * bergerak (atau penonton tanpa siaran baru), tidak ada masukan yang menunggu, dan tidak
+     * ada autosave yang diminta. Loop kemudian parkir sampai wake().
+     */
+    @Override
+    public long idleNanos() {
+        if (!inputQueue.isEmpty() || saveRequested) return 0;
+        if (spectating != null ? spectating.hasPending() : !sim.isStatic()) return 0;
+        return Profiler.isOverlayVisible() ? OVERLAY_IDLE_NANOS : Long.MAX_VALUE;
+    }
+
+    /** Membangunkan loop yang sedang diam. Dari thread mana pun. */
+    private void wake() {
+        GameLoop loop = gameLoop;
+        if (loop != null) loop.wake();
+    }
+
+    /** Perubahan yang tidak lewat sim (zoom/geser peta, ukuran jendela, expose): gambar ulang semuanya. */
+    private void redraw() {
+        damage.markAll();
+        wake();
+    }
+
+    /**
+     * Merencanakan ulang saat menara selesai pada mode pilih petak, atau saat kota/antrean
+     * berubah sejak rencana terakhir. Dibatasi DEFAULT_BUDGET_NANOS, jadi paling lama
+     * sekitar satu frame dan hanya sekali per menara.
+     */
+    private void updatePlan() {
+        if (!sim.isChoosePlotMode() || sim.getGameState() != GameState.TOWER_COMPLETE) {
+            plan = null;
+            return;
+        }
+        if (plan != null && planCityVersion == sim.getCityVersion() && planQueueVersion == sim.getQueueVersion()) return;
+        TowerStore tower = sim.getTower();
+        plan = planner.plan(sim.getCity(), sim.getSynergy().rules(), tower.type(tower.top()),
+                sim.getUpcomingBlocks(), CityPlanner.DEFAULT_BUDGET_NANOS);
+        planCityVersion = sim.getCityVersion();
+        planQueueVersion = sim.getQueueVersion();
+    }
+
+    /**
+     * Posisi crane yang sedang dilihat pemain pada waktu pressedNanos, relatif terhadap state
+     * sim saat ini, dalam satuan 1/DROP_OFFSET_SCALE tick. Frame pada waktu t menampilkan
+     * interpolasi state di tick ticksAt(t) - 1, sedangkan sim sudah berada di getTickCount();
+     * tanpa koreksi ini balok jatuh satu sampai dua langkah crane setelah yang dilihat pemain.
+     */
+    private int dropOffsetAt(long pressedNanos) {
+        if (gameLoop == null) return 0;
+        double offset = gameLoop.ticksAt(pressedNanos) - 1 - gameLoop.getTickCount();
+        offset = Math.max(-1, Math.min(1, offset));
+        return (int) Math.round(offset * TowerSimulation.DROP_OFFSET_SCALE);
+    }
+
+    /** Menerbitkan snapshot state saat ini untuk EDT. Hanya dari thread yang menjalankan sim. */
+    void publishFrame(double alpha) {
+        publish(getWidth(), viewportHeight, alpha);
+    }
+
+    /** Menerbitkan snapshot dan menghitung daerah yang berubah; false jika tidak ada yang perlu digambar. */
+    private boolean publish(int width, int height, double alpha) {
+        long start = Profiler.start();
+        FrameSnapshot frame = null;
+        if (spectating == null) {
+            frame = frames.publish(sim, plan, height, alpha);
+        } else if (spectating.view().tick >= 0) { // belum ada keyframe = belum ada yang digambar
+            frame = frames.publish(spectating.view(), height, alpha);
+        }
+        boolean changed = frame != null && damage.update(frame, width, height, renderer.isCityMapExpanded());
+        Profiler.end(Profiler.PUBLISH, start);
+        return changed;
+    }
+
+    // =================================================================================
+    // Masukan Pemain
+    // =================================================================================
+
+    private void handleInput(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            Profiler.toggleOverlay();
+            redraw();
+            return;
+        }
+        // Peta kota hanya tampilan: berlaku juga untuk penonton
+        int key = e.getKeyCode();
+        if (key == KeyEvent.VK_M) {
+            renderer.toggleCityMap();
+            redraw();
+            return;
+        }
+        if (key == KeyEvent.VK_EQUALS || key == KeyEvent.VK_PLUS || key == KeyEvent.VK_ADD) {
+            renderer.zoomCity(1);
+            redraw();
+            return;
+        }
+        if (key == KeyEvent.VK_MINUS || key == KeyEvent.VK_SUBTRACT) {
+            renderer.zoomCity(-1);
+            redraw();
+            return;
+        }
+        if (spectating != null) return; // penonton tidak mengendalikan game
+        int command = toCommand(e.getKeyCode());
+        if (command != TowerSimulation.CMD_NONE && inputQueue.offer(command, pressedNanos(e))) {
+            wake();
+        }
+    }
+
+    /**
+     * Waktu tombol ditekan dalam skala System.nanoTime. getWhen() berasal dari sistem operasi
+     * (milidetik, jam dinding), jadi antrean event EDT tidak ikut terhitung; selisih yang
+     * tidak masuk akal (jam berubah, event sintetis) dibatasi ke 0..100 ms.
+     */
+    private static long pressedNanos(KeyEvent e) {
+        long now = System.nanoTime();
+        long ageMillis = System.currentTimeMillis() - e.getWhen();
+        return now - Math.max(0, Math.min(MAX_INPUT_AGE_MILLIS, ageMillis)) * 1_000_000L;
+    }
+
+    /** Menerjemahkan tombol keyboard menjadi perintah simulasi (TowerSimulation.CMD_*) atau perintah tampilan (CMD_USE_SUGGESTION, CMD_SAVE_NOW). */
+    static int toCommand(int key) {
+        if (key == KeyEvent.VK_SPACE) return TowerSimulation.CMD_DROP;
+        if (key == KeyEvent.VK_ENTER) return TowerSimulation.CMD_CONFIRM;
+        if (key == KeyEvent.VK_U) return TowerSimulation.CMD_TOGGLE_UPGRADES;
+        if (key >= KeyEvent.VK_1 && key <= KeyEvent.VK_9) return TowerSimulation.CMD_BUY_UPGRADE + (key - KeyEvent.VK_1);
+        if (key == KeyEvent.VK_LEFT) return TowerSimulation.CMD_CURSOR_LEFT;
+        if (key == KeyEvent.VK_RIGHT) return TowerSimulation.CMD_CURSOR_RIGHT;
+        if (key == KeyEvent.VK_UP) return TowerSimulation.CMD_CURSOR_UP;
+        if (key == KeyEvent.VK_DOWN) return TowerSimulation.CMD_CURSOR_DOWN;
+        if (key == KeyEvent.VK_S) return CMD_USE_SUGGESTION;
+        if (key == KeyEvent.VK_F5) return CMD_SAVE_NOW;
+        return TowerSimulation.CMD_NONE;
+    }
+
+    // =================================================================================
+    // Metode Rendering (Menggambar ke Layar)
+    // =================================================================================
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (activeCanvas != null) return; // kanvas aktif menutupi panel
+        viewportHeight = getHeight();
+        FrameSnapshot frame = frames.latest();
+        if (frame != null) {
+            Profiler.bindRenderThread(Thread.currentThread());
+            renderer.render((Graphics2D) g, getWidth(), getHeight(), frame);
+            StartupProbe.frameShown();
+        }
+    }
+
+    // =================================================================================
+    // Metode Main untuk Menjalankan Game
+    // =================================================================================
+    public static void main(String[] args) {
+        StartupProbe.mark("main");
+        // Font dan Java2D dimuat di latar selagi toolkit Swing dan jendela disiapkan di sini
+        Thread warmUp = new Thread(RenderResources::warmUp, "Render-WarmUp");
+        warmUp.setDaemon(true);
+        warmUp.start();
+        JFrame frame = new JFrame("Nusantara Tower");
+        NusantaraTower game = new NusantaraTower();
+        StartupProbe.mark("sim");
+        String spectate = System.getProperty("nusantara.spectate");
+        if (spectate != null) {
+            InetSocketAddress address = parseAddress(spectate);
+            try {
+                game.startSpectating(address);
+            } catch (IOException e) {
+                System.err.println("Tidak bisa menonton " + address + ": " + e.getMessage());
+                System.exit(1);
+            }
+            frame.setTitle("Nusantara Tower - menonton " + spectate);
+        } else {
+            game.openPersistentLeaderboard();
+            game.startReplayRecording();
+            game.startAutosave();
+            String broadcastAddress = System.getProperty("nusantara.broadcast");
+            if (broadcastAddress != null) game.startBroadcast(parseAddress(broadcastAddress));
+        }
+        if (!"passive".equals(System.getProperty("nusantara.render", "active"))) {
+            game.useActiveRendering();
+        }
+        frame.add(game);
+        frame.pack();
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+        StartupProbe.mark("jendela");
+        game.requestGameFocus();
+        game.start();
+    }
+}
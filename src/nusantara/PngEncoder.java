@@ -0,0 +1,196 @@
+package nusantara;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PngEncoder.java
+ *
+ * Encoder PNG RGB 8 bit untuk frame berturut-turut yang sebagian besar sama (ekspor replay).
+ *
+ * ImageIO mencoba lima filter per baris dan mengompres ulang seluruh gambar setiap kali
+ * (~20 ms per frame 800x600). Di sini setiap baris memakai filter Up, dan gambar dipecah
+ * menjadi pita BAND_ROWS baris yang dikompres sendiri-sendiri (deflate FULL_FLUSH, tanpa
+ * rujukan ke pita lain). Pita yang pikselnya sama dengan frame sebelumnya yang dikodekan
+ * encoder ini memakai ulang hasil kompresi lamanya; checksum Adler-32 seluruh data digabung
+ * dari checksum per pita. Hasilnya PNG biasa dengan satu aliran zlib.
+ *
+ * Satu encoder per thread; hasil encode() adalah array baru, buffer lainnya dipakai ulang.
+ */
+final class PngEncoder {
+
+    private static final int BAND_ROWS = 16;
+    private static final int ADLER_BASE = 65521;
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] FINAL_EMPTY_BLOCK = {0x03, 0x00};
+
+    private final int width, height;
+    private final int rowBytes;
+    private final int[] previous;
+    private boolean hasPrevious = false;
+    private final boolean[] rowChanged;
+
+    // Per pita: hasil deflate dan Adler-32 dari data mentahnya (byte filter + selisih Up)
+    private final byte[][] bands;
+    private final int[] bandLengths;
+    private final int[] bandAdlers;
+    private final int[] bandRawLengths;
+
+    private final byte[] raw;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    private final Adler32 adler = new Adler32();
+    private final CRC32 crc = new CRC32();
+    private byte[] out = new byte[1 << 16];
+    private int length;
+
+    PngEncoder(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.rowBytes = 1 + 3 * width;
+        this.previous = new int[width * height];
+        this.rowChanged = new boolean[height];
+        int bandCount = (height + BAND_ROWS - 1) / BAND_ROWS;
+        this.bands = new byte[bandCount][rowBytes * BAND_ROWS / 4];
+        this.bandLengths = new int[bandCount];
+        this.bandAdlers = new int[bandCount];
+        this.bandRawLengths = new int[bandCount];
+        this.raw = new byte[rowBytes * BAND_ROWS];
+    }
+
+    /** Mengodekan image TYPE_INT_RGB berukuran width x height menjadi file PNG utuh. */
+    byte[] encode(BufferedImage image) {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < height; y++) {
+            int from = y * width;
+            rowChanged[y] = !hasPrevious || !Arrays.equals(pixels, from, from + width, previous, from, from + width);
+        }
+
+        long checksum = 1;
+        int dataLength = 2 + FINAL_EMPTY_BLOCK.length + 4;
+        for (int band = 0; band < bands.length; band++) {
+            int y0 = band * BAND_ROWS;
+            int y1 = Math.min(height, y0 + BAND_ROWS);
+            // Filter Up: baris pertama pita juga bergantung pada baris di atasnya
+            boolean changed = false;
+            for (int y = Math.max(0, y0 - 1); y < y1 && !changed; y++) changed = rowChanged[y];
+            if (changed) compressBand(band, pixels, y0, y1);
+            checksum = combineAdler(checksum, bandAdlers[band], bandRawLengths[band]);
+            dataLength += bandLengths[band];
+        }
+        System.arraycopy(pixels, 0, previous, 0, previous.length);
+        hasPrevious = true;
+
+        length = 0;
+        ensureCapacity(SIGNATURE.length + 25 + 12 + dataLength + 12);
+        writeBytes(SIGNATURE, 0, SIGNATURE.length);
+
+        int chunk = beginChunk("IHDR", 13);
+        writeInt(width);
+        writeInt(height);
+        writeByte(8); // 8 bit per kanal
+        writeByte(2); // RGB
+        writeByte(0); // deflate
+        writeByte(0); // filter adaptif per baris
+        writeByte(0); // tidak interlace
+        endChunk(chunk);
+
+        chunk = beginChunk("IDAT", dataLength);
+        writeByte(0x78); // zlib: deflate, jendela 32K
+        writeByte(0x01); // kompresi tercepat, tanpa kamus
+        for (int band = 0; band < bands.length; band++) writeBytes(bands[band], 0, bandLengths[band]);
+        writeBytes(FINAL_EMPTY_BLOCK, 0, FINAL_EMPTY_BLOCK.length);
+        writeInt((int) checksum);
+        endChunk(chunk);
+
+        endChunk(beginChunk("IEND", 0));
+        return Arrays.copyOf(out, length);
+    }
+
+    private void compressBand(int band, int[] pixels, int y0, int y1) {
+        int position = 0;
+        for (int y = y0; y < y1; y++) {
+            raw[position++] = 2; // filter Up
+            int row = y * width;
+            int above = row - width;
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels[row + x];
+                int up = y > 0 ? pixels[above + x] : 0;
+                raw[position++] = (byte) ((pixel >>> 16) - (up >>> 16));
+                raw[position++] = (byte) ((pixel >>> 8) - (up >>> 8));
+                raw[position++] = (byte) (pixel - up);
+            }
+        }
+        adler.reset();
+        adler.update(raw, 0, position);
+        bandAdlers[band] = (int) adler.getValue();
+        bandRawLengths[band] = position;
+
+        deflater.reset();
+        deflater.setInput(raw, 0, position);
+        byte[] target = bands[band];
+        int written = 0;
+        while (true) {
+            written += deflater.deflate(target, written, target.length - written, Deflater.FULL_FLUSH);
+            if (written < target.length) break;
+            target = Arrays.copyOf(target, target.length * 2);
+        }
+        bands[band] = target;
+        bandLengths[band] = written;
+    }
+
+    /** Adler-32 dari gabungan dua data, dari checksum masing-masing (seperti adler32_combine zlib). */
+    private static long combineAdler(long first, int second, int secondLength) {
+        long rem = secondLength % ADLER_BASE;
+        long sum1 = first & 0xFFFF;
+        long sum2 = rem * sum1 % ADLER_BASE;
+        sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((first >>> 16) & 0xFFFF) + ((second >>> 16) & 0xFFFF) + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= 2L * ADLER_BASE) sum2 -= 2L * ADLER_BASE;
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return sum2 << 16 | sum1;
+    }
+
+    // =================================================================================
+    // Chunk PNG
+    // =================================================================================
+
+    /** Menulis panjang dan tipe chunk; mengembalikan posisi awal tipe untuk CRC. */
+    private int beginChunk(String type, int dataLength) {
+        writeInt(dataLength);
+        int start = length;
+        for (int i = 0; i < 4; i++) writeByte(type.charAt(i));
+        return start;
+    }
+
+    private void endChunk(int start) {
+        crc.reset();
+        crc.update(out, start, length - start);
+        writeInt((int) crc.getValue());
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (out.length < capacity) out = new byte[capacity];
+    }
+
+    private void writeInt(int value) {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    private void writeByte(int value) {
+        out[length++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] source, int from, int count) {
+        System.arraycopy(source, from, out, length, count);
+        length += count;
+    }
+}
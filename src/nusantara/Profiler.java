@@ -0,0 +1,278 @@
+package nusantara;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Profiler.java
+ *
+ * Instrumentasi bawaan: durasi per fase (tick, updateGame, checkCollision, tiap draw*),
+ * latensi masukan (tekan tombol sampai diterapkan di awal tick),
+ * alokasi byte per tick dan per frame, frame yang terlewat, dan event JFR per tick/frame.
+ *
+ * Aktif hanya dengan -Dnusantara.profile=true. ENABLED adalah static final, jadi saat
+ * nonaktif JIT membuang seluruh cabang pengukuran dan start()/end() tidak memanggil
+ * System.nanoTime sama sekali; aman dibiarkan terkompilasi di build produksi.
+ * Event JFR (nusantara.Tick, nusantara.Frame, nusantara.Input) tidak bergantung pada flag ini dan hanya
+ * tercatat saat rekaman JFR berjalan, mis. java -XX:StartFlightRecording=...
+ * Tanpa rekaman sejak JVM mulai, kelas event dimuat di thread latar setelah frame pertama
+ * (loadJfrEventsInBackground()) dan baru dipakai setelah itu, karena memuatnya pertama kali
+ * menyalakan mesin JFR (~300 ms).
+ * Objek event hanya dibuat selama tipe event-nya menyala (EventType.isEnabled()), jadi tanpa
+ * rekaman tick dan frame tidak mengalokasikan apa pun.
+ *
+ * Histogram tidak thread-safe, jadi setiap fase hanya direkam dari satu thread: fase simulasi
+ * dari thread yang didaftarkan lewat bindSimulationThread(), fase paint/draw/present dari
+ * thread bindRenderThread(). Pemanggilan dari thread lain (sesi GameServer, worker
+ * ReplayExporter, benchmark) diabaikan, karena overlay [F3] yang membacanya tanpa kunci hanya
+ * menampilkan game di jendela ini.
+ */
+final class Profiler {
+
+    static final boolean ENABLED = Boolean.getBoolean("nusantara.profile");
+
+    // =================================================================================
+    // Fase
+    // =================================================================================
+    static final int TICK = 0;
+    static final int UPDATE_GAME = 1;
+    static final int CHECK_COLLISION = 2;
+    static final int PUBLISH = 3;
+    static final int PAINT = 4;
+    static final int DRAW_CITY = 5;
+    static final int DRAW_TOWER = 6;
+    static final int DRAW_CRANE = 7;
+    static final int DRAW_UI = 8;
+    static final int DRAW_MENU = 9;
+    static final int PRESENT = 10;
+    /** Bukan durasi kerja, melainkan jeda dari tekan tombol sampai perintahnya diterapkan sim. */
+    static final int INPUT = 11;
+    /** Mengambil GameSnapshot untuk autosave di thread game (penulisan ke disk tidak termasuk). */
+    static final int SNAPSHOT = 12;
+    static final int PHASE_COUNT = 13;
+
+    static final String[] PHASE_NAMES = {
+            "tick", "updateGame", "checkCollision", "publish", "paint",
+            "drawCity", "drawTower", "drawCrane", "drawUI", "drawMenu", "present", "input->tick",
+            "snapshot"
+    };
+
+    private static final LatencyHistogram[] PHASES = new LatencyHistogram[ENABLED ? PHASE_COUNT : 0];
+    private static final LatencyHistogram TICK_ALLOCATION = ENABLED ? new LatencyHistogram() : null;
+    private static final LatencyHistogram FRAME_ALLOCATION = ENABLED ? new LatencyHistogram() : null;
+    private static final com.sun.management.ThreadMXBean THREADS = threadBeanOrNull();
+    private static final AtomicLong droppedFrames = new AtomicLong();
+    private static final AtomicLong skippedFrames = new AtomicLong();
+    private static final AtomicLong paintedFrames = new AtomicLong();
+    private static final AtomicLong parkedNanos = new AtomicLong();
+    private static final com.sun.management.OperatingSystemMXBean SYSTEM = systemBeanOrNull();
+    private static volatile boolean overlayVisible = false;
+    private static volatile Thread simulationThread;
+    private static volatile Thread renderThread;
+
+    static {
+        for (int i = 0; i < PHASES.length; i++) PHASES[i] = new LatencyHistogram();
+    }
+
+    private Profiler() {}
+
+    private static com.sun.management.ThreadMXBean threadBeanOrNull() {
+        if (!ENABLED) return null;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    private static com.sun.management.OperatingSystemMXBean systemBeanOrNull() {
+        if (!ENABLED) return null;
+        java.lang.management.OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        return bean instanceof com.sun.management.OperatingSystemMXBean
+                ? (com.sun.management.OperatingSystemMXBean) bean : null;
+    }
+
+    // =================================================================================
+    // Pengukuran
+    // =================================================================================
+
+    /** Thread yang boleh merekam fase simulasi (tick, updateGame, checkCollision, publish, input, snapshot). */
+    static void bindSimulationThread(Thread thread) {
+        if (ENABLED) simulationThread = thread;
+    }
+
+    /** Thread yang boleh merekam fase paint, draw* dan present (thread loop atau EDT, tergantung jalur render). */
+    static void bindRenderThread(Thread thread) {
+        if (ENABLED && renderThread != thread) renderThread = thread;
+    }
+
+    private static boolean isRenderPhase(int phase) {
+        return phase >= PAINT && phase <= PRESENT;
+    }
+
+    /** Awal sebuah fase; 0 jika profiler nonaktif. */
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    static void end(int phase, long start) {
+        if (!ENABLED) return;
+        Thread owner = isRenderPhase(phase) ? renderThread : simulationThread;
+        if (Thread.currentThread() == owner) PHASES[phase].record(System.nanoTime() - start);
+    }
+
+    /** Byte yang sudah dialokasikan thread ini; 0 jika profiler nonaktif atau JVM tidak mendukung. */
+    static long allocatedBytes() {
+        return ENABLED && THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    static void endTickAllocation(long startBytes) {
+        if (ENABLED && THREADS != null && Thread.currentThread() == simulationThread) {
+            TICK_ALLOCATION.record(THREADS.getCurrentThreadAllocatedBytes() - startBytes);
+        }
+    }
+
+    static void endFrameAllocation(long startBytes) {
+        if (ENABLED && Thread.currentThread() == renderThread) {
+            paintedFrames.incrementAndGet();
+            if (THREADS != null) FRAME_ALLOCATION.record(THREADS.getCurrentThreadAllocatedBytes() - startBytes);
+        }
+    }
+
+    /** Frame yang tidak sempat dibuat karena loop terlambat lebih dari satu frame. */
+    static void countDroppedFrames(long frames) {
+        if (ENABLED) droppedFrames.addAndGet(frames);
+    }
+
+    /** Waktu loop terparkir karena layar diam (lihat GameLoop.Listener.idleNanos). */
+    static void countParked(long nanos) {
+        if (ENABLED) parkedNanos.addAndGet(nanos);
+    }
+
+    /** Snapshot yang diterbitkan tetapi tertimpa sebelum sempat digambar. */
+    static void countSkippedFrame() {
+        if (ENABLED) skippedFrames.incrementAndGet();
+    }
+
+    // =================================================================================
+    // Akses untuk Overlay
+    // =================================================================================
+    static boolean isOverlayVisible() { return overlayVisible; }
+
+    static void toggleOverlay() { overlayVisible = !overlayVisible; }
+
+    static LatencyHistogram phase(int phase) { return PHASES[phase]; }
+    static LatencyHistogram tickAllocation() { return TICK_ALLOCATION; }
+    static LatencyHistogram frameAllocation() { return FRAME_ALLOCATION; }
+    static boolean isAllocationSupported() { return THREADS != null; }
+    static long droppedFrames() { return droppedFrames.get(); }
+    static long skippedFrames() { return skippedFrames.get(); }
+    static long paintedFrames() { return paintedFrames.get(); }
+    static long parkedNanos() { return parkedNanos.get(); }
+
+    /** Waktu CPU seluruh proses (nano, semua thread); -1 jika profiler nonaktif atau JVM tidak mendukung. */
+    static long processCpuNanos() {
+        return SYSTEM != null ? SYSTEM.getProcessCpuTime() : -1;
+    }
+
+    // =================================================================================
+    // Event JFR
+    // =================================================================================
+
+    // Tipe event diisi setelah kelasnya dimuat; isEnabled() bernilai false selama tidak ada
+    // rekaman yang menyalakannya, sehingga loop tidak membuat objek event sama sekali
+    private static volatile EventType tickEventType;
+    private static volatile EventType frameEventType;
+    private static volatile EventType inputEventType;
+    private static final AtomicBoolean jfrLoading = new AtomicBoolean(false);
+
+    static {
+        // Dengan -XX:StartFlightRecording mesin JFR sudah menyala saat main dimulai dan event langsung aman dipakai
+        if (FlightRecorder.isInitialized()) loadEventTypes();
+    }
+
+    private static void loadEventTypes() {
+        frameEventType = EventType.getEventType(FrameEvent.class);
+        inputEventType = EventType.getEventType(InputEvent.class);
+        tickEventType = EventType.getEventType(TickEvent.class);
+    }
+
+    /** true jika event JFR boleh dibuat tanpa menunda thread pemanggil. */
+    static boolean jfrEventsLoaded() { return tickEventType != null; }
+
+    /** true jika TickEvent sedang direkam; hanya saat itu GameLoop membuat event per tick. */
+    static boolean tickEventsEnabled() { return isEnabled(tickEventType); }
+
+    /** true jika FrameEvent sedang direkam. */
+    static boolean frameEventsEnabled() { return isEnabled(frameEventType); }
+
+    /** true jika InputEvent sedang direkam. */
+    static boolean inputEventsEnabled() { return isEnabled(inputEventType); }
+
+    private static boolean isEnabled(EventType type) {
+        return type != null && type.isEnabled();
+    }
+
+    /** Memuat kelas event di thread latar (sekali saja); sampai selesai, event tidak dibuat. */
+    static void loadJfrEventsInBackground() {
+        if (jfrEventsLoaded() || !jfrLoading.compareAndSet(false, true)) return;
+        Thread loader = new Thread(Profiler::loadEventTypes, "JFR-Events-Load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @Name("nusantara.Tick")
+    @Label("Tick Simulasi")
+    @Category("NusantaraTower")
+    @Description("Satu langkah simulasi tetap dari GameLoop")
+    static final class TickEvent extends Event {
+        @Label("Nomor Tick")
+        long tick;
+    }
+
+    @Name("nusantara.Frame")
+    @Label("Frame")
+    @Category("NusantaraTower")
+    @Description("Satu frame render dari GameLoop (terbitkan snapshot, gambar, tampilkan)")
+    static final class FrameEvent extends Event {
+        @Label("Nomor Frame")
+        long frame;
+
+        @Label("Alpha Interpolasi")
+        double alpha;
+
+        @Label("Tick Dijalankan")
+        int ticks;
+    }
+
+    @Name("nusantara.Input")
+    @Label("Masukan Pemain")
+    @Category("NusantaraTower")
+    @Description("Satu perintah pemain yang diterapkan ke simulasi")
+    static final class InputEvent extends Event {
+        @Label("Perintah")
+        int command;
+
+        @Label("Latensi Masukan")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+
+        @Label("Argumen")
+        @Description("Offset jatuh (1/127 tick) untuk CMD_DROP, indeks petak untuk CMD_SELECT_PLOT")
+        int argument;
+    }
+}
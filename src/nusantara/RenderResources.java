@@ -0,0 +1,76 @@
+package nusantara;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Sumber daya gambar yang tidak berubah (font dan warna), dibuat sekali saja.
+ * Sebelumnya setiap frame membuat Font dan Color baru, serta memanggil darker()
+ * untuk setiap balok, sehingga menghasilkan sampah terus-menerus pada 60 FPS.
+ */
+final class RenderResources {
+
+    private RenderResources() {}
+
+    // Font
+    static final Font FONT_TITLE = new Font("Arial", Font.BOLD, 48);
+    static final Font FONT_LARGE = new Font("Arial", Font.BOLD, 24);
+    static final Font FONT_MEDIUM = new Font("Arial", Font.BOLD, 18);
+    static final Font FONT_MENU = new Font("Arial", Font.PLAIN, 16);
+    static final Font FONT_SMALL = new Font("Arial", Font.PLAIN, 14);
+    static final Font FONT_DEBUG = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    // Warna latar dan lapisan
+    static final Color SKY = new Color(135, 206, 235);
+    static final Color CITY_BACKGROUND = new Color(100, 150, 100);
+    static final Color CITY_EMPTY_PLOT = new Color(80, 130, 80);
+    static final Color END_SCREEN_OVERLAY = new Color(0, 0, 0, 150);
+    static final Color MENU_OVERLAY = new Color(0, 0, 0, 200);
+
+    // Warna tiap BlockType (diindeks dengan ordinal()) beserta versi gelapnya untuk balok di menara
+    private static final Color[] BLOCK_COLORS = {
+            new Color(220, 100, 100), // PERUMAHAN
+            new Color(100, 100, 220), // BISNIS
+            new Color(100, 220, 100)  // TAMAN
+    };
+    private static final Color[] BLOCK_COLORS_DARK = new Color[BLOCK_COLORS.length];
+    static {
+        for (int i = 0; i < BLOCK_COLORS.length; i++) {
+            BLOCK_COLORS_DARK[i] = BLOCK_COLORS[i].darker();
+        }
+    }
+
+    static Color colorOf(BlockType type) {
+        return BLOCK_COLORS[type.ordinal()];
+    }
+
+    static Color darkColorOf(BlockType type) {
+        return BLOCK_COLORS_DARK[type.ordinal()];
+    }
+
+    /**
+     * Memuat file font, cache glyph dan loop gambar Java2D dengan menggambar teks di setiap
+     * font ke gambar kecil. Pemanggilan pertama drawString memakan ratusan milidetik; dijalankan
+     * di thread latar selama jendela dibuat, frame pertama dan menu pertama tidak lagi menunggunya.
+     */
+    static void warmUp() {
+        BufferedImage scratch = new BufferedImage(64, 16, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scratch.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (Font font : new Font[] { FONT_TITLE, FONT_LARGE, FONT_MEDIUM, FONT_MENU, FONT_SMALL, FONT_DEBUG }) {
+                g.setFont(font);
+                g.setColor(SKY);
+                g.drawString("Skor: 0123456789 [ENTER] Menara", 0, 12);
+                g.getFontMetrics().stringWidth("MENARA SELESAI!");
+            }
+            g.setColor(END_SCREEN_OVERLAY);
+            g.fillRect(0, 0, 64, 16);
+            g.setColor(BLOCK_COLORS[0]);
+            g.fillOval(0, 0, 8, 8);
+            g.drawLine(0, 0, 16, 12);
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package nusantara;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Replay.java
+ *
+ * Rekaman satu game dalam format biner ringkas. Karena simulasi deterministik
+ * (GameRandom + tick tetap), yang perlu disimpan hanya state RNG di awal game dan
+ * perintah pemain beserta tick-nya; ReplayPlayer memainkan ulang sisanya.
+ *
+ * Format (big-endian):
+ *   int   MAGIC "NTRP"
+ *   byte  versi format
+ *   byte  flag (bit 0: mode tanpa batas, bit 1: game selesai sampai GAME_OVER, bit 2: mode pilih petak)
+ *   long  seed (state GameRandom saat game dimulai)
+ *   varint lebar kota, varint tinggi kota (sejak versi 4; sebelumnya selalu 5x4)
+ *   varint total tick, varint skor akhir, varint jumlah event
+ *   per event: varint selisih tick dari event sebelumnya (atau dari awal game), byte perintah CMD_*,
+ *              lalu argumennya: CMD_DROP satu byte bertanda offset sub-tick (sejak versi 2;
+ *              versi 1 dianggap 0), CMD_SELECT_PLOT varint indeks petak (sejak versi 3)
+ *
+ * Varint memakai 7 bit per byte (LEB128), jadi satu tekan tombol biasanya hanya 2-3 byte.
+ * Kota selalu persegi panjang penuh dan paling banyak MAX_CITY_CELLS sel; game di peta yang
+ * tidak persegi panjang (CityGrid.parse) atau lebih besar dari itu tidak direkam.
+ */
+final class Replay {
+
+    static final int MAGIC = 0x4E545250; // "NTRP"
+    static final int FORMAT_VERSION = 4;
+    static final String FILE_EXTENSION = ".ntr";
+    /**
+     * Kota terbesar yang bisa direkam dan diputar ulang (target kota besar 1000x1000, sekitar
+     * 25 MB). Header yang meminta lebih dari ini ditolak sebelum kota dialokasikan, supaya satu
+     * file palsu tidak menghabiskan memori verifikasi massal.
+     */
+    static final int MAX_CITY_CELLS = 1000 * 1000;
+
+    private static final int FLAG_ENDLESS = 1;
+    private static final int FLAG_FINISHED = 2;
+    private static final int FLAG_CHOOSE_PLOTS = 4;
+
+    private final byte[] data;
+    private final long seed;
+    private final int cityWidth;
+    private final int cityHeight;
+    private final boolean endless;
+    private final boolean finished;
+    private final boolean choosePlots;
+    private final long totalTicks;
+    private final long finalScore;
+    private final int eventCount;
+    private final int eventsOffset;
+    private final int formatVersion;
+
+    private Replay(byte[] data) throws IOException {
+        this.data = data;
+        if (data.length < 14 || readInt(data, 0) != MAGIC) throw new IOException("Bukan file replay NusantaraTower");
+        formatVersion = data[4];
+        if (formatVersion < 1 || formatVersion > FORMAT_VERSION) throw new IOException("Versi replay tidak didukung: " + formatVersion);
+        int flags = data[5];
+        endless = (flags & FLAG_ENDLESS) != 0;
+        finished = (flags & FLAG_FINISHED) != 0;
+        choosePlots = (flags & FLAG_CHOOSE_PLOTS) != 0;
+        seed = ((long) readInt(data, 6) << 32) | (readInt(data, 10) & 0xFFFFFFFFL);
+        Reader header = new Reader(data, 14);
+        if (formatVersion >= 4) {
+            long width = header.varLong();
+            long height = header.varLong();
+            // Setiap sisi diperiksa dulu agar perkaliannya tidak meluap
+            if (width < 1 || height < 1 || width > MAX_CITY_CELLS || height > MAX_CITY_CELLS
+                    || width * height > MAX_CITY_CELLS) {
+                throw new IOException("Ukuran kota replay tidak didukung: " + Long.toUnsignedString(width) + "x"
+                        + Long.toUnsignedString(height));
+            }
+            cityWidth = (int) width;
+            cityHeight = (int) height;
+        } else {
+            cityWidth = TowerSimulation.CITY_GRID_WIDTH;
+            cityHeight = TowerSimulation.CITY_GRID_HEIGHT;
+        }
+        totalTicks = header.varLong();
+        finalScore = header.varLong();
+        eventCount = (int) header.varLong();
+        eventsOffset = header.pos;
+    }
+
+    /** Membaca replay dari byte mentah; melempar IOException jika header rusak. */
+    static Replay fromBytes(byte[] data) throws IOException {
+        try {
+            return new Replay(data);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Replay terpotong", e);
+        }
+    }
+
+    static Replay read(Path file) throws IOException {
+        return fromBytes(Files.readAllBytes(file));
+    }
+
+    void write(Path file) throws IOException {
+        Files.write(file, data);
+    }
+
+    /** Lokasi bawaan: ~/.nusantaratower/replays, bisa diganti dengan -Dnusantara.replayDir=path. */
+    static Path defaultDirectory() {
+        String configured = System.getProperty("nusantara.replayDir");
+        if (configured != null) return Path.of(configured);
+        return Path.of(System.getProperty("user.home"), ".nusantaratower", "replays");
+    }
+
+    /** Menyusun file replay dari event yang sudah di-encode oleh ReplayRecorder. */
+    static Replay encode(long seed, int cityWidth, int cityHeight, boolean endless, boolean choosePlots, boolean finished,
+                         long totalTicks, long finalScore, int eventCount, byte[] events, int eventsLength) {
+        byte[] out = new byte[14 + 5 * 10 + eventsLength];
+        writeInt(out, 0, MAGIC);
+        out[4] = FORMAT_VERSION;
+        out[5] = (byte) ((endless ? FLAG_ENDLESS : 0) | (finished ? FLAG_FINISHED : 0)
+                | (choosePlots ? FLAG_CHOOSE_PLOTS : 0));
+        writeInt(out, 6, (int) (seed >>> 32));
+        writeInt(out, 10, (int) seed);
+        int pos = 14;
+        pos = putVarLong(out, pos, cityWidth);
+        pos = putVarLong(out, pos, cityHeight);
+        pos = putVarLong(out, pos, totalTicks);
+        pos = putVarLong(out, pos, finalScore);
+        pos = putVarLong(out, pos, eventCount);
+        System.arraycopy(events, 0, out, pos, eventsLength);
+        try {
+            return new Replay(Arrays.copyOf(out, pos + eventsLength));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // header yang baru ditulis selalu valid
+        }
+    }
+
+    long getSeed() { return seed; }
+    int getCityWidth() { return cityWidth; }
+    int getCityHeight() { return cityHeight; }
+    boolean isEndless() { return endless; }
+    boolean isChoosePlots() { return choosePlots; }
+    /** true jika rekaman berakhir di GAME_OVER; false untuk cuplikan game yang belum selesai. */
+    boolean isFinished() { return finished; }
+    long getTotalTicks() { return totalTicks; }
+    long getFinalScore() { return finalScore; }
+    int getEventCount() { return eventCount; }
+    int sizeInBytes() { return data.length; }
+    int getFormatVersion() { return formatVersion; }
+
+    /** Salinan isi file replay (header + event). */
+    byte[] toByteArray() { return data.clone(); }
+
+    /** Salinan bagian event saja, dalam encoding yang sama dengan ReplayRecorder. */
+    byte[] eventBytes() { return Arrays.copyOfRange(data, eventsOffset, data.length); }
+
+    /** Pembaca event dari awal; satu instance untuk satu kali pemutaran. */
+    Events events() {
+        return new Events(data, eventsOffset, eventCount, formatVersion);
+    }
+
+    static final class Events {
+        private final Reader reader;
+        private final int formatVersion;
+        private int remaining;
+        private long tickDelta;
+        private int command;
+        private int argument;
+
+        private Events(byte[] data, int offset, int count, int formatVersion) {
+            reader = new Reader(data, offset);
+            remaining = count;
+            this.formatVersion = formatVersion;
+        }
+
+        /** Maju ke event berikutnya; false jika sudah habis. */
+        boolean next() {
+            if (remaining == 0) return false;
+            remaining--;
+            tickDelta = reader.varLong();
+            command = reader.data[reader.pos++];
+            argument = 0;
+            if (command == TowerSimulation.CMD_DROP && formatVersion >= 2) {
+                argument = reader.data[reader.pos++];
+            } else if (command == TowerSimulation.CMD_SELECT_PLOT && formatVersion >= 3) {
+                argument = (int) reader.varLong();
+            }
+            return true;
+        }
+
+        long tickDelta() { return tickDelta; }
+        int command() { return command; }
+        /** Lihat TowerSimulation.handleInput(command, argument). */
+        int argument() { return argument; }
+    }
+
+    // =================================================================================
+    // Encoding
+    // =================================================================================
+
+    /** Menulis v (tidak negatif) sebagai varint; mengembalikan posisi setelahnya. out harus cukup (maks. 10 byte). */
+    static int putVarLong(byte[] out, int pos, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out[pos++] = (byte) v;
+        return pos;
+    }
+
+    private static final class Reader {
+        final byte[] data;
+        int pos;
+
+        Reader(byte[] data, int pos) { this.data = data; this.pos = pos; }
+
+        long varLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IllegalStateException("Varint terlalu panjang");
+        }
+    }
+
+    private static int readInt(byte[] b, int pos) {
+        return (b[pos] & 0xFF) << 24 | (b[pos + 1] & 0xFF) << 16 | (b[pos + 2] & 0xFF) << 8 | (b[pos + 3] & 0xFF);
+    }
+
+    private static void writeInt(byte[] b, int pos, int v) {
+        b[pos] = (byte) (v >>> 24);
+        b[pos + 1] = (byte) (v >>> 16);
+        b[pos + 2] = (byte) (v >>> 8);
+        b[pos + 3] = (byte) v;
+    }
+}
@@ -0,0 +1,359 @@
+package nusantara;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReplayExporter.java
+ *
+ * Mengekspor Replay menjadi deretan PNG atau GIF animasi, tanpa jendela dan tanpa menunggu
+ * 60 Hz. Pipeline-nya tiga tahap:
+ * 1. Thread simulasi memainkan ulang replay tick demi tick (seperti ReplayPlayer) dan setiap
+ *    60 / fps tick mengisi FrameSnapshot dari pool terbatas.
+ * 2. Thread pekerja menggambar snapshot itu dengan TowerRenderer miliknya sendiri ke
+ *    BufferedImage miliknya sendiri, lalu langsung mengodekannya (PngEncoder, atau blok
+ *    GIF dari GifWriter.FrameEncoder).
+ * 3. Thread pemanggil menulis hasilnya sesuai urutan frame. Antrean hasil terbatas, jadi
+ *    simulasi berhenti menunggu jika pekerja atau penulis tertinggal dan memori tetap kecil.
+ *
+ * DirtyRegion (sama seperti layar hidup) menentukan bagian yang berubah dari frame sebelumnya:
+ * frame tanpa perubahan tidak digambar sama sekali (PNG memakai ulang byte frame sebelumnya,
+ * GIF memperpanjang lama tampil frame sebelumnya), dan GIF hanya menggambar serta menyimpan
+ * kotak yang berubah.
+ *
+ * Saran planner pada mode pilih petak tidak ikut digambar: planner dibatasi waktu, jadi
+ * hasilnya tidak tercatat di replay dan tidak bisa direproduksi persis.
+ *
+ * Penggunaan:
+ *   java ReplayExporter <file.ntr> <direktori|file.gif> [--fps n] [--scale s] [--threads n]
+ *
+ * Tujuan yang berakhiran .gif menghasilkan GIF animasi; selain itu direktori berisi
+ * frame-000000.png, frame-000001.png, dst.
+ */
+public final class ReplayExporter {
+
+    static final int WIDTH = TowerSimulation.PLAYFIELD_WIDTH;
+    static final int HEIGHT = TowerSimulation.PLAYFIELD_HEIGHT;
+    private static final int TICKS_PER_SECOND = 60;
+    // Frame terakhir GIF ditahan sebelum animasinya mengulang dari awal
+    private static final int GIF_END_HOLD_CENTIS = 300;
+
+    private final Replay replay;
+    private final int ticksPerFrame;
+    private final double scale;
+    private final int threads;
+    private final boolean gif;
+    private final GifWriter.Palette palette;
+    private final int imageWidth, imageHeight;
+
+    ReplayExporter(Replay replay, int fps, double scale, int threads, boolean gif) {
+        if (fps <= 0 || TICKS_PER_SECOND % fps != 0) {
+            throw new IllegalArgumentException("fps harus pembagi " + TICKS_PER_SECOND + ": " + fps);
+        }
+        if (scale <= 0 || scale > 4) throw new IllegalArgumentException("scale harus di (0, 4]: " + scale);
+        this.replay = replay;
+        this.ticksPerFrame = TICKS_PER_SECOND / fps;
+        this.scale = scale;
+        this.threads = Math.max(1, threads);
+        this.gif = gif;
+        this.palette = gif ? gamePalette() : null;
+        this.imageWidth = (int) Math.round(WIDTH * scale);
+        this.imageHeight = (int) Math.round(HEIGHT * scale);
+    }
+
+    static final class ExportStats {
+        long frames = 0;
+        long renderedFrames = 0;
+        long bytes = 0;
+        long finalScore;
+        GameState finalState;
+    }
+
+    /** Satu frame yang sudah dikodekan; data null berarti sama persis dengan frame sebelumnya. */
+    private static final class Encoded {
+        final long tick;
+        final byte[] data;
+
+        Encoded(long tick, byte[] data) { this.tick = tick; this.data = data; }
+    }
+
+    // Penanda akhir di antrean hasil; tick-nya diisi lewat endTick
+    private static final Encoded END = new Encoded(-1, null);
+
+    // =================================================================================
+    // Pipeline
+    // =================================================================================
+
+    /** Mengekspor ke target (direktori PNG atau file GIF) dan mengembalikan statistiknya. */
+    ExportStats export(Path target) throws IOException {
+        int window = 2 * threads;
+        BlockingQueue<Future<Encoded>> pending = new ArrayBlockingQueue<>(window);
+        // Snapshot yang sedang dipakai: paling banyak satu per frame di antrean, satu yang
+        // diambil penulis, dan satu yang sedang diisi simulasi
+        BlockingQueue<FrameSnapshot> snapshots = new ArrayBlockingQueue<>(window + 2);
+        for (int i = 0; i < window + 2; i++) snapshots.add(new FrameSnapshot());
+        BlockingQueue<Worker> workers = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) workers.add(new Worker());
+
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "Export-Render-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExportStats stats = new ExportStats();
+        long[] endTick = new long[1];
+        Thread simulation = new Thread(() -> {
+            try {
+                simulate(pending, snapshots, workers, pool, stats, endTick);
+            } catch (InterruptedException e) {
+                // Penulis gagal dan membatalkan ekspor
+            } catch (RuntimeException e) {
+                // Frame yang masih antre tidak ditulis lagi; penulis langsung melihat kegagalannya
+                pending.clear();
+                pending.offer(CompletableFuture.failedFuture(e));
+            }
+        }, "Export-Simulation");
+        simulation.setDaemon(true);
+        simulation.start();
+
+        try {
+            if (gif) {
+                writeGif(target, pending, stats, endTick);
+            } else {
+                writePngs(target, pending, stats);
+            }
+            simulation.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("ekspor dibatalkan");
+        } finally {
+            simulation.interrupt();
+            pool.shutdownNow();
+        }
+        return stats;
+    }
+
+    /** Tahap 1: memainkan ulang replay dan mengirim frame ke pekerja sesuai urutan. */
+    private void simulate(BlockingQueue<Future<Encoded>> pending, BlockingQueue<FrameSnapshot> snapshots,
+                          BlockingQueue<Worker> workers, ExecutorService pool, ExportStats stats,
+                          long[] endTick) throws InterruptedException {
+        TowerSimulation sim = TowerSimulation.forReplay(replay);
+        DirtyRegion damage = new DirtyRegion();
+        Replay.Events events = replay.events();
+        long end = replay.getTotalTicks();
+        long eventTick = events.next() ? events.tickDelta() : Long.MAX_VALUE;
+        for (long tick = 0; ; tick++) {
+            while (eventTick == tick) {
+                sim.handleInput(events.command(), events.argument());
+                eventTick = events.next() ? tick + events.tickDelta() : Long.MAX_VALUE;
+            }
+            if (tick % ticksPerFrame == 0 || tick == end) {
+                FrameSnapshot frame = snapshots.take();
+                // alpha 1: frame menunjukkan state persis pada tick ini, tanpa interpolasi
+                frame.capture(sim, null, HEIGHT, 1.0);
+                if (!damage.update(frame, WIDTH, HEIGHT, false)) {
+                    snapshots.put(frame);
+                    pending.put(CompletableFuture.completedFuture(new Encoded(tick, null)));
+                } else {
+                    long frameTick = tick;
+                    int x = damage.x(), y = damage.y(), width = damage.width(), height = damage.height();
+                    pending.put(pool.submit(() -> {
+                        Worker worker = workers.take();
+                        try {
+                            return new Encoded(frameTick, worker.draw(frame, snapshots, x, y, width, height));
+                        } finally {
+                            workers.put(worker);
+                        }
+                    }));
+                }
+            }
+            if (tick >= end) break;
+            sim.tick();
+        }
+        stats.finalScore = sim.getCurrentScore();
+        stats.finalState = sim.getGameState();
+        endTick[0] = end;
+        pending.put(CompletableFuture.completedFuture(END));
+    }
+
+    /** Tahap 3 (PNG): setiap frame menjadi satu file, frame tanpa perubahan memakai byte sebelumnya. */
+    private void writePngs(Path directory, BlockingQueue<Future<Encoded>> pending, ExportStats stats)
+            throws IOException, InterruptedException {
+        Files.createDirectories(directory);
+        byte[] previous = null;
+        for (Encoded frame; (frame = next(pending)) != END; ) {
+            if (frame.data != null) {
+                previous = frame.data;
+                stats.renderedFrames++;
+            }
+            Files.write(directory.resolve(String.format("frame-%06d.png", stats.frames++)), previous);
+            stats.bytes += previous.length;
+        }
+    }
+
+    /**
+     * Tahap 3 (GIF): blok disimpan satu frame lebih lama, karena lama tampilnya baru diketahui
+     * saat frame berubah berikutnya tiba (frame tanpa perubahan tidak ditulis).
+     */
+    private void writeGif(Path file, BlockingQueue<Future<Encoded>> pending, ExportStats stats, long[] endTick)
+            throws IOException, InterruptedException {
+        try (GifWriter writer = new GifWriter(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16),
+                imageWidth, imageHeight, palette)) {
+            Encoded held = null;
+            for (Encoded frame; (frame = next(pending)) != END; ) {
+                stats.frames++;
+                if (frame.data == null) continue;
+                if (held != null) writer.writeFrame(held.data, centis(frame.tick) - centis(held.tick));
+                held = frame;
+                stats.renderedFrames++;
+                stats.bytes += frame.data.length;
+            }
+            if (held != null) writer.writeFrame(held.data, centis(endTick[0]) - centis(held.tick) + GIF_END_HOLD_CENTIS);
+        }
+        stats.bytes = Files.size(file);
+    }
+
+    private static Encoded next(BlockingQueue<Future<Encoded>> pending) throws IOException, InterruptedException {
+        try {
+            return pending.take().get();
+        } catch (ExecutionException e) {
+            throw new IOException("gagal mengekspor frame", e.getCause());
+        }
+    }
+
+    private static int centis(long tick) {
+        return (int) Math.round(tick * 100.0 / TICKS_PER_SECOND);
+    }
+
+    /** Warna yang digambar renderer (juga di bawah overlay layar akhir dan menu) agar tetap tepat di GIF. */
+    private static GifWriter.Palette gamePalette() {
+        Color[] base = {
+                RenderResources.SKY, RenderResources.CITY_BACKGROUND, RenderResources.CITY_EMPTY_PLOT,
+                RenderResources.colorOf(BlockType.PERUMAHAN), RenderResources.colorOf(BlockType.BISNIS),
+                RenderResources.colorOf(BlockType.TAMAN), RenderResources.darkColorOf(BlockType.PERUMAHAN),
+                RenderResources.darkColorOf(BlockType.BISNIS), RenderResources.darkColorOf(BlockType.TAMAN),
+                Color.WHITE, Color.BLACK, Color.GRAY, Color.DARK_GRAY, Color.YELLOW, Color.ORANGE, Color.RED, Color.GREEN
+        };
+        Color[] colors = new Color[base.length * 3];
+        for (int i = 0; i < base.length; i++) {
+            colors[i] = base[i];
+            colors[base.length + i] = under(RenderResources.END_SCREEN_OVERLAY, base[i]);
+            colors[2 * base.length + i] = under(RenderResources.MENU_OVERLAY, base[i]);
+        }
+        return new GifWriter.Palette(colors);
+    }
+
+    private static Color under(Color overlay, Color color) {
+        double a = overlay.getAlpha() / 255.0;
+        return new Color((int) Math.round(color.getRed() * (1 - a) + overlay.getRed() * a),
+                (int) Math.round(color.getGreen() * (1 - a) + overlay.getGreen() * a),
+                (int) Math.round(color.getBlue() * (1 - a) + overlay.getBlue() * a));
+    }
+
+    // =================================================================================
+    // Pekerja (Tahap 2)
+    // =================================================================================
+
+    /** Renderer, gambar, dan encoder milik satu pekerja; dipinjam dari pool selama satu frame. */
+    private final class Worker {
+        private final TowerRenderer renderer = new TowerRenderer();
+        private final BufferedImage image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+        private final GifWriter.FrameEncoder gifEncoder;
+        private final PngEncoder pngEncoder;
+
+        Worker() {
+            gifEncoder = gif ? new GifWriter.FrameEncoder(palette) : null;
+            pngEncoder = gif ? null : new PngEncoder(imageWidth, imageHeight);
+        }
+
+        /**
+         * Menggambar frame lalu mengembalikan snapshot ke pool sebelum mengodekan. PNG selalu
+         * digambar utuh (gambar pekerja berisi frame lain); GIF hanya kotak yang berubah.
+         */
+        byte[] draw(FrameSnapshot frame, BlockingQueue<FrameSnapshot> snapshots, int x, int y, int width, int height)
+                throws InterruptedException {
+            int left = 0, top = 0, right = imageWidth, bottom = imageHeight;
+            if (gif) {
+                left = Math.max(0, (int) Math.floor(x * scale) - 1);
+                top = Math.max(0, (int) Math.floor(y * scale) - 1);
+                right = Math.min(imageWidth, (int) Math.ceil((x + width) * scale) + 1);
+                bottom = Math.min(imageHeight, (int) Math.ceil((y + height) * scale) + 1);
+            }
+            Graphics2D g = image.createGraphics();
+            try {
+                g.clipRect(left, top, right - left, bottom - top);
+                if (scale != 1.0) {
+                    // Lapisan HUD dan petunjuk adalah gambar; tanpa ini teks kecilnya rusak saat diperkecil
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    g.scale(scale, scale);
+                }
+                renderer.renderFrame(g, WIDTH, HEIGHT, frame);
+            } finally {
+                g.dispose();
+                snapshots.put(frame);
+            }
+            return gif ? gifEncoder.encode(image, left, top, right - left, bottom - top) : pngEncoder.encode(image);
+        }
+    }
+
+    // =================================================================================
+    // Metode Main
+    // =================================================================================
+    public static void main(String[] args) throws IOException {
+        int fps = 20;
+        double scale = 1.0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path source = null, target = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--fps")) {
+                fps = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--scale")) {
+                scale = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (source == null) {
+                source = Path.of(args[i]);
+            } else {
+                target = Path.of(args[i]);
+            }
+        }
+        if (source == null || target == null) {
+            System.err.println("Penggunaan: java nusantara.ReplayExporter <file.ntr> <direktori|file.gif>"
+                    + " [--fps n] [--scale s] [--threads n]");
+            System.exit(2);
+        }
+
+        Replay replay = Replay.read(source);
+        boolean gif = target.toString().toLowerCase().endsWith(".gif");
+        ReplayExporter exporter = new ReplayExporter(replay, fps, scale, threads, gif);
+        long start = System.nanoTime();
+        ExportStats stats = exporter.export(target);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Replay        : %s (%d tick, %.1f menit waktu game)%n", source, replay.getTotalTicks(),
+                replay.getTotalTicks() / 3600.0);
+        System.out.printf("Hasil         : %s, %d frame (%d digambar, sisanya tanpa perubahan), %.1f MB%n",
+                target, stats.frames, stats.renderedFrames, stats.bytes / 1e6);
+        System.out.printf("Waktu         : %.2f s (%.0f frame/s, %d thread)%n", seconds, stats.frames / seconds, threads);
+        boolean ok = stats.finalScore == replay.getFinalScore()
+                && (!replay.isFinished() || stats.finalState == GameState.GAME_OVER);
+        System.out.printf("Skor tercatat : %d -> %s%n", replay.getFinalScore(), ok ? "COCOK" : "TIDAK COCOK");
+        System.exit(ok ? 0 : 1);
+    }
+}
@@ -0,0 +1,162 @@
+package nusantara;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * ReplayPlayer.java
+ *
+ * Memainkan ulang Replay secara headless secepat mungkin (tanpa render, tanpa menunggu
+ * 60 Hz, dan melompati tick tanpa kejadian) dan memeriksa apakah skor akhirnya sama dengan yang tercatat. Dipakai untuk
+ * memverifikasi skor yang dikirim pemain dan untuk mereproduksi laporan bug.
+ *
+ * Penggunaan:
+ *   java ReplayPlayer <file.ntr|direktori>... [--threads n]
+ *
+ * Dengan satu file, detail akhir game dicetak; dengan banyak file, semua diverifikasi
+ * paralel dan yang tidak cocok dilaporkan.
+ */
+public final class ReplayPlayer {
+
+    /** Di bawah jumlah ini sebuah rentang replay diverifikasi langsung, tidak dipecah lagi. */
+    private static final int SEQUENTIAL_THRESHOLD = 32;
+
+    private ReplayPlayer() {}
+
+    /** Memainkan ulang replay sampai tick terakhirnya dan mengembalikan simulasinya. */
+    static TowerSimulation play(Replay replay) {
+        TowerSimulation sim = TowerSimulation.forReplay(replay);
+        long tick = 0;
+        Replay.Events events = replay.events();
+        while (events.next()) {
+            tick += events.tickDelta();
+            advanceTo(sim, tick);
+            sim.handleInput(events.command(), events.argument());
+        }
+        advanceTo(sim, replay.getTotalTicks());
+        return sim;
+    }
+
+    /** true jika hasil pemutaran ulang cocok dengan skor (dan akhir game) yang tercatat. */
+    static boolean verify(Replay replay) {
+        TowerSimulation sim = play(replay);
+        if (sim.getCurrentScore() != replay.getFinalScore()) return false;
+        return !replay.isFinished() || sim.getGameState() == GameState.GAME_OVER;
+    }
+
+    /** Di antara dua event tidak ada masukan, jadi rentangnya dilompati dengan advanceTicks(). */
+    private static void advanceTo(TowerSimulation sim, long tick) {
+        if (sim.getTickCount() < tick) sim.advanceTicks(tick - sim.getTickCount());
+    }
+
+    // =================================================================================
+    // Verifikasi Massal
+    // =================================================================================
+
+    static final class VerifyStats {
+        long replays = 0;
+        long ticks = 0;
+        final List<String> failures = new ArrayList<>();
+
+        VerifyStats merge(VerifyStats other) {
+            replays += other.replays;
+            ticks += other.ticks;
+            failures.addAll(other.failures);
+            return this;
+        }
+    }
+
+    private static final class VerifyRange extends RecursiveTask<VerifyStats> {
+        private final List<Path> files;
+        private final int from, to;
+
+        VerifyRange(List<Path> files, int from, int to) { this.files = files; this.from = from; this.to = to; }
+
+        @Override
+        protected VerifyStats compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                VerifyStats stats = new VerifyStats();
+                for (int i = from; i < to; i++) {
+                    Path file = files.get(i);
+                    stats.replays++;
+                    try {
+                        Replay replay = Replay.read(file);
+                        stats.ticks += replay.getTotalTicks();
+                        if (!verify(replay)) stats.failures.add(file + ": skor tidak cocok");
+                    } catch (IOException | RuntimeException e) {
+                        stats.failures.add(file + ": " + e.getMessage());
+                    }
+                }
+                return stats;
+            }
+            int mid = (from + to) >>> 1;
+            VerifyRange left = new VerifyRange(files, from, mid);
+            left.fork();
+            VerifyStats right = new VerifyRange(files, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // =================================================================================
+    // Metode Main
+    // =================================================================================
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+                continue;
+            }
+            Path path = Path.of(args[i]);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    listing.filter(p -> p.toString().endsWith(Replay.FILE_EXTENSION)).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Penggunaan: java nusantara.ReplayPlayer <file.ntr|direktori>... [--threads n]");
+            System.exit(2);
+        }
+
+        if (files.size() == 1) {
+            Replay replay = Replay.read(files.get(0));
+            long start = System.nanoTime();
+            TowerSimulation sim = play(replay);
+            double millis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("Replay        : %s (%d byte, %d event)%n", files.get(0), replay.sizeInBytes(), replay.getEventCount());
+            System.out.printf("Seed          : %d%s%s%n", replay.getSeed(), replay.isEndless() ? " (tanpa batas)" : "",
+                    replay.isChoosePlots() ? " (pilih petak)" : "");
+            System.out.printf("Kota          : %dx%d%n", replay.getCityWidth(), replay.getCityHeight());
+            System.out.printf("Tick          : %d (%.1f menit waktu game) dalam %.1f ms%n", replay.getTotalTicks(), replay.getTotalTicks() / 3600.0, millis);
+            System.out.printf("Akhir         : %s, skor %d, nyawa %d, menara %d balok%n",
+                    sim.getGameState(), sim.getCurrentScore(), sim.getPlayerLives(), sim.getTower().size());
+            boolean ok = verify(replay);
+            System.out.printf("Skor tercatat : %d -> %s%n", replay.getFinalScore(), ok ? "COCOK" : "TIDAK COCOK");
+            System.exit(ok ? 0 : 1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        VerifyStats stats = pool.invoke(new VerifyRange(files, 0, files.size()));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.printf("Replay        : %d dalam %.2f s (%.0f replay/s, %.0f juta tick/s, %d thread)%n",
+                stats.replays, seconds, stats.replays / seconds, stats.ticks / seconds / 1e6, threads);
+        System.out.printf("Tidak cocok   : %d%n", stats.failures.size());
+        for (String failure : stats.failures) {
+            System.out.println("  " + failure);
+        }
+        System.exit(stats.failures.isEmpty() ? 0 : 1);
+    }
+}
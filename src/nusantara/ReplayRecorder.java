@@ -0,0 +1,108 @@
+package nusantara;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * ReplayRecorder.java
+ *
+ * Merekam perintah pemain dari TowerSimulation.handleInput() ke buffer byte yang tumbuh
+ * sendiri. Setiap event hanya menambah beberapa byte ke array yang sudah ada, jadi
+ * merekam tidak membuat objek per tekan tombol.
+ *
+ * TowerSimulation memanggil begin() di awal setiap game dan finish() saat GAME_OVER;
+ * replay yang selesai diteruskan ke onFinish (mis. untuk disimpan ke disk).
+ */
+final class ReplayRecorder {
+
+    private final Consumer<Replay> onFinish;
+
+    private byte[] events = new byte[256];
+    private int length = 0;
+    private int eventCount = 0;
+    private long seed;
+    private int cityWidth;
+    private int cityHeight;
+    private boolean endless;
+    private boolean choosePlots;
+    private long startTick;
+    private long lastTick;
+    private boolean recording = false;
+
+    /** onFinish boleh null jika replay cukup diambil lewat snapshot(). */
+    ReplayRecorder(Consumer<Replay> onFinish) {
+        this.onFinish = onFinish;
+    }
+
+    /** Memulai rekaman baru; seed adalah state GameRandom sebelum game diinisialisasi. */
+    void begin(long seed, int cityWidth, int cityHeight, boolean endless, boolean choosePlots, long tick) {
+        this.seed = seed;
+        this.cityWidth = cityWidth;
+        this.cityHeight = cityHeight;
+        this.endless = endless;
+        this.choosePlots = choosePlots;
+        this.startTick = tick;
+        this.lastTick = tick;
+        length = 0;
+        eventCount = 0;
+        recording = true;
+    }
+
+    /**
+     * Melanjutkan rekaman game yang dimuat dari simpanan: event replay lama dipakai ulang
+     * sehingga replay akhirnya tetap bisa diverifikasi dari awal game. tick adalah tick sim
+     * saat ini, yang harus sama dengan akhir rekaman lama.
+     */
+    void resume(Replay replay, long tick) {
+        begin(replay.getSeed(), replay.getCityWidth(), replay.getCityHeight(), replay.isEndless(), replay.isChoosePlots(),
+                tick - replay.getTotalTicks());
+        byte[] previous = replay.eventBytes();
+        events = Arrays.copyOf(previous, Math.max(256, previous.length * 2));
+        length = previous.length;
+        eventCount = replay.getEventCount();
+        Replay.Events reader = replay.events();
+        while (reader.next()) lastTick += reader.tickDelta();
+    }
+
+    /** Berhenti merekam game yang sedang berjalan (mis. game dimuat tanpa replay); tidak ada yang diteruskan. */
+    void cancel() {
+        recording = false;
+    }
+
+    void record(long tick, int command, int argument) {
+        if (!recording) return;
+        if (length + 21 > events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        length = Replay.putVarLong(events, length, tick - lastTick);
+        events[length++] = (byte) command;
+        if (command == TowerSimulation.CMD_DROP) {
+            events[length++] = (byte) argument;
+        } else if (command == TowerSimulation.CMD_SELECT_PLOT) {
+            length = Replay.putVarLong(events, length, argument);
+        }
+        lastTick = tick;
+        eventCount++;
+    }
+
+    /** Menutup rekaman game yang berakhir di GAME_OVER dan meneruskannya ke onFinish. */
+    Replay finish(long tick, long score) {
+        if (!recording) return null;
+        Replay replay = build(tick, score, true);
+        recording = false;
+        if (onFinish != null) onFinish.accept(replay);
+        return replay;
+    }
+
+    /** Cuplikan game yang sedang berjalan (mis. untuk laporan bug); rekaman tetap berlanjut. */
+    Replay snapshot(long tick, long score) {
+        return recording ? build(tick, score, false) : null;
+    }
+
+    boolean isRecording() { return recording; }
+
+    private Replay build(long tick, long score, boolean finished) {
+        return Replay.encode(seed, cityWidth, cityHeight, endless, choosePlots, finished, tick - startTick, score,
+                eventCount, events, length);
+    }
+}
@@ -0,0 +1,172 @@
+package nusantara;
+
+import java.util.Arrays;
+
+/**
+ * ScoreRankIndex.java
+ *
+ * Indeks order-statistic untuk skor: menjawab "berapa skor yang lebih tinggi dari s"
+ * dalam O(log n). Diimplementasikan sebagai treap di atas array primitif (tanpa objek
+ * node); skor yang sama disimpan sekali dengan penghitung, sehingga jutaan entri
+ * dengan banyak duplikat tetap kecil di memori.
+ *
+ * Tidak thread-safe; Leaderboard yang mengatur sinkronisasinya.
+ */
+final class ScoreRankIndex {
+
+    private static final int NIL = 0; // node 0 adalah sentinel
+
+    private long[] keys = new long[16];
+    private int[] counts = new int[16];   // berapa kali skor ini muncul
+    private long[] sizes = new long[16];  // total entri (termasuk duplikat) di subtree
+    private int[] priorities = new int[16];
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private int nodeCount = 0;
+    private int root = NIL;
+    private int seed = 0x2545F491;
+
+    /** Jumlah entri (termasuk duplikat). */
+    long size() { return sizes[root]; }
+
+    /** Jumlah skor berbeda. */
+    int distinct() { return nodeCount; }
+
+    void add(long score) {
+        root = insert(root, score, nextPriority());
+    }
+
+    /** Jumlah entri dengan skor lebih tinggi dari score. Peringkat score = countGreater + 1. */
+    long countGreater(long score) {
+        long greater = 0;
+        int node = root;
+        while (node != NIL) {
+            if (score < keys[node]) {
+                greater += sizes[right[node]] + counts[node];
+                node = left[node];
+            } else if (score > keys[node]) {
+                node = right[node];
+            } else {
+                return greater + sizes[right[node]];
+            }
+        }
+        return greater;
+    }
+
+    /**
+     * Membangun ulang indeks dari kumpulan skor sekaligus dalam O(n log n) (pengurutan)
+     * ditambah O(n) untuk pohon seimbang. Jauh lebih cepat daripada n kali add() saat memuat file.
+     */
+    void rebuild(long[] scores, int length) {
+        long[] sorted = Arrays.copyOf(scores, length);
+        Arrays.sort(sorted);
+        int distinctCount = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) distinctCount++;
+        }
+        long[] distinctKeys = new long[distinctCount];
+        int[] distinctCounts = new int[distinctCount];
+        int d = -1;
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) distinctKeys[++d] = sorted[i];
+            distinctCounts[d]++;
+        }
+
+        nodeCount = 0;
+        ensureCapacity(distinctCount + 1);
+        root = buildBalanced(distinctKeys, distinctCounts, 0, distinctCount, 0);
+    }
+
+    private int buildBalanced(long[] sortedKeys, int[] keyCounts, int from, int to, int depth) {
+        if (from >= to) return NIL;
+        int mid = (from + to) >>> 1;
+        int node = newNode(sortedKeys[mid], 0);
+        counts[node] = keyCounts[mid];
+        // Prioritas turun sesuai kedalaman agar sifat heap treap terpenuhi; sisipan acak
+        // berikutnya kebanyakan mengendap di bawah tanpa merusak keseimbangan.
+        priorities[node] = Integer.MAX_VALUE - depth * (1 << 24);
+        left[node] = buildBalanced(sortedKeys, keyCounts, from, mid, depth + 1);
+        right[node] = buildBalanced(sortedKeys, keyCounts, mid + 1, to, depth + 1);
+        sizes[node] = sizes[left[node]] + sizes[right[node]] + counts[node];
+        return node;
+    }
+
+    private int insert(int node, long key, int priority) {
+        if (node == NIL) {
+            int created = newNode(key, priority);
+            counts[created] = 1;
+            sizes[created] = 1;
+            return created;
+        }
+        if (key == keys[node]) {
+            counts[node]++;
+        } else if (key < keys[node]) {
+            // Hasil disimpan dulu ke variabel: insert() bisa memperbesar array, dan
+            // "left[node] = insert(...)" akan menulis ke array lama yang sudah dibuang.
+            int child = insert(left[node], key, priority);
+            left[node] = child;
+            if (priorities[child] > priorities[node]) node = rotateRight(node);
+        } else {
+            int child = insert(right[node], key, priority);
+            right[node] = child;
+            if (priorities[child] > priorities[node]) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private int rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        right[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private int rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        left[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(int node) {
+        sizes[node] = sizes[left[node]] + sizes[right[node]] + counts[node];
+    }
+
+    private int newNode(long key, int priority) {
+        ensureCapacity(nodeCount + 2);
+        int node = ++nodeCount;
+        keys[node] = key;
+        priorities[node] = priority;
+        left[node] = NIL;
+        right[node] = NIL;
+        counts[node] = 0;
+        sizes[node] = 0;
+        return node;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) return;
+        int grown = Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, grown);
+        counts = Arrays.copyOf(counts, grown);
+        sizes = Arrays.copyOf(sizes, grown);
+        priorities = Arrays.copyOf(priorities, grown);
+        left = Arrays.copyOf(left, grown);
+        right = Arrays.copyOf(right, grown);
+    }
+
+    private int nextPriority() {
+        // xorshift32; cukup untuk prioritas treap dan tanpa alokasi
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return x & Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,170 @@
+package nusantara;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * ServerProtocol.java
+ *
+ * Protokol biner kecil antara GameServer dan kliennya, di atas satu koneksi TCP per sesi.
+ * Semua pesan berukuran tetap dan big-endian (DataInput/DataOutput), jadi tidak perlu
+ * pembatas atau panjang pesan.
+ *
+ *   Klien -> server  HELLO   : int magic, byte versi, byte mode (bit 0 tanpa batas, bit 1 pilih petak)
+ *   Server -> klien  WELCOME : int magic, byte versi, long seed, short tick/detik, short interval frame
+ *   Klien -> server  INPUT   : byte perintah (CMD_*), int argumen               (5 byte)
+ *   Server -> klien  FRAME   : ringkasan state setelah satu tick, lihat Frame   (40 byte)
+ *
+ * INPUT membawa perintah yang sama dengan TowerSimulation.handleInput(command, argument);
+ * server yang menjalankan aturan game, klien hanya mengirim niat. Argumen CMD_DROP diabaikan:
+ * offset sub-tick dihitung server dari waktu INPUT diterima, jadi klien tidak bisa memilih
+ * posisi jatuh di luar gerak crane. Perintah di luar CMD_* memutus sesi. Dengan seed dari WELCOME
+ * klien boleh menjalankan simulasinya sendiri untuk prediksi, tetapi skor yang berlaku
+ * adalah skor server (dan replay yang direkam server).
+ *
+ * FRAME dikirim setiap "interval frame" tick, dan segera pada tick yang menerapkan
+ * masukan atau mengubah GameState. inputCount menghitung INPUT yang sudah diterapkan,
+ * sehingga klien tahu kapan masukannya ke-n sudah diproses (untuk mengukur latensi).
+ */
+final class ServerProtocol {
+
+    static final int MAGIC = 0x4E544753; // "NTGS"
+    static final int VERSION = 1;
+    static final int DEFAULT_PORT = 7777;
+
+    static final int MODE_ENDLESS = 1;
+    static final int MODE_CHOOSE_PLOTS = 2;
+
+    private static final GameState[] STATES = GameState.values();
+
+    private ServerProtocol() {}
+
+    // =================================================================================
+    // Jabat Tangan
+    // =================================================================================
+    static void writeHello(DataOutputStream out, int mode) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(mode);
+        out.flush();
+    }
+
+    /** Membaca HELLO dan mengembalikan bit mode; melempar IOException jika bukan klien versi ini. */
+    static int readHello(DataInputStream in) throws IOException {
+        checkHeader(in);
+        return in.readUnsignedByte();
+    }
+
+    static void writeWelcome(DataOutputStream out, long seed, int tickRate, int frameInterval) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+        out.writeShort(tickRate);
+        out.writeShort(frameInterval);
+        out.flush();
+    }
+
+    /** Membaca WELCOME ke dalam welcome: { seed, tick/detik, interval frame }. */
+    static void readWelcome(DataInputStream in, long[] welcome) throws IOException {
+        checkHeader(in);
+        welcome[0] = in.readLong();
+        welcome[1] = in.readUnsignedShort();
+        welcome[2] = in.readUnsignedShort();
+    }
+
+    private static void checkHeader(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        if (magic != MAGIC) throw new IOException("Bukan protokol NusantaraTower (magic " + Integer.toHexString(magic) + ")");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Versi protokol " + version + " tidak didukung (server versi " + VERSION + ")");
+    }
+
+    // =================================================================================
+    // Masukan
+    // =================================================================================
+    /** true jika command adalah perintah yang boleh dikirim klien (CMD_DROP sampai CMD_SELECT_PLOT). */
+    static boolean isClientCommand(int command) {
+        return command >= TowerSimulation.CMD_DROP && command <= TowerSimulation.CMD_SELECT_PLOT;
+    }
+
+    /** Membaca satu INPUT ke input: { perintah, argumen }; melempar IOException jika perintahnya tidak dikenal. */
+    static void readInput(DataInputStream in, int[] input) throws IOException {
+        int command = in.readUnsignedByte();
+        int argument = in.readInt();
+        if (!isClientCommand(command)) throw new IOException("Perintah tidak dikenal: " + command);
+        input[0] = command;
+        input[1] = argument;
+    }
+
+    /** Menulis satu perintah; pemanggil yang memutuskan kapan flush (mis. beberapa perintah sekaligus). */
+    static void writeInput(DataOutputStream out, int command, int argument) throws IOException {
+        out.writeByte(command);
+        out.writeInt(argument);
+    }
+
+    // =================================================================================
+    // Frame
+    // =================================================================================
+
+    /** Isi satu FRAME. Satu objek dipakai ulang oleh setiap pembaca/penulis, tanpa alokasi per frame. */
+    static final class Frame {
+        long tick;
+        int inputCount;
+        GameState state;
+        int lives;
+        boolean blockFalling;
+        boolean showingUpgrades;
+        long score;
+        int craneX;
+        int hangingX;
+        int hangingY;
+        int towerSize;
+
+        void capture(TowerSimulation sim, int inputCount) {
+            tick = sim.getTickCount();
+            this.inputCount = inputCount;
+            state = sim.getGameState();
+            lives = sim.getPlayerLives();
+            blockFalling = sim.isBlockFalling();
+            showingUpgrades = sim.isShowingUpgrades();
+            score = sim.getCurrentScore();
+            craneX = sim.getCraneX();
+            hangingX = sim.getHangingBlock().x;
+            hangingY = sim.getHangingBlock().y;
+            towerSize = sim.getTower().size();
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(tick);
+            out.writeInt(inputCount);
+            out.writeByte(state.ordinal());
+            out.writeByte(lives);
+            out.writeByte((blockFalling ? 1 : 0) | (showingUpgrades ? 2 : 0));
+            out.writeByte(0); // cadangan
+            out.writeLong(score);
+            out.writeInt(craneX);
+            out.writeInt(hangingX);
+            out.writeInt(hangingY);
+            out.writeInt(towerSize);
+        }
+
+        void read(DataInputStream in) throws IOException {
+            tick = in.readLong();
+            inputCount = in.readInt();
+            int stateCode = in.readUnsignedByte();
+            if (stateCode >= STATES.length) throw new IOException("GameState tidak dikenal: " + stateCode);
+            state = STATES[stateCode];
+            lives = in.readUnsignedByte();
+            int flags = in.readUnsignedByte();
+            blockFalling = (flags & 1) != 0;
+            showingUpgrades = (flags & 2) != 0;
+            in.readUnsignedByte();
+            score = in.readLong();
+            craneX = in.readInt();
+            hangingX = in.readInt();
+            hangingY = in.readInt();
+            towerSize = in.readInt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package nusantara;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * SpectatorClient.java
+ *
+ * Sisi penonton dari SpectatorServer. Thread "Spectator-Receiver" membaca pesan dari socket
+ * ke antrean; thread game loop penonton memanggil update() setiap tick untuk menerapkannya
+ * ke SpectatorStream.Decoder, lalu FrameSnapshot menyalin dari decoder seperti dari sim.
+ *
+ * Pesan diterapkan satu per tick (penyiar juga 60 tick/detik), dengan sedikit cadangan untuk
+ * meredam jitter jaringan; jika antrean menumpuk lebih dari itu, sisanya langsung dikejar.
+ * Antrean yang penuh menahan pembacaan socket, sehingga penonton yang macet terlihat lambat
+ * oleh server dan diturunkan ke keyframe.
+ */
+final class SpectatorClient implements Closeable {
+
+    private static final int QUEUE_CAPACITY = 256;
+    /** Pesan yang boleh menunggu di antrean sebelum dikejar (meredam jitter sekitar 2 tick). */
+    private static final int JITTER_FRAMES = 2;
+
+    private final InetSocketAddress address;
+    private final SocketChannel channel;
+    private final ArrayBlockingQueue<ByteBuffer> received = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final SpectatorStream.Decoder decoder = new SpectatorStream.Decoder(); // hanya thread loop
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile String failure;
+    private volatile Runnable wakeup;
+
+    SpectatorClient(InetSocketAddress address) throws IOException {
+        this.address = address;
+        channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        thread = new Thread(this::receive, "Spectator-Receiver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void receive() {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        try {
+            while (running) {
+                header.clear();
+                readFully(header);
+                int length = header.flip().getInt();
+                if (length <= 0 || length > SpectatorStream.MAX_MESSAGE_BYTES) {
+                    throw new IOException("Panjang pesan tidak valid: " + length);
+                }
+                ByteBuffer message = ByteBuffer.allocate(length);
+                readFully(message);
+                received.put(message.flip());
+                Runnable listener = wakeup;
+                if (listener != null) listener.run();
+            }
+        } catch (IOException e) {
+            if (running) failure = e.getMessage();
+        } catch (InterruptedException e) {
+            // close()
+        }
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Siaran berakhir");
+        }
+    }
+
+    /** Menerapkan pesan yang sudah tiba ke decoder. Hanya dari thread loop penonton. */
+    void update() {
+        ByteBuffer message = received.poll();
+        if (message == null) return;
+        try {
+            decoder.apply(message);
+            while (received.size() > JITTER_FRAMES && (message = received.poll()) != null) {
+                decoder.apply(message);
+            }
+        } catch (IOException e) {
+            // Decoder menunggu keyframe berikutnya; pesan rusak tidak menghentikan tontonan
+            failure = e.getMessage();
+        }
+    }
+
+    /** true jika masih ada pesan yang belum diterapkan update(). */
+    boolean hasPending() { return !received.isEmpty(); }
+
+    /** Dipanggil thread penerima setiap pesan tiba, mis. untuk membangunkan game loop yang diam. */
+    void setWakeup(Runnable wakeup) { this.wakeup = wakeup; }
+
+    /** State siaran terakhir; sebelum keyframe pertama tiba, tick-nya -1. Hanya dari thread loop. */
+    SpectatorStream.Decoder view() { return decoder; }
+
+    InetSocketAddress address() { return address; }
+
+    /** Pesan kesalahan terakhir (koneksi putus, pesan rusak), atau null. */
+    String failure() { return failure; }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        thread.interrupt();
+        channel.close();
+    }
+}
@@ -0,0 +1,290 @@
+package nusantara;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SpectatorServer.java
+ *
+ * Menyiarkan satu game yang sedang berjalan ke banyak penonton (stream, turnamen).
+ *
+ * Thread game memanggil publish() sekali per tick: delta disandikan SpectatorStream sekali
+ * saja, berapa pun jumlah penontonnya, lalu buffer-nya diserahkan ke thread
+ * "Spectator-Server". Keyframe (seluruh kota dan menara, puluhan milidetik pada kota besar)
+ * tidak disandikan di thread game: publish() hanya menyertakan State.snapshot() yang
+ * copy-on-write, dan thread server menyandikannya saat ada penonton yang benar-benar
+ * menunggu keyframe. Thread itu menjalankan satu Selector NIO non-blocking untuk semua
+ * penonton; setiap penonton hanya menyimpan duplicate() dari ByteBuffer baca-saja yang sama
+ * (posisi sendiri, isi bersama) dan menulisnya dengan gathering write, jadi tidak ada
+ * salinan per penonton.
+ *
+ * Penonton yang lambat (antrean kirimnya melewati MAX_PENDING_FRAMES) tidak dibiarkan
+ * menumpuk memori atau menahan yang lain: delta yang belum terkirim dibuang dan ia
+ * menunggu keyframe berikutnya. Keyframe dibuat saat ada yang membutuhkannya (penonton
+ * baru atau tertinggal) dan secara berkala sebagai jaring pengaman.
+ */
+final class SpectatorServer implements Closeable {
+
+    static final int DEFAULT_PORT = 7778;
+    /** Keyframe berkala walaupun tidak ada yang meminta (10 detik pada 60 tick/detik). */
+    private static final long KEYFRAME_INTERVAL_TICKS = 600;
+    /** Sekitar setengah detik siaran; lebih dari ini penonton dianggap tertinggal. */
+    private static final int MAX_PENDING_FRAMES = 30;
+
+    /**
+     * Pesan satu tick: delta untuk penonton yang sinkron, dan (boleh null) state keyframe untuk
+     * yang menunggu. Keyframe disandikan thread server saat pertama dibutuhkan, lalu dipakai
+     * bersama oleh semua penonton yang menunggu di tick itu.
+     */
+    private static final class Published {
+        final ByteBuffer delta;
+        final SpectatorStream.State keyframeState;
+        ByteBuffer keyframe; // hanya thread server
+
+        Published(ByteBuffer delta, SpectatorStream.State keyframeState) {
+            this.delta = delta;
+            this.keyframeState = keyframeState;
+        }
+    }
+
+    /** Satu penonton; hanya disentuh thread server. */
+    private static final class Subscriber {
+        final SocketChannel channel;
+        final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        boolean needsKeyframe = true;
+
+        Subscriber(SocketChannel channel) { this.channel = channel; }
+    }
+
+    private final SpectatorStream.Encoder deltaEncoder = new SpectatorStream.Encoder(); // hanya thread game
+    private final SpectatorStream.Encoder keyframeEncoder = new SpectatorStream.Encoder(); // hanya thread server
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Published> outbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean keyframeRequested = new AtomicBoolean(false);
+    private volatile boolean running = true;
+    private volatile Runnable wakeup;
+
+    // Hanya thread server
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_PENDING_FRAMES + 1];
+    private final ByteBuffer discard = ByteBuffer.allocate(256);
+
+    // Statistik (ditulis thread server, dibaca siapa saja)
+    private volatile int subscriberCount = 0;
+    private volatile long droppedToKeyframe = 0;
+    private volatile long bytesSent = 0;
+
+    SpectatorServer(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address, 256);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        thread = new Thread(this::serve, "Spectator-Server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    int getPort() { return serverChannel.socket().getLocalPort(); }
+
+    int getSubscriberCount() { return subscriberCount; }
+
+    /** Berapa kali penonton tertinggal dan diturunkan ke keyframe berikutnya. */
+    long getDroppedToKeyframe() { return droppedToKeyframe; }
+
+    long getBytesSent() { return bytesSent; }
+
+    /**
+     * Dipanggil (dari thread server) saat penonton membutuhkan keyframe, agar game loop yang
+     * sedang diam menjalankan satu tick dan publish() lagi.
+     */
+    void setWakeup(Runnable wakeup) { this.wakeup = wakeup; }
+
+    // =================================================================================
+    // Thread Game
+    // =================================================================================
+
+    /**
+     * Menyandikan delta tick ini dan menjadwalkannya untuk semua penonton. Hanya dari thread
+     * game; keyframe hanya diambil snapshot-nya di sini, penyandiannya di thread server.
+     */
+    void publish(TowerSimulation sim) {
+        // Tanpa penonton tidak ada yang perlu disandikan; penonton berikutnya mulai dari keyframe
+        if (subscriberCount == 0 && !keyframeRequested.get()) return;
+        ByteBuffer delta = deltaEncoder.delta(sim);
+        SpectatorStream.State keyframe = null;
+        if (keyframeRequested.getAndSet(false) || sim.getTickCount() % KEYFRAME_INTERVAL_TICKS == 0) {
+            keyframe = SpectatorStream.State.snapshot(sim);
+        }
+        outbox.add(new Published(delta, keyframe));
+        selector.wakeup();
+    }
+
+    // =================================================================================
+    // Thread Server
+    // =================================================================================
+    private void serve() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Subscriber subscriber = (Subscriber) key.attachment();
+                        if (key.isReadable()) readOrClose(subscriber);
+                        if (key.isValid() && key.isWritable()) flush(subscriber);
+                    }
+                }
+                fanOut();
+            }
+        } catch (IOException e) {
+            if (running) System.err.println("Server penonton berhenti: " + e.getMessage());
+        } finally {
+            for (Subscriber subscriber : subscribers) closeQuietly(subscriber);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Subscriber subscriber = new Subscriber(channel);
+            channel.register(selector, SelectionKey.OP_READ, subscriber);
+            subscribers.add(subscriber);
+            subscriberCount = subscribers.size();
+            requestKeyframe();
+        }
+    }
+
+    /** Penonton tidak mengirim apa pun; yang terbaca hanya dibuang, -1 berarti koneksi ditutup. */
+    private void readOrClose(Subscriber subscriber) {
+        try {
+            discard.clear();
+            if (subscriber.channel.read(discard) < 0) close(subscriber);
+        } catch (IOException e) {
+            close(subscriber);
+        }
+    }
+
+    private void fanOut() {
+        Published published;
+        boolean any = false;
+        while ((published = outbox.poll()) != null) {
+            any = true;
+            for (int i = 0; i < subscribers.size(); i++) enqueue(subscribers.get(i), published);
+        }
+        if (!any) return;
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            Subscriber subscriber = subscribers.get(i);
+            if (!subscriber.pending.isEmpty()) flush(subscriber);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Published published) {
+        if (!subscriber.needsKeyframe && subscriber.pending.size() >= MAX_PENDING_FRAMES) {
+            // Tertinggal: buang delta yang belum dikirim (kecuali yang sedang setengah terkirim)
+            ByteBuffer partial = subscriber.pending.peekFirst();
+            subscriber.pending.clear();
+            if (partial.position() > 0) subscriber.pending.add(partial);
+            subscriber.needsKeyframe = true;
+            if (subscriber.pending.isEmpty()) requestKeyframe();
+            droppedToKeyframe++;
+        }
+        if (subscriber.needsKeyframe) {
+            // Keyframe baru dipasang setelah socket-nya lega; penonton macet tidak memicu keyframe terus-menerus
+            if (published.keyframeState == null || !subscriber.pending.isEmpty()) return;
+            if (published.keyframe == null) published.keyframe = keyframeEncoder.keyframe(published.keyframeState);
+            subscriber.pending.add(published.keyframe.duplicate());
+            subscriber.needsKeyframe = false;
+        } else {
+            subscriber.pending.add(published.delta.duplicate());
+        }
+    }
+
+    /** Menulis sebanyak yang diterima socket tanpa menunggu; sisanya dikirim saat OP_WRITE. */
+    private void flush(Subscriber subscriber) {
+        int count = 0;
+        for (ByteBuffer buffer : subscriber.pending) {
+            gather[count++] = buffer;
+            if (count == gather.length) break;
+        }
+        try {
+            long written = subscriber.channel.write(gather, 0, count);
+            bytesSent += written;
+        } catch (IOException e) {
+            close(subscriber);
+            return;
+        } finally {
+            Arrays.fill(gather, 0, count, null);
+        }
+        while (!subscriber.pending.isEmpty() && !subscriber.pending.peekFirst().hasRemaining()) {
+            subscriber.pending.pollFirst();
+        }
+        if (subscriber.pending.isEmpty() && subscriber.needsKeyframe) requestKeyframe();
+        SelectionKey key = subscriber.channel.keyFor(selector);
+        if (key == null || !key.isValid()) return;
+        int ops = subscriber.pending.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (key.interestOps() != ops) key.interestOps(ops);
+    }
+
+    private void requestKeyframe() {
+        keyframeRequested.set(true);
+        Runnable listener = wakeup;
+        if (listener != null) listener.run();
+    }
+
+    private void close(Subscriber subscriber) {
+        closeQuietly(subscriber);
+        subscribers.remove(subscriber);
+        subscriberCount = subscribers.size();
+    }
+
+    private static void closeQuietly(Subscriber subscriber) {
+        try {
+            subscriber.channel.close();
+        } catch (IOException e) {
+            // Sudah tertutup
+        }
+        subscriber.pending.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        serverChannel.close();
+        selector.close();
+    }
+}
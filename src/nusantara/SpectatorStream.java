@@ -0,0 +1,624 @@
+package nusantara;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * SpectatorStream.java
+ *
+ * Format aliran state untuk penonton: satu pesan per tick berisi hanya yang berubah sejak
+ * tick sebelumnya (delta), plus keyframe sesekali untuk penonton yang baru bergabung atau
+ * tertinggal. Keyframe adalah delta terhadap "frame kosong", jadi encoder dan decoder hanya
+ * punya satu jalur: decoder mengosongkan state-nya lalu menerapkan keyframe seperti delta.
+ *
+ * Pesan di kabel: int panjang (big-endian, tanpa dirinya sendiri), lalu
+ *   byte jenis (KEYFRAME/DELTA), varint tick, [varint jarak ke tick dasar, hanya DELTA],
+ *   varint mask bagian yang berubah, lalu isi setiap bagian sesuai urutan bit mask.
+ * Angka ditulis sebagai selisih zigzag-varint terhadap nilai sebelumnya, jadi tick biasa
+ * (crane bergeser, balok turun) hanya belasan byte. Menara dikirim sebagai "pertahankan n
+ * balok bawah, tambahkan balok berikut"; kota sebagai daftar sel yang berubah menurut
+ * CityGrid.ChangeLog, atau seluruh isinya (CITY_FULL) untuk keyframe dan saat jurnal itu
+ * tidak lagi mencakup perubahan sejak pesan sebelumnya.
+ *
+ * Encoder membaca State, bukan sim secara langsung. Delta disandikan thread game (sekali per
+ * tick, berapa pun jumlah penonton) dari State yang menunjuk menara dan kota sim itu sendiri.
+ * Keyframe harus menyalin seluruh kota dan menara, jadi thread game hanya mengambil
+ * State.snapshot() (copy-on-write, beberapa mikrodetik) dan penyandiannya dikerjakan thread
+ * lain. Hasilnya ByteBuffer baca-saja yang dibagikan SpectatorServer ke semua penonton tanpa
+ * disalin. Decoder dijalankan penonton dan hasilnya dibaca FrameSnapshot.capture(Decoder, ...).
+ */
+final class SpectatorStream {
+
+    static final int KEYFRAME = 1;
+    static final int DELTA = 2;
+    /** Pesan yang lebih besar dari ini dianggap rusak (keyframe menara/kota raksasa masih jauh di bawahnya). */
+    static final int MAX_MESSAGE_BYTES = 64 << 20;
+
+    // Bit mask bagian yang ada di pesan, urut sesuai urutan penulisannya
+    private static final int STATE = 1;
+    private static final int SCORE = 1 << 1;
+    private static final int LIVES = 1 << 2;
+    private static final int CRANE = 1 << 3;
+    private static final int HANGING = 1 << 4;
+    private static final int HANGING_SHAPE = 1 << 5;
+    private static final int CAMERA = 1 << 6;
+    private static final int CURSOR = 1 << 7;
+    private static final int TOWER = 1 << 8;
+    private static final int CITY = 1 << 9;
+    private static final int QUEUE = 1 << 10;
+    private static final int UPGRADES = 1 << 11;
+    private static final int SCORES = 1 << 12;
+
+    // Mode bagian kota
+    private static final int CITY_CHANGES = 0;
+    private static final int CITY_FULL = 1;
+
+    private static final GameState[] GAME_STATES = GameState.values();
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+    private static final int MAX_UPCOMING = 4;
+
+    private SpectatorStream() {}
+
+    /** Bit state permainan: ordinal GameState, menu upgrade, mode pilih petak. */
+    private static int stateFlags(GameState state, boolean showingUpgrades, boolean choosePlots) {
+        return state.ordinal() | (showingUpgrades ? 8 : 0) | (choosePlots ? 16 : 0);
+    }
+
+    // =================================================================================
+    // State
+    // =================================================================================
+
+    /**
+     * Semua yang disandikan encoder untuk satu tick. capture() dipanggil thread game; bagian
+     * antrean/upgrade/skor hanya disalin ulang jika versinya berubah, jadi State yang dipakai
+     * ulang setiap tick nyaris gratis. snapshot() memberi State mandiri yang boleh dibawa ke
+     * thread lain: menara dan kota berupa snapshot copy-on-write, bukan milik sim.
+     */
+    static final class State {
+        long tick;
+        int flags;
+        long score;
+        int lives;
+        int craneX, prevCraneX;
+        int hangingX, hangingY, prevHangingX, prevHangingY;
+        int hangingWidth, hangingHeight, hangingType;
+        int cameraY;
+        int cityCursor;
+        TowerStore tower;
+        CityGrid city;
+        int cityVersion;
+        int queueVersion = -1, upcomingCount;
+        final BlockType[] upcoming = new BlockType[MAX_UPCOMING];
+        int upgradeVersion = -1, upgradeCount;
+        final String[] upgradeNames = new String[TowerSimulation.MAX_UPGRADE_SLOTS];
+        final int[] upgradeCosts = new int[TowerSimulation.MAX_UPGRADE_SLOTS];
+        int highScoreVersion = -1, topCount;
+        final long[] topScores = new long[Leaderboard.DEFAULT_TOP_K];
+        long leaderboardSize;
+        long lastRank = -1;
+
+        /** State mandiri tick ini untuk keyframe; aman diserahkan ke thread lain. Hanya dari thread game. */
+        static State snapshot(TowerSimulation sim) {
+            State state = new State();
+            state.capture(sim);
+            state.tower = sim.getTower().snapshot();
+            state.city = sim.getCity().snapshot();
+            return state;
+        }
+
+        /** Mengisi State dari sim; menara dan kota menunjuk milik sim, jadi hanya berlaku sampai tick berikutnya. */
+        void capture(TowerSimulation sim) {
+            tick = sim.getTickCount();
+            flags = stateFlags(sim.getGameState(), sim.isShowingUpgrades(), sim.isChoosePlotMode());
+            score = sim.getCurrentScore();
+            lives = sim.getPlayerLives();
+            craneX = sim.getCraneX();
+            prevCraneX = sim.getPrevCraneX();
+            TowerSimulation.Block hanging = sim.getHangingBlock();
+            hangingX = hanging.x;
+            hangingY = hanging.y;
+            prevHangingX = sim.getPrevHangingX();
+            prevHangingY = sim.getPrevHangingY();
+            hangingWidth = hanging.width;
+            hangingHeight = hanging.height;
+            hangingType = hanging.type.ordinal();
+            cameraY = sim.getCameraY();
+            cityCursor = sim.getNextCityPlot();
+            tower = sim.getTower();
+            city = sim.getCity();
+            cityVersion = sim.getCityVersion();
+
+            if (sim.getQueueVersion() != queueVersion) {
+                queueVersion = sim.getQueueVersion();
+                upcomingCount = 0;
+                for (BlockType type : sim.getUpcomingBlocks()) {
+                    if (upcomingCount == MAX_UPCOMING) break;
+                    upcoming[upcomingCount++] = type;
+                }
+            }
+            if (sim.getUpgradeVersion() != upgradeVersion) {
+                upgradeVersion = sim.getUpgradeVersion();
+                UpgradeProgress upgrades = sim.getUpgrades();
+                UpgradeGraph graph = upgrades.graph();
+                upgradeCount = Math.min(upgrades.frontierSize(), TowerSimulation.MAX_UPGRADE_SLOTS);
+                for (int i = 0; i < upgradeCount; i++) {
+                    int upgrade = upgrades.frontierAt(i);
+                    upgradeNames[i] = graph.name(upgrade);
+                    upgradeCosts[i] = graph.cost(upgrade);
+                }
+            }
+            if (sim.getHighScoreVersion() != highScoreVersion || sim.getLastRank() != lastRank) {
+                highScoreVersion = sim.getHighScoreVersion();
+                lastRank = sim.getLastRank();
+                Leaderboard leaderboard = sim.getLeaderboard();
+                topCount = leaderboard.topScores(topScores, null);
+                leaderboardSize = leaderboard.size();
+            }
+        }
+    }
+
+    // =================================================================================
+    // Encoder
+    // =================================================================================
+
+    /**
+     * Menyandikan State. Satu Encoder hanya dipakai satu thread: SpectatorServer punya satu
+     * untuk delta (thread game) dan satu untuk keyframe (thread server). Menyimpan salinan
+     * yang terakhir dikirim (sent); keyframe disandikan terhadap base kosong sehingga tidak
+     * mengganggu rantai delta.
+     */
+    static final class Encoder {
+        private final Base sent = new Base();
+        private final Base empty = new Base();
+        private final State current = new State();
+        private final GameSnapshot.Output out = new GameSnapshot.Output(256);
+        private final int[] changedCells = new int[CityGrid.ChangeLog.CAPACITY];
+
+        /** Delta terhadap tick yang terakhir disandikan (atau keyframe penuh jika ini yang pertama). Dari thread sim. */
+        ByteBuffer delta(TowerSimulation sim) {
+            current.capture(sim);
+            return encode(current, sent, sent.tick < 0 ? KEYFRAME : DELTA);
+        }
+
+        /** Keyframe: state lengkap, bisa diterapkan tanpa pesan sebelumnya. Boleh dari thread mana pun yang memiliki Encoder ini. */
+        ByteBuffer keyframe(State state) {
+            empty.reset();
+            return encode(state, empty, KEYFRAME);
+        }
+
+        private ByteBuffer encode(State s, Base base, int kind) {
+            out.pos = 0;
+            out.putInt(0); // panjang, diisi di akhir
+            out.put(kind);
+            out.varLong(s.tick);
+            if (kind == DELTA) out.varLong(s.tick - base.tick);
+            base.tick = s.tick;
+
+            TowerStore tower = s.tower;
+            int keep = keptTowerBlocks(tower, base);
+            int mask = 0;
+            if (s.flags != base.flags) mask |= STATE;
+            if (s.score != base.score) mask |= SCORE;
+            if (s.lives != base.lives) mask |= LIVES;
+            if (s.craneX != base.craneX || s.prevCraneX != base.prevCraneX) mask |= CRANE;
+            if (s.hangingX != base.hangingX || s.hangingY != base.hangingY
+                    || s.prevHangingX != base.prevHangingX || s.prevHangingY != base.prevHangingY) mask |= HANGING;
+            if (s.hangingWidth != base.hangingWidth || s.hangingHeight != base.hangingHeight
+                    || s.hangingType != base.hangingType) mask |= HANGING_SHAPE;
+            if (s.cameraY != base.cameraY) mask |= CAMERA;
+            if (s.cityCursor != base.cityCursor) mask |= CURSOR;
+            if (keep != base.towerSize || tower.size() != base.towerSize) mask |= TOWER;
+            if (s.cityVersion != base.cityVersion) mask |= CITY;
+            if (s.queueVersion != base.queueVersion) mask |= QUEUE;
+            if (s.upgradeVersion != base.upgradeVersion) mask |= UPGRADES;
+            if (s.highScoreVersion != base.highScoreVersion || s.lastRank != base.lastRank) mask |= SCORES;
+            out.varLong(mask);
+
+            if ((mask & STATE) != 0) {
+                out.put(s.flags);
+                base.flags = s.flags;
+            }
+            if ((mask & SCORE) != 0) {
+                out.zigzag(s.score - base.score);
+                base.score = s.score;
+            }
+            if ((mask & LIVES) != 0) {
+                out.zigzag(s.lives - base.lives);
+                base.lives = s.lives;
+            }
+            if ((mask & CRANE) != 0) {
+                out.zigzag(s.craneX - base.craneX);
+                out.zigzag(s.prevCraneX - s.craneX);
+                base.craneX = s.craneX;
+                base.prevCraneX = s.prevCraneX;
+            }
+            if ((mask & HANGING) != 0) {
+                out.zigzag(s.hangingX - base.hangingX);
+                out.zigzag(s.hangingY - base.hangingY);
+                out.zigzag(s.prevHangingX - s.hangingX);
+                out.zigzag(s.prevHangingY - s.hangingY);
+                base.hangingX = s.hangingX;
+                base.hangingY = s.hangingY;
+                base.prevHangingX = s.prevHangingX;
+                base.prevHangingY = s.prevHangingY;
+            }
+            if ((mask & HANGING_SHAPE) != 0) {
+                out.varLong(s.hangingWidth);
+                out.varLong(s.hangingHeight);
+                out.put(s.hangingType);
+                base.hangingWidth = s.hangingWidth;
+                base.hangingHeight = s.hangingHeight;
+                base.hangingType = s.hangingType;
+            }
+            if ((mask & CAMERA) != 0) {
+                out.zigzag(s.cameraY - base.cameraY);
+                base.cameraY = s.cameraY;
+            }
+            if ((mask & CURSOR) != 0) {
+                out.zigzag(s.cityCursor - base.cityCursor);
+                base.cityCursor = s.cityCursor;
+            }
+            if ((mask & TOWER) != 0) writeTower(tower, keep, base);
+            if ((mask & CITY) != 0) writeCity(s, base);
+            if ((mask & QUEUE) != 0) writeQueue(s, base);
+            if ((mask & UPGRADES) != 0) writeUpgrades(s, base);
+            if ((mask & SCORES) != 0) writeScores(s, base);
+
+            int length = out.pos - 4;
+            out.buf[0] = (byte) (length >>> 24);
+            out.buf[1] = (byte) (length >>> 16);
+            out.buf[2] = (byte) (length >>> 8);
+            out.buf[3] = (byte) length;
+            return ByteBuffer.wrap(Arrays.copyOf(out.buf, out.pos)).asReadOnlyBuffer();
+        }
+
+        /**
+         * Berapa balok bawah yang sama dengan yang sudah dikirim. Balok menara tidak pernah
+         * diubah setelah ditumpuk, jadi cukup memeriksa bahwa menara tidak menyusut dan balok
+         * teratas yang dikirim masih di tempatnya; selain itu (menara dipindah ke kota,
+         * roboh) seluruh menara dikirim ulang.
+         */
+        private static int keptTowerBlocks(TowerStore tower, Base base) {
+            int sentSize = base.towerSize;
+            if (sentSize == 0 || tower.size() < sentSize) return 0;
+            int top = sentSize - 1;
+            boolean same = tower.x(top) == base.topX && tower.width(top) == base.topWidth
+                    && tower.type(top).ordinal() == base.topType;
+            return same ? sentSize : 0;
+        }
+
+        private void writeTower(TowerStore tower, int keep, Base base) {
+            int size = tower.size();
+            out.varLong(keep);
+            out.varLong(size - keep);
+            int previousX = keep > 0 ? tower.x(keep - 1) : 0;
+            for (int i = keep; i < size; i++) {
+                out.zigzag(tower.x(i) - previousX);
+                out.varLong(tower.width(i));
+                out.put(tower.type(i).ordinal());
+                previousX = tower.x(i);
+            }
+            base.towerSize = size;
+            if (size > 0) {
+                base.topX = tower.x(size - 1);
+                base.topWidth = tower.width(size - 1);
+                base.topType = tower.type(size - 1).ordinal();
+            }
+        }
+
+        /**
+         * Ukuran kota, mode, lalu sel: jarak indeks dari sel sebelumnya, kode jenis, tinggi.
+         * Delta mengambil sel yang berubah dari ChangeLog kota, jadi biayanya sebanding dengan
+         * jumlah perubahan, bukan jumlah sel. Seluruh kota hanya dipindai untuk keyframe (di
+         * thread server) atau jika jurnal tidak lagi mencakup perubahan sejak pesan sebelumnya
+         * (kota dikosongkan, diganti, atau lebih dari CAPACITY perubahan); dengan CITY_FULL
+         * penerima mengosongkan kotanya dulu, jadi cukup sel yang tidak kosong yang dikirim.
+         */
+        private void writeCity(State s, Base base) {
+            CityGrid city = s.city;
+            CityGrid.ChangeLog log = city.changes();
+            boolean incremental = base.city == city && log.covers(base.cityChangeCount);
+            out.varLong(city.width());
+            out.varLong(city.height());
+            if (incremental) {
+                int count = 0;
+                for (long seq = base.cityChangeCount; seq < log.count(); seq++) changedCells[count++] = log.cellAt(seq);
+                // Jurnal boleh berulang dan tidak urut; di kabel indeks harus naik
+                Arrays.sort(changedCells, 0, count);
+                int unique = 0;
+                for (int k = 0; k < count; k++) {
+                    if (unique == 0 || changedCells[k] != changedCells[unique - 1]) changedCells[unique++] = changedCells[k];
+                }
+                out.put(CITY_CHANGES);
+                out.varLong(unique);
+                int previous = 0;
+                for (int k = 0; k < unique; k++) {
+                    int cell = changedCells[k];
+                    out.varLong(cell - previous);
+                    out.put(city.typeCode(cell));
+                    out.varLong(city.heightAt(cell));
+                    previous = cell;
+                }
+            } else {
+                out.put(CITY_FULL);
+                // Sel yang tidak kosong: petak terisi ditambah sel di luar peta
+                out.varLong(city.occupiedCount() + city.cellCount() - city.plotCount());
+                int previous = 0;
+                for (int cell = 0, cells = city.cellCount(); cell < cells; cell++) {
+                    byte code = city.typeCode(cell);
+                    if (code == CityGrid.EMPTY) continue;
+                    out.varLong(cell - previous);
+                    out.put(code);
+                    out.varLong(city.heightAt(cell));
+                    previous = cell;
+                }
+            }
+            base.city = city;
+            base.cityChangeCount = log.count();
+            base.cityVersion = s.cityVersion;
+        }
+
+        private void writeQueue(State s, Base base) {
+            base.queueVersion = s.queueVersion;
+            out.varLong(s.upcomingCount);
+            for (int i = 0; i < s.upcomingCount; i++) out.put(s.upcoming[i].ordinal());
+        }
+
+        private void writeUpgrades(State s, Base base) {
+            base.upgradeVersion = s.upgradeVersion;
+            out.varLong(s.upgradeCount);
+            for (int i = 0; i < s.upgradeCount; i++) {
+                byte[] name = s.upgradeNames[i].getBytes(StandardCharsets.UTF_8);
+                out.varLong(name.length);
+                out.put(name, name.length);
+                out.varLong(s.upgradeCosts[i]);
+            }
+        }
+
+        private void writeScores(State s, Base base) {
+            base.highScoreVersion = s.highScoreVersion;
+            base.lastRank = s.lastRank;
+            out.varLong(s.topCount);
+            for (int i = 0; i < s.topCount; i++) out.zigzag(s.topScores[i]);
+            out.varLong(s.leaderboardSize);
+            out.varLong(s.lastRank);
+        }
+    }
+
+    /** Nilai yang terakhir dikirim encoder; reset() = frame kosong yang juga menjadi awal decoder. */
+    private static final class Base {
+        long tick;
+        int flags;
+        long score;
+        int lives;
+        int craneX, prevCraneX;
+        int hangingX, hangingY, prevHangingX, prevHangingY;
+        int hangingWidth, hangingHeight, hangingType;
+        int cameraY;
+        int cityCursor;
+        int towerSize, topX, topWidth, topType;
+        int cityVersion;
+        CityGrid city;          // kota yang terakhir dikirim; null = penerima belum punya kota
+        long cityChangeCount;   // ChangeLog.count() kota itu saat terakhir dikirim
+        int queueVersion, upgradeVersion, highScoreVersion;
+        long lastRank;
+
+        Base() { reset(); }
+
+        void reset() {
+            tick = -1;
+            flags = -1;
+            score = 0;
+            lives = 0;
+            craneX = prevCraneX = 0;
+            hangingX = hangingY = prevHangingX = prevHangingY = 0;
+            hangingWidth = hangingHeight = hangingType = -1;
+            cameraY = 0;
+            cityCursor = 0;
+            towerSize = 0;
+            cityVersion = queueVersion = upgradeVersion = highScoreVersion = -1;
+            city = null;
+            cityChangeCount = 0;
+            lastRank = -1;
+        }
+    }
+
+    // =================================================================================
+    // Decoder
+    // =================================================================================
+
+    /**
+     * State permainan yang direkonstruksi dari aliran, untuk satu penonton. Hanya dari satu
+     * thread. Versi kota/antrean/upgrade/skor dinaikkan setiap kali bagiannya berubah,
+     * seperti getXxxVersion() di TowerSimulation, agar FrameSnapshot hanya menyalin yang berubah.
+     */
+    static final class Decoder {
+        long tick = -1;
+        GameState gameState = GameState.PLAYING;
+        boolean showingUpgrades;
+        boolean choosePlots;
+        long score;
+        int lives;
+        int craneX, prevCraneX;
+        int hangingX, hangingY, prevHangingX, prevHangingY;
+        int hangingWidth, hangingHeight;
+        BlockType hangingType = BLOCK_TYPES[0];
+        int cameraY;
+        int cityCursor;
+        final TowerStore tower = new TowerStore();
+
+        int cityVersion, cityWidth, cityHeight;
+        byte[] cityTypes = new byte[0];
+        int[] cityHeights = new int[0];
+        final CityGrid.ChangeLog cityChanges = new CityGrid.ChangeLog();
+        int queueVersion, upcomingCount;
+        final BlockType[] upcoming = new BlockType[MAX_UPCOMING];
+        int upgradeVersion, upgradeCount;
+        final String[] upgradeNames = new String[TowerSimulation.MAX_UPGRADE_SLOTS];
+        final int[] upgradeCosts = new int[TowerSimulation.MAX_UPGRADE_SLOTS];
+        int highScoreVersion, topCount;
+        final long[] topScores = new long[Leaderboard.DEFAULT_TOP_K];
+        long leaderboardSize;
+        long lastRank;
+
+        private boolean synced = false;
+
+        /** Sudah menerima keyframe dan semua delta sesudahnya. */
+        boolean isSynced() { return synced; }
+
+        /**
+         * Menerapkan satu pesan (tanpa prefiks panjang). Delta yang tidak menyambung ke tick
+         * terakhir (pesan terlewat) diabaikan dan mengembalikan false; state menunggu keyframe
+         * berikutnya. Pesan rusak melempar IOException dan juga memutus sinkronisasi.
+         */
+        boolean apply(ByteBuffer message) throws IOException {
+            try {
+                int kind = message.get();
+                long messageTick = GameSnapshot.varLong(message);
+                if (kind == DELTA) {
+                    long gap = GameSnapshot.varLong(message);
+                    if (!synced || messageTick - gap != tick) {
+                        synced = false;
+                        return false;
+                    }
+                } else if (kind == KEYFRAME) {
+                    clear();
+                } else {
+                    throw new IOException("Jenis pesan tidak dikenal: " + kind);
+                }
+                // Setengah diterapkan = tidak sinkron, sampai pesan ini selesai
+                synced = false;
+                applySections(message);
+                if (message.hasRemaining()) throw new IOException("Ada " + message.remaining() + " byte sisa di pesan");
+                tick = messageTick;
+                synced = true;
+                return true;
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Pesan penonton terpotong", e);
+            } catch (IndexOutOfBoundsException | IllegalArgumentException | IllegalStateException e) {
+                throw new IOException("Pesan penonton tidak valid: " + e.getMessage(), e);
+            }
+        }
+
+        /** Kembali ke frame kosong (sama dengan Base.reset() di encoder). */
+        private void clear() {
+            score = 0;
+            lives = 0;
+            craneX = prevCraneX = 0;
+            hangingX = hangingY = prevHangingX = prevHangingY = 0;
+            cameraY = 0;
+            cityCursor = 0;
+            tower.clear();
+            cityWidth = cityHeight = 0;
+            Arrays.fill(cityTypes, (byte) 0);
+            Arrays.fill(cityHeights, 0);
+            cityChanges.reset();
+        }
+
+        private void applySections(ByteBuffer in) throws IOException {
+            long mask = GameSnapshot.varLong(in);
+            if ((mask & STATE) != 0) {
+                int flags = in.get();
+                int state = flags & 7;
+                if (state >= GAME_STATES.length) throw new IOException("GameState tidak dikenal: " + state);
+                gameState = GAME_STATES[state];
+                showingUpgrades = (flags & 8) != 0;
+                choosePlots = (flags & 16) != 0;
+            }
+            if ((mask & SCORE) != 0) score += GameSnapshot.zigzagLong(in);
+            if ((mask & LIVES) != 0) lives += GameSnapshot.zigzag(in);
+            if ((mask & CRANE) != 0) {
+                craneX += GameSnapshot.zigzag(in);
+                prevCraneX = craneX + GameSnapshot.zigzag(in);
+            }
+            if ((mask & HANGING) != 0) {
+                hangingX += GameSnapshot.zigzag(in);
+                hangingY += GameSnapshot.zigzag(in);
+                prevHangingX = hangingX + GameSnapshot.zigzag(in);
+                prevHangingY = hangingY + GameSnapshot.zigzag(in);
+            }
+            if ((mask & HANGING_SHAPE) != 0) {
+                hangingWidth = GameSnapshot.varInt(in);
+                hangingHeight = GameSnapshot.varInt(in);
+                hangingType = BLOCK_TYPES[in.get()];
+            }
+            if ((mask & CAMERA) != 0) cameraY += GameSnapshot.zigzag(in);
+            if ((mask & CURSOR) != 0) cityCursor += GameSnapshot.zigzag(in);
+            if ((mask & TOWER) != 0) readTower(in);
+            if ((mask & CITY) != 0) readCity(in);
+            if ((mask & QUEUE) != 0) {
+                upcomingCount = GameSnapshot.count(in);
+                if (upcomingCount > MAX_UPCOMING) throw new IOException("Antrean terlalu panjang: " + upcomingCount);
+                for (int i = 0; i < upcomingCount; i++) upcoming[i] = BLOCK_TYPES[in.get()];
+                queueVersion++;
+            }
+            if ((mask & UPGRADES) != 0) {
+                upgradeCount = GameSnapshot.count(in);
+                if (upgradeCount > upgradeNames.length) throw new IOException("Terlalu banyak upgrade: " + upgradeCount);
+                for (int i = 0; i < upgradeCount; i++) {
+                    byte[] name = new byte[GameSnapshot.count(in)];
+                    in.get(name);
+                    upgradeNames[i] = new String(name, StandardCharsets.UTF_8);
+                    upgradeCosts[i] = GameSnapshot.varInt(in);
+                }
+                upgradeVersion++;
+            }
+            if ((mask & SCORES) != 0) {
+                topCount = GameSnapshot.count(in);
+                if (topCount > topScores.length) throw new IOException("Terlalu banyak skor: " + topCount);
+                for (int i = 0; i < topCount; i++) topScores[i] = GameSnapshot.zigzagLong(in);
+                leaderboardSize = GameSnapshot.varLong(in);
+                lastRank = GameSnapshot.varLong(in);
+                highScoreVersion++;
+            }
+        }
+
+        private void readTower(ByteBuffer in) throws IOException {
+            int keep = GameSnapshot.varInt(in);
+            if (keep > tower.size()) throw new IOException("Menara hanya " + tower.size() + " balok, diminta " + keep);
+            if (keep == 0) tower.clear();
+            while (tower.size() > keep) tower.pop();
+            int added = GameSnapshot.count(in);
+            int x = keep > 0 ? tower.x(keep - 1) : 0;
+            for (int i = 0; i < added; i++) {
+                x += GameSnapshot.zigzag(in);
+                int width = GameSnapshot.varInt(in);
+                tower.push(x, width, BLOCK_TYPES[in.get()]);
+            }
+        }
+
+        private void readCity(ByteBuffer in) throws IOException {
+            int width = GameSnapshot.varInt(in);
+            int height = GameSnapshot.varInt(in);
+            long cells = (long) width * height;
+            if (cells > MAX_MESSAGE_BYTES) throw new IOException("Kota terlalu besar: " + width + "x" + height);
+            if (width != cityWidth || height != cityHeight || cityTypes.length != cells) {
+                cityTypes = new byte[(int) cells];
+                cityHeights = new int[(int) cells];
+                cityWidth = width;
+                cityHeight = height;
+                cityChanges.reset();
+            }
+            int mode = in.get();
+            if (mode == CITY_FULL) {
+                Arrays.fill(cityTypes, CityGrid.EMPTY);
+                Arrays.fill(cityHeights, 0);
+                cityChanges.reset();
+            } else if (mode != CITY_CHANGES) {
+                throw new IOException("Mode kota tidak dikenal: " + mode);
+            }
+            int changed = GameSnapshot.count(in);
+            int cell = 0;
+            for (int i = 0; i < changed; i++) {
+                cell += GameSnapshot.varInt(in);
+                cityTypes[cell] = in.get();
+                cityHeights[cell] = GameSnapshot.varInt(in);
+                if (mode == CITY_CHANGES) cityChanges.record(cell);
+            }
+            cityVersion++;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package nusantara;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StartupProbe.java
+ *
+ * Mengukur waktu mulai game: dari JVM mulai sampai frame pertama tampil di layar dan sampai
+ * game pertama kali menerapkan masukan (tick pertama setelah frame pertama). Titik antara
+ * (main, sim siap, jendela tampil, dsb) dicatat dengan mark().
+ *
+ * -Dnusantara.startup=true mencetak laporannya ke stderr begitu game interaktif;
+ * -Dnusantara.startup=exit juga langsung keluar setelahnya, untuk training run AppCDS:
+ *   java -XX:ArchiveClassesAtExit=nusantara.jsa -Dnusantara.startup=exit -jar ...
+ * Tanpa flag, ENABLED bernilai false dan semua pemanggilan tidak melakukan apa-apa.
+ *
+ * Waktu sejak JVM mulai dihitung dari RuntimeMXBean saat laporan dibuat, bukan saat main
+ * mulai, agar memuat kelas management tidak ikut terukur.
+ */
+final class StartupProbe {
+
+    private static final String MODE = System.getProperty("nusantara.startup", "false");
+    static final boolean ENABLED = !"false".equals(MODE);
+    private static final boolean EXIT = "exit".equals(MODE);
+
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static final List<String> names = new ArrayList<>();
+    private static final List<Long> times = new ArrayList<>();
+    private static volatile boolean frameShown = false;
+    private static boolean reported = false;
+
+    private StartupProbe() {}
+
+    /** Mencatat titik antara; dari thread mana pun. */
+    static void mark(String milestone) {
+        if (!ENABLED) return;
+        long now = System.nanoTime();
+        synchronized (StartupProbe.class) {
+            names.add(milestone);
+            times.add(now);
+        }
+    }
+
+    /** Dipanggil setiap kali sebuah frame benar-benar tampil; hanya yang pertama dicatat. */
+    static void frameShown() {
+        if (!ENABLED || frameShown) return;
+        mark("frame pertama");
+        frameShown = true;
+    }
+
+    /** Dipanggil thread loop di awal tick: tick pertama setelah frame pertama = interaktif. */
+    static void tickStarted() {
+        if (!ENABLED || !frameShown || reported) return;
+        reported = true;
+        mark("interaktif");
+        report();
+        if (EXIT) System.exit(0);
+    }
+
+    private static void report() {
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        double jvmToOrigin = uptimeMillis - (System.nanoTime() - ORIGIN_NANOS) / 1e6;
+        StringBuilder out = new StringBuilder("Waktu mulai (ms sejak JVM mulai):\n");
+        synchronized (StartupProbe.class) {
+            long previous = ORIGIN_NANOS;
+            for (int i = 0; i < names.size(); i++) {
+                long time = times.get(i);
+                out.append(String.format("  %-16s %7.1f  (+%.1f)%n", names.get(i),
+                        jvmToOrigin + (time - ORIGIN_NANOS) / 1e6, (time - previous) / 1e6));
+                previous = time;
+            }
+        }
+        System.err.print(out);
+    }
+}
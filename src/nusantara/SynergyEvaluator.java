@@ -0,0 +1,129 @@
+package nusantara;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * SynergyEvaluator.java
+ *
+ * Menjaga total sinergi seluruh kota secara inkremental.
+ *
+ * Total kota = jumlah contributionOf(p) untuk semua petak p, yaitu setiap pasangan
+ * tetangga (a, b) dihitung dua kali: sekali sebagai bonus a terhadap b dan sekali sebagai
+ * bonus b terhadap a. Saat satu petak v berubah jenis, yang berubah hanya suku-suku yang
+ * melibatkan v, sehingga selisihnya cukup dihitung dari tetangga v: O(derajat), berapa
+ * pun ukuran kota.
+ *
+ * Semua perubahan kota harus lewat evaluator ini (place/demolish/clear) agar total tetap benar.
+ * recomputeParallel() menghitung ulang total dari nol untuk verifikasi atau setelah memuat kota.
+ */
+final class SynergyEvaluator {
+
+    /** Di bawah jumlah sel ini perhitungan ulang paralel dijalankan langsung tanpa dipecah. */
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+
+    private final CityGrid city;
+    private final SynergyRules rules;
+    private long total = 0;
+
+    SynergyEvaluator(CityGrid city, SynergyRules rules) {
+        this.city = city;
+        this.rules = rules;
+        this.total = recompute(0, city.cellCount());
+    }
+
+    long total() { return total; }
+
+    SynergyRules rules() { return rules; }
+
+    /** Bonus yang diterima bangunan di plot dari tetangga-tetangganya (aturan arah sumber saja). */
+    long contributionOf(int plot) {
+        byte source = city.typeCode(plot);
+        if (source <= CityGrid.EMPTY) return 0;
+        long bonus = 0;
+        for (int k = city.neighborStart(plot), end = city.neighborEnd(plot); k < end; k++) {
+            bonus += rules.bonus(source, city.typeCode(city.neighborAt(k)));
+        }
+        return bonus;
+    }
+
+    /** Semua suku total kota yang melibatkan plot jika plot berjenis code (dua arah). */
+    private long edgeValue(int plot, byte code) {
+        if (code <= CityGrid.EMPTY) return 0;
+        long value = 0;
+        for (int k = city.neighborStart(plot), end = city.neighborEnd(plot); k < end; k++) {
+            byte neighbor = city.typeCode(city.neighborAt(k));
+            value += rules.bonus(code, neighbor) + rules.bonus(neighbor, code);
+        }
+        return value;
+    }
+
+    /** Perubahan total kota jika plot diisi jenis type, tanpa benar-benar mengubah kota. */
+    long deltaIfPlaced(int plot, BlockType type) {
+        return edgeValue(plot, CityGrid.codeOf(type)) - edgeValue(plot, city.typeCode(plot));
+    }
+
+    /** Membangun atau mengganti bangunan di plot. Mengembalikan perubahan total kota. */
+    long place(int plot, BlockType type, int towerHeight) {
+        long delta = deltaIfPlaced(plot, type);
+        city.place(plot, type, towerHeight);
+        total += delta;
+        return delta;
+    }
+
+    /** Merobohkan bangunan di plot. Mengembalikan perubahan total kota (nol atau negatif). */
+    long demolish(int plot) {
+        long delta = -edgeValue(plot, city.typeCode(plot));
+        city.demolish(plot);
+        total += delta;
+        return delta;
+    }
+
+    void clear() {
+        city.clear();
+        total = 0;
+    }
+
+    // =================================================================================
+    // Perhitungan Ulang Penuh
+    // =================================================================================
+
+    /** Menghitung ulang total dari nol secara paralel di common pool lalu menyimpannya. */
+    long recomputeParallel() {
+        return recomputeParallel(ForkJoinPool.commonPool());
+    }
+
+    long recomputeParallel(ForkJoinPool pool) {
+        total = pool.invoke(new RecomputeTask(0, city.cellCount()));
+        return total;
+    }
+
+    /** Memeriksa bahwa total inkremental sama dengan hasil hitung ulang penuh (tanpa mengubahnya). */
+    boolean verify() {
+        return ForkJoinPool.commonPool().invoke(new RecomputeTask(0, city.cellCount())) == total;
+    }
+
+    private long recompute(int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) sum += contributionOf(i);
+        return sum;
+    }
+
+    private class RecomputeTask extends RecursiveTask<Long> {
+        private final int from, to;
+
+        RecomputeTask(int from, int to) { this.from = from; this.to = to; }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return recompute(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RecomputeTask left = new RecomputeTask(from, mid);
+            left.fork();
+            long right = new RecomputeTask(mid, to).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package nusantara;
+
+/**
+ * Tabel aturan sinergi kedekatan antar bangunan.
+ *
+ * bonusOf(sumber, tetangga) adalah skor yang didapat bangunan sumber untuk setiap
+ * tetangga berjenis tertentu. Aturan bersifat satu arah (PERUMAHAN di sebelah TAMAN
+ * tidak sama dengan TAMAN di sebelah PERUMAHAN). Tabel disimpan datar dan diindeks
+ * dengan kode jenis CityGrid (EMPTY = 0, jenis = ordinal + 1), sehingga baris/kolom
+ * EMPTY selalu nol dan loop evaluasi tidak perlu memeriksa petak kosong.
+ */
+final class SynergyRules {
+
+    static final int CODES = BlockType.values().length + 1;
+
+    private final int[] table = new int[CODES * CODES];
+    private int maxBonus = 0;
+
+    /** Aturan bawaan permainan: PERUMAHAN dekat TAMAN +250, BISNIS dekat PERUMAHAN +150. */
+    static SynergyRules defaults() {
+        return new SynergyRules()
+                .set(BlockType.PERUMAHAN, BlockType.TAMAN, 250)
+                .set(BlockType.BISNIS, BlockType.PERUMAHAN, 150);
+    }
+
+    SynergyRules set(BlockType source, BlockType neighbor, int bonus) {
+        table[CityGrid.codeOf(source) * CODES + CityGrid.codeOf(neighbor)] = bonus;
+        maxBonus = 0;
+        for (int value : table) maxBonus = Math.max(maxBonus, value);
+        return this;
+    }
+
+    /** Bonus untuk kode jenis mentah; kode EMPTY menghasilkan 0. Kode NO_PLOT tidak boleh dipakai. */
+    int bonus(byte sourceCode, byte neighborCode) {
+        return table[sourceCode * CODES + neighborCode];
+    }
+
+    int bonusOf(BlockType source, BlockType neighbor) {
+        return bonus(CityGrid.codeOf(source), CityGrid.codeOf(neighbor));
+    }
+
+    /** Nilai aturan terbesar; dipakai sebagai batas atas saat memangkas pencarian. */
+    int maxBonus() { return maxBonus; }
+}
@@ -0,0 +1,452 @@
+package nusantara;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * TowerRenderer.java
+ *
+ * Lapisan render NusantaraTower. Menggambar satu frame dari FrameSnapshot ke
+ * Graphics2D apa pun (panel Swing, BufferedImage offscreen, dsb). Renderer tidak pernah
+ * membaca TowerSimulation secara langsung, karena simulasi berjalan di thread lain.
+ *
+ * Tujuannya nol alokasi per frame pada kondisi stabil:
+ * - Font dan warna diambil dari RenderResources, bukan dibuat ulang.
+ * - Kota digambar lewat CityView: tile yang di-cache, hanya tile yang terlihat yang ditempel
+ *   dan hanya tile yang tersentuh perubahan yang digambar ulang. [M] membesarkan peta ke
+ *   hampir seluruh jendela; zoom dan geser lewat zoomCity()/panCity().
+ * - Teks HUD (skor, nyawa, antrean balok) dirasterisasi ulang hanya saat nilainya berubah.
+ * - String menu upgrade dan daftar skor tertinggi disusun ulang hanya saat isinya berubah.
+ *
+ * Satu instance hanya boleh dipakai oleh satu thread render.
+ */
+final class TowerRenderer {
+
+    // Area lapisan cache (koordinat layar); juga dipakai DirtyRegion
+    static final int CITY_X = 20, CITY_Y = 20, CITY_W = 260, CITY_H = 210;
+    static final int HUD_X = 590, HUD_Y = 20, HUD_W = 210, HUD_H = 200;
+    private static final int HINT_X = 310, HINT_Y = 10, HINT_W = 260, HINT_H = 50;
+    // Pita teks mode pilih petak (baris di y 240 dan 265)
+    static final int PLOT_TEXT_Y = 220, PLOT_TEXT_H = 55;
+
+    private static final String[] END_TITLES = new String[GameState.values().length];
+    private static final String[] END_SUBTITLES = new String[GameState.values().length];
+    static {
+        END_TITLES[GameState.GAME_OVER.ordinal()] = "GAME OVER";
+        END_SUBTITLES[GameState.GAME_OVER.ordinal()] = "Tekan [ENTER] untuk Mulai Ulang";
+        END_TITLES[GameState.TOWER_COMPLETE.ordinal()] = "MENARA SELESAI!";
+        END_SUBTITLES[GameState.TOWER_COMPLETE.ordinal()] = "Tekan [ENTER] untuk Lanjut";
+        END_TITLES[GameState.TOWER_FAILED.ordinal()] = "MENARA GAGAL!";
+        END_SUBTITLES[GameState.TOWER_FAILED.ordinal()] = "Tekan [ENTER] untuk Coba Lagi";
+        END_TITLES[GameState.PLAYING.ordinal()] = "";
+        END_SUBTITLES[GameState.PLAYING.ordinal()] = "";
+    }
+    private static final String HIGH_SCORE_TITLE = "Skor Tertinggi:";
+    private static final String BACK_TEXT = "Tekan [U] untuk Kembali";
+    private static final String OCCUPIED_TEXT = "Petak sudah terisi, pilih petak kosong";
+
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+
+    // Lapisan yang dirasterisasi ulang hanya saat kotor
+    private final BufferedImage hudLayer = new BufferedImage(HUD_W, HUD_H, BufferedImage.TYPE_INT_ARGB);
+    private final BufferedImage hintLayer = new BufferedImage(HINT_W, HINT_H, BufferedImage.TYPE_INT_ARGB);
+    private boolean hintsRasterized = false; // baru di frame pertama: membuat panel tidak perlu memuat font
+
+    // Kota: kotak kecil di kiri atas, atau peta besar (diminta dari EDT, dibaca thread render)
+    private final CityView cityView = new CityView();
+    private volatile boolean cityMapExpanded = false;
+    private int cityX = CITY_X, cityY = CITY_Y;
+
+    // Teks saran petak, disusun ulang hanya saat rencana berganti
+    private CityPlanner.Plan cachedPlan;
+    private String planLine = "";
+    private int planLineWidth = -1;
+    private int occupiedTextWidth = -1;
+    private long cachedHudScore = -1;
+    private int cachedHudLives = -1;
+    private int cachedQueueVersion = -1;
+
+    // Teks menu upgrade
+    private int cachedUpgradeVersion = -1;
+    private long cachedMenuScore = -1;
+    private String menuScoreText;
+    private String[] menuLines = new String[0];
+    private Color[] menuColors = new Color[0];
+
+    // Teks layar akhir; lebar teks disimpan agar tidak perlu FontMetrics tiap frame
+    private final int[] endTitleWidths = new int[END_TITLES.length];
+    private final int[] endSubtitleWidths = new int[END_SUBTITLES.length];
+    private int highScoreTitleWidth = -1;
+    private int backTextWidth = -1;
+    private int cachedHighScoreVersion = -1;
+    private String[] highScoreLines = new String[0];
+    private int[] highScoreWidths = new int[0];
+    private long cachedRank = -1;
+    private String rankLine = "";
+    private int rankLineWidth = 0;
+
+    private final DebugOverlay debugOverlay = new DebugOverlay();
+
+    TowerRenderer() {
+        Arrays.fill(endTitleWidths, -1);
+        Arrays.fill(endSubtitleWidths, -1);
+    }
+
+    /** Menggambar satu frame tanpa latar langit (latar diisi oleh pemanggil, mis. JPanel). */
+    void render(Graphics2D g2d, int width, int height, FrameSnapshot frame) {
+        long frameStart = Profiler.start();
+        long allocated = Profiler.allocatedBytes();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        GameState gameState = frame.gameState;
+        boolean mapExpanded = cityMapExpanded;
+        long start;
+        if (!mapExpanded) {
+            start = Profiler.start();
+            drawCity(g2d, CITY_X, CITY_Y, CITY_W, CITY_H, frame);
+            Profiler.end(Profiler.DRAW_CITY, start);
+        }
+
+        start = Profiler.start();
+        drawTower(g2d, frame);
+        Profiler.end(Profiler.DRAW_TOWER, start);
+
+        if (gameState != GameState.GAME_OVER) {
+            start = Profiler.start();
+            drawCraneAndHangingBlock(g2d, width, frame);
+            Profiler.end(Profiler.DRAW_CRANE, start);
+        }
+
+        start = Profiler.start();
+        drawUI(g2d, frame);
+        Profiler.end(Profiler.DRAW_UI, start);
+
+        if (mapExpanded) {
+            start = Profiler.start();
+            drawCity(g2d, CITY_X, CITY_Y, width - 2 * CITY_X, height - 2 * CITY_Y, frame);
+            Profiler.end(Profiler.DRAW_CITY, start);
+        }
+
+        if(frame.showingUpgrades || gameState != GameState.PLAYING) {
+            start = Profiler.start();
+            if (frame.showingUpgrades) {
+                drawUpgradeMenu(g2d, width, frame);
+            } else {
+                drawEndScreen(g2d, width, height, frame);
+            }
+            Profiler.end(Profiler.DRAW_MENU, start);
+        }
+
+        if (frame.choosePlots && gameState != GameState.GAME_OVER && !frame.showingUpgrades) {
+            drawPlotChooser(g2d, width, frame);
+        }
+
+        if (Profiler.isOverlayVisible()) {
+            debugOverlay.draw(g2d, height);
+        }
+        Profiler.endFrameAllocation(allocated);
+        Profiler.end(Profiler.PAINT, frameStart);
+    }
+
+    /** Seperti render(), tetapi mengisi latar langit terlebih dahulu (untuk target offscreen). */
+    void renderFrame(Graphics2D g2d, int width, int height, FrameSnapshot frame) {
+        g2d.setColor(RenderResources.SKY);
+        g2d.fillRect(0, 0, width, height);
+        render(g2d, width, height, frame);
+    }
+
+    /** Snapshot hanya berisi balok di dalam viewport, jadi biayanya tetap berapa pun tinggi menaranya. */
+    private void drawTower(Graphics2D g, FrameSnapshot frame) {
+        int cameraY = frame.cameraY;
+        int blockHeight = TowerStore.BLOCK_HEIGHT;
+        for (int k = 0; k < frame.towerCount; k++) {
+            int x = frame.towerX[k], y = TowerStore.y(frame.towerFrom + k) - cameraY, w = frame.towerWidth[k];
+            g.setColor(RenderResources.darkColorOf(frame.towerTypeAt(k)));
+            g.fillRect(x, y, w, blockHeight);
+            g.setColor(Color.DARK_GRAY);
+            g.drawRect(x, y, w, blockHeight);
+        }
+    }
+
+    /** [M]: kotak kota kecil <-> peta besar. Dari thread mana pun. */
+    void toggleCityMap() { cityMapExpanded = !cityMapExpanded; }
+
+    boolean isCityMapExpanded() { return cityMapExpanded; }
+
+    /** Zoom peta kota (langkah positif = masuk). Dari thread mana pun. */
+    void zoomCity(int steps) { cityView.zoomBy(steps); }
+
+    /** Menggeser peta kota sejauh seretan mouse. Dari thread mana pun. */
+    void panCity(int dx, int dy) { cityView.panBy(dx, dy); }
+
+    private void drawCity(Graphics2D g, int x, int y, int width, int height, FrameSnapshot frame) {
+        cityX = x;
+        cityY = y;
+        cityView.draw(g, x, y, width, height, frame);
+    }
+
+    /**
+     * Mode pilih petak: kursor (kuning), saran planner (putih) dan proyeksi antrean (kotak
+     * kecil berwarna jenisnya), digambar di atas layar akhir agar tetap terang.
+     */
+    private void drawPlotChooser(Graphics2D g, int width, FrameSnapshot frame) {
+        CityPlanner.Plan plan = frame.plan;
+        if (plan != null) {
+            for (int step = plan.steps() - 1; step >= 0; step--) {
+                int plot = plan.plotAt(step);
+                if (step == 0) {
+                    g.setColor(Color.WHITE);
+                    drawPlotMarker(g, plot, 0);
+                } else {
+                    g.setColor(RenderResources.colorOf(plan.typeAt(step)));
+                    fillPlotMarker(g, plot);
+                }
+            }
+        }
+        int cursor = frame.cityCursor;
+        if (cursor >= 0) {
+            g.setColor(Color.YELLOW);
+            drawPlotMarker(g, cursor, 1);
+        }
+
+        if (frame.gameState != GameState.TOWER_COMPLETE) return;
+        g.setFont(RenderResources.FONT_MEDIUM);
+        if (plan != cachedPlan || planLineWidth < 0) {
+            cachedPlan = plan;
+            planLine = plan == null || plan.steps() == 0 ? "[Panah] pilih petak, [ENTER] bangun"
+                    : String.format("[Panah] pilih petak, [S] saran +%d (rencana +%d%s), [ENTER] bangun",
+                        plan.gainAt(0), plan.totalGain(), plan.isComplete() ? "" : ", sebagian");
+            planLineWidth = g.getFontMetrics().stringWidth(planLine);
+        }
+        g.setColor(Color.WHITE);
+        g.drawString(planLine, (width - planLineWidth) / 2, 240);
+        if (cursor >= 0 && frame.cityTypes[cursor] > CityGrid.EMPTY) {
+            if (occupiedTextWidth < 0) occupiedTextWidth = g.getFontMetrics().stringWidth(OCCUPIED_TEXT);
+            g.setColor(Color.ORANGE);
+            g.drawString(OCCUPIED_TEXT, (width - occupiedTextWidth) / 2, 265);
+        }
+    }
+
+    /** Bingkai di sekeliling sel plot (jika sedang tampil seluruhnya di peta kota), tebal 1 + grow px. */
+    private void drawPlotMarker(Graphics2D g, int plot, int grow) {
+        if (!cityView.locate(plot)) return;
+        int px = cityX + cityView.locatedX, py = cityY + cityView.locatedY, size = cityView.locatedSize;
+        for (int i = 0; i <= grow; i++) {
+            g.drawRect(px + i, py + i, size - 1 - 2 * i, size - 1 - 2 * i);
+        }
+    }
+
+    private void fillPlotMarker(Graphics2D g, int plot) {
+        if (!cityView.locate(plot)) return;
+        int size = cityView.locatedSize;
+        int quarter = Math.max(1, size / 4);
+        g.fillRect(cityX + cityView.locatedX + quarter, cityY + cityView.locatedY + quarter,
+                Math.max(1, size - 2 * quarter), Math.max(1, size - 2 * quarter));
+    }
+
+    private void drawCraneAndHangingBlock(Graphics2D g, int width, FrameSnapshot frame) {
+        // Interpolasi antara tick sebelumnya dan tick terakhir agar gerakan halus di FPS berapa pun
+        double alpha = frame.alpha;
+        int drawCraneX = lerp(frame.prevCraneX, frame.craneX, alpha);
+        int blockX = lerp(frame.prevHangingX, frame.hangingX, alpha);
+        int blockY = lerp(frame.prevHangingY, frame.hangingY, alpha) - frame.cameraY;
+
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(0, 75, width, 10);
+        g.setColor(Color.GRAY);
+        g.fillRect(drawCraneX - 25, 70, 50, 25);
+
+        g.setColor(Color.BLACK);
+        g.drawLine(drawCraneX, 85, blockX + frame.hangingWidth / 2, blockY);
+
+        g.setColor(RenderResources.colorOf(frame.hangingType));
+        g.fillRect(blockX, blockY, frame.hangingWidth, frame.hangingHeight);
+        g.setColor(Color.DARK_GRAY);
+        g.drawRect(blockX, blockY, frame.hangingWidth, frame.hangingHeight);
+    }
+
+    /**
+     * Kotak pembatas (x0, y0, x1, y1, eksklusif) semua yang digambar drawCraneAndHangingBlock
+     * selain rel crane yang selebar layar dan tidak pernah bergerak.
+     */
+    static void craneBounds(FrameSnapshot frame, int[] bounds) {
+        double alpha = frame.alpha;
+        int drawCraneX = lerp(frame.prevCraneX, frame.craneX, alpha);
+        int blockX = lerp(frame.prevHangingX, frame.hangingX, alpha);
+        int blockY = lerp(frame.prevHangingY, frame.hangingY, alpha) - frame.cameraY;
+        int ropeX = blockX + frame.hangingWidth / 2;
+        bounds[0] = Math.min(drawCraneX - 25, Math.min(blockX, ropeX));
+        bounds[1] = Math.min(70, blockY);
+        bounds[2] = Math.max(drawCraneX + 25, blockX + frame.hangingWidth + 1);
+        bounds[3] = Math.max(95, blockY + frame.hangingHeight + 1);
+    }
+
+    private static int lerp(int from, int to, double alpha) {
+        return (int) Math.round(from + (to - from) * alpha);
+    }
+
+    private void drawUI(Graphics2D g, FrameSnapshot frame) {
+        long score = frame.score;
+        int lives = frame.lives;
+        int queueVersion = frame.queueVersion;
+        if (score != cachedHudScore || lives != cachedHudLives || queueVersion != cachedQueueVersion) {
+            cachedHudScore = score;
+            cachedHudLives = lives;
+            cachedQueueVersion = queueVersion;
+            rasterizeHud(frame);
+        }
+        if (!hintsRasterized) {
+            rasterizeHints();
+            hintsRasterized = true;
+        }
+        g.drawImage(hudLayer, HUD_X, HUD_Y, null);
+        g.drawImage(hintLayer, HINT_X, HINT_Y, null);
+    }
+
+    private void rasterizeHud(FrameSnapshot frame) {
+        long score = frame.score;
+        int lives = frame.lives;
+        Graphics2D g = clearLayer(hudLayer);
+        g.translate(-HUD_X, -HUD_Y);
+
+        g.setColor(Color.BLACK);
+        g.setFont(RenderResources.FONT_LARGE);
+        g.drawString("Skor: " + score, 600, 50);
+
+        g.drawString("Nyawa: ", 600, 80);
+        g.setColor(Color.RED);
+        for(int i = 0; i < lives; i++) {
+            g.fillOval(690 + (i * 30), 62, 20, 20);
+        }
+
+        g.setColor(Color.BLACK);
+        g.setFont(RenderResources.FONT_MEDIUM);
+        g.drawString("Berikutnya:", 600, 130);
+        for(int i = 0; i < frame.upcomingCount; i++) {
+            g.setColor(RenderResources.colorOf(frame.upcoming[i]));
+            g.fillRect(600, 140 + i * 25, 50, 20);
+        }
+        g.dispose();
+    }
+
+    private void rasterizeHints() {
+        Graphics2D g = clearLayer(hintLayer);
+        g.translate(-HINT_X, -HINT_Y);
+        g.setColor(Color.BLACK);
+        g.setFont(RenderResources.FONT_SMALL);
+        g.drawString("Tekan [SPACE] untuk jatuh", 320, 30);
+        g.drawString("Tekan [U] untuk Upgrade", 320, 50);
+        g.dispose();
+    }
+
+    private static Graphics2D clearLayer(BufferedImage layer) {
+        Graphics2D g = layer.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, layer.getWidth(), layer.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return g;
+    }
+
+    private void drawEndScreen(Graphics2D g, int width, int height, FrameSnapshot frame) {
+        g.setColor(RenderResources.END_SCREEN_OVERLAY);
+        g.fillRect(0, 0, width, height);
+
+        GameState gameState = frame.gameState;
+        int state = gameState.ordinal();
+
+        g.setColor(gameState == GameState.TOWER_FAILED ? Color.ORANGE : Color.WHITE);
+        g.setFont(RenderResources.FONT_TITLE);
+        if (endTitleWidths[state] < 0) {
+            endTitleWidths[state] = g.getFontMetrics().stringWidth(END_TITLES[state]);
+        }
+        g.drawString(END_TITLES[state], (width - endTitleWidths[state]) / 2, 150);
+
+        g.setColor(Color.WHITE);
+        g.setFont(RenderResources.FONT_LARGE);
+        if (endSubtitleWidths[state] < 0) {
+            endSubtitleWidths[state] = g.getFontMetrics().stringWidth(END_SUBTITLES[state]);
+        }
+        g.drawString(END_SUBTITLES[state], (width - endSubtitleWidths[state]) / 2, 200);
+
+        if(gameState == GameState.GAME_OVER) {
+            if (highScoreTitleWidth < 0) {
+                highScoreTitleWidth = g.getFontMetrics().stringWidth(HIGH_SCORE_TITLE);
+            }
+            g.drawString(HIGH_SCORE_TITLE, (width - highScoreTitleWidth) / 2, 280);
+
+            if (frame.highScoreVersion != cachedHighScoreVersion || frame.lastRank != cachedRank) {
+                cachedHighScoreVersion = frame.highScoreVersion;
+                cachedRank = frame.lastRank;
+                rebuildHighScoreLines(g.getFontMetrics(), frame);
+            }
+            int yPos = 310;
+            for (int i = 0; i < highScoreLines.length; i++) {
+                g.drawString(highScoreLines[i], (width - highScoreWidths[i]) / 2, yPos);
+                yPos += 30;
+            }
+            g.setColor(Color.YELLOW);
+            g.drawString(rankLine, (width - rankLineWidth) / 2, yPos + 20);
+        }
+    }
+
+    private void rebuildHighScoreLines(FontMetrics metrics, FrameSnapshot frame) {
+        int count = frame.topCount;
+        highScoreLines = new String[count];
+        highScoreWidths = new int[count];
+        for (int i = 0; i < count; i++) {
+            highScoreLines[i] = String.format("%-10d", frame.topScores[i]);
+            highScoreWidths[i] = metrics.stringWidth(highScoreLines[i]);
+        }
+        rankLine = cachedRank > 0 ? String.format("Peringkat Anda: #%,d dari %,d", cachedRank, frame.leaderboardSize) : "";
+        rankLineWidth = metrics.stringWidth(rankLine);
+    }
+
+    private void drawUpgradeMenu(Graphics2D g, int width, FrameSnapshot frame) {
+        long currentScore = frame.score;
+        int version = frame.upgradeVersion;
+        if (version != cachedUpgradeVersion || currentScore != cachedMenuScore) {
+            cachedUpgradeVersion = version;
+            cachedMenuScore = currentScore;
+            rebuildMenuLines(frame);
+        }
+
+        g.setColor(RenderResources.MENU_OVERLAY);
+        g.fillRect(150, 100, 500, 400);
+        g.setColor(Color.WHITE);
+        g.setFont(RenderResources.FONT_LARGE);
+        g.drawString("Menu Upgrade", 320, 140);
+        g.setFont(RenderResources.FONT_MENU);
+        g.drawString(menuScoreText, 330, 170);
+
+        int yPos = 220;
+        for (int i = 0; i < menuLines.length; i++) {
+            g.setColor(menuColors[i]);
+            g.drawString(menuLines[i], 180, yPos);
+            yPos += 30;
+        }
+
+        // Tombol kembali
+        g.setFont(RenderResources.FONT_MEDIUM);
+        g.setColor(Color.YELLOW);
+        if (backTextWidth < 0) {
+            backTextWidth = g.getFontMetrics().stringWidth(BACK_TEXT);
+        }
+        g.drawString(BACK_TEXT, (width - backTextWidth) / 2, 480);
+    }
+
+    private void rebuildMenuLines(FrameSnapshot frame) {
+        long currentScore = frame.score;
+        menuScoreText = "Skor Anda: " + currentScore;
+        int count = frame.upgradeCount;
+        menuLines = new String[count];
+        menuColors = new Color[count];
+
+        for (int i = 0; i < count; i++) {
+            int cost = frame.upgradeCosts[i];
+            menuColors[i] = currentScore < cost ? Color.GRAY : Color.GREEN;
+            menuLines[i] = String.format("[%d] %s [%d Skor]", i + 1, frame.upgradeNames[i], cost);
+        }
+    }
+}
@@ -0,0 +1,742 @@
+package nusantara;
+
+import java.util.*;
+
+/**
+ * TowerSimulation.java
+ *
+ * Inti aturan permainan NusantaraTower tanpa ketergantungan pada Swing/AWT.
+ * Semua logika (gerak crane, jatuhnya balok, tabrakan, kota, sinergi, upgrade, skor)
+ * ada di sini sehingga bisa dijalankan headless, lebih cepat dari 60 Hz, dan paralel.
+ *
+ * Ukuran arena tetap (PLAYFIELD_WIDTH x PLAYFIELD_HEIGHT) dan tidak lagi membaca
+ * getWidth() dari panel, sehingga hasil simulasi sama di mesin mana pun.
+ *
+ * Masukan pemain diterjemahkan menjadi perintah (CMD_*) dan diberikan lewat handleInput().
+ * Keacakan hanya berasal dari GameRandom dengan seed, sehingga seed + urutan perintah per
+ * tick selalu menghasilkan game yang sama persis (lihat Replay dan ReplayPlayer).
+ */
+public class TowerSimulation {
+
+    // =================================================================================
+    // Konstanta Arena & Perintah
+    // =================================================================================
+    public static final int PLAYFIELD_WIDTH = 800;
+    public static final int PLAYFIELD_HEIGHT = 600;
+    public static final int CITY_GRID_WIDTH = 5;
+    public static final int CITY_GRID_HEIGHT = 4;
+    public static final int STARTING_LIVES = 3;
+    public static final int TOWER_TARGET_HEIGHT = 10;
+    /** Jarak minimal antara puncak menara dan balok baru di crane. */
+    static final int SPAWN_CLEARANCE = 300;
+    static final int SPAWN_Y = 100;
+    /** Kecepatan jatuh balok (piksel per tick). Pendaratan dihitung analitik, jadi berapa pun aman. */
+    static final int FALL_SPEED = 5;
+    /** Batas gerak crane: berbalik arah setelah melewati CRANE_MIN_X atau CRANE_MAX_X. */
+    static final int CRANE_MIN_X = 150;
+    static final int CRANE_MAX_X = PLAYFIELD_WIDTH - 150;
+
+    /** Tidak ada masukan pada tick ini. */
+    public static final int CMD_NONE = -1;
+    /** [SPACE] Jatuhkan balok. */
+    public static final int CMD_DROP = 0;
+    /** [ENTER] Lanjut / coba lagi / mulai ulang. */
+    public static final int CMD_CONFIRM = 1;
+    /** [U] Buka/tutup menu upgrade. */
+    public static final int CMD_TOGGLE_UPGRADES = 2;
+    /** [1]-[9] Beli upgrade ke-(n - CMD_BUY_UPGRADE). */
+    public static final int CMD_BUY_UPGRADE = 3;
+    public static final int MAX_UPGRADE_SLOTS = 9;
+    /** [Panah] Geser kursor petak kota (mode pilih petak). Nilai 12-15 setelah slot upgrade. */
+    public static final int CMD_CURSOR_LEFT = 12;
+    public static final int CMD_CURSOR_RIGHT = 13;
+    public static final int CMD_CURSOR_UP = 14;
+    public static final int CMD_CURSOR_DOWN = 15;
+    /** Pindahkan kursor petak langsung ke petak argument (mis. saran CityPlanner). */
+    public static final int CMD_SELECT_PLOT = 16;
+
+    /**
+     * Skala argumen CMD_DROP pada handleInput(command, argument): DROP_OFFSET_SCALE = satu tick penuh.
+     * 0 = posisi saat ini, -DROP_OFFSET_SCALE = posisi tick sebelumnya, +DROP_OFFSET_SCALE = satu
+     * langkah crane ke depan. Muat dalam satu byte bertanda di replay.
+     */
+    public static final int DROP_OFFSET_SCALE = 127;
+
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+
+    // =================================================================================
+    // Struktur Data Inti Permainan
+    // =================================================================================
+    private final TowerStore tower = new TowerStore();
+    private Queue<BlockType> upcomingBlocksQueue;
+    private final CityGrid cityGrid;
+    private final SynergyEvaluator synergy;
+    private UpgradeProgress upgrades;
+    private Leaderboard leaderboard = Leaderboard.inMemory(Leaderboard.DEFAULT_TOP_K);
+    private int highScoreVersionBase = 0; // agar getHighScoreVersion() tetap naik saat papan skor diganti
+
+    // =================================================================================
+    // Variabel State
+    // =================================================================================
+    private final GameRandom random;
+    private long gameSeed;        // state RNG saat game yang sedang berjalan dimulai
+    private ReplayRecorder recorder;
+    private Replay lastReplay;
+    private GameState gameState;
+    private boolean showingUpgrades = false;
+    private boolean endless = false;
+    private boolean choosePlots = false;
+    private long tickCount = 0;
+
+    // Versi naik setiap kali bagian state berubah, agar lapisan render tahu kapan cache-nya basi
+    private int cityVersion = 0;
+    private int queueVersion = 0;
+    private int upgradeVersion = 0;
+
+    // Crane & balok
+    private Block hangingBlock;
+    private int craneX = 200;
+    private int craneDirection = 1; // 1 untuk kanan, -1 untuk kiri
+    private boolean blockIsFalling = false;
+    // Dihitung sekali saat balok dilepas (predictLanding): sisa tick jatuh dan lebar tumpang tindih
+    private int ticksToLanding;
+    private int landingOverlap;
+
+    // Posisi pada tick sebelumnya, untuk interpolasi render di antara dua tick
+    private int prevCraneX = 200;
+    private int prevHangingX;
+    private int prevHangingY;
+
+    // Kamera: koordinat dunia yang tampil di y = 0 layar. Nol selama menara muat di layar,
+    // negatif (bergulir ke atas) saat menara mode tanpa batas tumbuh melewati layar.
+    private int cameraY = 0;
+
+    // Skor, kota & nyawa
+    private long currentScore = 0;
+    private int playerLives;
+    private int nextCityPlot = 0; // indeks sel CityGrid (kursor pada mode pilih petak), -1 jika kota sudah penuh
+    private long lastRank = 0;    // peringkat skor akhir terakhir di leaderboard (1 = terbaik)
+
+    // =================================================================================
+    // Kelas-kelas Internal (Data Structures)
+    // =================================================================================
+
+    /** Balok yang sedang tergantung/jatuh. Balok di menara disimpan di TowerStore. */
+    static class Block {
+        int x, y, width, height;
+        BlockType type;
+        public Block(int x, int y, int width, int height, BlockType type) {
+            this.x = x; this.y = y; this.width = width; this.height = height; this.type = type;
+        }
+    }
+
+    // =================================================================================
+    // Konstruktor dan Inisialisasi
+    // =================================================================================
+    public TowerSimulation() {
+        this(GameRandom.freshSeed());
+    }
+
+    public TowerSimulation(long seed) {
+        this(seed, CityGrid.rectangular(CITY_GRID_WIDTH, CITY_GRID_HEIGHT));
+    }
+
+    /** Simulasi dengan peta kota sendiri (mis. peta besar atau tidak persegi panjang). */
+    TowerSimulation(long seed, CityGrid city) {
+        this(seed, city, SynergyRules.defaults());
+    }
+
+    TowerSimulation(long seed, CityGrid city, SynergyRules rules) {
+        this(seed, city, rules, UpgradeGraph.defaults());
+    }
+
+    /** Simulasi dengan graf upgrade sendiri (mis. graf besar untuk benchmark). */
+    TowerSimulation(long seed, CityGrid city, SynergyRules rules, UpgradeGraph upgradeGraph) {
+        this.random = new GameRandom(seed);
+        this.cityGrid = city;
+        this.synergy = new SynergyEvaluator(city, rules);
+        this.upgrades = new UpgradeProgress(upgradeGraph);
+        initGame();
+    }
+
+    /** Simulasi kota 5x4 yang game pertamanya dimulai dari state RNG seed, persis seperti saat direkam. */
+    static TowerSimulation forReplay(long seed, boolean endless, boolean choosePlots) {
+        return forReplay(seed, CITY_GRID_WIDTH, CITY_GRID_HEIGHT, endless, choosePlots);
+    }
+
+    /** Simulasi untuk memainkan ulang replay: seed, ukuran kota dan mode dari header-nya. */
+    static TowerSimulation forReplay(Replay replay) {
+        return forReplay(replay.getSeed(), replay.getCityWidth(), replay.getCityHeight(), replay.isEndless(),
+                replay.isChoosePlots());
+    }
+
+    private static TowerSimulation forReplay(long seed, int cityWidth, int cityHeight, boolean endless, boolean choosePlots) {
+        TowerSimulation sim = new TowerSimulation(seed, CityGrid.rectangular(cityWidth, cityHeight));
+        if (endless || choosePlots) {
+            sim.endless = endless;
+            sim.choosePlots = choosePlots;
+            sim.restartGame();
+        }
+        return sim;
+    }
+
+    void initGame() {
+        gameSeed = random.getState();
+        upcomingBlocksQueue = new LinkedList<>();
+        synergy.clear();
+        // Upgrade direset lebih dulu: balok dasar dan balok gantung memakai lebar dasar
+        upgrades.reset();
+
+        resetTower();
+        for (int i = 0; i < 3; i++) {
+            upcomingBlocksQueue.offer(getRandomBlockType());
+        }
+        cityVersion++;
+        upgradeVersion++;
+
+        gameState = GameState.PLAYING;
+        showingUpgrades = false;
+        currentScore = 0;
+        playerLives = STARTING_LIVES;
+        craneX = 200;
+        craneDirection = 1;
+        nextCityPlot = cityGrid.nextPlot(0);
+
+        prepareNextHangingBlock();
+        if (recorder != null) {
+            // Replay hanya menyimpan ukuran kota, jadi peta yang tidak persegi panjang tidak bisa direkam
+            if (cityGrid.plotCount() == cityGrid.cellCount() && cityGrid.cellCount() <= Replay.MAX_CITY_CELLS) {
+                recorder.begin(gameSeed, cityGrid.width(), cityGrid.height(), endless, choosePlots, tickCount);
+            } else {
+                recorder.cancel();
+            }
+        }
+    }
+
+    private void resetTower() {
+        tower.clear();
+        tower.push(350, upgrades.stat(UpgradeGraph.Stat.BLOCK_WIDTH), BlockType.PERUMAHAN);
+    }
+
+    /**
+     * Mode tanpa batas: menara tidak pernah "selesai" dan tidak dipindah ke kota, kegagalan
+     * hanya mengurangi nyawa tanpa merobohkan menara. Mengganti mode memulai game baru.
+     */
+    public void setEndlessMode(boolean endless) {
+        this.endless = endless;
+        initGame();
+    }
+
+    public boolean isEndlessMode() { return endless; }
+
+    /**
+     * Mode pilih petak: menara yang selesai dibangun di petak kursor (dipindah dengan
+     * CMD_CURSOR_* atau CMD_SELECT_PLOT), bukan di petak berikutnya menurut urutan baris.
+     * Mengganti mode memulai game baru.
+     */
+    public void setChoosePlotMode(boolean choosePlots) {
+        this.choosePlots = choosePlots;
+        initGame();
+    }
+
+    public boolean isChoosePlotMode() { return choosePlots; }
+
+    /**
+     * Memasang perekam replay. Rekaman harus dimulai dari awal game, jadi game yang sedang
+     * berjalan diulang dari awal dengan seed yang sama (urutan baloknya tidak berubah).
+     */
+    void setReplayRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+        restartGame();
+    }
+
+    private void restartGame() {
+        random.setState(gameSeed);
+        initGame();
+    }
+
+    /** Replay game yang sedang berjalan sejauh ini, atau null jika tidak sedang merekam. */
+    Replay snapshotReplay() {
+        return recorder == null ? null : recorder.snapshot(tickCount, currentScore);
+    }
+
+    // =================================================================================
+    // Simpan & Muat
+    // =================================================================================
+
+    /**
+     * Seluruh state game saat ini untuk disimpan. Menara dan kota dipakai bersama secara
+     * copy-on-write, jadi biayanya tidak bergantung ukuran kota; aman diteruskan ke thread
+     * lain untuk di-encode selama sim terus berjalan.
+     */
+    GameSnapshot snapshotState() {
+        GameSnapshot s = new GameSnapshot();
+        s.gameSeed = gameSeed;
+        s.randomState = random.getState();
+        s.tickCount = tickCount;
+        s.score = currentScore;
+        s.lastRank = lastRank;
+        s.gameState = gameState;
+        s.endless = endless;
+        s.choosePlots = choosePlots;
+        s.showingUpgrades = showingUpgrades;
+        s.blockIsFalling = blockIsFalling;
+        s.lives = playerLives;
+        s.nextCityPlot = nextCityPlot;
+        s.craneX = craneX;
+        s.craneDirection = craneDirection;
+        s.prevCraneX = prevCraneX;
+        s.cameraY = cameraY;
+        s.hangingX = hangingBlock.x;
+        s.hangingY = hangingBlock.y;
+        s.hangingWidth = hangingBlock.width;
+        s.hangingType = hangingBlock.type;
+        s.prevHangingX = prevHangingX;
+        s.prevHangingY = prevHangingY;
+        s.upcoming = upcomingBlocksQueue.toArray(new BlockType[0]);
+        s.purchasedUpgrades = new String[upgrades.purchasedCount()];
+        for (int i = 0; i < s.purchasedUpgrades.length; i++) {
+            s.purchasedUpgrades[i] = upgrades.graph().id(upgrades.purchasedAt(i));
+        }
+        s.tower = tower.snapshot();
+        s.city = cityGrid.snapshot();
+        s.replay = snapshotReplay();
+        return s;
+    }
+
+    /**
+     * Melanjutkan game dari snapshot. Peta kota harus berbentuk sama dan semua upgrade harus
+     * ada di graf upgrade; jika tidak, IllegalArgumentException dilempar sebelum state diubah.
+     * Rekaman replay ikut dilanjutkan jika snapshot membawanya, sehingga skor akhirnya tetap
+     * bisa diverifikasi; tanpa replay, game ini tidak direkam.
+     */
+    void restore(GameSnapshot s) {
+        if (!cityGrid.sameShapeAs(s.city)) {
+            throw new IllegalArgumentException("Peta kota simpanan (" + s.city.width() + "x" + s.city.height() + ") berbeda");
+        }
+        UpgradeGraph graph = upgrades.graph();
+        UpgradeProgress restored = new UpgradeProgress(graph);
+        for (String id : s.purchasedUpgrades) {
+            int upgrade = graph.indexOf(id);
+            if (upgrade < 0 || !restored.purchaseUpgrade(upgrade)) {
+                throw new IllegalArgumentException("Upgrade simpanan tidak ada di graf upgrade: " + id);
+            }
+        }
+
+        upgrades = restored;
+        cityGrid.copyFrom(s.city);
+        synergy.recomputeParallel();
+        tower.copyFrom(s.tower);
+        upcomingBlocksQueue = new LinkedList<>(Arrays.asList(s.upcoming));
+        gameSeed = s.gameSeed;
+        random.setState(s.randomState);
+        tickCount = s.tickCount;
+        currentScore = s.score;
+        lastRank = s.lastRank;
+        gameState = s.gameState;
+        endless = s.endless;
+        choosePlots = s.choosePlots;
+        showingUpgrades = s.showingUpgrades;
+        blockIsFalling = s.blockIsFalling;
+        playerLives = s.lives;
+        nextCityPlot = s.nextCityPlot;
+        craneX = s.craneX;
+        craneDirection = s.craneDirection;
+        prevCraneX = s.prevCraneX;
+        cameraY = s.cameraY;
+        hangingBlock.x = s.hangingX;
+        hangingBlock.y = s.hangingY;
+        hangingBlock.width = s.hangingWidth;
+        hangingBlock.type = s.hangingType;
+        prevHangingX = s.prevHangingX;
+        prevHangingY = s.prevHangingY;
+        if (blockIsFalling) predictLanding(); // sisa tick jatuh sama persis dengan sebelum disimpan
+        cityVersion++;
+        queueVersion++;
+        upgradeVersion++;
+
+        if (recorder != null) {
+            if (s.replay != null && s.replay.getFormatVersion() == Replay.FORMAT_VERSION) {
+                recorder.resume(s.replay, tickCount);
+            } else {
+                recorder.cancel();
+            }
+        }
+    }
+
+    // =================================================================================
+    // Langkah Simulasi
+    // =================================================================================
+
+    /** Satu langkah simulasi tetap (1/60 detik pada kecepatan normal). */
+    public void tick() {
+        tickCount++;
+        prevCraneX = craneX;
+        prevHangingX = hangingBlock.x;
+        prevHangingY = hangingBlock.y;
+        if(gameState == GameState.PLAYING && !showingUpgrades) {
+            updateGame();
+        }
+    }
+
+    private void updateGame() {
+        long start = Profiler.start();
+        if (!blockIsFalling) {
+            craneX += craneStep() * craneDirection;
+            if (craneX > CRANE_MAX_X || craneX < CRANE_MIN_X) {
+                craneDirection *= -1;
+            }
+            hangingBlock.x = craneX - (hangingBlock.width / 2);
+        }
+
+        if (blockIsFalling) {
+            hangingBlock.y += FALL_SPEED;
+            if (--ticksToLanding == 0) checkCollision();
+        }
+        Profiler.end(Profiler.UPDATE_GAME, start);
+    }
+
+    private int craneStep() {
+        return 3 * upgrades.stat(UpgradeGraph.Stat.CRANE_SPEED);
+    }
+
+    // =================================================================================
+    // Maju Cepat
+    // =================================================================================
+
+    /**
+     * Maju ticks tick sekaligus, dengan hasil yang identik dengan memanggil tick() sebanyak
+     * itu tanpa masukan. Rentang tanpa kejadian dilompati analitik: crane yang berayun (periodik
+     * setelah pantulan pertama), balok yang jatuh sampai tick pendaratannya, dan state yang
+     * diam (menu, layar selesai/gagal). Biayanya sebanding jumlah pendaratan, bukan jumlah tick;
+     * tick terakhir selalu dijalankan biasa agar posisi "sebelumnya" untuk interpolasi benar.
+     */
+    public void advanceTicks(long ticks) {
+        while (ticks > 1) {
+            long skipped = skipUneventfulTicks(ticks - 1);
+            if (skipped == 0) {
+                tick();
+                ticks--;
+            } else {
+                ticks -= skipped;
+            }
+        }
+        if (ticks == 1) tick();
+    }
+
+    /** Melompati paling banyak maxTicks tick yang tidak memicu kejadian; mengembalikan jumlah yang dilompati. */
+    private long skipUneventfulTicks(long maxTicks) {
+        long skipped = maxTicks;
+        if (gameState == GameState.PLAYING && !showingUpgrades) {
+            if (blockIsFalling) {
+                // Tick pendaratan sendiri dijalankan biasa lewat tick()
+                skipped = Math.min(maxTicks, ticksToLanding - 1);
+                hangingBlock.y += (int) skipped * FALL_SPEED;
+                ticksToLanding -= (int) skipped;
+            } else {
+                skipCrane(maxTicks);
+            }
+        }
+        tickCount += skipped;
+        return skipped;
+    }
+
+    /** Menggerakkan crane ticks langkah tanpa balok jatuh, sama persis dengan updateGame(). */
+    private void skipCrane(long ticks) {
+        int step = craneStep();
+        boolean periodic = false;
+        while (ticks > 0) {
+            long toBounce = ticksToBounce(craneX, craneDirection, step);
+            if (ticks < toBounce) {
+                craneX += (int) (ticks * step * craneDirection);
+                break;
+            }
+            craneX += (int) (toBounce * step * craneDirection);
+            craneDirection = -craneDirection;
+            ticks -= toBounce;
+            if (!periodic) {
+                // Setelah pantulan pertama crane bolak-balik di antara dua titik pantul yang sama
+                long across = ticksToBounce(craneX, craneDirection, step);
+                int farX = craneX + (int) (across * step * craneDirection);
+                long back = ticksToBounce(farX, -craneDirection, step);
+                if (farX + (int) (back * step * -craneDirection) == craneX) ticks %= across + back;
+                periodic = true;
+            }
+        }
+        hangingBlock.x = craneX - (hangingBlock.width / 2);
+    }
+
+    /** Jumlah langkah (>= 1) sampai crane berada di luar [CRANE_MIN_X, CRANE_MAX_X] dan berbalik. */
+    private static long ticksToBounce(int x, int direction, int step) {
+        if (direction > 0) {
+            if (x + step < CRANE_MIN_X) return 1;
+            return Math.max(1, Math.floorDiv(CRANE_MAX_X - x, step) + 1);
+        }
+        if (x - step > CRANE_MAX_X) return 1;
+        return Math.max(1, Math.floorDiv(x - CRANE_MIN_X, step) + 1);
+    }
+
+    // =================================================================================
+    // Logika Inti Permainan
+    // =================================================================================
+
+    /** Menerapkan satu perintah pemain (CMD_*). Padanan handleInput pada versi Swing. */
+    public void handleInput(int command) {
+        handleInput(command, 0);
+    }
+
+    /**
+     * Perintah beserta argumennya. Untuk CMD_DROP argumen adalah offset sub-tick: balok
+     * dijatuhkan di posisi crane pada saat pemain menekan tombol, dalam satuan
+     * 1/DROP_OFFSET_SCALE tick relatif terhadap state saat ini (lihat DROP_OFFSET_SCALE).
+     * Untuk CMD_SELECT_PLOT argumen adalah indeks petak. Perintah lain mengabaikannya.
+     */
+    public void handleInput(int command, int argument) {
+        if (command == CMD_NONE) return;
+        if (command == CMD_DROP) {
+            argument = Math.max(-DROP_OFFSET_SCALE, Math.min(DROP_OFFSET_SCALE, argument));
+        } else if (command == CMD_SELECT_PLOT) {
+            if (argument < 0 || argument >= cityGrid.cellCount() || !cityGrid.isPlot(argument)) return;
+        } else {
+            argument = 0;
+        }
+        if (recorder != null) recorder.record(tickCount, command, argument);
+
+        if (command >= CMD_CURSOR_LEFT && command <= CMD_SELECT_PLOT) {
+            moveCityCursor(command, argument);
+            return;
+        }
+
+        if (gameState == GameState.PLAYING) {
+            if (command == CMD_TOGGLE_UPGRADES) {
+                showingUpgrades = !showingUpgrades;
+            }
+
+            if (!showingUpgrades) { // Hanya proses input game jika menu upgrade tidak tampil
+                if (command == CMD_DROP && !blockIsFalling) {
+                    moveCraneToDropOffset(argument);
+                    blockIsFalling = true;
+                    predictLanding();
+                }
+            } else { // Proses input untuk menu upgrade
+                if (command >= CMD_BUY_UPGRADE && command < CMD_BUY_UPGRADE + MAX_UPGRADE_SLOTS) {
+                    purchaseUpgrade(command - CMD_BUY_UPGRADE);
+                }
+            }
+        } else if (command == CMD_CONFIRM) {
+            switch(gameState) {
+                case GAME_OVER:
+                    initGame();
+                    break;
+                case TOWER_COMPLETE:
+                    placeTowerInCity();
+                    break;
+                case TOWER_FAILED:
+                    playerLives--;
+                    if (playerLives <= 0) {
+                        addFinalScore();
+                        gameState = GameState.GAME_OVER;
+                    } else {
+                        if (!endless) resetTower();
+                        prepareNextHangingBlock();
+                        gameState = GameState.PLAYING;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Menggeser crane (dan balok) ke posisi yang dilihat pemain saat menekan tombol:
+     * mundur di antara tick sebelumnya dan sekarang (offset negatif, sama dengan interpolasi
+     * render), atau maju sebagian langkah crane berikutnya (offset positif).
+     */
+    private void moveCraneToDropOffset(int dropOffset) {
+        if (dropOffset == 0) return;
+        if (dropOffset < 0) {
+            craneX += Math.round((float) (craneX - prevCraneX) * dropOffset / DROP_OFFSET_SCALE);
+        } else {
+            int step = craneStep() * craneDirection;
+            craneX += Math.round((float) step * dropOffset / DROP_OFFSET_SCALE);
+        }
+        hangingBlock.x = craneX - (hangingBlock.width / 2);
+    }
+
+    /** Kursor hanya ada pada mode pilih petak dan selama kota belum penuh. */
+    private void moveCityCursor(int command, int plot) {
+        if (!choosePlots || nextCityPlot < 0 || gameState == GameState.GAME_OVER) return;
+        switch (command) {
+            case CMD_CURSOR_LEFT:  nextCityPlot = cityGrid.step(nextCityPlot, -1, 0); break;
+            case CMD_CURSOR_RIGHT: nextCityPlot = cityGrid.step(nextCityPlot, 1, 0); break;
+            case CMD_CURSOR_UP:    nextCityPlot = cityGrid.step(nextCityPlot, 0, -1); break;
+            case CMD_CURSOR_DOWN:  nextCityPlot = cityGrid.step(nextCityPlot, 0, 1); break;
+            default:               nextCityPlot = plot; break;
+        }
+    }
+
+    /**
+     * Menghitung pendaratan balok yang baru dilepas secara analitik. Selama jatuh, x balok dan
+     * puncak menara tidak berubah, jadi tick pendaratan (tick pertama saat bawah balok mencapai
+     * puncak menara) dan lebar tumpang tindihnya sudah pasti sejak dilepas. Tidak ada uji
+     * tabrakan per tick, sehingga balok tidak bisa menembus menara berapa pun FALL_SPEED-nya.
+     */
+    void predictLanding() {
+        int top = tower.top();
+        int topY = TowerStore.y(top);
+        int topX = tower.x(top);
+        ticksToLanding = Math.max(1, Math.ceilDiv(topY - hangingBlock.height - hangingBlock.y, FALL_SPEED));
+        int overlapX1 = Math.max(hangingBlock.x, topX);
+        int overlapX2 = Math.min(hangingBlock.x + hangingBlock.width, topX + tower.width(top));
+        landingOverlap = overlapX2 - overlapX1;
+    }
+
+    /** Menyelesaikan pendaratan yang dihitung predictLanding(), pada tick pendaratannya. */
+    void checkCollision() {
+        long start = Profiler.start();
+        int top = tower.top();
+        if (landingOverlap > 20) {
+            hangingBlock.y = TowerStore.y(top) - hangingBlock.height;
+            tower.push(hangingBlock.x, hangingBlock.width, hangingBlock.type);
+
+            int centerDiff = Math.abs((hangingBlock.x + hangingBlock.width / 2) - tower.centerX(top));
+            int precisionBonus = Math.max(0, 100 - centerDiff * 2);
+            currentScore += 10 + precisionBonus;
+
+            if(!endless && tower.size() >= TOWER_TARGET_HEIGHT) {
+                gameState = GameState.TOWER_COMPLETE;
+            } else {
+                prepareNextHangingBlock();
+            }
+
+        } else {
+            gameState = GameState.TOWER_FAILED;
+        }
+        Profiler.end(Profiler.CHECK_COLLISION, start);
+    }
+
+    void placeTowerInCity() {
+        if(nextCityPlot < 0) {
+            addFinalScore();
+            gameState = GameState.GAME_OVER;
+            return;
+        }
+        // Petak kursor sudah terisi: tetap TOWER_COMPLETE sampai pemain memilih petak kosong
+        if (choosePlots && cityGrid.isOccupied(nextCityPlot)) return;
+
+        // Bonus = kenaikan total sinergi kota, termasuk bonus baru yang diterima tetangga lama
+        long bonus = synergy.place(nextCityPlot, tower.type(tower.top()), tower.size());
+        cityVersion++;
+        currentScore += bonus;
+
+        nextCityPlot = choosePlots ? cityGrid.nextEmptyPlot(nextCityPlot) : cityGrid.nextPlot(nextCityPlot + 1);
+
+        resetTower();
+        prepareNextHangingBlock();
+        gameState = GameState.PLAYING;
+    }
+
+    /** Mengosongkan kota dan mengembalikan petak berikutnya ke (0, 0); skor tidak berubah. */
+    void clearCity() {
+        synergy.clear();
+        cityVersion++;
+        nextCityPlot = cityGrid.nextPlot(0);
+    }
+
+    /** Membeli upgrade di posisi index menu jika skor cukup; O(frontier), bukan O(ukuran graf). */
+    void purchaseUpgrade(int index) {
+        if (index >= upgrades.frontierSize()) return;
+        int cost = upgrades.graph().cost(upgrades.frontierAt(index));
+        if (currentScore >= cost) {
+            currentScore -= cost;
+            upgrades.purchase(index);
+            upgradeVersion++;
+        }
+    }
+
+    private void prepareNextHangingBlock() {
+        blockIsFalling = false;
+        BlockType nextType = upcomingBlocksQueue.poll();
+        upcomingBlocksQueue.offer(getRandomBlockType());
+        queueVersion++;
+        int lastWidth = tower.width(tower.top());
+        // Balok baru muncul di SPAWN_Y, atau lebih tinggi jika menara sudah mendekatinya;
+        // kamera ikut naik agar crane tetap di posisi layar yang sama.
+        int spawnY = Math.min(SPAWN_Y, TowerStore.y(tower.top()) - SPAWN_CLEARANCE);
+        cameraY = spawnY - SPAWN_Y;
+        if (hangingBlock == null) hangingBlock = new Block(0, 0, 0, TowerStore.BLOCK_HEIGHT, nextType);
+        hangingBlock.x = craneX - (lastWidth / 2);
+        hangingBlock.y = spawnY;
+        hangingBlock.width = lastWidth;
+        hangingBlock.type = nextType;
+        // Balok baru tidak boleh diinterpolasi dari posisi balok sebelumnya
+        prevCraneX = craneX;
+        prevHangingX = hangingBlock.x;
+        prevHangingY = hangingBlock.y;
+    }
+
+    void addFinalScore() {
+        lastRank = leaderboard.submit(currentScore);
+        if (recorder != null) lastReplay = recorder.finish(tickCount, currentScore);
+    }
+
+    /** Mengganti papan skor (mis. dengan yang persisten di disk). Bawaannya hanya di memori. */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        highScoreVersionBase = getHighScoreVersion() + 1 - leaderboard.version();
+        this.leaderboard = leaderboard;
+    }
+
+    private BlockType getRandomBlockType() {
+        return BLOCK_TYPES[random.nextInt(BLOCK_TYPES.length)];
+    }
+
+    // =================================================================================
+    // Akses State (dipakai oleh render, policy, dan batch runner)
+    // =================================================================================
+    public GameState getGameState() { return gameState; }
+    public boolean isShowingUpgrades() { return showingUpgrades; }
+
+    /**
+     * True jika tick berikutnya tidak akan mengubah apa pun yang tergambar selama tidak ada
+     * perintah baru: game tidak berjalan (layar akhir, atau menu upgrade terbuka) dan posisi
+     * tick sebelumnya sudah sama dengan posisi sekarang, sehingga interpolasi pun diam.
+     */
+    public boolean isStatic() {
+        return (gameState != GameState.PLAYING || showingUpgrades)
+                && prevCraneX == craneX && prevHangingX == hangingBlock.x && prevHangingY == hangingBlock.y;
+    }
+    public boolean isBlockFalling() { return blockIsFalling; }
+    /** Sisa tick sampai balok yang sedang jatuh mendarat (hanya berarti jika isBlockFalling()). */
+    public int getTicksToLanding() { return ticksToLanding; }
+    public long getTickCount() { return tickCount; }
+    public long getCurrentScore() { return currentScore; }
+    public int getPlayerLives() { return playerLives; }
+    public int getCraneX() { return craneX; }
+    public int getPrevCraneX() { return prevCraneX; }
+    public int getPrevHangingX() { return prevHangingX; }
+    public int getPrevHangingY() { return prevHangingY; }
+    public Block getHangingBlock() { return hangingBlock; }
+    public int getCameraY() { return cameraY; }
+    TowerStore getTower() { return tower; }
+    public Queue<BlockType> getUpcomingBlocks() { return upcomingBlocksQueue; }
+    Leaderboard getLeaderboard() { return leaderboard; }
+    public long getLastRank() { return lastRank; }
+    /** Replay game terakhir yang berakhir di GAME_OVER (null jika tidak merekam). */
+    Replay getLastReplay() { return lastReplay; }
+    public int getCityVersion() { return cityVersion; }
+    public int getQueueVersion() { return queueVersion; }
+    public int getUpgradeVersion() { return upgradeVersion; }
+    public int getHighScoreVersion() { return highScoreVersionBase + leaderboard.version(); }
+
+    CityGrid getCity() { return cityGrid; }
+    SynergyEvaluator getSynergy() { return synergy; }
+    /** Upgrade yang bisa dibeli (frontier, urutan tombol [1]..[9]) dan blok stat hasil upgrade. */
+    UpgradeProgress getUpgrades() { return upgrades; }
+
+    /**
+     * Indeks petak yang akan diisi menara berikutnya (kursor pada mode pilih petak),
+     * atau -1 jika kota sudah penuh.
+     */
+    public int getNextCityPlot() { return nextCityPlot; }
+}
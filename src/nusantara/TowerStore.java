@@ -0,0 +1,158 @@
+package nusantara;
+
+import java.util.Arrays;
+
+/**
+ * TowerStore.java
+ *
+ * Tumpukan balok menara dalam bentuk struct-of-arrays, pengganti Stack&lt;Block&gt;
+ * (Vector tersinkronisasi berisi objek di heap).
+ *
+ * Balok ke-i disimpan sebagai x, lebar dan jenis di halaman i >> PAGE_BITS (PAGE_SIZE balok
+ * per halaman, dialokasikan saat dibutuhkan). Semua balok setinggi
+ * BLOCK_HEIGHT dan bertumpuk rapat, jadi y tidak perlu disimpan: y(i) = BASE_Y - i * BLOCK_HEIGHT.
+ * Memori sekitar 9 byte per balok, sehingga menara puluhan ribu balok tetap murah,
+ * dan visibleFrom/visibleTo memungkinkan render hanya menyentuh balok di viewport.
+ *
+ * snapshot() memakai halaman yang sama (copy-on-write per halaman): push berikutnya hanya
+ * menyalin halaman puncak (maks. 9 KB), jadi autosave tidak menyalin menara di thread game
+ * berapa pun tingginya.
+ */
+final class TowerStore {
+
+    static final int BASE_Y = 550;
+    static final int BLOCK_HEIGHT = 15;
+
+    static final int PAGE_BITS = 10;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final BlockType[] BLOCK_TYPES = BlockType.values();
+
+    private int[][] x;
+    private int[][] widths;
+    private byte[][] types;
+    private int size = 0;
+    // Seperti CityGrid: halaman p boleh ditulis langsung jika pageGeneration[p] == generation
+    private int[] pageGeneration;
+    private int generation = 0;
+    private final int firstPageCapacity; // halaman 0 tumbuh berlipat dari sini, agar menara pendek tetap kecil
+
+    TowerStore() {
+        this(16);
+    }
+
+    TowerStore(int initialCapacity) {
+        int pages = Math.max(1, (initialCapacity + PAGE_MASK) >>> PAGE_BITS);
+        x = new int[pages][];
+        widths = new int[pages][];
+        types = new byte[pages][];
+        pageGeneration = new int[pages];
+        firstPageCapacity = Math.max(1, Math.min(PAGE_SIZE, initialCapacity));
+    }
+
+    private TowerStore(TowerStore source) {
+        x = source.x.clone();
+        widths = source.widths.clone();
+        types = source.types.clone();
+        size = source.size;
+        pageGeneration = new int[x.length];
+        generation = 1; // semua halaman dipakai bersama source
+        firstPageCapacity = source.firstPageCapacity;
+    }
+
+    /** Salinan baca-saja dalam O(jumlah halaman); hanya boleh dibaca, tidak diubah. */
+    TowerStore snapshot() {
+        generation++;
+        return new TowerStore(this);
+    }
+
+    /** Mengganti isi menara dengan salinan isi other (mis. saat memuat game). */
+    void copyFrom(TowerStore other) {
+        int pages = Math.max(1, (other.size + PAGE_MASK) >>> PAGE_BITS);
+        x = new int[pages][];
+        widths = new int[pages][];
+        types = new byte[pages][];
+        pageGeneration = new int[pages];
+        for (int p = 0; p < pages && p < other.x.length && other.x[p] != null; p++) {
+            x[p] = other.x[p].clone();
+            widths[p] = other.widths[p].clone();
+            types[p] = other.types[p].clone();
+            pageGeneration[p] = generation;
+        }
+        size = other.size;
+    }
+
+    /** Menumpuk balok baru di puncak. */
+    void push(int blockX, int width, BlockType type) {
+        int p = size >>> PAGE_BITS, k = size & PAGE_MASK;
+        if (p == x.length) {
+            x = Arrays.copyOf(x, p * 2);
+            widths = Arrays.copyOf(widths, p * 2);
+            types = Arrays.copyOf(types, p * 2);
+            pageGeneration = Arrays.copyOf(pageGeneration, p * 2);
+        }
+        if (x[p] == null) {
+            int capacity = p == 0 ? firstPageCapacity : PAGE_SIZE;
+            x[p] = new int[capacity];
+            widths[p] = new int[capacity];
+            types[p] = new byte[capacity];
+            pageGeneration[p] = generation;
+        } else if (k == x[p].length) {
+            int capacity = Math.min(PAGE_SIZE, k * 2);
+            x[p] = Arrays.copyOf(x[p], capacity);
+            widths[p] = Arrays.copyOf(widths[p], capacity);
+            types[p] = Arrays.copyOf(types[p], capacity);
+            pageGeneration[p] = generation;
+        } else if (pageGeneration[p] != generation) {
+            x[p] = x[p].clone();
+            widths[p] = widths[p].clone();
+            types[p] = types[p].clone();
+            pageGeneration[p] = generation;
+        }
+        x[p][k] = blockX;
+        widths[p][k] = width;
+        types[p][k] = (byte) type.ordinal();
+        size++;
+    }
+
+    /** Membuang balok teratas (untuk membatalkan pendaratan, mis. di benchmark). */
+    void pop() {
+        if (size == 0) throw new IllegalStateException("Menara kosong");
+        size--;
+    }
+
+    void clear() { size = 0; }
+
+    int size() { return size; }
+
+    int top() { return size - 1; }
+
+    int x(int i) { return x[i >>> PAGE_BITS][i & PAGE_MASK]; }
+
+    int width(int i) { return widths[i >>> PAGE_BITS][i & PAGE_MASK]; }
+
+    BlockType type(int i) { return BLOCK_TYPES[types[i >>> PAGE_BITS][i & PAGE_MASK]]; }
+
+    int centerX(int i) { return x(i) + width(i) / 2; }
+
+    static int y(int i) { return BASE_Y - i * BLOCK_HEIGHT; }
+
+    // =================================================================================
+    // Culling Viewport
+    // =================================================================================
+
+    /** Indeks balok terbawah yang masih terlihat jika bagian bawah viewport di dunia berada di worldBottom. */
+    int visibleFrom(int worldBottom) {
+        // y(i) < worldBottom  <=>  i > (BASE_Y - worldBottom) / BLOCK_HEIGHT
+        int i = Math.floorDiv(BASE_Y - worldBottom, BLOCK_HEIGHT);
+        return Math.max(0, i);
+    }
+
+    /** Indeks (eksklusif) di atas balok teratas yang masih terlihat jika atas viewport berada di worldTop. */
+    int visibleTo(int worldTop) {
+        // y(i) + BLOCK_HEIGHT > worldTop  <=>  i < (BASE_Y + BLOCK_HEIGHT - worldTop) / BLOCK_HEIGHT
+        int i = Math.floorDiv(BASE_Y + BLOCK_HEIGHT - worldTop - 1, BLOCK_HEIGHT) + 1;
+        return Math.min(size, Math.max(0, i));
+    }
+}
@@ -0,0 +1,259 @@
+package nusantara;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UpgradeGraph.java
+ *
+ * Graf upgrade (DAG) yang dimuat dari file data, pengganti pohon UpgradeNode yang dulu
+ * ditulis langsung di kode. Satu upgrade boleh punya banyak prasyarat; ia baru bisa dibeli
+ * setelah semua prasyaratnya dibeli. Efeknya berupa modifier stat (lihat Stat), bukan
+ * Runnable yang menimpa field, sehingga beberapa upgrade bisa menambah stat yang sama.
+ *
+ * Format file, satu upgrade per baris (baris kosong dan '#' diabaikan):
+ *   id | nama | deskripsi | biaya | prasyarat,... | stat +n, stat +n%, ...
+ * Prasyarat harus sudah didefinisikan di baris sebelumnya, jadi graf dijamin tanpa siklus
+ * dan urutan baris sudah urutan topologis.
+ *
+ * Graf tidak berubah setelah dimuat dan aman dipakai bersama banyak simulasi; state
+ * pembelian per game ada di UpgradeProgress. Disimpan struct-of-arrays dengan daftar
+ * tetangga CSR (seperti CityGrid), memori beberapa puluh byte per upgrade.
+ */
+final class UpgradeGraph {
+
+    /**
+     * Stat permainan yang bisa diubah upgrade. Nilai akhirnya
+     * (dasar + jumlah tambahan) * (100 + jumlah persen) / 100, tidak bergantung urutan pembelian.
+     */
+    enum Stat {
+        CRANE_SPEED("craneSpeed", 1),
+        BLOCK_WIDTH("blockWidth", 100);
+
+        final String key;
+        final int base;
+
+        Stat(String key, int base) { this.key = key; this.base = base; }
+    }
+
+    private static final Stat[] STATS = Stat.values();
+    /** Jumlah slot modifier: satu slot tambahan dan satu slot persen per stat. */
+    static final int MODIFIER_SLOTS = STATS.length * 2;
+
+    private static final String DEFAULT_RESOURCE = "upgrades.txt";
+    private static UpgradeGraph defaults;
+
+    private final String[] ids;
+    private final String[] names;
+    private final String[] descriptions;
+    private final int[] costs;
+    private final int[] prerequisiteCounts;
+    private final int[] roots;           // upgrade tanpa prasyarat, urutan file
+    private final int[] unlockStart;     // CSR: upgrade yang menjadikan i prasyarat
+    private final int[] unlocks;
+    private final int[] effectStart;     // CSR: modifier milik upgrade i
+    private final int[] effectSlots;     // stat.ordinal() * 2 (+1 untuk persen)
+    private final int[] effectValues;
+    private final Map<String, Integer> byId;
+
+    private UpgradeGraph(Builder b) {
+        int n = b.ids.size();
+        ids = b.ids.toArray(new String[0]);
+        byId = b.byId;
+        names = b.names.toArray(new String[0]);
+        descriptions = b.descriptions.toArray(new String[0]);
+        costs = Arrays.copyOf(b.costs, n);
+        prerequisiteCounts = new int[n];
+        effectStart = Arrays.copyOf(b.effectStart, n + 1);
+        effectSlots = Arrays.copyOf(b.effectSlots, b.effectCount);
+        effectValues = Arrays.copyOf(b.effectValues, b.effectCount);
+
+        // Membalik daftar prasyarat menjadi daftar "membuka" dalam dua lintasan
+        unlockStart = new int[n + 1];
+        int rootCount = 0;
+        for (int i = 0; i < n; i++) {
+            prerequisiteCounts[i] = b.prerequisiteStart[i + 1] - b.prerequisiteStart[i];
+            if (prerequisiteCounts[i] == 0) rootCount++;
+            for (int k = b.prerequisiteStart[i]; k < b.prerequisiteStart[i + 1]; k++) {
+                unlockStart[b.prerequisites[k] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) unlockStart[i + 1] += unlockStart[i];
+        unlocks = new int[unlockStart[n]];
+        int[] fill = Arrays.copyOf(unlockStart, n);
+        roots = new int[rootCount];
+        rootCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (prerequisiteCounts[i] == 0) roots[rootCount++] = i;
+            for (int k = b.prerequisiteStart[i]; k < b.prerequisiteStart[i + 1]; k++) {
+                unlocks[fill[b.prerequisites[k]]++] = i;
+            }
+        }
+    }
+
+    // =================================================================================
+    // Memuat
+    // =================================================================================
+
+    /**
+     * Graf bawaan permainan dari resource upgrades.txt, atau dari file
+     * -Dnusantara.upgrades=path. Dimuat sekali lalu dipakai bersama; replay hanya cocok
+     * jika diverifikasi dengan graf yang sama.
+     */
+    static synchronized UpgradeGraph defaults() {
+        if (defaults == null) {
+            String configured = System.getProperty("nusantara.upgrades");
+            try {
+                if (configured != null) {
+                    defaults = load(Path.of(configured));
+                } else {
+                    try (InputStream in = UpgradeGraph.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                        if (in == null) throw new IllegalStateException("Resource " + DEFAULT_RESOURCE + " tidak ditemukan");
+                        defaults = parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)).lines().toList());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return defaults;
+    }
+
+    static UpgradeGraph load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /** Mengurai baris-baris file upgrade; melempar IllegalArgumentException dengan nomor baris jika salah. */
+    static UpgradeGraph parse(List<String> lines) {
+        Builder b = new Builder();
+        for (int line = 0; line < lines.size(); line++) {
+            String text = lines.get(line).strip();
+            if (text.isEmpty() || text.startsWith("#")) continue;
+            try {
+                b.add(text.split("\\|", -1));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Baris " + (line + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return new UpgradeGraph(b);
+    }
+
+    private static final class Builder {
+        final List<String> ids = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<String> descriptions = new ArrayList<>();
+        final Map<String, Integer> byId = new HashMap<>();
+        int[] costs = new int[16];
+        int[] prerequisiteStart = new int[17];
+        int[] prerequisites = new int[16];
+        int prerequisiteCount = 0;
+        int[] effectStart = new int[17];
+        int[] effectSlots = new int[16];
+        int[] effectValues = new int[16];
+        int effectCount = 0;
+
+        void add(String[] fields) {
+            if (fields.length != 6) throw new IllegalArgumentException("harus 6 kolom dipisah '|', ada " + fields.length);
+            String id = fields[0].strip();
+            if (id.isEmpty()) throw new IllegalArgumentException("id kosong");
+            if (byId.containsKey(id)) throw new IllegalArgumentException("id ganda: " + id);
+            int cost;
+            try {
+                cost = Integer.parseInt(fields[3].strip());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("biaya bukan angka: " + fields[3].strip());
+            }
+            if (cost < 0) throw new IllegalArgumentException("biaya negatif: " + cost);
+
+            int index = ids.size();
+            if (index == costs.length) {
+                costs = Arrays.copyOf(costs, index * 2);
+                prerequisiteStart = Arrays.copyOf(prerequisiteStart, index * 2 + 1);
+                effectStart = Arrays.copyOf(effectStart, index * 2 + 1);
+            }
+            for (String token : fields[4].split(",")) {
+                String prerequisite = token.strip();
+                if (prerequisite.isEmpty()) continue;
+                Integer target = byId.get(prerequisite);
+                if (target == null) throw new IllegalArgumentException("prasyarat belum didefinisikan: " + prerequisite);
+                if (prerequisiteCount == prerequisites.length) prerequisites = Arrays.copyOf(prerequisites, prerequisiteCount * 2);
+                prerequisites[prerequisiteCount++] = target;
+            }
+            for (String token : fields[5].split(",")) {
+                String effect = token.strip();
+                if (effect.isEmpty()) continue;
+                if (effectCount == effectSlots.length) {
+                    effectSlots = Arrays.copyOf(effectSlots, effectCount * 2);
+                    effectValues = Arrays.copyOf(effectValues, effectCount * 2);
+                }
+                parseEffect(effect);
+                effectCount++;
+            }
+
+            ids.add(id);
+            names.add(fields[1].strip());
+            descriptions.add(fields[2].strip());
+            byId.put(id, index);
+            costs[index] = cost;
+            prerequisiteStart[index + 1] = prerequisiteCount;
+            effectStart[index + 1] = effectCount;
+        }
+
+        /** "stat +n", "stat -n" atau "stat +n%". */
+        private void parseEffect(String effect) {
+            String[] parts = effect.split("\\s+");
+            if (parts.length != 2) throw new IllegalArgumentException("efek harus 'stat +n' atau 'stat +n%': " + effect);
+            Stat stat = null;
+            for (Stat candidate : STATS) {
+                if (candidate.key.equals(parts[0])) stat = candidate;
+            }
+            if (stat == null) throw new IllegalArgumentException("stat tidak dikenal: " + parts[0]);
+            String amount = parts[1];
+            boolean percent = amount.endsWith("%");
+            if (percent) amount = amount.substring(0, amount.length() - 1);
+            try {
+                effectValues[effectCount] = Integer.parseInt(amount);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("nilai efek bukan angka: " + parts[1]);
+            }
+            effectSlots[effectCount] = stat.ordinal() * 2 + (percent ? 1 : 0);
+        }
+    }
+
+    // =================================================================================
+    // Akses
+    // =================================================================================
+    int size() { return ids.length; }
+    String id(int upgrade) { return ids[upgrade]; }
+    /** Indeks upgrade dengan id tersebut, atau -1 jika tidak ada. */
+    int indexOf(String id) { return byId.getOrDefault(id, -1); }
+    String name(int upgrade) { return names[upgrade]; }
+    String description(int upgrade) { return descriptions[upgrade]; }
+    int cost(int upgrade) { return costs[upgrade]; }
+    int prerequisiteCount(int upgrade) { return prerequisiteCounts[upgrade]; }
+
+    int rootCount() { return roots.length; }
+    int root(int i) { return roots[i]; }
+
+    int unlockStart(int upgrade) { return unlockStart[upgrade]; }
+    int unlockEnd(int upgrade) { return unlockStart[upgrade + 1]; }
+    int unlockAt(int k) { return unlocks[k]; }
+
+    int effectStart(int upgrade) { return effectStart[upgrade]; }
+    int effectEnd(int upgrade) { return effectStart[upgrade + 1]; }
+    int effectSlot(int k) { return effectSlots[k]; }
+    int effectValue(int k) { return effectValues[k]; }
+
+    static Stat statOf(int slot) { return STATS[slot >> 1]; }
+}
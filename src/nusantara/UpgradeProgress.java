@@ -0,0 +1,100 @@
+package nusantara;
+
+import java.util.Arrays;
+
+/**
+ * UpgradeProgress.java
+ *
+ * State pembelian upgrade satu game di atas UpgradeGraph yang dipakai bersama.
+ *
+ * Frontier (upgrade yang semua prasyaratnya sudah dibeli tetapi dirinya belum) dijaga
+ * inkremental: setiap upgrade menyimpan jumlah prasyarat yang belum dibeli, dan membeli
+ * satu upgrade hanya menyentuh upgrade yang dibukanya. Efeknya dijumlahkan ke slot
+ * modifier dan hanya stat yang tersentuh yang dihitung ulang ke blok stat. Membuka menu
+ * dan membeli tidak pernah menelusuri seluruh graf.
+ */
+final class UpgradeProgress {
+
+    private static final UpgradeGraph.Stat[] STATS = UpgradeGraph.Stat.values();
+
+    private final UpgradeGraph graph;
+    private final boolean[] purchased;
+    private final int[] purchaseOrder;    // upgrade yang dibeli, urut waktu beli (untuk simpanan)
+    private final int[] missing;          // prasyarat yang belum dibeli per upgrade
+    private final int[] frontier;         // urutan tampil: akar sesuai file, lalu urutan terbuka
+    private int frontierSize;
+    private final int[] modifiers = new int[UpgradeGraph.MODIFIER_SLOTS];
+    private final int[] stats = new int[STATS.length];
+    private int purchasedCount;
+
+    UpgradeProgress(UpgradeGraph graph) {
+        this.graph = graph;
+        int n = graph.size();
+        purchased = new boolean[n];
+        purchaseOrder = new int[n];
+        missing = new int[n];
+        frontier = new int[n];
+        reset();
+    }
+
+    /** Kembali ke awal game: belum ada yang dibeli, semua stat bernilai dasar. O(jumlah upgrade). */
+    void reset() {
+        Arrays.fill(purchased, false);
+        for (int i = 0; i < missing.length; i++) missing[i] = graph.prerequisiteCount(i);
+        frontierSize = graph.rootCount();
+        for (int i = 0; i < frontierSize; i++) frontier[i] = graph.root(i);
+        Arrays.fill(modifiers, 0);
+        for (UpgradeGraph.Stat stat : STATS) stats[stat.ordinal()] = stat.base;
+        purchasedCount = 0;
+    }
+
+    /**
+     * Membeli upgrade di posisi index frontier (tanpa memeriksa skor). O(frontier + jumlah
+     * upgrade yang dibuka + jumlah efek): posisi upgrade lain di menu tetap berurutan.
+     */
+    void purchase(int index) {
+        int upgrade = frontier[index];
+        System.arraycopy(frontier, index + 1, frontier, index, frontierSize - index - 1);
+        frontierSize--;
+        purchased[upgrade] = true;
+        purchaseOrder[purchasedCount++] = upgrade;
+
+        for (int k = graph.unlockStart(upgrade), end = graph.unlockEnd(upgrade); k < end; k++) {
+            int unlocked = graph.unlockAt(k);
+            if (--missing[unlocked] == 0) frontier[frontierSize++] = unlocked;
+        }
+        for (int k = graph.effectStart(upgrade), end = graph.effectEnd(upgrade); k < end; k++) {
+            int slot = graph.effectSlot(k);
+            modifiers[slot] += graph.effectValue(k);
+            resolve(UpgradeGraph.statOf(slot));
+        }
+    }
+
+    /** Membeli upgrade tertentu (indeks graf) jika sedang ada di frontier; false jika belum bisa dibeli. */
+    boolean purchaseUpgrade(int upgrade) {
+        for (int i = 0; i < frontierSize; i++) {
+            if (frontier[i] == upgrade) {
+                purchase(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void resolve(UpgradeGraph.Stat stat) {
+        int slot = stat.ordinal() * 2;
+        stats[stat.ordinal()] = (int) ((long) (stat.base + modifiers[slot]) * (100 + modifiers[slot + 1]) / 100);
+    }
+
+    UpgradeGraph graph() { return graph; }
+    int frontierSize() { return frontierSize; }
+    /** Upgrade (indeks graf) di posisi index frontier; posisi 0..8 adalah tombol [1]..[9]. */
+    int frontierAt(int index) { return frontier[index]; }
+    boolean isPurchased(int upgrade) { return purchased[upgrade]; }
+    int purchasedCount() { return purchasedCount; }
+    /** Upgrade ke-i yang dibeli, urut waktu beli. Membeli ulang urutan ini menghasilkan frontier yang sama. */
+    int purchasedAt(int i) { return purchaseOrder[i]; }
+
+    /** Nilai stat yang sudah memperhitungkan semua upgrade yang dibeli (cache, tidak dihitung ulang). */
+    int stat(UpgradeGraph.Stat stat) { return stats[stat.ordinal()]; }
+}
@@ -0,0 +1,89 @@
+package nusantara;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * FrameExchange: pembaca tidak pernah melihat snapshot yang setengah ditulis, tidak pernah
+ * mundur ke frame lama, dan selalu mendapat frame terakhir setelah penulis berhenti.
+ */
+class FrameExchangeTest {
+
+    private static final int VIEWPORT = 600;
+
+    @Test
+    void latestIsNullUntilFirstPublishAndCountsOverwrittenFrames() {
+        FrameExchange exchange = new FrameExchange();
+        TowerSimulation sim = new TowerSimulation(1);
+        assertNull(exchange.latest());
+
+        FrameSnapshot first = exchange.publish(sim, VIEWPORT, 0);
+        assertEquals(0, exchange.getSkippedFrames());
+        assertSame(first, exchange.latest());
+
+        // Dua publish tanpa pembaca di antaranya: frame kedua tertimpa oleh yang ketiga
+        sim.tick();
+        FrameSnapshot second = exchange.publish(sim, VIEWPORT, 1);
+        assertNotSame(first, second);
+        sim.tick();
+        FrameSnapshot third = exchange.publish(sim, VIEWPORT, 2);
+        assertEquals(1, exchange.getSkippedFrames());
+        assertSame(third, exchange.latest());
+        assertEquals(sim.getCraneX(), exchange.latest().craneX);
+        assertEquals(2, exchange.latest().alpha);
+    }
+
+    @Test
+    void readerNeverSeesTornOrOlderFrames() throws InterruptedException {
+        int frames = 20_000;
+        // Posisi crane per tick dari sim kembar, untuk memeriksa isi frame yang diterima
+        int[] craneAt = new int[frames];
+        TowerSimulation twin = new TowerSimulation(5);
+        for (int i = 0; i < frames; i++) {
+            craneAt[i] = twin.getCraneX();
+            twin.tick();
+        }
+
+        FrameExchange exchange = new FrameExchange();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            TowerSimulation sim = new TowerSimulation(5);
+            for (int i = 0; i < frames; i++) {
+                exchange.publish(sim, VIEWPORT, i);
+                sim.tick();
+            }
+        });
+        writer.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+        writer.start();
+
+        int last = -1;
+        long seen = 0;
+        while (writer.isAlive() || last < frames - 1) {
+            FrameSnapshot frame = exchange.latest();
+            if (frame == null) {
+                Thread.yield();
+                continue;
+            }
+            int index = (int) frame.alpha;
+            assertTrue(index >= last, "frame mundur dari " + last + " ke " + index);
+            assertEquals(craneAt[index], frame.craneX, "frame " + index);
+            if (index != last) {
+                seen++;
+            } else {
+                Thread.yield();
+            }
+            last = index;
+        }
+        writer.join();
+        assertNull(failure.get());
+        assertEquals(frames - 1, last);
+        // Setiap frame terbit tepat sekali: diambil pembaca atau tertimpa
+        assertEquals(frames, seen + exchange.getSkippedFrames());
+    }
+}
@@ -0,0 +1,167 @@
+package nusantara;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Snapshot copy-on-write per halaman tidak boleh ikut berubah oleh perubahan sesudahnya, dan
+ * game yang dimuat dari simpanan harus berjalan persis sama dengan game aslinya.
+ */
+class GameSnapshotTest {
+
+    private static final BlockType[] TYPES = BlockType.values();
+
+    private static byte[] typesOf(CityGrid city) {
+        byte[] types = new byte[city.cellCount()];
+        city.copyCells(types, new int[city.cellCount()]);
+        return types;
+    }
+
+    private static int[] heightsOf(CityGrid city) {
+        int[] heights = new int[city.cellCount()];
+        city.copyCells(new byte[city.cellCount()], heights);
+        return heights;
+    }
+
+    @Test
+    void citySnapshotsKeepTheirContentAcrossPages() {
+        // 130x70 = 9100 sel: tiga halaman, halaman terakhir tidak penuh
+        CityGrid city = CityGrid.rectangular(130, 70);
+        SplittableRandom random = new SplittableRandom(8);
+        List<CityGrid> snapshots = new ArrayList<>();
+        List<byte[]> expectedTypes = new ArrayList<>();
+        List<int[]> expectedHeights = new ArrayList<>();
+        for (int step = 0; step < 4000; step++) {
+            int cell = random.nextInt(city.cellCount());
+            if (random.nextInt(5) == 0) {
+                city.demolish(cell);
+            } else {
+                city.place(cell, TYPES[random.nextInt(TYPES.length)], 1 + random.nextInt(40));
+            }
+            if (step % 250 == 0) {
+                snapshots.add(city.snapshot());
+                expectedTypes.add(typesOf(city));
+                expectedHeights.add(heightsOf(city));
+            }
+            if (step == 3000) city.clear();
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            CityGrid snapshot = snapshots.get(i);
+            assertArrayEquals(expectedTypes.get(i), typesOf(snapshot), "snapshot ke-" + i);
+            assertArrayEquals(expectedHeights.get(i), heightsOf(snapshot), "snapshot ke-" + i);
+            int occupied = 0;
+            for (byte code : expectedTypes.get(i)) if (code > CityGrid.EMPTY) occupied++;
+            assertEquals(occupied, snapshot.occupiedCount());
+        }
+    }
+
+    @Test
+    void irregularCitySnapshotKeepsShapeAndNextPlot() {
+        CityGrid city = CityGrid.parse("#.#", "...", "#..");
+        CityGrid snapshot = city.snapshot();
+        city.place(1, BlockType.TAMAN, 3);
+        assertTrue(city.sameShapeAs(snapshot));
+        assertEquals(1, snapshot.nextEmptyPlot(0));
+        assertEquals(3, city.nextEmptyPlot(0));
+        assertEquals(7, snapshot.nextPlot(6));
+        assertEquals(CityGrid.NO_PLOT, snapshot.typeCode(0));
+    }
+
+    @Test
+    void towerSnapshotsKeepTheirBlocksAcrossPages() {
+        TowerStore tower = new TowerStore();
+        List<TowerStore> snapshots = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        int blocks = TowerStore.PAGE_SIZE * 3 + 17;
+        for (int i = 0; i < blocks; i++) {
+            tower.push(i, 100 + i % 7, TYPES[i % TYPES.length]);
+            if (i % 500 == 0) {
+                snapshots.add(tower.snapshot());
+                sizes.add(tower.size());
+            }
+            // Balok teratas diganti sesudah snapshot: slot yang sama harus disalin, bukan ditimpa
+            if (i % 1000 == 999) {
+                tower.pop();
+                tower.push(-i, 1, BlockType.BISNIS);
+            }
+        }
+        for (int s = 0; s < snapshots.size(); s++) {
+            TowerStore snapshot = snapshots.get(s);
+            assertEquals(sizes.get(s), snapshot.size());
+            for (int i = 0; i < snapshot.size(); i++) {
+                assertEquals(i % 1000 == 999 ? -i : i, snapshot.x(i), "snapshot ke-" + s + " balok " + i);
+            }
+        }
+        TowerStore copy = new TowerStore();
+        copy.copyFrom(tower);
+        tower.push(0, 1, BlockType.TAMAN);
+        assertEquals(blocks, copy.size());
+        assertEquals(tower.x(blocks - 1), copy.x(blocks - 1));
+    }
+
+    /** Bermain dengan kebijakan aimed sampai maxTicks atau GAME_OVER. */
+    private static void play(TowerSimulation sim, GameRandom random, long maxTicks) {
+        InputPolicy policy = InputPolicy.aimed(10, 0.2, true);
+        while (sim.getGameState() != GameState.GAME_OVER && sim.getTickCount() < maxTicks) {
+            sim.handleInput(policy.nextCommand(sim, random));
+            sim.tick();
+        }
+    }
+
+    @Test
+    void restoredGameContinuesExactlyLikeTheOriginal(@TempDir Path dir) throws IOException {
+        TowerSimulation original = new TowerSimulation(17);
+        List<Replay> originalReplays = new ArrayList<>();
+        original.setReplayRecorder(new ReplayRecorder(originalReplays::add));
+        play(original, new GameRandom(1), 6000);
+
+        Path file = dir.resolve("save" + GameSnapshot.FILE_EXTENSION);
+        original.snapshotState().write(file);
+        GameSnapshot loaded = GameSnapshot.read(file);
+
+        TowerSimulation restored = new TowerSimulation(99);
+        List<Replay> restoredReplays = new ArrayList<>();
+        restored.setReplayRecorder(new ReplayRecorder(restoredReplays::add));
+        restored.restore(loaded);
+        assertEquals(original.getTickCount(), restored.getTickCount());
+        assertEquals(original.getCurrentScore(), restored.getCurrentScore());
+        assertArrayEquals(typesOf(original.getCity()), typesOf(restored.getCity()));
+        assertEquals(original.getSynergy().total(), restored.getSynergy().total());
+
+        // Kedua game menerima masukan yang sama dari titik simpan sampai selesai
+        play(original, new GameRandom(2), Long.MAX_VALUE);
+        play(restored, new GameRandom(2), Long.MAX_VALUE);
+        assertEquals(original.getCurrentScore(), restored.getCurrentScore());
+        assertEquals(original.getTickCount(), restored.getTickCount());
+        assertEquals(1, restoredReplays.size());
+        assertEquals(originalReplays.get(0).getFinalScore(), restoredReplays.get(0).getFinalScore());
+        assertTrue(ReplayPlayer.verify(restoredReplays.get(0)));
+    }
+
+    @Test
+    void snapshotIsUnaffectedByLaterPlay() {
+        TowerSimulation sim = new TowerSimulation(23);
+        play(sim, new GameRandom(4), 4000);
+        GameSnapshot early = sim.snapshotState();
+        byte[] encoded = early.encode();
+        play(sim, new GameRandom(5), Long.MAX_VALUE);
+        assertArrayEquals(encoded, early.encode());
+    }
+
+    @Test
+    void rejectsCorruptedSave() {
+        byte[] data = new TowerSimulation(3).snapshotState().encode();
+        data[data.length / 2] ^= 1;
+        assertThrows(IOException.class, () -> GameSnapshot.decode(data));
+    }
+}
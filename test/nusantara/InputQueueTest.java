@@ -0,0 +1,81 @@
+package nusantara;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+/**
+ * InputQueue: banyak produsen, satu konsumen. Tidak ada perintah yang hilang atau terduplikasi,
+ * urutan per produsen tetap, dan argumen serta timestamp selalu ikut perintahnya.
+ */
+class InputQueueTest {
+
+    @Test
+    void singleThreadFifoWithArgumentsAndTimestamps() {
+        InputQueue queue = new InputQueue(3); // dibulatkan ke 4
+        assertTrue(queue.isEmpty());
+        assertEquals(TowerSimulation.CMD_NONE, queue.poll());
+
+        for (int i = 0; i < 4; i++) assertTrue(queue.offer(i, -i, 100 + i));
+        assertFalse(queue.offer(9, 0, 0), "antrean penuh harus menolak");
+
+        for (int i = 0; i < 4; i++) {
+            assertFalse(queue.isEmpty());
+            assertEquals(i, queue.poll());
+            assertEquals(-i, queue.lastArgument());
+            assertEquals(100 + i, queue.lastTimestamp());
+        }
+        assertTrue(queue.isEmpty());
+
+        // Slot yang sudah diambil bisa dipakai lagi, dan offer tanpa argumen memberi argumen 0
+        assertTrue(queue.offer(TowerSimulation.CMD_DROP, 7));
+        assertEquals(TowerSimulation.CMD_DROP, queue.poll());
+        assertEquals(0, queue.lastArgument());
+        assertEquals(7, queue.lastTimestamp());
+    }
+
+    @Test
+    void concurrentProducersLoseNothingAndKeepPerProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        InputQueue queue = new InputQueue(64);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int seq = 0; seq < perProducer; seq++) {
+                    // Argumen dan timestamp diturunkan dari (id, seq) agar slot yang robek ketahuan
+                    while (!queue.offer(id, seq, (long) id * perProducer + seq)) Thread.yield();
+                }
+            });
+            threads[p].start();
+        }
+
+        int[] next = new int[producers];
+        long received = 0;
+        start.countDown();
+        while (received < (long) producers * perProducer) {
+            int command = queue.poll();
+            if (command == TowerSimulation.CMD_NONE) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(next[command], queue.lastArgument(), "urutan produsen " + command);
+            assertEquals((long) command * perProducer + next[command], queue.lastTimestamp());
+            next[command]++;
+            received++;
+        }
+        for (Thread thread : threads) thread.join();
+        assertTrue(queue.isEmpty());
+        for (int p = 0; p < producers; p++) assertEquals(perProducer, next[p]);
+    }
+}
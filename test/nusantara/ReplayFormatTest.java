@@ -0,0 +1,214 @@
+package nusantara;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * File replay versi lama harus tetap terbaca: event disusun tangan byte demi byte persis seperti
+ * yang ditulis versi tersebut, lalu dibaca dengan Replay.Events versi sekarang.
+ */
+class ReplayFormatTest {
+
+    /** Penyusun file replay mentah dengan versi format bebas. */
+    static final class Bytes {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        /** Header versi 1-3: tanpa ukuran kota. */
+        Bytes header(int version, int flags, long seed, long totalTicks, long finalScore, int eventCount) {
+            int32(Replay.MAGIC);
+            out.write(version);
+            out.write(flags);
+            int32((int) (seed >>> 32));
+            int32((int) seed);
+            return varint(totalTicks).varint(finalScore).varint(eventCount);
+        }
+
+        /** Header versi 4: ukuran kota di antara seed dan total tick. */
+        Bytes header(int flags, long seed, long cityWidth, long cityHeight, long totalTicks, long finalScore, int eventCount) {
+            int32(Replay.MAGIC);
+            out.write(4);
+            out.write(flags);
+            int32((int) (seed >>> 32));
+            int32((int) seed);
+            return varint(cityWidth).varint(cityHeight).varint(totalTicks).varint(finalScore).varint(eventCount);
+        }
+
+        Bytes varint(long v) {
+            byte[] buffer = new byte[10];
+            out.write(buffer, 0, Replay.putVarLong(buffer, 0, v));
+            return this;
+        }
+
+        Bytes raw(int... values) {
+            for (int v : values) out.write(v);
+            return this;
+        }
+
+        private void int32(int v) {
+            raw(v >>> 24, v >>> 16, v >>> 8, v);
+        }
+
+        Replay replay() throws IOException {
+            return Replay.fromBytes(out.toByteArray());
+        }
+    }
+
+    private static void assertEvent(Replay.Events events, long tickDelta, int command, int argument) {
+        assertTrue(events.next());
+        assertEquals(tickDelta, events.tickDelta());
+        assertEquals(command, events.command());
+        assertEquals(argument, events.argument());
+    }
+
+    @Test
+    void version1DropHasNoOffsetByte() throws IOException {
+        Replay replay = new Bytes()
+                .header(1, 2, 0x1234_5678_9ABC_DEF0L, 900, 4200, 3)
+                .varint(5).raw(TowerSimulation.CMD_DROP)
+                .varint(300).raw(TowerSimulation.CMD_TOGGLE_UPGRADES)
+                .varint(0).raw(TowerSimulation.CMD_DROP)
+                .replay();
+        assertEquals(1, replay.getFormatVersion());
+        assertEquals(0x1234_5678_9ABC_DEF0L, replay.getSeed());
+        assertTrue(replay.isFinished());
+        assertFalse(replay.isEndless());
+        assertEquals(900, replay.getTotalTicks());
+        assertEquals(4200, replay.getFinalScore());
+
+        Replay.Events events = replay.events();
+        assertEvent(events, 5, TowerSimulation.CMD_DROP, 0);
+        assertEvent(events, 300, TowerSimulation.CMD_TOGGLE_UPGRADES, 0);
+        assertEvent(events, 0, TowerSimulation.CMD_DROP, 0);
+        assertFalse(events.next());
+    }
+
+    @Test
+    void version2DropCarriesSignedOffset() throws IOException {
+        Replay replay = new Bytes()
+                .header(2, 1, 7, 50, 0, 3)
+                .varint(10).raw(TowerSimulation.CMD_DROP, -64)
+                .varint(1).raw(TowerSimulation.CMD_CONFIRM)
+                .varint(2).raw(TowerSimulation.CMD_DROP, 127)
+                .replay();
+        assertTrue(replay.isEndless());
+        assertFalse(replay.isFinished());
+        Replay.Events events = replay.events();
+        assertEvent(events, 10, TowerSimulation.CMD_DROP, -64);
+        assertEvent(events, 1, TowerSimulation.CMD_CONFIRM, 0);
+        assertEvent(events, 2, TowerSimulation.CMD_DROP, 127);
+        assertFalse(events.next());
+    }
+
+    @Test
+    void version3SelectPlotCarriesVarintCell() throws IOException {
+        Replay replay = new Bytes()
+                .header(3, 4 | 2, 99, 4000, 1500, 3)
+                .varint(0).raw(TowerSimulation.CMD_SELECT_PLOT).varint(300)
+                .varint(200).raw(TowerSimulation.CMD_DROP, 3)
+                .varint(1).raw(TowerSimulation.CMD_SELECT_PLOT).varint(2)
+                .replay();
+        assertTrue(replay.isChoosePlots());
+        Replay.Events events = replay.events();
+        assertEvent(events, 0, TowerSimulation.CMD_SELECT_PLOT, 300);
+        assertEvent(events, 200, TowerSimulation.CMD_DROP, 3);
+        assertEvent(events, 1, TowerSimulation.CMD_SELECT_PLOT, 2);
+        assertFalse(events.next());
+    }
+
+    @Test
+    void version2SelectPlotHasNoArgument() throws IOException {
+        Replay replay = new Bytes()
+                .header(2, 0, 99, 10, 0, 2)
+                .varint(4).raw(TowerSimulation.CMD_SELECT_PLOT)
+                .varint(1).raw(TowerSimulation.CMD_CONFIRM)
+                .replay();
+        Replay.Events events = replay.events();
+        assertEvent(events, 4, TowerSimulation.CMD_SELECT_PLOT, 0);
+        assertEvent(events, 1, TowerSimulation.CMD_CONFIRM, 0);
+        assertFalse(events.next());
+    }
+
+    @Test
+    void choosePlotGameRoundTrips() {
+        // Pemain memilih petak: setiap penempatan direkam sebagai CMD_SELECT_PLOT dengan indeks petak
+        TowerSimulation sim = new TowerSimulation(13);
+        List<Replay> replays = new ArrayList<>();
+        sim.setChoosePlotMode(true);
+        sim.setReplayRecorder(new ReplayRecorder(replays::add));
+        InputPolicy policy = InputPolicy.aimed(10, 0.2, true);
+        GameRandom policyRandom = new GameRandom(3);
+        int selections = 0;
+        while (replays.isEmpty() && sim.getTickCount() < 60L * 60 * 30) {
+            if (sim.getTickCount() % 97 == 0) {
+                sim.handleInput(TowerSimulation.CMD_SELECT_PLOT, policyRandom.nextInt(sim.getCity().cellCount()));
+                selections++;
+            }
+            sim.handleInput(policy.nextCommand(sim, policyRandom));
+            sim.tick();
+        }
+        Replay replay = replays.get(0);
+        assertTrue(replay.isChoosePlots());
+        assertTrue(selections > 0);
+        assertTrue(ReplayPlayer.verify(replay));
+    }
+
+    @Test
+    void version1RecordingOfRealGameStillVerifies() throws IOException {
+        // Kebijakan tanpa offset: setiap CMD_DROP direkam dengan offset 0, jadi bisa ditulis ulang sebagai v1
+        Replay current = ReplayTest.playSession(21, 1, InputPolicy.aimed(10, 0.2, true)).get(0);
+        Bytes legacy = new Bytes().header(1, 2, current.getSeed(), current.getTotalTicks(),
+                current.getFinalScore(), current.getEventCount());
+        Replay.Events events = current.events();
+        while (events.next()) {
+            assertEquals(0, events.argument());
+            legacy.varint(events.tickDelta()).raw(events.command());
+        }
+        Replay v1 = legacy.replay();
+        assertEquals(1, v1.getFormatVersion());
+        assertTrue(ReplayPlayer.verify(v1));
+    }
+
+    @Test
+    void version4ReadsCitySizeAndOlderVersionsDefaultTo5x4() throws IOException {
+        Replay v4 = new Bytes().header(0, 9, 130, 70, 5, 0, 1)
+                .varint(2).raw(TowerSimulation.CMD_SELECT_PLOT).varint(9099)
+                .replay();
+        assertEquals(130, v4.getCityWidth());
+        assertEquals(70, v4.getCityHeight());
+        assertEquals(5, v4.getTotalTicks());
+        assertEvent(v4.events(), 2, TowerSimulation.CMD_SELECT_PLOT, 9099);
+
+        Replay v3 = new Bytes().header(3, 0, 9, 5, 0, 0).replay();
+        assertEquals(TowerSimulation.CITY_GRID_WIDTH, v3.getCityWidth());
+        assertEquals(TowerSimulation.CITY_GRID_HEIGHT, v3.getCityHeight());
+        assertEquals(5, v3.getTotalTicks());
+
+        Replay largest = new Bytes().header(0, 1, 1000, 1000, 0, 0, 0).replay();
+        assertEquals(Replay.MAX_CITY_CELLS, largest.getCityWidth() * largest.getCityHeight());
+    }
+
+    @Test
+    void rejectsInvalidCitySize() {
+        assertThrows(IOException.class, () -> new Bytes().header(0, 1, 0, 4, 0, 0, 0).replay());
+        assertThrows(IOException.class, () -> new Bytes().header(0, 1, 1 << 20, 1 << 20, 0, 0, 0).replay());
+        // Header 30 byte yang meminta kota puluhan GB ditolak sebelum apa pun dialokasikan
+        assertThrows(IOException.class, () -> new Bytes().header(0, 1, 46341, 46341, 0, 0, 0).replay());
+        assertThrows(IOException.class, () -> new Bytes().header(0, 1, 1001, 1000, 0, 0, 0).replay());
+        assertThrows(IOException.class, () -> new Bytes().header(0, 1, 1L << 62, 4, 0, 0, 0).replay());
+        assertThrows(IOException.class, () -> new Bytes().header(0, 1, -1L, -1L, 0, 0, 0).replay());
+    }
+
+    @Test
+    void rejectsUnknownVersions() {
+        assertThrows(IOException.class, () -> new Bytes().header(0, 0, 1, 0, 0, 0).replay());
+        assertThrows(IOException.class, () -> new Bytes().header(Replay.FORMAT_VERSION + 1, 0, 1, 0, 0, 0).replay());
+    }
+}
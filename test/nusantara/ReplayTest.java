@@ -0,0 +1,166 @@
+package nusantara;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Replay harus memainkan ulang game yang direkam sampai skor yang sama persis, termasuk
+ * game kedua dan seterusnya dalam satu sesi (setelah game sebelumnya membeli upgrade).
+ */
+class ReplayTest {
+
+    private static final long MAX_TICKS = 60L * 60 * 30;
+
+    /** Memainkan games game berturut-turut pada satu sim (Enter setelah GAME_OVER) dan mengembalikan replay-nya. */
+    static List<Replay> playSession(long seed, int games, InputPolicy policy) {
+        List<Replay> replays = new ArrayList<>();
+        TowerSimulation sim = new TowerSimulation(seed);
+        sim.setReplayRecorder(new ReplayRecorder(replays::add));
+        GameRandom policyRandom = new GameRandom(~seed);
+        while (replays.size() < games && sim.getTickCount() < MAX_TICKS) {
+            if (sim.getGameState() == GameState.GAME_OVER) {
+                sim.handleInput(TowerSimulation.CMD_CONFIRM);
+            } else {
+                sim.handleInput(policy.nextCommand(sim, policyRandom));
+            }
+            sim.tick();
+        }
+        assertEquals(games, replays.size(), "sesi tidak selesai dalam batas tick");
+        return replays;
+    }
+
+    @Test
+    void consecutiveGamesWithUpgradesVerify() {
+        List<Replay> replays = playSession(42, 3, InputPolicy.aimed(10, 0.2, true));
+        for (int i = 0; i < replays.size(); i++) {
+            Replay replay = replays.get(i);
+            assertTrue(replay.isFinished());
+            TowerSimulation replayed = ReplayPlayer.play(replay);
+            assertEquals(GameState.GAME_OVER, replayed.getGameState(), "game ke-" + (i + 1));
+            assertEquals(replay.getFinalScore(), replayed.getCurrentScore(), "game ke-" + (i + 1));
+            assertTrue(ReplayPlayer.verify(replay));
+        }
+    }
+
+    @Test
+    void newGameStartsWithoutPreviousUpgrades() {
+        TowerSimulation sim = new TowerSimulation(7);
+        int baseWidth = sim.getTower().width(0);
+        // Bermain sampai upgrade lebar balok terbeli, lalu sengaja gagal sampai GAME_OVER
+        InputPolicy policy = InputPolicy.aimed(10, 0.2, true);
+        GameRandom policyRandom = new GameRandom(1);
+        while (sim.getUpgrades().stat(UpgradeGraph.Stat.BLOCK_WIDTH) == baseWidth && sim.getTickCount() < MAX_TICKS) {
+            sim.handleInput(policy.nextCommand(sim, policyRandom));
+            sim.tick();
+        }
+        assertTrue(sim.getUpgrades().stat(UpgradeGraph.Stat.BLOCK_WIDTH) > baseWidth);
+        while (sim.getGameState() != GameState.GAME_OVER) {
+            if (sim.isShowingUpgrades() || sim.getGameState() != GameState.PLAYING) {
+                sim.handleInput(sim.isShowingUpgrades() ? TowerSimulation.CMD_TOGGLE_UPGRADES : TowerSimulation.CMD_CONFIRM);
+            } else if (!sim.isBlockFalling() && sim.getCraneX() <= TowerSimulation.CRANE_MIN_X + 5) {
+                sim.handleInput(TowerSimulation.CMD_DROP); // jauh dari pusat menara: selalu gagal
+            }
+            sim.tick();
+        }
+
+        sim.handleInput(TowerSimulation.CMD_CONFIRM);
+        assertEquals(baseWidth, sim.getUpgrades().stat(UpgradeGraph.Stat.BLOCK_WIDTH));
+        assertEquals(baseWidth, sim.getTower().width(0));
+        assertEquals(baseWidth, sim.getHangingBlock().width);
+    }
+
+    @Test
+    void largeCityGameReplaysOnSameCity() {
+        TowerSimulation sim = new TowerSimulation(17, CityGrid.rectangular(7, 4));
+        List<Replay> replays = new ArrayList<>();
+        sim.setReplayRecorder(new ReplayRecorder(replays::add));
+        InputPolicy policy = InputPolicy.aimed(10, 0.2, true);
+        GameRandom policyRandom = new GameRandom(4);
+        while (replays.isEmpty() && sim.getTickCount() < MAX_TICKS) {
+            sim.handleInput(policy.nextCommand(sim, policyRandom));
+            sim.tick();
+        }
+        Replay replay = replays.get(0);
+        assertEquals(7, replay.getCityWidth());
+        assertEquals(4, replay.getCityHeight());
+        // Lebih banyak menara daripada muat di kota 5x4: diputar di kota bawaan, skornya jauh berbeda
+        assertTrue(sim.getCity().occupiedCount() > TowerSimulation.CITY_GRID_WIDTH * TowerSimulation.CITY_GRID_HEIGHT);
+        TowerSimulation replayed = ReplayPlayer.play(replay);
+        assertEquals(28, replayed.getCity().cellCount());
+        assertEquals(replay.getFinalScore(), replayed.getCurrentScore());
+        assertTrue(ReplayPlayer.verify(replay));
+    }
+
+    @Test
+    void irregularCityIsNotRecorded() {
+        TowerSimulation sim = new TowerSimulation(17, CityGrid.parse("..#..", ".....", "#...."));
+        sim.setReplayRecorder(new ReplayRecorder(null));
+        sim.handleInput(TowerSimulation.CMD_DROP);
+        sim.tick();
+        assertEquals(null, sim.snapshotReplay());
+    }
+
+    @Test
+    void fastForwardMatchesTickByTick() {
+        for (Replay replay : playSession(5, 2, InputPolicy.aimed(15, 0.3, true))) {
+            TowerSimulation stepped = TowerSimulation.forReplay(replay);
+            Replay.Events events = replay.events();
+            long tick = 0;
+            while (events.next()) {
+                tick += events.tickDelta();
+                while (stepped.getTickCount() < tick) stepped.tick();
+                stepped.handleInput(events.command(), events.argument());
+            }
+            while (stepped.getTickCount() < replay.getTotalTicks()) stepped.tick();
+
+            TowerSimulation skipped = ReplayPlayer.play(replay);
+            assertEquals(stepped.getCurrentScore(), skipped.getCurrentScore());
+            assertEquals(stepped.getTickCount(), skipped.getTickCount());
+            assertEquals(stepped.getCraneX(), skipped.getCraneX());
+            assertEquals(stepped.getTower().size(), skipped.getTower().size());
+        }
+    }
+
+    @Test
+    void fileRoundTripKeepsHeaderAndEvents(@TempDir Path dir) throws IOException {
+        Replay replay = playSession(11, 1, InputPolicy.aimed(10, 0.2, true)).get(0);
+        Path file = dir.resolve("game" + Replay.FILE_EXTENSION);
+        replay.write(file);
+        Replay read = Replay.read(file);
+        assertArrayEquals(replay.toByteArray(), read.toByteArray());
+        assertEquals(replay.getSeed(), read.getSeed());
+        assertEquals(replay.getTotalTicks(), read.getTotalTicks());
+        assertEquals(replay.getFinalScore(), read.getFinalScore());
+        assertEquals(replay.getEventCount(), read.getEventCount());
+        assertEquals(Replay.FORMAT_VERSION, read.getFormatVersion());
+        assertTrue(ReplayPlayer.verify(read));
+    }
+
+    @Test
+    void tamperedScoreFailsVerification() throws IOException {
+        Replay replay = playSession(3, 1, InputPolicy.aimed(10, 0.2, false)).get(0);
+        byte[] events = replay.eventBytes();
+        Replay forged = Replay.encode(replay.getSeed(), replay.getCityWidth(), replay.getCityHeight(), replay.isEndless(),
+                replay.isChoosePlots(), true, replay.getTotalTicks(), replay.getFinalScore() + 10, replay.getEventCount(), events, events.length);
+        assertFalse(ReplayPlayer.verify(forged));
+    }
+
+    @Test
+    void rejectsForeignAndTruncatedFiles() {
+        assertThrows(IOException.class, () -> Replay.fromBytes(new byte[] {1, 2, 3}));
+        assertThrows(IOException.class, () -> Replay.fromBytes(new byte[20]));
+        byte[] valid = playSession(3, 1, InputPolicy.aimed(10, 0.2, false)).get(0).toByteArray();
+        assertThrows(IOException.class, () -> Replay.fromBytes(Arrays.copyOf(valid, 15)));
+    }
+}
@@ -0,0 +1,107 @@
+package nusantara;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Treap ScoreRankIndex dibandingkan dengan hitungan langsung pada array terurut, baik lewat
+ * add() satu per satu, rebuild() sekaligus, maupun campuran keduanya; lalu papan skor di disk
+ * harus memberi peringkat yang sama setelah dibuka ulang.
+ */
+class ScoreRankIndexTest {
+
+    /** Jumlah skor > score pada array terurut naik, dihitung tanpa pohon. */
+    private static long greaterIn(long[] sorted, int length, long score) {
+        long greater = 0;
+        for (int i = 0; i < length; i++) {
+            if (sorted[i] > score) greater++;
+        }
+        return greater;
+    }
+
+    private static void assertSameRanks(ScoreRankIndex index, long[] scores, int length, SplittableRandom random) {
+        long[] sorted = Arrays.copyOf(scores, length);
+        Arrays.sort(sorted);
+        assertEquals(length, index.size());
+        assertEquals(Arrays.stream(sorted).distinct().count(), index.distinct());
+        for (int i = 0; i < length; i++) {
+            assertEquals(greaterIn(sorted, length, scores[i]), index.countGreater(scores[i]));
+        }
+        for (int probe = 0; probe < 200; probe++) {
+            long score = random.nextLong(-10, 1100);
+            assertEquals(greaterIn(sorted, length, score), index.countGreater(score), "skor " + score);
+        }
+    }
+
+    @Test
+    void addMatchesSortedCountsWithManyDuplicates() {
+        SplittableRandom random = new SplittableRandom(1);
+        ScoreRankIndex index = new ScoreRankIndex();
+        long[] scores = new long[3000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextInt(1000);
+            index.add(scores[i]);
+        }
+        assertSameRanks(index, scores, scores.length, random);
+    }
+
+    @Test
+    void rebuildThenAddMatchesSortedCounts() {
+        SplittableRandom random = new SplittableRandom(2);
+        long[] scores = new long[4000];
+        for (int i = 0; i < 2500; i++) scores[i] = random.nextInt(1000);
+        ScoreRankIndex index = new ScoreRankIndex();
+        index.add(999_999); // isi lama harus dibuang oleh rebuild()
+        index.rebuild(scores, 2500);
+        assertSameRanks(index, scores, 2500, random);
+
+        // Sisipan sesudah rebuild (skor menaik, skor lama, skor di luar rentang)
+        for (int i = 2500; i < scores.length; i++) {
+            scores[i] = i % 3 == 0 ? i : random.nextInt(1100);
+            index.add(scores[i]);
+        }
+        assertSameRanks(index, scores, scores.length, random);
+    }
+
+    @Test
+    void emptyIndexHasNothingGreater() {
+        ScoreRankIndex index = new ScoreRankIndex();
+        assertEquals(0, index.size());
+        assertEquals(0, index.countGreater(Long.MIN_VALUE));
+        index.rebuild(new long[0], 0);
+        assertEquals(0, index.countGreater(0));
+    }
+
+    @Test
+    void persistentLeaderboardKeepsRanksAfterReopen(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("leaderboard.dat");
+        long[] scores = {500, 1200, 500, 80, 2000, 1200, 1200};
+        try (Leaderboard board = Leaderboard.open(file, Leaderboard.DEFAULT_TOP_K)) {
+            long[] expectedRanks = {1, 1, 2, 4, 1, 2, 2};
+            for (int i = 0; i < scores.length; i++) {
+                assertEquals(expectedRanks[i], board.submit(scores[i]), "skor ke-" + i);
+            }
+        }
+        assertEquals(8 + 12L * scores.length, Files.size(file));
+
+        try (Leaderboard board = Leaderboard.open(file, Leaderboard.DEFAULT_TOP_K)) {
+            assertEquals(scores.length, board.size());
+            assertEquals(1, board.rankOf(2000));
+            assertEquals(2, board.rankOf(1200));
+            assertEquals(5, board.rankOf(500));
+            assertEquals(7, board.rankOf(80));
+            long[] top = new long[Leaderboard.DEFAULT_TOP_K];
+            int count = board.topScores(top, new long[top.length]);
+            assertEquals(5, count);
+            assertEquals(2000, top[0]);
+            assertEquals(1200, top[1]);
+            assertEquals(500, top[4]);
+        }
+    }
+}
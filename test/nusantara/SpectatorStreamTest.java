@@ -0,0 +1,129 @@
+package nusantara;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Penonton yang menerapkan delta setiap tick harus melihat state sim yang sama, dan keyframe
+ * dari State.snapshot() harus tetap menggambarkan tick saat snapshot diambil walaupun baru
+ * disandikan setelah sim bermain jauh (seperti di thread server SpectatorServer).
+ */
+class SpectatorStreamTest {
+
+    /** Pesan tanpa prefiks panjang, seperti yang dibaca SpectatorClient. */
+    private static ByteBuffer body(ByteBuffer message) {
+        ByteBuffer copy = message.duplicate();
+        copy.position(copy.position() + 4);
+        return copy;
+    }
+
+    private static void step(TowerSimulation sim, InputPolicy policy, GameRandom random) {
+        sim.handleInput(sim.getGameState() == GameState.GAME_OVER
+                ? TowerSimulation.CMD_CONFIRM : policy.nextCommand(sim, random));
+        sim.tick();
+    }
+
+    private static void assertSameState(SpectatorStream.State expected, SpectatorStream.Decoder view) {
+        assertEquals(expected.tick, view.tick);
+        assertEquals(expected.score, view.score);
+        assertEquals(expected.lives, view.lives);
+        assertEquals(expected.craneX, view.craneX);
+        assertEquals(expected.prevCraneX, view.prevCraneX);
+        assertEquals(expected.hangingX, view.hangingX);
+        assertEquals(expected.hangingY, view.hangingY);
+        assertEquals(expected.hangingWidth, view.hangingWidth);
+        assertEquals(expected.cameraY, view.cameraY);
+        assertEquals(expected.cityCursor, view.cityCursor);
+        assertEquals(expected.tower.size(), view.tower.size());
+        for (int i = 0; i < expected.tower.size(); i++) {
+            assertEquals(expected.tower.x(i), view.tower.x(i), "balok " + i);
+            assertEquals(expected.tower.width(i), view.tower.width(i), "balok " + i);
+            assertEquals(expected.tower.type(i), view.tower.type(i), "balok " + i);
+        }
+        CityGrid city = expected.city;
+        byte[] types = new byte[city.cellCount()];
+        int[] heights = new int[city.cellCount()];
+        city.copyCells(types, heights);
+        assertEquals(city.width(), view.cityWidth);
+        assertArrayEquals(types, view.cityTypes);
+        assertArrayEquals(heights, view.cityHeights);
+        assertEquals(expected.upcomingCount, view.upcomingCount);
+        assertEquals(expected.upgradeCount, view.upgradeCount);
+    }
+
+    @Test
+    void deltaChainFollowsSimulation() throws IOException {
+        TowerSimulation sim = new TowerSimulation(42);
+        InputPolicy policy = InputPolicy.aimed(10, 0.2, true);
+        GameRandom random = new GameRandom(1);
+        SpectatorStream.Encoder encoder = new SpectatorStream.Encoder();
+        SpectatorStream.Decoder view = new SpectatorStream.Decoder();
+        int startCity = sim.getCityVersion();
+        while (sim.getCityVersion() - startCity < 3) {
+            step(sim, policy, random);
+            assertTrue(view.apply(body(encoder.delta(sim))));
+            assertTrue(view.isSynced());
+            SpectatorStream.State expected = new SpectatorStream.State();
+            expected.capture(sim);
+            assertSameState(expected, view);
+        }
+    }
+
+    @Test
+    void cityDeltasFollowChangeLogAndFallBackWhenItOverflows() throws IOException {
+        TowerSimulation sim = new TowerSimulation(3, CityGrid.rectangular(130, 70));
+        SpectatorStream.Encoder encoder = new SpectatorStream.Encoder();
+        SpectatorStream.Decoder view = new SpectatorStream.Decoder();
+        assertTrue(view.apply(body(encoder.delta(sim))));
+        SpectatorStream.State expected = new SpectatorStream.State();
+
+        // Beberapa penempatan: hanya sel itu yang dikirim, bukan 9100 sel kota
+        for (int i = 0; i < 3; i++) sim.placeTowerInCity();
+        ByteBuffer small = encoder.delta(sim);
+        assertTrue(small.remaining() < 64, "delta " + small.remaining() + " byte");
+        assertTrue(view.apply(body(small)));
+        expected.capture(sim);
+        assertSameState(expected, view);
+
+        // Lebih banyak perubahan daripada isi jurnal: dikirim ulang penuh
+        for (int i = 0; i < CityGrid.ChangeLog.CAPACITY + 100; i++) sim.placeTowerInCity();
+        assertTrue(view.apply(body(encoder.delta(sim))));
+        expected.capture(sim);
+        assertSameState(expected, view);
+
+        // Kota dikosongkan (jurnal direset), lalu terisi lagi sedikit
+        sim.clearCity();
+        sim.placeTowerInCity();
+        assertTrue(view.apply(body(encoder.delta(sim))));
+        expected.capture(sim);
+        assertSameState(expected, view);
+    }
+
+    @Test
+    void snapshotKeyframeIsUnaffectedByLaterPlay() throws IOException {
+        TowerSimulation sim = new TowerSimulation(7, CityGrid.rectangular(130, 70));
+        InputPolicy policy = InputPolicy.aimed(10, 0.2, true);
+        GameRandom random = new GameRandom(2);
+        while (sim.getTower().size() < 3 || sim.getCity().occupiedCount() == 0) step(sim, policy, random);
+
+        SpectatorStream.Encoder encoder = new SpectatorStream.Encoder();
+        ByteBuffer encodedAtOnce = encoder.keyframe(SpectatorStream.State.snapshot(sim));
+        SpectatorStream.State held = SpectatorStream.State.snapshot(sim);
+        int cityVersion = sim.getCityVersion();
+        int towerSize = sim.getTower().size();
+        // Sim terus bermain (menara tumbuh dan dipindah ke kota) sebelum keyframe disandikan
+        while (sim.getCityVersion() - cityVersion < 2 || sim.getTower().size() == towerSize) step(sim, policy, random);
+
+        ByteBuffer encodedLater = encoder.keyframe(held);
+        assertEquals(encodedAtOnce, encodedLater);
+        SpectatorStream.Decoder view = new SpectatorStream.Decoder();
+        assertTrue(view.apply(body(encodedLater)));
+        assertEquals(held.tick, view.tick);
+        assertEquals(towerSize, view.tower.size());
+    }
+}
@@ -0,0 +1,98 @@
+package nusantara;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Total sinergi inkremental SynergyEvaluator harus selalu sama dengan hitung ulang penuh,
+ * berapa pun urutan place/demolish/clear-nya, juga pada peta yang tidak persegi panjang.
+ */
+class SynergyEvaluatorTest {
+
+    private static final BlockType[] TYPES = BlockType.values();
+
+    /** Aturan tidak simetris dan mencakup pasangan sejenis, agar kedua arah suku ikut teruji. */
+    private static SynergyRules asymmetricRules() {
+        return SynergyRules.defaults()
+                .set(BlockType.TAMAN, BlockType.TAMAN, 7)
+                .set(BlockType.BISNIS, BlockType.BISNIS, 3)
+                .set(BlockType.TAMAN, BlockType.BISNIS, 11);
+    }
+
+    /** Hitung ulang dari nol tanpa CSR: setiap petak terisi menerima bonus dari 4 tetangganya. */
+    private static long bruteForceTotal(CityGrid city, SynergyRules rules) {
+        long total = 0;
+        for (int i = 0; i < city.cellCount(); i++) {
+            if (!city.isOccupied(i)) continue;
+            int x = city.xOf(i), y = city.yOf(i);
+            int[][] around = {{x, y + 1}, {x, y - 1}, {x + 1, y}, {x - 1, y}};
+            for (int[] n : around) {
+                if (n[0] < 0 || n[0] >= city.width() || n[1] < 0 || n[1] >= city.height()) continue;
+                int j = city.index(n[0], n[1]);
+                if (city.isPlot(j)) total += rules.bonus(city.typeCode(i), city.typeCode(j));
+            }
+        }
+        return total;
+    }
+
+    private static void randomEdits(CityGrid city, SynergyRules rules, long seed, int steps) {
+        SynergyEvaluator synergy = new SynergyEvaluator(city, rules);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int step = 0; step < steps; step++) {
+            int cell = random.nextInt(city.cellCount());
+            if (!city.isPlot(cell)) continue;
+            long before = synergy.total();
+            long delta;
+            if (random.nextInt(4) == 0) {
+                delta = synergy.demolish(cell);
+            } else {
+                BlockType type = TYPES[random.nextInt(TYPES.length)];
+                long predicted = synergy.deltaIfPlaced(cell, type);
+                delta = synergy.place(cell, type, 1 + random.nextInt(20));
+                assertEquals(predicted, delta, "deltaIfPlaced pada langkah " + step);
+            }
+            assertEquals(before + delta, synergy.total());
+            assertEquals(bruteForceTotal(city, rules), synergy.total(), "langkah " + step);
+            if (random.nextInt(500) == 0) {
+                synergy.clear();
+                assertEquals(0, synergy.total());
+            }
+        }
+        assertTrue(synergy.verify());
+        long incremental = synergy.total();
+        assertEquals(incremental, synergy.recomputeParallel(new ForkJoinPool(2)));
+    }
+
+    @Test
+    void incrementalTotalMatchesFullRecomputeOnRectangularCity() {
+        randomEdits(CityGrid.rectangular(9, 7), asymmetricRules(), 1, 5000);
+    }
+
+    @Test
+    void incrementalTotalMatchesFullRecomputeOnIrregularCity() {
+        CityGrid city = CityGrid.parse(
+                "..#....",
+                ". ...##",
+                "....  .",
+                "#......");
+        randomEdits(city, asymmetricRules(), 2, 5000);
+    }
+
+    @Test
+    void parallelRecomputeMatchesIncrementalOnLargeCity() {
+        // Di atas SEQUENTIAL_THRESHOLD, jadi hitung ulang benar-benar dipecah antar thread
+        CityGrid city = CityGrid.rectangular(300, 200);
+        SynergyEvaluator synergy = new SynergyEvaluator(city, asymmetricRules());
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 20000; i++) {
+            synergy.place(random.nextInt(city.cellCount()), TYPES[random.nextInt(TYPES.length)], 5);
+        }
+        long incremental = synergy.total();
+        assertEquals(bruteForceTotal(city, synergy.rules()), incremental);
+        assertEquals(incremental, synergy.recomputeParallel(new ForkJoinPool(4)));
+    }
+}
@@ -0,0 +1,142 @@
+package nusantara;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Frontier dan stat UpgradeProgress yang dijaga inkremental dibandingkan dengan hitungan
+ * langsung dari daftar prasyarat, pada graf dengan prasyarat ganda (bentuk berlian).
+ */
+class UpgradeGraphTest {
+
+    private static final List<String> DIAMOND = List.of(
+            "# akar, lalu dua cabang yang bertemu lagi",
+            "a | A | akar      | 100 |      | craneSpeed +1",
+            "b | B | akar lain |  50 |      | blockWidth +10",
+            "",
+            "c | C | cabang    | 200 | a    | blockWidth +10%",
+            "d | D | cabang    | 300 | a, b | craneSpeed +2, blockWidth -5",
+            "e | E | berlian   | 900 | c,d  | blockWidth +25%, craneSpeed +50%");
+
+    /** Prasyarat per upgrade, ditulis ulang dari DIAMOND (indeks sesuai urutan baris). */
+    private static final int[][] PREREQUISITES = {{}, {}, {0}, {0, 1}, {2, 3}};
+
+    private static int[] expectedFrontier(boolean[] purchased) {
+        return IntStream.range(0, PREREQUISITES.length)
+                .filter(u -> !purchased[u] && Arrays.stream(PREREQUISITES[u]).allMatch(p -> purchased[p]))
+                .toArray();
+    }
+
+    private static int[] sortedFrontier(UpgradeProgress progress) {
+        int[] frontier = new int[progress.frontierSize()];
+        for (int i = 0; i < frontier.length; i++) frontier[i] = progress.frontierAt(i);
+        Arrays.sort(frontier);
+        return frontier;
+    }
+
+    /** (dasar + jumlah tambahan) * (100 + jumlah persen) / 100 dari semua efek upgrade yang dibeli. */
+    private static int expectedStat(UpgradeGraph graph, boolean[] purchased, UpgradeGraph.Stat stat) {
+        long add = 0, percent = 0;
+        for (int u = 0; u < graph.size(); u++) {
+            if (!purchased[u]) continue;
+            for (int k = graph.effectStart(u); k < graph.effectEnd(u); k++) {
+                if (UpgradeGraph.statOf(graph.effectSlot(k)) != stat) continue;
+                if ((graph.effectSlot(k) & 1) == 0) add += graph.effectValue(k); else percent += graph.effectValue(k);
+            }
+        }
+        return (int) ((stat.base + add) * (100 + percent) / 100);
+    }
+
+    @Test
+    void parsesDiamondGraph() {
+        UpgradeGraph graph = UpgradeGraph.parse(DIAMOND);
+        assertEquals(5, graph.size());
+        assertEquals(3, graph.indexOf("d"));
+        assertEquals(-1, graph.indexOf("x"));
+        assertEquals(900, graph.cost(4));
+        assertEquals(2, graph.prerequisiteCount(4));
+        assertEquals(2, graph.rootCount());
+        assertEquals(0, graph.root(0));
+        assertEquals(1, graph.root(1));
+        // a membuka c dan d
+        assertEquals(2, graph.unlockEnd(0) - graph.unlockStart(0));
+    }
+
+    @Test
+    void randomPurchaseOrdersMatchDirectFrontierAndStats() {
+        UpgradeGraph graph = UpgradeGraph.parse(DIAMOND);
+        SplittableRandom random = new SplittableRandom(4);
+        for (int round = 0; round < 200; round++) {
+            UpgradeProgress progress = new UpgradeProgress(graph);
+            boolean[] purchased = new boolean[graph.size()];
+            while (true) {
+                assertArrayEquals(expectedFrontier(purchased), sortedFrontier(progress));
+                for (UpgradeGraph.Stat stat : UpgradeGraph.Stat.values()) {
+                    assertEquals(expectedStat(graph, purchased, stat), progress.stat(stat), stat.key);
+                }
+                if (progress.frontierSize() == 0) break;
+                int index = random.nextInt(progress.frontierSize());
+                int upgrade = progress.frontierAt(index);
+                progress.purchase(index);
+                purchased[upgrade] = true;
+                assertTrue(progress.isPurchased(upgrade));
+            }
+            assertEquals(graph.size(), progress.purchasedCount());
+
+            // Membeli ulang urutan pembelian (seperti memuat simpanan) selalu berhasil dan memberi stat yang sama
+            UpgradeProgress restored = new UpgradeProgress(graph);
+            for (int i = 0; i < progress.purchasedCount(); i++) assertTrue(restored.purchaseUpgrade(progress.purchasedAt(i)));
+            for (UpgradeGraph.Stat stat : UpgradeGraph.Stat.values()) assertEquals(progress.stat(stat), restored.stat(stat));
+
+            progress.reset();
+            assertEquals(0, progress.purchasedCount());
+            assertArrayEquals(new int[] {0, 1}, sortedFrontier(progress));
+            assertEquals(UpgradeGraph.Stat.BLOCK_WIDTH.base, progress.stat(UpgradeGraph.Stat.BLOCK_WIDTH));
+        }
+    }
+
+    @Test
+    void lockedUpgradeCannotBePurchased() {
+        UpgradeGraph graph = UpgradeGraph.parse(DIAMOND);
+        UpgradeProgress progress = new UpgradeProgress(graph);
+        assertFalse(progress.purchaseUpgrade(graph.indexOf("e")));
+        assertTrue(progress.purchaseUpgrade(graph.indexOf("a")));
+        assertFalse(progress.purchaseUpgrade(graph.indexOf("d")), "d masih menunggu b");
+        assertFalse(progress.purchaseUpgrade(graph.indexOf("a")), "sudah dibeli");
+        assertTrue(progress.purchaseUpgrade(graph.indexOf("b")));
+        assertTrue(progress.purchaseUpgrade(graph.indexOf("d")));
+    }
+
+    @Test
+    void rejectsMalformedFilesWithLineNumber() {
+        assertError("Baris 2", "a | A | x | 1 | | craneSpeed +1", "b | B | x | 1 | z | craneSpeed +1");
+        assertError("Baris 2", "a | A | x | 1 | | craneSpeed +1", "a | A | x | 1 | | craneSpeed +1");
+        assertError("Baris 1", "a | A | x | 1 | craneSpeed +1");
+        assertError("Baris 1", "a | A | x | -5 | | craneSpeed +1");
+        assertError("Baris 1", "a | A | x | 1 | | tinggi +1");
+        assertError("Baris 1", "a | A | x | 1 | | craneSpeed banyak");
+    }
+
+    private static void assertError(String expectedPrefix, String... lines) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> UpgradeGraph.parse(List.of(lines)));
+        assertTrue(e.getMessage().startsWith(expectedPrefix), e.getMessage());
+    }
+
+    @Test
+    void bundledGraphLoads() {
+        UpgradeGraph graph = UpgradeGraph.defaults();
+        assertTrue(graph.indexOf("balok_lebar") >= 0);
+        UpgradeProgress progress = new UpgradeProgress(graph);
+        assertTrue(progress.purchaseUpgrade(graph.indexOf("balok_lebar")));
+        assertEquals(120, progress.stat(UpgradeGraph.Stat.BLOCK_WIDTH));
+    }
+}